@@ -0,0 +1,91 @@
+package io.github.dgflagg;
+
+import io.github.dgflagg.kernel.Parallel;
+import io.github.dgflagg.kernel.StrassenKernel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Applies the application properties that tune how MatrixAlgebra runs
+ */
+@Slf4j
+@Configuration
+public class AlgebraConfig {
+
+    /**
+     * Set to false to keep every operation on the request thread
+     */
+    @Value("${matrix.parallel.enabled:true}")
+    private boolean parallelEnabled;
+
+    /**
+     * Number of threads in the matrix pool - 0 shares the common fork/join pool which is sized to the cores
+     */
+    @Value("${matrix.parallel.threads:0}")
+    private int parallelThreads;
+
+    /**
+     * Minimum number of operations in a request before the work is split across threads
+     */
+    @Value("${matrix.parallel.threshold:" + Parallel.DEFAULT_THRESHOLD + "}")
+    private long parallelThreshold;
+
+    /**
+     * Smallest size of square matrices multiplied with Strassen when a request does not ask for an algorithm
+     */
+    @Value("${matrix.strassen.threshold:" + StrassenKernel.DEFAULT_THRESHOLD + "}")
+    private int strassenThreshold;
+
+    /**
+     * Size at or below which Strassen hands its products to the classical kernel
+     */
+    @Value("${matrix.strassen.cutoff:" + StrassenKernel.DEFAULT_CUTOFF + "}")
+    private int strassenCutoff;
+
+    /**
+     * The pool created for matrix.parallel.threads - null when the common pool is shared, which is never shut down
+     */
+    private ForkJoinPool ownedPool;
+
+    @PostConstruct
+    public void configureStrassen() {
+        StrassenKernel.setThreshold(this.strassenThreshold);
+        StrassenKernel.setCutoff(this.strassenCutoff);
+
+        log.info("strassen multiplication from size: {}, cutoff: {}", this.strassenThreshold, this.strassenCutoff);
+    }
+
+    @PostConstruct
+    public void configureParallelism() {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        if(this.parallelThreads > 0) {
+            this.ownedPool = new ForkJoinPool(this.parallelThreads);
+            pool = this.ownedPool;
+        }
+
+        Parallel.setPool(pool);
+        Parallel.setThreshold(this.parallelEnabled ? this.parallelThreshold : Long.MAX_VALUE);
+
+        log.info("matrix algebra parallelism: {} threads, enabled: {}, threshold: {}",
+                pool.getParallelism(), this.parallelEnabled, this.parallelThreshold);
+    }
+
+    /**
+     * Shuts down the pool created for the application - work still submitted afterwards goes to the common pool
+     */
+    @PreDestroy
+    public void shutdownPool() {
+        if(this.ownedPool != null) {
+            Parallel.setPool(ForkJoinPool.commonPool());
+            this.ownedPool.shutdown();
+            this.ownedPool = null;
+        }
+    }
+
+}
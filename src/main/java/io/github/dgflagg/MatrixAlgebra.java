@@ -1,12 +1,27 @@
 package io.github.dgflagg;
 
+import io.github.dgflagg.decomposition.LUDecomposition;
 import io.github.dgflagg.exceptions.DimensionsNotSimilarException;
 import io.github.dgflagg.exceptions.ColumnsMustEqualRowsException;
+import io.github.dgflagg.exceptions.SingularMatrixException;
+import io.github.dgflagg.kernel.BatchKernel;
+import io.github.dgflagg.kernel.GemmKernel;
+import io.github.dgflagg.kernel.GemvKernel;
+import io.github.dgflagg.kernel.Parallel;
+import io.github.dgflagg.kernel.StrassenKernel;
+import io.github.dgflagg.model.AugmentedMatrix;
+import io.github.dgflagg.model.DenseMatrix;
+import io.github.dgflagg.model.DiagonalMatrix;
+import io.github.dgflagg.model.IdentityMatrix;
 import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.RangeMatrix;
+import io.github.dgflagg.model.SparseMatrix;
+import io.github.dgflagg.model.TriangularMatrix;
+import io.github.dgflagg.model.Vector;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.naming.OperationNotSupportedException;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -28,28 +43,34 @@ public class MatrixAlgebra {
     public static Matrix scalarMultiply(Matrix m1, double s) {
         log.info("multiplying matrix: " + m1.getName() + " by s = " + s);
 
-        List<List<Double>> numbers = new ArrayList<>();
+        //structured matrices only scale what they store and keep their structure
+        if(StructuredAlgebra.isStructured(m1)) {
+            return StructuredAlgebra.scalarMultiply(m1, s);
+        }
+
+        //only the stored values of a sparse matrix need scaling
+        if(m1 instanceof SparseMatrix) {
+            return SparseAlgebra.scalarMultiply((SparseMatrix) m1, s);
+        }
 
-        //iterate through the rows
-        for(int i = 0; i < m1.getRowCount(); i++) {
+        double[] values = m1.toDense().getData();
+        double[] numbers = new double[values.length];
 
-            List<Double> row = new ArrayList<>();
+        //iterate through the values of every row in a single pass over the row-major storage - split across threads
+        //when the matrix is large enough
+        Parallel.forRange(values.length, 1, (start, end) -> {
 
-            //iterate through the values in the row
-            for(int j = 0; j < m1.getColumnCount(); j++) {
+            for(int k = start; k < end; k++) {
 
                 //multiply the value by the scalar and add to the product numbers collection
-                Double product = m1.getNumber(i, j) * s;
-                row.add(product);
+                numbers[k] = values[k] * s;
 
             }
 
-            numbers.add(row);
-
-        }
+        });
 
         //build the product matrix to store the result numbers
-        Matrix scalarProduct = Matrix.buildMatrix(numbers);
+        Matrix scalarProduct = Matrix.buildMatrix(m1.getRowCount(), m1.getColumnCount(), numbers);
 
         return scalarProduct;
     }
@@ -72,26 +93,40 @@ public class MatrixAlgebra {
 
         }
 
-        List<List<Double>> numbers = new ArrayList<>();
+        //structured operands only visit what they store - see StructuredAlgebra
+        if(StructuredAlgebra.isStructured(m1) || StructuredAlgebra.isStructured(m2)) {
+            return StructuredAlgebra.add(m1, m2);
+        }
 
-        //iterate through the rows
-        for(int i = 0; i < m1.getRowCount(); i++) {
+        //sparse operands only visit their stored values - the sum of two sparse matrices stays sparse
+        if(m1 instanceof SparseMatrix && m2 instanceof SparseMatrix) {
+            return SparseAlgebra.add((SparseMatrix) m1, (SparseMatrix) m2);
+        }
 
-            List<Double> row = new ArrayList<>();
+        if(m1 instanceof SparseMatrix) {
+            return SparseAlgebra.add((SparseMatrix) m1, m2.toDense());
+        }
 
-            //iterate through the values in the row
-            for (int j = 0; j < m1.getColumnCount(); j++) {
+        if(m2 instanceof SparseMatrix) {
+            return SparseAlgebra.add((SparseMatrix) m2, m1.toDense());
+        }
 
-                Double sum = m1.getNumber(i, j) + m2.getNumber(i, j);
-                row.add(sum);
+        double[] m1Values = m1.toDense().getData();
+        double[] m2Values = m2.toDense().getData();
+        double[] numbers = new double[m1Values.length];
 
-            }
+        //both matrices share dimensions so the values line up index for index in row-major storage
+        Parallel.forRange(numbers.length, 1, (start, end) -> {
 
-            numbers.add(row);
+            for(int k = start; k < end; k++) {
 
-        }
+                numbers[k] = m1Values[k] + m2Values[k];
 
-        Matrix sum = Matrix.buildMatrix(numbers);
+            }
+
+        });
+
+        Matrix sum = Matrix.buildMatrix(m1.getRowCount(), m1.getColumnCount(), numbers);
 
         return sum;
     }
@@ -105,15 +140,161 @@ public class MatrixAlgebra {
     public static Matrix subtract(Matrix m1, Matrix m2) {
         log.info("subtracting matrix: " + m2.getName() + " from: " + m1.getName());
 
-        //multiply m2 by scalar -1
-        Matrix scaledM2 = MatrixAlgebra.scalarMultiply(m2, -1d);
+        if(!dimensionsEqual(m1, m2)) {
 
-        //add m1 to m2
-        Matrix difference = MatrixAlgebra.add(m1, scaledM2);
+            DimensionsNotSimilarException e = new DimensionsNotSimilarException("cannot subtract matrices - dimensions not equal");
+            log.error(e.getMessage());
+            throw e;
+
+        }
+
+        //structured and sparse operands only scale what they store so the negation is cheap and keeps their structure
+        if(StructuredAlgebra.isStructured(m1) || StructuredAlgebra.isStructured(m2)
+                || m1 instanceof SparseMatrix || m2 instanceof SparseMatrix) {
+            return MatrixAlgebra.add(m1, MatrixAlgebra.scalarMultiply(m2, -1d));
+        }
+
+        //a single fused pass - no negated copy of m2 is made
+        Matrix difference = Matrix.lazy(m1).minus(m2).materialize();
 
         return difference;
     }
 
+    /**
+     * Writes m1 + m2 into the destination rather than a new matrix - the destination may be m1 or m2
+     * Nothing is allocated when both operands are dense
+     * @param m1
+     * @param m2
+     * @param destination must have the same dimensions as m1 and m2
+     * @return the destination
+     */
+    public static DenseMatrix addInto(Matrix m1, Matrix m2, DenseMatrix destination) {
+        log.debug("adding matrix: {} to: {} into: {}", m1.getName(), m2.getName(), destination.getName());
+
+        checkDestination("add", m1, destination);
+        checkDestination("add", m2, destination);
+
+        double[] m1Values = values(m1);
+        double[] m2Values = values(m2);
+        double[] numbers = destination.getData();
+
+        Parallel.forRange(numbers.length, 1, (start, end) -> {
+            for(int k = start; k < end; k++) {
+                numbers[k] = m1Values[k] + m2Values[k];
+            }
+        });
+
+        return destination;
+    }
+
+    /**
+     * Writes m1 - m2 into the destination rather than a new matrix - the destination may be m1 or m2
+     * Nothing is allocated when both operands are dense
+     * @param m1
+     * @param m2
+     * @param destination must have the same dimensions as m1 and m2
+     * @return the destination
+     */
+    public static DenseMatrix subtractInto(Matrix m1, Matrix m2, DenseMatrix destination) {
+        log.debug("subtracting matrix: {} from: {} into: {}", m2.getName(), m1.getName(), destination.getName());
+
+        checkDestination("subtract", m1, destination);
+        checkDestination("subtract", m2, destination);
+
+        double[] m1Values = values(m1);
+        double[] m2Values = values(m2);
+        double[] numbers = destination.getData();
+
+        Parallel.forRange(numbers.length, 1, (start, end) -> {
+            for(int k = start; k < end; k++) {
+                numbers[k] = m1Values[k] - m2Values[k];
+            }
+        });
+
+        return destination;
+    }
+
+    /**
+     * Writes s times m1 into the destination rather than a new matrix - the destination may be m1
+     * @param m1
+     * @param s
+     * @param destination must have the same dimensions as m1
+     * @return the destination
+     */
+    public static DenseMatrix scaleInto(Matrix m1, double s, DenseMatrix destination) {
+        log.debug("multiplying matrix: {} by s = {} into: {}", m1.getName(), s, destination.getName());
+
+        checkDestination("scale", m1, destination);
+
+        double[] values = values(m1);
+        double[] numbers = destination.getData();
+
+        Parallel.forRange(numbers.length, 1, (start, end) -> {
+            for(int k = start; k < end; k++) {
+                numbers[k] = values[k] * s;
+            }
+        });
+
+        return destination;
+    }
+
+    /**
+     * Multiplies every value of the matrix by the scalar in place
+     * @param m1
+     * @param s
+     * @return m1
+     */
+    public static DenseMatrix scaleInPlace(DenseMatrix m1, double s) {
+        return scaleInto(m1, s, m1);
+    }
+
+    /**
+     * Adds alpha times x to y in place - y = alpha x + y
+     * Only the stored values of a sparse x are visited and nothing is allocated when x is dense or sparse
+     * @param alpha
+     * @param x
+     * @param y must have the same dimensions as x
+     * @return y
+     */
+    public static DenseMatrix axpy(double alpha, Matrix x, DenseMatrix y) {
+        log.debug("adding {} times matrix: {} to: {}", alpha, x.getName(), y.getName());
+
+        checkDestination("add", x, y);
+
+        double[] numbers = y.getData();
+
+        if(x instanceof SparseMatrix) {
+
+            SparseMatrix sparse = (SparseMatrix) x;
+            int[] rowPointers = sparse.getRowPointers();
+            int[] columnIndices = sparse.getColumnIndices();
+            double[] values = sparse.getValues();
+            int n = y.getColumnCount();
+
+            Parallel.forRange(y.getRowCount(), (long) sparse.getNonZeroCount() / Math.max(1, y.getRowCount()) + 1,
+                    (start, end) -> {
+                for(int i = start; i < end; i++) {
+                    for(int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+                        numbers[i * n + columnIndices[p]] += alpha * values[p];
+                    }
+                }
+            });
+
+            return y;
+
+        }
+
+        double[] values = values(x);
+
+        Parallel.forRange(numbers.length, 1, (start, end) -> {
+            for(int k = start; k < end; k++) {
+                numbers[k] += alpha * values[k];
+            }
+        });
+
+        return y;
+    }
+
     /**
      * Returns the dot product of two vectors of equal dimension
      * @param v1 vector
@@ -130,15 +311,14 @@ public class MatrixAlgebra {
             throw e;
         }
 
-        Double product = 0.0;
+        //accumulate in a primitive so only the final result is boxed
+        double product = 0.0;
 
         //iterate through each of the elements in both vectors
         for(int i = 0; i < v1.size(); i++) {
 
-            //multiply the elements in the corresponding positions
-            Double multRes = v1.get(i) * v2.get(i);
-            //add the result to the product total
-            product = product + multRes;
+            //multiply the elements in the corresponding positions and add the result to the product total
+            product += v1.get(i) * v2.get(i);
 
         }
 
@@ -152,6 +332,55 @@ public class MatrixAlgebra {
      * @return
      */
     public static Matrix multiply(Matrix m1, Matrix m2) {
+        return multiply(m1, m2, StrassenKernel.getThreshold());
+    }
+
+    /**
+     * Multiplies m1 by m2 with the algorithm asked for - Strassen for square matrices of the same size or the classical
+     * blocked kernel whatever the size
+     * @param m1 matrix A
+     * @param m2 matrix B
+     * @param strassen
+     * @return
+     */
+    public static Matrix multiply(Matrix m1, Matrix m2, boolean strassen) {
+        return strassen ? multiplyStrassen(m1, m2) : multiply(m1, m2, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Multiplies two square matrices of the same size with the Winograd variant of Strassen's algorithm - fewer
+     * operations than the classical kernel for large matrices at the cost of some accuracy
+     * @param m1 matrix A
+     * @param m2 matrix B
+     * @return
+     */
+    public static Matrix multiplyStrassen(Matrix m1, Matrix m2) {
+        log.info("multiplying matrix: " + m1.getName() + " by: " + m2.getName() + " with Strassen");
+
+        if(m1.getColumnCount() != m2.getRowCount()) {
+            ColumnsMustEqualRowsException e = new ColumnsMustEqualRowsException("the columns of m1 must equal the rows of m2");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        if(!m1.isSquare() || !m2.isSquare()) {
+            DimensionsNotSimilarException e = new DimensionsNotSimilarException("only square matrices of the same size can be multiplied with Strassen");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        int n = m1.getRowCount();
+        double[] numbers = new double[n * n];
+
+        StrassenKernel.multiply(values(m1), values(m2), numbers, n);
+
+        return Matrix.buildMatrix(n, n, numbers);
+    }
+
+    /**
+     * Multiplies m1 by m2 - dense square matrices of at least the size are multiplied with Strassen
+     */
+    private static Matrix multiply(Matrix m1, Matrix m2, int strassenSize) {
         log.info("multiplying matrix: " + m1.getName() + " by: " + m2.getName());
 
         //check that m1 columns are equal to m2 rows
@@ -161,30 +390,571 @@ public class MatrixAlgebra {
             throw e;
         }
 
-        List<List<Double>> numbers = new ArrayList<>();
+        //the identity is skipped, diagonal operands only scale and triangular or banded operands skip their zeroes
+        if(StructuredAlgebra.isStructured(m1) || StructuredAlgebra.isStructured(m2)) {
+            return StructuredAlgebra.multiply(m1, m2);
+        }
+
+        //sparse operands only visit their stored values
+        if(m1 instanceof SparseMatrix && m2 instanceof SparseMatrix) {
+            return SparseAlgebra.multiply((SparseMatrix) m1, (SparseMatrix) m2);
+        }
+
+        if(m1 instanceof SparseMatrix) {
+            return SparseAlgebra.multiply((SparseMatrix) m1, m2.toDense());
+        }
+
+        if(m2 instanceof SparseMatrix) {
+            return SparseAlgebra.multiply(m1.toDense(), (SparseMatrix) m2);
+        }
+
+        //past the size Strassen does less work than the classical kernel
+        if(m1.isSquare() && m2.isSquare() && m1.getRowCount() >= strassenSize) {
+            int n = m1.getRowCount();
+            double[] numbers = new double[n * n];
+            StrassenKernel.multiply(values(m1), values(m2), numbers, n);
+            return Matrix.buildMatrix(n, n, numbers);
+        }
+
+        int m = m1.getRowCount();
+        int k = m1.getColumnCount();
+        int n = m2.getColumnCount();
+        double[] numbers = new double[m * n];
+
+        //pack m2 into column order once - every row of the product then works through cache sized blocks of both
+        //operands and separate row ranges can be computed on separate threads
+        double[] m1Values = m1.toDense().getData();
+        double[] m2Columns = GemmKernel.transpose(m2.toDense().getData(), k, n);
+
+        Parallel.forRange(m, (long) k * n, (start, end) ->
+                GemmKernel.multiplyPacked(m1Values, m2Columns, numbers, start, end, k, n));
+
+        Matrix product = Matrix.buildMatrix(m, n, numbers);
+        return product;
+    }
+
+    /**
+     * Returns the dot product of two vectors of equal length - accumulated in four independent sums
+     * @param v1
+     * @param v2
+     * @return
+     */
+    public static double dotProduct(Vector v1, Vector v2) {
+        if(v1.getLength() != v2.getLength()) {
+            DimensionsNotSimilarException e = new DimensionsNotSimilarException("length of vectors must be equal to find dot product");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        return GemmKernel.dot(v1.getValues(), 0, v2.getValues(), 0, v1.getLength());
+    }
+
+    /**
+     * Returns the matrix x vector product A x x - one dot product per row of A rather than a matrix multiply with
+     * x as an n x 1 matrix
+     * @param a m x n
+     * @param x n values
+     * @return m values
+     */
+    public static Vector multiply(Matrix a, Vector x) {
+        return multiplyInto(Vector.buildZeroVector(a.getRowCount()), a, x);
+    }
+
+    /**
+     * Writes the matrix x vector product A x x into y rather than a new vector
+     * @param y m values - must not be x
+     * @param a m x n
+     * @param x n values
+     * @return y
+     */
+    public static Vector multiplyInto(Vector y, Matrix a, Vector x) {
+        log.debug("multiplying matrix: {} by vector: {}", a.getName(), x.getName());
+
+        int m = a.getRowCount();
+        int n = a.getColumnCount();
+
+        if(n != x.getLength()) {
+            ColumnsMustEqualRowsException e = new ColumnsMustEqualRowsException("the columns of the matrix must equal the length of the vector");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        if(y.getLength() != m) {
+            DimensionsNotSimilarException e = new DimensionsNotSimilarException("cannot multiply into vector: "
+                    + y.getName() + " - its length must equal the rows of the matrix");
+            log.error(e.getMessage());
+            throw e;
+        }
 
-        //iterate through rows of m1
-        for(int m1RowIndex = 0; m1RowIndex < m1.getRowCount(); m1RowIndex++) {
+        double[] xValues = x.getValues();
+        double[] yValues = y.getValues();
 
-            List<Double> m1RowVector = m1.getRow(m1RowIndex);
-            List<Double> row = new ArrayList<>();
+        //y is written as x is read - the product would be built from values it has already overwritten
+        if(xValues == yValues) {
+            IllegalArgumentException e = new IllegalArgumentException("cannot multiply a vector into itself");
+            log.error(e.getMessage());
+            throw e;
+        }
 
-            //iterate through columns of m2
-            for(int m2ColIndex = 0; m2ColIndex < m2.getColumnCount(); m2ColIndex++) {
+        if(a instanceof IdentityMatrix) {
+            System.arraycopy(xValues, 0, yValues, 0, n);
+            return y;
+        }
 
-                List<Double> m2ColVector = m2.getColumn(m2ColIndex);
-                //find the dot product of the vectors
-                Double product = MatrixAlgebra.dotProduct(m1RowVector, m2ColVector);
-                row.add(product);
+        //only the stored values of each row are visited
+        if(a instanceof SparseMatrix) {
 
+            SparseMatrix sparse = (SparseMatrix) a;
+            int[] rowPointers = sparse.getRowPointers();
+            int[] columnIndices = sparse.getColumnIndices();
+            double[] values = sparse.getValues();
+
+            Parallel.forRange(m, (long) sparse.getNonZeroCount() / Math.max(1, m) + 1, (start, end) -> {
+                for(int i = start; i < end; i++) {
+
+                    double sum = 0d;
+                    for(int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+                        sum += values[p] * xValues[columnIndices[p]];
+                    }
+                    yValues[i] = sum;
+
+                }
+            });
+
+            return y;
+
+        }
+
+        double[] aValues = values(a);
+
+        Parallel.forRange(m, n, (start, end) -> GemvKernel.multiply(aValues, xValues, yValues, start, end, n));
+
+        return y;
+    }
+
+    /**
+     * Returns the vector x matrix product x' x A - every row of A scaled by its value of x and summed
+     * @param x m values
+     * @param a m x n
+     * @return n values
+     */
+    public static Vector multiply(Vector x, Matrix a) {
+        log.debug("multiplying vector: {} by matrix: {}", x.getName(), a.getName());
+
+        int m = a.getRowCount();
+        int n = a.getColumnCount();
+
+        if(x.getLength() != m) {
+            ColumnsMustEqualRowsException e = new ColumnsMustEqualRowsException("the length of the vector must equal the rows of the matrix");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        double[] xValues = x.getValues();
+        double[] yValues = new double[n];
+
+        if(a instanceof IdentityMatrix) {
+            System.arraycopy(xValues, 0, yValues, 0, n);
+            return Vector.buildVector(yValues);
+        }
+
+        //only the stored values are visited - each row is scattered into the columns it has values in
+        if(a instanceof SparseMatrix) {
+            SparseAlgebra.multiply(xValues, (SparseMatrix) a, yValues);
+            return Vector.buildVector(yValues);
+        }
+
+        if(a instanceof RangeMatrix) {
+            StructuredAlgebra.multiply(xValues, (RangeMatrix) a, yValues);
+            return Vector.buildVector(yValues);
+        }
+
+        double[] aValues = values(a);
+
+        //split by columns so every thread writes its own part of the result
+        Parallel.forRange(n, m, (start, end) -> GemvKernel.multiplyTransposed(aValues, xValues, yValues, start, end, m, n));
+
+        return Vector.buildVector(yValues);
+    }
+
+    /**
+     * Writes A x B into C rather than a new matrix - see {@link #multiplyInto(DenseMatrix, Matrix, Matrix, double, double)}
+     * @param c
+     * @param a
+     * @param b
+     * @return C
+     */
+    public static DenseMatrix multiplyInto(DenseMatrix c, Matrix a, Matrix b) {
+        return multiplyInto(c, a, b, 1d, 0d);
+    }
+
+    /**
+     * C = alpha A x B + beta C in the style of GEMM - the product is accumulated straight into C
+     *
+     * Nothing is allocated when A and B are dense or A is sparse - B is read in its own order rather than packed, so
+     * an iterative algorithm can keep reusing the same C. A beta of 0 ignores whatever C held, even NaN.
+     * @param c m x n - must not be A or B or share their storage. Views of C that are not dense are copied first
+     * @param a m x k
+     * @param b k x n
+     * @param alpha scales the product
+     * @param beta scales what C held before
+     * @return C
+     */
+    public static DenseMatrix multiplyInto(DenseMatrix c, Matrix a, Matrix b, double alpha, double beta) {
+        log.debug("multiplying matrix: {} by: {} into: {}", a.getName(), b.getName(), c.getName());
+
+        if(a.getColumnCount() != b.getRowCount()) {
+            ColumnsMustEqualRowsException e = new ColumnsMustEqualRowsException("the columns of a must equal the rows of b");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        if(c.getRowCount() != a.getRowCount() || c.getColumnCount() != b.getColumnCount()) {
+            DimensionsNotSimilarException e = new DimensionsNotSimilarException("cannot multiply into matrix: "
+                    + c.getName() + " - it must have the rows of a and the columns of b");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        int m = a.getRowCount();
+        int k = a.getColumnCount();
+        int n = b.getColumnCount();
+        double[] numbers = c.getData();
+
+        //the values of both operands are taken before C is touched - a view of C (a transpose or a window) is copied
+        //out while it still holds the old values. A sparse A keeps its values in arrays of its own
+        double[] aValues = a instanceof SparseMatrix ? null : values(a);
+        double[] bValues = values(b);
+
+        //C is written as it is read - the product would be built from values it has already overwritten
+        if(aValues == numbers || bValues == numbers) {
+            IllegalArgumentException e = new IllegalArgumentException("cannot multiply into an operand of the product");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        if(beta == 0d) {
+            Arrays.fill(numbers, 0d);
+        } else if(beta != 1d) {
+            scaleInPlace(c, beta);
+        }
+
+        if(alpha == 0d) {
+            return c;
+        }
+
+        if(a instanceof SparseMatrix) {
+
+            SparseMatrix sparse = (SparseMatrix) a;
+            int[] rowPointers = sparse.getRowPointers();
+            int[] columnIndices = sparse.getColumnIndices();
+            double[] values = sparse.getValues();
+
+            //every stored value of A scales a row of B into the row of C
+            Parallel.forRange(m, (long) sparse.getNonZeroCount() / Math.max(1, m) * n + 1, (start, end) -> {
+                for(int i = start; i < end; i++) {
+                    for(int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+
+                        double x = alpha * values[p];
+                        int bRow = columnIndices[p] * n;
+
+                        for(int j = 0; j < n; j++) {
+                            numbers[i * n + j] += x * bValues[bRow + j];
+                        }
+
+                    }
+                }
+            });
+
+            return c;
+
+        }
+
+        Parallel.forRange(m, (long) k * n, (start, end) ->
+                GemmKernel.multiplyAccumulate(aValues, bValues, numbers, start, end, k, n, alpha));
+
+        return c;
+    }
+
+    /**
+     * Multiplies a batch of square matrices - see {@link #multiplyBatch(Matrix, Matrix, int)}
+     * @param a one square matrix per row
+     * @param b one square matrix per row
+     * @return
+     */
+    public static DenseMatrix multiplyBatch(Matrix a, Matrix b) {
+        int m = (int) Math.round(Math.sqrt(a.getColumnCount()));
+
+        if(m * m != a.getColumnCount()) {
+            DimensionsNotSimilarException e = new DimensionsNotSimilarException("the rows of a batch of square matrices must have a square number of values - "
+                    + a.getColumnCount() + " values");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        return multiplyBatch(a, b, m);
+    }
+
+    /**
+     * Multiplies many small matrices in one pass - every row of a is an m x k matrix and every row of b a k x n matrix
+     * in row-major order, and row t of the result is the m x n product of row t of a and row t of b
+     *
+     * A batch with a single row is used for every product - one transform applied to many matrices. The products
+     * are run by {@link BatchKernel} and split across threads for large batches.
+     * @param a one m x k matrix per row
+     * @param b one k x n matrix per row
+     * @param m rows of every matrix of a
+     * @return one m x n matrix per row
+     */
+    public static DenseMatrix multiplyBatch(Matrix a, Matrix b, int m) {
+        log.info("multiplying a batch of " + Math.max(a.getRowCount(), b.getRowCount()) + " matrices");
+
+        if(a.getRowCount() != b.getRowCount() && a.getRowCount() != 1 && b.getRowCount() != 1) {
+            DimensionsNotSimilarException e = new DimensionsNotSimilarException("cannot multiply batches of " + a.getRowCount()
+                    + " and " + b.getRowCount() + " matrices");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        if(m <= 0 || a.getColumnCount() == 0 || a.getColumnCount() % m != 0) {
+            DimensionsNotSimilarException e = new DimensionsNotSimilarException("the " + a.getColumnCount()
+                    + " values of a row of a are not a whole number of rows of " + m);
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        int k = a.getColumnCount() / m;
+
+        if(b.getColumnCount() % k != 0) {
+            ColumnsMustEqualRowsException e = new ColumnsMustEqualRowsException("the " + b.getColumnCount()
+                    + " values of a row of b are not a whole number of rows of the " + k + " columns of a");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        int n = b.getColumnCount() / k;
+        int count = Math.max(a.getRowCount(), b.getRowCount());
+
+        double[] aValues = values(a);
+        double[] bValues = values(b);
+        double[] numbers = new double[count * m * n];
+
+        //a batch of one has a stride of 0 so its matrix is used for every product
+        int aStride = a.getRowCount() == 1 ? 0 : m * k;
+        int bStride = b.getRowCount() == 1 ? 0 : k * n;
+
+        Parallel.forRange(count, (long) m * k * n, (start, end) ->
+                BatchKernel.multiply(aValues, aStride, bValues, bStride, numbers, start, end, m, k, n));
+
+        return Matrix.buildMatrix(count, m * n, numbers);
+    }
+
+    /**
+     * Solves the system of equations AX = B for X with an LU decomposition of A - see {@link LUDecomposition}
+     * @param a square matrix of coefficients
+     * @param b one right hand side per column - as many rows as A
+     * @return X with the same shape as B
+     */
+    public static Matrix solve(Matrix a, Matrix b) {
+        log.info("solving matrix: " + a.getName() + " for: " + b.getName());
+
+        //check the right hand side before the work of decomposing
+        if(a.getRowCount() != b.getRowCount()) {
+            DimensionsNotSimilarException e = new DimensionsNotSimilarException("the right hand side must have as many rows as the matrix of coefficients");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        return LUDecomposition.decompose(a).solve(b);
+    }
+
+    /**
+     * Solves the augmented system [A | B] for X where AX = B
+     * @param system matrix of coefficients augmented with the right hand sides
+     * @return
+     */
+    public static Matrix solve(AugmentedMatrix system) {
+        return solve(system.getLeft(), system.getRight());
+    }
+
+    /**
+     * Returns the determinant of a square matrix - the product of the diagonal for identity, diagonal and triangular
+     * matrices and the product of the diagonal of U from an LU decomposition for every other matrix
+     * @param m1
+     * @return
+     */
+    public static double determinant(Matrix m1) {
+        log.info("finding the determinant of matrix: " + m1.getName());
+
+        if(m1 instanceof IdentityMatrix) {
+            return 1d;
+        }
+
+        if(m1 instanceof DiagonalMatrix || m1 instanceof TriangularMatrix) {
+
+            double determinant = 1d;
+            for(int i = 0; i < m1.getRowCount(); i++) {
+                determinant *= m1.getNumber(i, i);
             }
+            return determinant;
 
-            numbers.add(row);
+        }
+
+        return LUDecomposition.decompose(m1).determinant();
+    }
 
+    /**
+     * Returns the inverse of a square matrix - a diagonal matrix inverts its diagonal and every other matrix solves
+     * AX = I with an LU decomposition
+     * @param m1
+     * @return
+     * @throws SingularMatrixException if the matrix has no inverse
+     */
+    public static Matrix inverse(Matrix m1) {
+        log.info("inverting matrix: " + m1.getName());
+
+        if(m1 instanceof IdentityMatrix) {
+            return Matrix.buildIdentityMatrix(m1.getRowCount());
         }
 
-        Matrix product = Matrix.buildMatrix(numbers);
-        return product;
+        if(m1 instanceof DiagonalMatrix) {
+
+            double[] diagonal = ((DiagonalMatrix) m1).getDiagonal();
+            double[] inverse = new double[diagonal.length];
+
+            for(int i = 0; i < diagonal.length; i++) {
+
+                if(diagonal[i] == 0d) {
+                    SingularMatrixException e = new SingularMatrixException("a diagonal matrix with a zero on its diagonal has no inverse");
+                    log.error(e.getMessage());
+                    throw e;
+                }
+
+                inverse[i] = 1d / diagonal[i];
+
+            }
+
+            return Matrix.buildDiagonalMatrix(inverse);
+
+        }
+
+        return LUDecomposition.decompose(m1).inverse();
+    }
+
+    /**
+     * Returns the matrix multiplied by itself k times - a negative k is a power of the inverse and 0 is the identity
+     *
+     * Worked out by repeated squaring so only about 2 log2(k) products are needed instead of k - 1. The squares and
+     * the running product are kept in the same few buffers for every product rather than a new matrix each time.
+     * @param m1 square matrix
+     * @param k
+     * @return
+     */
+    public static Matrix power(Matrix m1, int k) {
+        log.info("raising matrix: " + m1.getName() + " to the power: " + k);
+
+        if(!m1.isSquare()) {
+            ColumnsMustEqualRowsException e = new ColumnsMustEqualRowsException("only a square matrix can be raised to a power - "
+                    + m1.getRowCount() + " rows and " + m1.getColumnCount() + " columns");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        //widened so the power of the inverse for Integer.MIN_VALUE does not overflow
+        long exponent = k;
+        Matrix base = m1;
+
+        if(exponent < 0) {
+            base = inverse(m1);
+            exponent = -exponent;
+        }
+
+        int n = base.getRowCount();
+
+        if(exponent == 0 || base instanceof IdentityMatrix) {
+            return Matrix.buildIdentityMatrix(n);
+        }
+
+        //a diagonal matrix raises each value of its diagonal on its own
+        if(base instanceof DiagonalMatrix) {
+
+            double[] diagonal = ((DiagonalMatrix) base).getDiagonal();
+            double[] power = new double[n];
+            for(int i = 0; i < n; i++) {
+                power[i] = Math.pow(diagonal[i], exponent);
+            }
+            return Matrix.buildDiagonalMatrix(power);
+
+        }
+
+        double[] square = base.toDense().getData().clone();
+        double[] result = null;
+        double[] scratch = new double[n * n];
+        double[] packed = new double[n * n];
+
+        while(true) {
+
+            if((exponent & 1) == 1) {
+
+                if(result == null) {
+                    result = square.clone();
+                } else {
+                    multiplySquare(result, square, scratch, packed, n);
+                    double[] swap = result;
+                    result = scratch;
+                    scratch = swap;
+                }
+
+            }
+
+            exponent >>= 1;
+            if(exponent == 0) {
+                break;
+            }
+
+            multiplySquare(square, square, scratch, packed, n);
+            double[] swap = square;
+            square = scratch;
+            scratch = swap;
+
+        }
+
+        return Matrix.buildMatrix(n, n, result);
+    }
+
+    /**
+     * C = A x B for n x n row-major values - C must not be A or B and B is packed into the packed buffer
+     */
+    private static void multiplySquare(double[] a, double[] b, double[] c, double[] packed, int n) {
+        if(n >= StrassenKernel.getThreshold()) {
+            StrassenKernel.multiply(a, b, c, n);
+            return;
+        }
+
+        GemmKernel.transpose(b, packed, n, n);
+        Arrays.fill(c, 0d);
+
+        Parallel.forRange(n, (long) n * n, (start, end) ->
+                GemmKernel.multiplyPacked(a, packed, c, start, end, n, n));
+    }
+
+    /**
+     * Checks the destination of an operation has the dimensions of the operand
+     */
+    private static void checkDestination(String operation, Matrix operand, DenseMatrix destination) {
+        if(!dimensionsEqual(operand, destination)) {
+            DimensionsNotSimilarException e = new DimensionsNotSimilarException("cannot " + operation + " into matrix: "
+                    + destination.getName() + " - dimensions not equal");
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the row-major values of the matrix - the backing array of a dense matrix and a dense copy of any other
+     */
+    private static double[] values(Matrix matrix) {
+        return matrix instanceof DenseMatrix ? ((DenseMatrix) matrix).getData() : matrix.toDense().getData();
     }
 
     /**
@@ -222,27 +992,23 @@ public class MatrixAlgebra {
         //check that both matrices have similar row and column dimensions
         if( (m1.getRowCount() == m2.getRowCount()) && (m1.getColumnCount() == m2.getColumnCount()) ) {
 
-            //iterate through the ith rows of both matrices
-            for(int i = 0; i < m1.getRowCount(); i++) {
-
-                //only access each row once per row
-                List<Double> m1Row = m1.getRow(i);
-                List<Double> m2Row = m2.getRow(i);
+            //compare the values from both matrices - same semantics as Double.equals on every element
+            if(m1 instanceof DenseMatrix && m2 instanceof DenseMatrix) {
+                return Arrays.equals(((DenseMatrix) m1).getData(), ((DenseMatrix) m2).getData());
+            }
 
-                //iterate through the jth columns in the row
+            for(int i = 0; i < m1.getRowCount(); i++) {
                 for(int j = 0; j < m1.getColumnCount(); j++) {
 
-                    //compare the values from both matrices - if not equal return false
-                    if(!m1Row.get(j).equals(m2Row.get(j))) {
-
+                    if(Double.doubleToLongBits(m1.getNumber(i, j)) != Double.doubleToLongBits(m2.getNumber(i, j))) {
                         return false;
-
                     }
 
                 }
-
             }
 
+            return true;
+
         } else {
 
             //matrices have different dimensions - and thus are not equal
@@ -250,7 +1016,6 @@ public class MatrixAlgebra {
 
         }
 
-        return true;
     }
 
 }
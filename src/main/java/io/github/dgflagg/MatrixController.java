@@ -1,13 +1,45 @@
 package io.github.dgflagg;
 
+import io.github.dgflagg.decomposition.Factorization;
+import io.github.dgflagg.expression.ExpressionParser;
+import io.github.dgflagg.exceptions.ColumnsMustEqualRowsException;
+import io.github.dgflagg.exceptions.DimensionsNotSimilarException;
+import io.github.dgflagg.exceptions.ExpressionFormatException;
+import io.github.dgflagg.exceptions.IndexExceedsSizeException;
+import io.github.dgflagg.exceptions.MatrixChangedException;
+import io.github.dgflagg.exceptions.MatrixFormatException;
+import io.github.dgflagg.exceptions.MatrixNotFoundException;
+import io.github.dgflagg.exceptions.NegativeIndexException;
+import io.github.dgflagg.exceptions.NotPositiveDefiniteException;
+import io.github.dgflagg.exceptions.SingularMatrixException;
+import io.github.dgflagg.io.CsvMatrixReader;
+import io.github.dgflagg.io.MatrixBinaryCodec;
+import io.github.dgflagg.io.MatrixParser;
 import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.MatrixUpdate;
+import io.github.dgflagg.model.Vector;
+import io.github.dgflagg.storage.CacheStatistics;
+import io.github.dgflagg.storage.CachingMatrixRepository;
+import io.github.dgflagg.storage.FactorizationCache;
+import io.github.dgflagg.storage.MatrixRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
 
 /**
  * Created by dgflagg on 12/30/16.
@@ -19,11 +51,22 @@ public class MatrixController {
     private static final int DEFAULT_MATRIX_N = 0;
     private static final int DEFAULT_MATRIX_M = 0;
 
+    private static final String TEXT_CSV_VALUE = "text/csv";
+    private static final MediaType TEXT_CSV = MediaType.valueOf(TEXT_CSV_VALUE);
+
+    @Autowired
+    private MatrixRepository repository;
+
+    @Autowired
+    private CachingMatrixRepository matrixCache;
+
+    @Autowired
+    private FactorizationCache factorizations;
+
     //TODO: add error response codes with appropriate messages for bad input
 
-    //TODO: add option to persist to db
 
-    //TODO: this should really be a put/post request because it will write a value to the host
+    //kept for existing clients - saving writes a value to the host so new clients should POST the matrix instead
     @RequestMapping("/save")
     public String save(@RequestParam(value="name", defaultValue="m1") String m1Value,
                        @RequestParam(value="m", defaultValue="[]") String mValue) {
@@ -34,7 +77,7 @@ public class MatrixController {
         try {
             name = m1Value;
             m = Matrix.fromString(mValue);
-        } catch (NumberFormatException e) {
+        } catch (IllegalArgumentException e) {
             log.error("original error: " + e.getMessage());
             //TODO: more error handling
         }
@@ -42,27 +85,71 @@ public class MatrixController {
         //add the name provided to the matrix
         m.setName(name);
 
-        //save the matrix to a csv file
-        m.csv();
+        //save the matrix - written through to its file and kept in memory
+        this.repository.save(name, m);
+
+        //return the name of the matrix just saved
+        return m.getName();
+    }
+
+    @RequestMapping(value="/save", method=RequestMethod.POST, consumes={MediaType.APPLICATION_JSON_VALUE, TEXT_CSV_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public String save(@RequestParam(value="name", defaultValue="m1") String m1Value,
+                       HttpServletRequest request) throws IOException {
+
+        Matrix m = readOperands(request, "m")[0];
+
+        //add the name provided to the matrix
+        m.setName(m1Value);
 
-        //return the name of the matrix just saved to csv file
+        //save the matrix - written through to its file and kept in memory
+        this.repository.save(m1Value, m);
+
+        //return the name of the matrix just saved
         return m.getName();
     }
 
+    //a block of the matrix is returned when any of the ranges are given - the to indices are exclusive and missing
+    //ones run to the end of the matrix
     @RequestMapping("/retrieve")
-    public List<List<Double>> retrieve(@RequestParam(value="name", defaultValue="m1") String m1Value) {
+    public Matrix retrieve(@RequestParam(value="name", defaultValue="m1") String m1Value,
+                           @RequestParam(value="fromRow", required=false) Integer fromRow,
+                           @RequestParam(value="toRow", required=false) Integer toRow,
+                           @RequestParam(value="fromColumn", required=false) Integer fromColumn,
+                           @RequestParam(value="toColumn", required=false) Integer toColumn) {
+
+        if(fromRow != null || toRow != null || fromColumn != null || toColumn != null) {
+            //only the bytes of the block are read from storage
+            return this.repository.find(m1Value,
+                    fromRow == null ? 0 : fromRow, toRow == null ? Integer.MAX_VALUE : toRow,
+                    fromColumn == null ? 0 : fromColumn, toColumn == null ? Integer.MAX_VALUE : toColumn);
+        }
+
+        //served from memory when it was used recently - otherwise read from its file
+        Matrix matrix = this.repository.find(m1Value);
+
+        //return the values of the matrix that was saved
+        return matrix;
+    }
+
+    //changes rows, columns or cells of a saved matrix - only the changed values are sent and written
+    @RequestMapping(value="/update", method=RequestMethod.PATCH, consumes=MediaType.APPLICATION_JSON_VALUE)
+    public String update(@RequestParam(value="name", defaultValue="m1") String m1Value,
+                         @RequestBody MatrixUpdate update) {
 
-        String name = m1Value;
+        this.repository.update(m1Value, update);
 
-        //read the matrix from the csv file
-        Matrix matrix = Matrix.csv(name + ".csv");
+        //return the name of the matrix just updated
+        return m1Value;
+    }
 
-        //return the name of the matrix just saved to csv file
-        return matrix.getNumbers();
+    @RequestMapping("/cache")
+    public CacheStatistics cache() {
+        return this.matrixCache.getStatistics();
     }
 
     @RequestMapping("/id")
-    public List<List<Double>> id(@RequestParam(value="n", defaultValue="0") String nValue) {
+    public Matrix id(@RequestParam(value="n", defaultValue="0") String nValue) {
 
         int n = DEFAULT_MATRIX_N;
 
@@ -81,11 +168,11 @@ public class MatrixController {
             //TODO: more error handling
         }
 
-        return matrix.getNumbers();
+        return matrix;
     }
 
     @RequestMapping("/zero")
-    public List<List<Double>> zero(@RequestParam(value="m", defaultValue="0") String mValue,
+    public Matrix zero(@RequestParam(value="m", defaultValue="0") String mValue,
                                          @RequestParam(value="n", defaultValue="0") String nValue) {
         int m = DEFAULT_MATRIX_M;
         int n = DEFAULT_MATRIX_N;
@@ -106,11 +193,11 @@ public class MatrixController {
             //TODO: more error handling
         }
 
-        return matrix.getNumbers();
+        return matrix;
     }
 
     @RequestMapping("/augment")
-    public List<List<Double>> augment(@RequestParam(value="m", defaultValue="[]") String mValue,
+    public Matrix augment(@RequestParam(value="m", defaultValue="[]") String mValue,
                                       @RequestParam(value="c", defaultValue="[]") String cValue) {
         List<Double> c = new ArrayList<>();
         Matrix m = Matrix.buildZeroMatrix(DEFAULT_MATRIX_M,DEFAULT_MATRIX_N);
@@ -118,17 +205,29 @@ public class MatrixController {
         try {
             c = Matrix.vectorFromString(cValue);
             m = Matrix.fromString(mValue);
-        } catch (NumberFormatException e) {
+        } catch (IllegalArgumentException e) {
             log.error("original error: " + e.getMessage());
             //TODO: more error handling
         }
 
         Matrix augmentedMatrix = Matrix.buildAugmentedCoefficientColumnMatrix(m, c);
-        return augmentedMatrix.getNumbers();
+        return augmentedMatrix;
+    }
+
+    @RequestMapping(value="/augment", method=RequestMethod.POST, consumes={MediaType.APPLICATION_JSON_VALUE, TEXT_CSV_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public Matrix augment(HttpServletRequest request) throws IOException {
+        Matrix[] operands = readOperands(request, "m", "c");
+
+        //the coefficients are sent as a single row
+        List<Double> c = operands[1].getRowCount() == 0 ? new ArrayList<>() : operands[1].getRow(0);
+
+        Matrix augmentedMatrix = Matrix.buildAugmentedCoefficientColumnMatrix(operands[0], c);
+        return augmentedMatrix;
     }
 
     @RequestMapping("/scalar")
-    public List<List<Double>> scalar(@RequestParam(value="s", defaultValue="1") String sValue,
+    public Matrix scalar(@RequestParam(value="s", defaultValue="1") String sValue,
                                          @RequestParam(value="m", defaultValue="[]") String mValue) {
 
         double s = 1;  //default scalar
@@ -137,17 +236,35 @@ public class MatrixController {
         try {
             s = Double.parseDouble(sValue);
             m1 = Matrix.fromString(mValue);
-        } catch (NumberFormatException e) {
+        } catch (IllegalArgumentException e) {
             log.error("original error: " + e.getMessage());
             //TODO: more error handling
         }
 
         Matrix scalarProduct = MatrixAlgebra.scalarMultiply(m1, s);
-        return scalarProduct.getNumbers();
+        return scalarProduct;
+    }
+
+    @RequestMapping(value="/scalar", method=RequestMethod.POST, consumes={MediaType.APPLICATION_JSON_VALUE, TEXT_CSV_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public Matrix scalar(@RequestParam(value="s", defaultValue="1") String sValue,
+                                     HttpServletRequest request) throws IOException {
+
+        double s = 1;  //default scalar
+
+        try {
+            s = Double.parseDouble(sValue);
+        } catch (NumberFormatException e) {
+            log.error("original error: " + e.getMessage());
+            //TODO: more error handling
+        }
+
+        Matrix scalarProduct = MatrixAlgebra.scalarMultiply(readOperands(request, "m")[0], s);
+        return scalarProduct;
     }
 
     @RequestMapping("/add")
-    public List<List<Double>> add(@RequestParam(value="m1", defaultValue="[]") String m1Value,
+    public Matrix add(@RequestParam(value="m1", defaultValue="[]") String m1Value,
                                   @RequestParam(value="m2", defaultValue="[]") String m2Value) {
 
         Matrix m1 = Matrix.buildZeroMatrix(DEFAULT_MATRIX_M,DEFAULT_MATRIX_N);
@@ -156,17 +273,26 @@ public class MatrixController {
         try {
             m1 = Matrix.fromString(m1Value);
             m2 = Matrix.fromString(m2Value);
-        } catch (NumberFormatException e) {
+        } catch (IllegalArgumentException e) {
             log.error("original error: " + e.getMessage());
             //TODO: more error handling
         }
 
         Matrix sum = MatrixAlgebra.add(m1,m2);
-        return sum.getNumbers();
+        return sum;
+    }
+
+    @RequestMapping(value="/add", method=RequestMethod.POST, consumes={MediaType.APPLICATION_JSON_VALUE, TEXT_CSV_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public Matrix add(HttpServletRequest request) throws IOException {
+        Matrix[] operands = readOperands(request, "m1", "m2");
+
+        Matrix sum = MatrixAlgebra.add(operands[0], operands[1]);
+        return sum;
     }
 
     @RequestMapping("/subtract")
-    public List<List<Double>> subtract(@RequestParam(value="m1", defaultValue="[]") String m1Value,
+    public Matrix subtract(@RequestParam(value="m1", defaultValue="[]") String m1Value,
                                        @RequestParam(value="m2", defaultValue="[]") String m2Value) {
 
         Matrix m1 = Matrix.buildZeroMatrix(DEFAULT_MATRIX_M,DEFAULT_MATRIX_N);
@@ -175,18 +301,30 @@ public class MatrixController {
         try {
             m1 = Matrix.fromString(m1Value);
             m2 = Matrix.fromString(m2Value);
-        } catch (NumberFormatException e) {
+        } catch (IllegalArgumentException e) {
             log.error("original error: " + e.getMessage());
             //TODO: more error handling
         }
 
         Matrix difference = MatrixAlgebra.subtract(m1,m2);
-        return difference.getNumbers();
+        return difference;
     }
 
+    @RequestMapping(value="/subtract", method=RequestMethod.POST, consumes={MediaType.APPLICATION_JSON_VALUE, TEXT_CSV_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public Matrix subtract(HttpServletRequest request) throws IOException {
+        Matrix[] operands = readOperands(request, "m1", "m2");
+
+        Matrix difference = MatrixAlgebra.subtract(operands[0], operands[1]);
+        return difference;
+    }
+
+    //strassen picks the algorithm - true for Strassen, false for the classical kernel and left out to use Strassen
+    //for square matrices over the configured size
     @RequestMapping("/multiply")
-    public List<List<Double>> multiply(@RequestParam(value="m1", defaultValue="[]") String m1Value,
-                                       @RequestParam(value="m2", defaultValue="[]") String m2Value) {
+    public Matrix multiply(@RequestParam(value="m1", defaultValue="[]") String m1Value,
+                                       @RequestParam(value="m2", defaultValue="[]") String m2Value,
+                                       @RequestParam(value="strassen", required=false) Boolean strassen) {
 
         Matrix m1 = Matrix.buildZeroMatrix(DEFAULT_MATRIX_M,DEFAULT_MATRIX_N);
         Matrix m2 = Matrix.buildZeroMatrix(DEFAULT_MATRIX_M,DEFAULT_MATRIX_N);
@@ -194,13 +332,283 @@ public class MatrixController {
         try {
             m1 = Matrix.fromString(m1Value);
             m2 = Matrix.fromString(m2Value);
-        } catch (NumberFormatException e) {
+        } catch (IllegalArgumentException e) {
             log.error("original error: " + e.getMessage());
             //TODO: more error handling
         }
 
-        Matrix product = MatrixAlgebra.multiply(m1,m2);
-        return product.getNumbers();
+        Matrix product = strassen == null ? MatrixAlgebra.multiply(m1,m2) : MatrixAlgebra.multiply(m1, m2, strassen);
+        return product;
+    }
+
+    @RequestMapping(value="/multiply", method=RequestMethod.POST, consumes={MediaType.APPLICATION_JSON_VALUE, TEXT_CSV_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public Matrix multiply(HttpServletRequest request,
+                           @RequestParam(value="strassen", required=false) Boolean strassen) throws IOException {
+        Matrix[] operands = readOperands(request, "m1", "m2");
+
+        Matrix product = strassen == null ? MatrixAlgebra.multiply(operands[0], operands[1])
+                : MatrixAlgebra.multiply(operands[0], operands[1], strassen);
+        return product;
+    }
+
+    //multiplies m by the vector v - or v by m when left is true. m can instead be the name of a saved matrix. The
+    //result is a flat array of values
+    @RequestMapping("/multiply-vector")
+    public Vector multiplyVector(@RequestParam(value="m", defaultValue="[]") String mValue,
+                                 @RequestParam(value="v", defaultValue="[]") String vValue,
+                                 @RequestParam(value="name", required=false) String name,
+                                 @RequestParam(value="left", defaultValue="false") boolean left) {
+
+        Matrix m = Matrix.buildZeroMatrix(DEFAULT_MATRIX_M,DEFAULT_MATRIX_N);
+        Vector v = Vector.buildZeroVector(DEFAULT_MATRIX_N);
+
+        try {
+            if(name == null) {
+                m = Matrix.fromString(mValue);
+            }
+            v = Vector.fromString(vValue);
+        } catch (IllegalArgumentException e) {
+            log.error("original error: " + e.getMessage());
+            //TODO: more error handling
+        }
+
+        if(name != null) {
+            m = this.repository.find(name);
+        }
+
+        return left ? MatrixAlgebra.multiply(v, m) : MatrixAlgebra.multiply(m, v);
+    }
+
+    @RequestMapping(value="/multiply-vector", method=RequestMethod.POST, consumes={MediaType.APPLICATION_JSON_VALUE,
+            TEXT_CSV_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public Vector multiplyVector(HttpServletRequest request,
+                                 @RequestParam(value="name", required=false) String name,
+                                 @RequestParam(value="left", defaultValue="false") boolean left) throws IOException {
+        Matrix m;
+        Vector v;
+
+        if(name != null) {
+            m = this.repository.find(name);
+            v = Vector.buildVector(readOperands(request, "v")[0]);
+        } else {
+            Matrix[] operands = readOperands(request, "m", "v");
+            m = operands[0];
+            v = Vector.buildVector(operands[1]);
+        }
+
+        return left ? MatrixAlgebra.multiply(v, m) : MatrixAlgebra.multiply(m, v);
+    }
+
+    //multiplies many small matrices in one request - every row of a and b is a matrix packed in row-major order and
+    //every row of the result is the product of the same rows of a and b. rows is the number of rows of each matrix
+    //of a - without it every matrix is square. A single row of a or b is used for every product
+    @RequestMapping(value="/batch", method=RequestMethod.POST, consumes={MediaType.APPLICATION_JSON_VALUE, TEXT_CSV_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public Matrix batch(@RequestParam(value="rows", required=false) Integer rows,
+                        HttpServletRequest request) throws IOException {
+        Matrix[] operands = readOperands(request, "a", "b");
+
+        return rows == null ? MatrixAlgebra.multiplyBatch(operands[0], operands[1])
+                : MatrixAlgebra.multiplyBatch(operands[0], operands[1], rows);
+    }
+
+    //solves the system of equations ax = b - b is a single row of right hand side values and the solution is
+    //returned the same way. a can instead be the name of a saved matrix - its factorization is kept for the next solve
+    @RequestMapping("/solve")
+    public Matrix solve(@RequestParam(value="a", defaultValue="[]") String aValue,
+                        @RequestParam(value="b", defaultValue="[]") String bValue,
+                        @RequestParam(value="name", required=false) String name) {
+
+        Matrix b = Matrix.fromString(bValue);
+
+        if(name != null) {
+            return solveSystem(this.factorizations.factorize(name), b);
+        }
+
+        return solveSystem(Matrix.fromString(aValue), b);
+    }
+
+    @RequestMapping(value="/solve", method=RequestMethod.POST, consumes={MediaType.APPLICATION_JSON_VALUE, TEXT_CSV_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public Matrix solve(HttpServletRequest request,
+                        @RequestParam(value="name", required=false) String name) throws IOException {
+        if(name != null) {
+            return solveSystem(this.factorizations.factorize(name), readOperands(request, "b")[0]);
+        }
+
+        Matrix[] operands = readOperands(request, "a", "b");
+
+        return solveSystem(operands[0], operands[1]);
+    }
+
+    /**
+     * Solves ax = b - b is either a matrix with one right hand side per column or, like the coefficients of
+     * /augment, a single row of values that is solved as a column and returned as a row
+     */
+    private static Matrix solveSystem(Matrix a, Matrix b) {
+        return solveSystem(a.getRowCount(), b, rightHandSides -> MatrixAlgebra.solve(a, rightHandSides));
+    }
+
+    private static Matrix solveSystem(Factorization a, Matrix b) {
+        return solveSystem(a.getSize(), b, a::solve);
+    }
+
+    private static Matrix solveSystem(int rows, Matrix b, UnaryOperator<Matrix> solver) {
+        if(b.getRowCount() == 1 && b.getRowCount() != rows) {
+
+            int n = b.getColumnCount();
+            double[] values = new double[n];
+            b.copyRow(0, values);
+
+            //an n x 1 and a 1 x n matrix share the same row-major values
+            double[] x = solver.apply(Matrix.buildMatrix(n, 1, values)).toDense().getData();
+            return Matrix.buildMatrix(1, n, x);
+
+        }
+
+        return solver.apply(b);
+    }
+
+    //the determinant of m - or of the saved matrix when a name is given, reusing its factorization
+    @RequestMapping("/determinant")
+    public double determinant(@RequestParam(value="m", defaultValue="[]") String mValue,
+                              @RequestParam(value="name", required=false) String name) {
+
+        if(name != null) {
+            return this.factorizations.determinant(name);
+        }
+
+        return MatrixAlgebra.determinant(Matrix.fromString(mValue));
+    }
+
+    @RequestMapping(value="/determinant", method=RequestMethod.POST, consumes={MediaType.APPLICATION_JSON_VALUE, TEXT_CSV_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public double determinant(HttpServletRequest request,
+                              @RequestParam(value="name", required=false) String name) throws IOException {
+        if(name != null) {
+            return this.factorizations.determinant(name);
+        }
+
+        return MatrixAlgebra.determinant(readOperands(request, "m")[0]);
+    }
+
+    //the inverse of m - or of the saved matrix when a name is given, reusing its factorization
+    @RequestMapping("/inverse")
+    public Matrix inverse(@RequestParam(value="m", defaultValue="[]") String mValue,
+                          @RequestParam(value="name", required=false) String name) {
+
+        if(name != null) {
+            return this.factorizations.inverse(name);
+        }
+
+        return MatrixAlgebra.inverse(Matrix.fromString(mValue));
+    }
+
+    @RequestMapping(value="/inverse", method=RequestMethod.POST, consumes={MediaType.APPLICATION_JSON_VALUE, TEXT_CSV_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public Matrix inverse(HttpServletRequest request,
+                          @RequestParam(value="name", required=false) String name) throws IOException {
+        if(name != null) {
+            return this.factorizations.inverse(name);
+        }
+
+        return MatrixAlgebra.inverse(readOperands(request, "m")[0]);
+    }
+
+    //m multiplied by itself k times - a negative k raises the inverse of m. a k that is not an integer is a 400
+    @RequestMapping("/power")
+    public Matrix power(@RequestParam(value="m", defaultValue="[]") String mValue,
+                        @RequestParam(value="k", defaultValue="1") int k) {
+        return MatrixAlgebra.power(Matrix.fromString(mValue), k);
+    }
+
+    @RequestMapping(value="/power", method=RequestMethod.POST, consumes={MediaType.APPLICATION_JSON_VALUE, TEXT_CSV_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public Matrix power(@RequestParam(value="k", defaultValue="1") int k,
+                        HttpServletRequest request) throws IOException {
+        return MatrixAlgebra.power(readOperands(request, "m")[0], k);
+    }
+
+    //evaluates an expression such as "A * B * C + 2 * D^-1" server side - names are saved matrices and matrices may
+    //also be written out in the expression. Chains of products are multiplied in the cheapest order
+    @RequestMapping("/eval")
+    public Matrix eval(@RequestParam(value="expression") String expression) {
+        return ExpressionParser.parse(expression).evaluate(this.repository::find);
+    }
+
+    //the body holds matrices by name for the expression - {"A": [[1,2]], "B": [[3],[4]]} - any other name in the
+    //expression is a saved matrix
+    @RequestMapping(value="/eval", method=RequestMethod.POST, consumes=MediaType.APPLICATION_JSON_VALUE)
+    public Matrix eval(@RequestParam(value="expression") String expression,
+                       HttpServletRequest request) throws IOException {
+
+        MatrixParser parser = new MatrixParser(request.getReader());
+        Map<String, Matrix> operands = parser.readNamedOperands();
+        parser.readEnd();
+
+        return ExpressionParser.parse(expression).evaluate(name -> {
+            Matrix operand = operands.get(name);
+            return operand != null ? operand : this.repository.find(name);
+        });
+    }
+
+    /**
+     * Parses the operands straight out of the request body as it is read - csv text with a blank line between
+     * operands, binary matrices one after the other or a json object with one array per operand (just the array when
+     * there is only one operand)
+     * @param request
+     * @param names
+     * @return the operands in the same order as the names
+     * @throws IOException
+     */
+    private static Matrix[] readOperands(HttpServletRequest request, String... names) throws IOException {
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+
+        if(contentType.isCompatibleWith(TEXT_CSV)) {
+            return CsvMatrixReader.read(request.getInputStream(), names.length);
+        }
+
+        if(contentType.isCompatibleWith(MediaType.APPLICATION_OCTET_STREAM)) {
+            return MatrixBinaryCodec.read(request.getInputStream(), names.length);
+        }
+
+        MatrixParser parser = new MatrixParser(request.getReader());
+        Matrix[] operands = parser.readOperands(names);
+        parser.readEnd();
+        return operands;
+    }
+
+    @ExceptionHandler(MatrixNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public String matrixNotFound(MatrixNotFoundException e) {
+        return e.getMessage();
+    }
+
+    @ExceptionHandler({MatrixFormatException.class, ExpressionFormatException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String badMatrix(IllegalArgumentException e) {
+        log.error("cannot parse: " + e.getMessage());
+        return e.getMessage();
+    }
+
+    @ExceptionHandler(MatrixChangedException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public String matrixChanged(MatrixChangedException e) {
+        return e.getMessage();
+    }
+
+    @ExceptionHandler({SingularMatrixException.class, NotPositiveDefiniteException.class})
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public String singularMatrix(RuntimeException e) {
+        return e.getMessage();
+    }
+
+    @ExceptionHandler({NegativeIndexException.class, IndexExceedsSizeException.class, DimensionsNotSimilarException.class,
+            ColumnsMustEqualRowsException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String badIndices(RuntimeException e) {
+        return e.getMessage();
     }
 
 }
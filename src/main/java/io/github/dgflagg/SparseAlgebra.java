@@ -0,0 +1,378 @@
+package io.github.dgflagg;
+
+import io.github.dgflagg.kernel.Parallel;
+import io.github.dgflagg.model.DenseMatrix;
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.SparseMatrix;
+
+import java.util.Arrays;
+
+/**
+ * The MatrixAlgebra operations where at least one operand is a {@link SparseMatrix}
+ *
+ * Every operation only visits the stored values of the sparse operands. Dimensions have already been checked by
+ * MatrixAlgebra before any of these are called.
+ *
+ * Values that are not stored are never multiplied, so an infinity or NaN in the other operand only reaches the result
+ * through the stored values - the dense product would turn 0 x Inf into NaN. Zeroes of a dense operand are only
+ * skipped when the values they would multiply are all finite, and a sum of -0.0 is kept like the dense result.
+ */
+final class SparseAlgebra {
+
+    private SparseAlgebra() {
+        //don't want to instantiate this class
+    }
+
+    /**
+     * Multiplies every stored value by the scalar - the sparsity pattern is shared with the original matrix
+     */
+    static Matrix scalarMultiply(SparseMatrix m1, double s) {
+        int m = m1.getRowCount();
+
+        //nothing survives a zero scalar
+        if(s == 0d) {
+            return Matrix.buildSparseMatrix(m, m1.getColumnCount(), new int[m + 1], new int[0], new double[0]);
+        }
+
+        double[] values = m1.getValues();
+        double[] products = new double[m1.getNonZeroCount()];
+
+        for(int p = 0; p < products.length; p++) {
+            products[p] = values[p] * s;
+        }
+
+        return Matrix.buildSparseMatrix(m, m1.getColumnCount(), m1.getRowPointers(), m1.getColumnIndices(), products);
+    }
+
+    /**
+     * Adds two sparse matrices by merging the stored values of each row - the result is sparse
+     */
+    static Matrix add(SparseMatrix m1, SparseMatrix m2) {
+        int m = m1.getRowCount();
+        int[] p1 = m1.getRowPointers();
+        int[] c1 = m1.getColumnIndices();
+        double[] v1 = m1.getValues();
+        int[] p2 = m2.getRowPointers();
+        int[] c2 = m2.getColumnIndices();
+        double[] v2 = m2.getValues();
+
+        //the sum never has more stored values than both operands together
+        int capacity = m1.getNonZeroCount() + m2.getNonZeroCount();
+        int[] rowPointers = new int[m + 1];
+        int[] columnIndices = new int[capacity];
+        double[] values = new double[capacity];
+
+        int count = 0;
+        for(int i = 0; i < m; i++) {
+
+            int a = p1[i];
+            int b = p2[i];
+
+            //walk both rows in column order at the same time
+            while(a < p1[i + 1] || b < p2[i + 1]) {
+
+                int column;
+                double sum;
+
+                if(b == p2[i + 1] || (a < p1[i + 1] && c1[a] < c2[b])) {
+                    column = c1[a];
+                    sum = v1[a++];
+                } else if(a == p1[i + 1] || c2[b] < c1[a]) {
+                    column = c2[b];
+                    sum = v2[b++];
+                } else {
+                    column = c1[a];
+                    sum = v1[a++] + v2[b++];
+                }
+
+                //values that cancel out are not stored
+                if(isStored(sum)) {
+                    columnIndices[count] = column;
+                    values[count] = sum;
+                    count++;
+                }
+
+            }
+
+            rowPointers[i + 1] = count;
+
+        }
+
+        return Matrix.buildSparseMatrix(m, m1.getColumnCount(), rowPointers,
+                Arrays.copyOf(columnIndices, count), Arrays.copyOf(values, count));
+    }
+
+    /**
+     * Adds a sparse matrix to a dense one - the result is dense
+     */
+    static Matrix add(SparseMatrix m1, DenseMatrix m2) {
+        int n = m1.getColumnCount();
+        int[] rowPointers = m1.getRowPointers();
+        int[] columnIndices = m1.getColumnIndices();
+        double[] values = m1.getValues();
+
+        double[] numbers = m2.getData().clone();
+
+        for(int i = 0; i < m1.getRowCount(); i++) {
+            for(int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+                numbers[i * n + columnIndices[p]] += values[p];
+            }
+        }
+
+        return Matrix.buildMatrix(m1.getRowCount(), n, numbers);
+    }
+
+    /**
+     * Multiplies a sparse matrix by a dense one - each stored value scales a whole row of m2 into the product row
+     */
+    static Matrix multiply(SparseMatrix m1, DenseMatrix m2) {
+        int m = m1.getRowCount();
+        int n = m2.getColumnCount();
+        int[] rowPointers = m1.getRowPointers();
+        int[] columnIndices = m1.getColumnIndices();
+        double[] values = m1.getValues();
+        double[] m2Values = m2.getData();
+        double[] numbers = new double[m * n];
+
+        long operationsPerRow = m == 0 ? 0 : (long) m1.getNonZeroCount() / m * n + 1;
+
+        Parallel.forRange(m, operationsPerRow, (start, end) -> {
+
+            for(int i = start; i < end; i++) {
+
+                int row = i * n;
+
+                for(int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+
+                    double value = values[p];
+                    int k = columnIndices[p] * n;
+
+                    for(int j = 0; j < n; j++) {
+                        numbers[row + j] += value * m2Values[k + j];
+                    }
+
+                }
+
+            }
+
+        });
+
+        return Matrix.buildMatrix(m, n, numbers);
+    }
+
+    /**
+     * Multiplies a dense matrix by a sparse one - each value of m1 scales the stored values of one row of m2
+     */
+    static Matrix multiply(DenseMatrix m1, SparseMatrix m2) {
+        int m = m1.getRowCount();
+        int k = m1.getColumnCount();
+        int n = m2.getColumnCount();
+        int[] rowPointers = m2.getRowPointers();
+        int[] columnIndices = m2.getColumnIndices();
+        double[] values = m2.getValues();
+        double[] m1Values = m1.getData();
+        double[] numbers = new double[m * n];
+
+        long operationsPerRow = (long) m2.getNonZeroCount() + k;
+
+        //0 x Inf and 0 x NaN are NaN - a zero can only be skipped when it multiplies nothing but finite values
+        boolean skipZeroes = isFinite(values);
+
+        Parallel.forRange(m, operationsPerRow, (start, end) -> {
+
+            for(int i = start; i < end; i++) {
+
+                int row = i * n;
+
+                for(int p = 0; p < k; p++) {
+
+                    double value = m1Values[i * k + p];
+
+                    if(value == 0d && skipZeroes) {
+                        continue;
+                    }
+
+                    for(int q = rowPointers[p]; q < rowPointers[p + 1]; q++) {
+                        numbers[row + columnIndices[q]] += value * values[q];
+                    }
+
+                }
+
+            }
+
+        });
+
+        return Matrix.buildMatrix(m, n, numbers);
+    }
+
+    /**
+     * The vector x matrix product x' x A into y - each stored value of row i adds x[i] times itself to its column of y
+     * @param y n zeroes
+     */
+    static void multiply(double[] x, SparseMatrix a, double[] y) {
+        int[] rowPointers = a.getRowPointers();
+        int[] columnIndices = a.getColumnIndices();
+        double[] values = a.getValues();
+
+        scatterRows(a.getRowCount(), a.getNonZeroCount(), y, (start, end, partial) -> {
+            for(int i = start; i < end; i++) {
+
+                double value = x[i];
+                for(int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+                    partial[columnIndices[p]] += value * values[p];
+                }
+
+            }
+        });
+    }
+
+    /**
+     * Runs the scatter over blocks of rows - each block adds into its own partial result and the partial results are
+     * summed into y by column afterwards, so no two threads ever add into the same value. There are only as many blocks
+     * as keep the partial results within the stored values in size
+     * @param m rows to scatter
+     * @param storedCount values visited over all rows
+     * @param y n zeroes - the first block adds into it directly
+     */
+    static void scatterRows(int m, long storedCount, double[] y, RowScatter scatter) {
+        int n = y.length;
+
+        int blocks = !Parallel.isParallel(storedCount + n) ? 1
+                : (int) Math.min(Math.min(m, Parallel.getPool().getParallelism()), storedCount / Math.max(1, n));
+
+        if(blocks <= 1) {
+            scatter.run(0, m, y);
+            return;
+        }
+
+        double[][] partials = new double[blocks][];
+        partials[0] = y;
+
+        Parallel.forRange(blocks, storedCount / blocks + n, (start, end) -> {
+            for(int b = start; b < end; b++) {
+
+                if(b > 0) {
+                    partials[b] = new double[n];
+                }
+                scatter.run((int) ((long) b * m / blocks), (int) ((long) (b + 1) * m / blocks), partials[b]);
+
+            }
+        });
+
+        Parallel.forRange(n, blocks, (start, end) -> {
+            for(int b = 1; b < blocks; b++) {
+
+                double[] partial = partials[b];
+                for(int j = start; j < end; j++) {
+                    y[j] += partial[j];
+                }
+
+            }
+        });
+    }
+
+    /**
+     * Adds the rows [start, end) of a vector x matrix product into a partial result
+     */
+    @FunctionalInterface
+    interface RowScatter {
+        void run(int start, int end, double[] partial);
+    }
+
+    /**
+     * Multiplies two sparse matrices one product row at a time (Gustavson) - the result is sparse
+     */
+    static Matrix multiply(SparseMatrix m1, SparseMatrix m2) {
+        int m = m1.getRowCount();
+        int n = m2.getColumnCount();
+        int[] p1 = m1.getRowPointers();
+        int[] c1 = m1.getColumnIndices();
+        double[] v1 = m1.getValues();
+        int[] p2 = m2.getRowPointers();
+        int[] c2 = m2.getColumnIndices();
+        double[] v2 = m2.getValues();
+
+        //dense accumulator for one product row plus the row each column was last touched by
+        double[] accumulator = new double[n];
+        int[] touchedBy = new int[n];
+        Arrays.fill(touchedBy, -1);
+        int[] touched = new int[n];
+
+        int[] rowPointers = new int[m + 1];
+        int[] columnIndices = new int[Math.max(16, m1.getNonZeroCount() + m2.getNonZeroCount())];
+        double[] values = new double[columnIndices.length];
+        int count = 0;
+
+        for(int i = 0; i < m; i++) {
+
+            int touchedCount = 0;
+
+            for(int a = p1[i]; a < p1[i + 1]; a++) {
+
+                double value = v1[a];
+                int row = c1[a];
+
+                for(int b = p2[row]; b < p2[row + 1]; b++) {
+
+                    int column = c2[b];
+
+                    if(touchedBy[column] != i) {
+                        touchedBy[column] = i;
+                        accumulator[column] = value * v2[b];
+                        touched[touchedCount++] = column;
+                    } else {
+                        accumulator[column] += value * v2[b];
+                    }
+
+                }
+
+            }
+
+            //columns must be increasing within the row
+            Arrays.sort(touched, 0, touchedCount);
+
+            if(count + touchedCount > columnIndices.length) {
+                int capacity = Math.max(columnIndices.length * 2, count + touchedCount);
+                columnIndices = Arrays.copyOf(columnIndices, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+
+            for(int t = 0; t < touchedCount; t++) {
+
+                double sum = accumulator[touched[t]];
+
+                if(isStored(sum)) {
+                    columnIndices[count] = touched[t];
+                    values[count] = sum;
+                    count++;
+                }
+
+            }
+
+            rowPointers[i + 1] = count;
+
+        }
+
+        return Matrix.buildSparseMatrix(m, n, rowPointers, Arrays.copyOf(columnIndices, count), Arrays.copyOf(values, count));
+    }
+
+    /**
+     * Returns true if every value is finite - a zero multiplied by any of them is zero and can be skipped
+     */
+    static boolean isFinite(double[] values) {
+        for(double value : values) {
+            if(Double.isNaN(value) || Double.isInfinite(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Only an exact +0.0 is left out of a sparse result - cancelling values sum to +0.0 and a -0.0 is kept
+     */
+    private static boolean isStored(double sum) {
+        return Double.doubleToRawLongBits(sum) != 0L;
+    }
+
+}
@@ -0,0 +1,99 @@
+package io.github.dgflagg;
+
+import io.github.dgflagg.storage.CachingMatrixRepository;
+import io.github.dgflagg.storage.FactorizationCache;
+import io.github.dgflagg.storage.FileMatrixRepository;
+import io.github.dgflagg.storage.LogMatrixRepository;
+import io.github.dgflagg.storage.MatrixRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Applies the application properties that decide where saved matrices are kept and how many stay in memory
+ */
+@Slf4j
+@Configuration
+public class StorageConfig {
+
+    /**
+     * How saved matrices are kept - "file" for a matrix file per name or "log" for a single append-only log
+     */
+    @Value("${matrix.storage.type:file}")
+    private String storageType;
+
+    /**
+     * Directory the matrix files are kept in
+     */
+    @Value("${matrix.storage.directory:.}")
+    private String storageDirectory;
+
+    /**
+     * Size a segment of the log grows to before a new one is started
+     */
+    @Value("${matrix.storage.segment-bytes:" + LogMatrixRepository.DEFAULT_SEGMENT_BYTES + "}")
+    private long segmentBytes;
+
+    /**
+     * Most bytes of matrix values kept in memory by the cache in front of the stored matrices
+     */
+    @Value("${matrix.cache.maximum-bytes:268435456}")
+    private long cacheMaximumBytes;
+
+    /**
+     * Most bytes of LU and Cholesky decompositions of saved matrices kept for repeated solves
+     */
+    @Value("${matrix.factorization.maximum-bytes:268435456}")
+    private long factorizationMaximumBytes;
+
+    /**
+     * The cache in front of the stored matrices - not closed on its own as the factorization cache wrapping it closes it
+     * @return
+     * @throws IOException
+     */
+    @Bean(destroyMethod = "")
+    public CachingMatrixRepository matrixCache() throws IOException {
+        Path directory = Files.createDirectories(Paths.get(this.storageDirectory));
+
+        log.info("matrix storage: {}, directory: {}, cache size: {} bytes", this.storageType, directory.toAbsolutePath(),
+                this.cacheMaximumBytes);
+
+        MatrixRepository repository;
+        switch(this.storageType) {
+            case "file":
+                repository = new FileMatrixRepository(directory);
+                break;
+            case "log":
+                repository = new LogMatrixRepository(directory, this.segmentBytes);
+                break;
+            default:
+                IllegalArgumentException e = new IllegalArgumentException("unknown matrix.storage.type: " + this.storageType);
+                log.error(e.getMessage());
+                throw e;
+        }
+
+        return new CachingMatrixRepository(repository, this.cacheMaximumBytes);
+    }
+
+    /**
+     * The repository the application saves to - every save goes through the factorization cache so it never hands
+     * out the factorization of a matrix that has since changed
+     * @param matrixCache
+     * @return
+     */
+    @Bean
+    @Primary
+    public FactorizationCache matrixRepository(CachingMatrixRepository matrixCache) {
+        log.info("factorization cache size: {} bytes", this.factorizationMaximumBytes);
+
+        return new FactorizationCache(matrixCache, this.factorizationMaximumBytes);
+    }
+
+}
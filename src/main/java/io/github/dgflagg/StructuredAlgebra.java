@@ -0,0 +1,579 @@
+package io.github.dgflagg;
+
+import io.github.dgflagg.kernel.Parallel;
+import io.github.dgflagg.model.BandedMatrix;
+import io.github.dgflagg.model.ConstantMatrix;
+import io.github.dgflagg.model.DenseMatrix;
+import io.github.dgflagg.model.DiagonalMatrix;
+import io.github.dgflagg.model.IdentityMatrix;
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.RangeMatrix;
+import io.github.dgflagg.model.SparseMatrix;
+import io.github.dgflagg.model.TriangularMatrix;
+
+import java.util.Arrays;
+
+/**
+ * The MatrixAlgebra operations where at least one operand is a structured matrix - an {@link IdentityMatrix}, a
+ * {@link ConstantMatrix} or one of the {@link RangeMatrix} types
+ *
+ * A result keeps a structure whenever it has one - the product of two diagonal matrices is diagonal and the product
+ * of two lower triangular matrices is lower triangular - and only the stored values of the structured operands are
+ * visited. A dense matrix is only built when the result really is dense. Dimensions have already been checked by
+ * MatrixAlgebra before any of these are called.
+ *
+ * Like the sparse operations the zeroes outside the stored values are never multiplied, so an infinity or NaN in the
+ * other operand only reaches the result through the stored values. Stored zeroes are only skipped when the values
+ * they would multiply are all finite.
+ */
+final class StructuredAlgebra {
+
+    private StructuredAlgebra() {
+        //don't want to instantiate this class
+    }
+
+    /**
+     * Returns true if the matrix is one of the structured matrices handled here
+     */
+    static boolean isStructured(Matrix matrix) {
+        return matrix instanceof IdentityMatrix || matrix instanceof ConstantMatrix || matrix instanceof RangeMatrix;
+    }
+
+    /**
+     * Scales the stored values - the result has the same structure as the matrix
+     */
+    static Matrix scalarMultiply(Matrix m1, double s) {
+        if(m1 instanceof IdentityMatrix) {
+            double[] diagonal = new double[m1.getRowCount()];
+            Arrays.fill(diagonal, s);
+            return Matrix.buildDiagonalMatrix(diagonal);
+        }
+
+        if(m1 instanceof ConstantMatrix) {
+            return Matrix.buildValueMatrix(m1.getRowCount(), m1.getColumnCount(), ((ConstantMatrix) m1).getValue() * s);
+        }
+
+        RangeMatrix range = (RangeMatrix) m1;
+        double[] values = range.getValues();
+        double[] products = new double[values.length];
+
+        for(int p = 0; p < products.length; p++) {
+            products[p] = values[p] * s;
+        }
+
+        return range.withValues(products);
+    }
+
+    /**
+     * Adds two matrices where at least one is structured - the sum keeps a structure when one of the operands covers
+     * the other or both are banded, a sparse operand stays sparse and otherwise the structured operand is added into
+     * a dense copy of the other
+     */
+    static Matrix add(Matrix m1, Matrix m2) {
+        int m = m1.getRowCount();
+        int n = m1.getColumnCount();
+
+        //once a value is added to it the identity is a diagonal of ones
+        if(m1 instanceof IdentityMatrix) {
+            m1 = ones(m);
+        }
+
+        if(m2 instanceof IdentityMatrix) {
+            m2 = ones(m);
+        }
+
+        if(m1 instanceof ConstantMatrix && m2 instanceof ConstantMatrix) {
+            return Matrix.buildValueMatrix(m, n, ((ConstantMatrix) m1).getValue() + ((ConstantMatrix) m2).getValue());
+        }
+
+        if(m1 instanceof RangeMatrix && m2 instanceof RangeMatrix) {
+
+            RangeMatrix sum = sumShape((RangeMatrix) m1, (RangeMatrix) m2);
+
+            if(sum != null) {
+                addRanges((RangeMatrix) m1, sum);
+                addRanges((RangeMatrix) m2, sum);
+                return sum;
+            }
+
+        }
+
+        //the sum has no structure of its own
+        Matrix structured = isStructured(m1) ? m1 : m2;
+        Matrix other = structured == m1 ? m2 : m1;
+
+        if(other instanceof SparseMatrix && structured instanceof RangeMatrix) {
+            return SparseAlgebra.add((SparseMatrix) other, toSparse((RangeMatrix) structured));
+        }
+
+        double[] numbers = denseCopy(other);
+
+        if(structured instanceof ConstantMatrix) {
+
+            double value = ((ConstantMatrix) structured).getValue();
+            for(int p = 0; p < numbers.length; p++) {
+                numbers[p] += value;
+            }
+
+        } else {
+
+            addRanges((RangeMatrix) structured, numbers, n);
+
+        }
+
+        return Matrix.buildMatrix(m, n, numbers);
+    }
+
+    /**
+     * Multiplies two matrices where at least one is structured - the identity is skipped entirely, a constant
+     * operand only needs the row or column sums of the other and a range operand only visits the columns it stores
+     */
+    static Matrix multiply(Matrix m1, Matrix m2) {
+        int m = m1.getRowCount();
+        int k = m1.getColumnCount();
+        int n = m2.getColumnCount();
+
+        //multiplying by the identity changes nothing
+        if(m1 instanceof IdentityMatrix) {
+            return copy(m2);
+        }
+
+        if(m2 instanceof IdentityMatrix) {
+            return copy(m1);
+        }
+
+        if(m1 instanceof ConstantMatrix && m2 instanceof ConstantMatrix) {
+            return Matrix.buildValueMatrix(m, n, ((ConstantMatrix) m1).getValue() * ((ConstantMatrix) m2).getValue() * k);
+        }
+
+        if(m1 instanceof ConstantMatrix) {
+            return multiply((ConstantMatrix) m1, m2);
+        }
+
+        if(m2 instanceof ConstantMatrix) {
+            return multiply(m1, (ConstantMatrix) m2);
+        }
+
+        //from here on at least one operand is a range matrix
+        if(m1 instanceof RangeMatrix && m2 instanceof RangeMatrix) {
+
+            RangeMatrix product = productShape((RangeMatrix) m1, (RangeMatrix) m2);
+
+            if(product != null) {
+                multiplyRanges((RangeMatrix) m1, (RangeMatrix) m2, product);
+                return product;
+            }
+
+        }
+
+        if(m1 instanceof RangeMatrix) {
+
+            if(m2 instanceof SparseMatrix) {
+                return SparseAlgebra.multiply(toSparse((RangeMatrix) m1), (SparseMatrix) m2);
+            }
+
+            return Matrix.buildMatrix(m, n, multiplyRanges((RangeMatrix) m1, m2.toDense().getData(), n));
+        }
+
+        if(m1 instanceof SparseMatrix) {
+            return SparseAlgebra.multiply((SparseMatrix) m1, toSparse((RangeMatrix) m2));
+        }
+
+        return Matrix.buildMatrix(m, n, multiplyRanges(m1.toDense().getData(), m, k, (RangeMatrix) m2));
+    }
+
+    /**
+     * Every row of the product is the value times the column sums of m2
+     */
+    private static Matrix multiply(ConstantMatrix m1, Matrix m2) {
+        int m = m1.getRowCount();
+        int n = m2.getColumnCount();
+        double value = m1.getValue();
+
+        double[] columnSums = new double[n];
+        double[] row = new double[n];
+
+        for(int i = 0; i < m2.getRowCount(); i++) {
+            m2.copyRow(i, row);
+            for(int j = 0; j < n; j++) {
+                columnSums[j] += row[j];
+            }
+        }
+
+        for(int j = 0; j < n; j++) {
+            columnSums[j] *= value;
+        }
+
+        double[] numbers = new double[m * n];
+        for(int i = 0; i < m; i++) {
+            System.arraycopy(columnSums, 0, numbers, i * n, n);
+        }
+
+        return Matrix.buildMatrix(m, n, numbers);
+    }
+
+    /**
+     * Every value of row i of the product is the value times the sum of row i of m1
+     */
+    private static Matrix multiply(Matrix m1, ConstantMatrix m2) {
+        int m = m1.getRowCount();
+        int k = m1.getColumnCount();
+        int n = m2.getColumnCount();
+        double value = m2.getValue();
+
+        double[] numbers = new double[m * n];
+        double[] row = new double[k];
+
+        for(int i = 0; i < m; i++) {
+
+            m1.copyRow(i, row);
+
+            double sum = 0d;
+            for(int p = 0; p < k; p++) {
+                sum += row[p];
+            }
+
+            Arrays.fill(numbers, i * n, (i + 1) * n, sum * value);
+
+        }
+
+        return Matrix.buildMatrix(m, n, numbers);
+    }
+
+    /**
+     * Multiplies two range matrices into a range matrix that has room for every value of the product
+     */
+    private static void multiplyRanges(RangeMatrix m1, RangeMatrix m2, RangeMatrix product) {
+        int m = m1.getRowCount();
+        double[] m1Values = m1.getValues();
+        double[] m2Values = m2.getValues();
+        double[] numbers = product.getValues();
+
+        long operationsPerRow = m == 0 ? 0 : (long) m1Values.length / m * (m2Values.length / Math.max(1, m2.getRowCount())) + 1;
+
+        //0 x Inf and 0 x NaN are NaN - a zero can only be skipped when it multiplies nothing but finite values
+        boolean skipZeroes = SparseAlgebra.isFinite(m2Values);
+
+        Parallel.forRange(m, operationsPerRow, (start, end) -> {
+
+            for(int i = start; i < end; i++) {
+
+                //index of column 0 of the row in each values array - only the stored columns are ever added to it
+                int row = product.getRowOffset(i) - product.getFirstColumn(i);
+                int m1Row = m1.getRowOffset(i) - m1.getFirstColumn(i);
+
+                for(int p = m1.getFirstColumn(i); p < m1.getEndColumn(i); p++) {
+
+                    double value = m1Values[m1Row + p];
+
+                    if(value == 0d && skipZeroes) {
+                        continue;
+                    }
+
+                    int m2Row = m2.getRowOffset(p) - m2.getFirstColumn(p);
+
+                    for(int j = m2.getFirstColumn(p); j < m2.getEndColumn(p); j++) {
+                        numbers[row + j] += value * m2Values[m2Row + j];
+                    }
+
+                }
+
+            }
+
+        });
+    }
+
+    /**
+     * The vector x matrix product x' x A into y - only the stored range of each row of A is added into y
+     * @param y n zeroes
+     */
+    static void multiply(double[] x, RangeMatrix a, double[] y) {
+        double[] values = a.getValues();
+
+        SparseAlgebra.scatterRows(a.getRowCount(), values.length, y, (start, end, partial) -> {
+            for(int i = start; i < end; i++) {
+
+                double value = x[i];
+                int row = a.getRowOffset(i) - a.getFirstColumn(i);
+
+                for(int j = a.getFirstColumn(i); j < a.getEndColumn(i); j++) {
+                    partial[j] += value * values[row + j];
+                }
+
+            }
+        });
+    }
+
+    /**
+     * Multiplies a range matrix by a dense one - each stored value scales a whole row of m2 into the product row
+     */
+    private static double[] multiplyRanges(RangeMatrix m1, double[] m2Values, int n) {
+        int m = m1.getRowCount();
+        double[] m1Values = m1.getValues();
+        double[] numbers = new double[m * n];
+
+        long operationsPerRow = m == 0 ? 0 : (long) m1Values.length / m * n + 1;
+
+        //0 x Inf and 0 x NaN are NaN - a zero can only be skipped when it multiplies nothing but finite values
+        boolean skipZeroes = SparseAlgebra.isFinite(m2Values);
+
+        Parallel.forRange(m, operationsPerRow, (start, end) -> {
+
+            for(int i = start; i < end; i++) {
+
+                int row = i * n;
+                int m1Row = m1.getRowOffset(i) - m1.getFirstColumn(i);
+
+                for(int p = m1.getFirstColumn(i); p < m1.getEndColumn(i); p++) {
+
+                    double value = m1Values[m1Row + p];
+
+                    if(value == 0d && skipZeroes) {
+                        continue;
+                    }
+
+                    int k = p * n;
+
+                    for(int j = 0; j < n; j++) {
+                        numbers[row + j] += value * m2Values[k + j];
+                    }
+
+                }
+
+            }
+
+        });
+
+        return numbers;
+    }
+
+    /**
+     * Multiplies a dense matrix by a range matrix - each value of m1 scales the stored values of one row of m2
+     */
+    private static double[] multiplyRanges(double[] m1Values, int m, int k, RangeMatrix m2) {
+        int n = m2.getColumnCount();
+        double[] m2Values = m2.getValues();
+        double[] numbers = new double[m * n];
+
+        long operationsPerRow = (long) m2Values.length + k;
+
+        //0 x Inf and 0 x NaN are NaN - a zero can only be skipped when it multiplies nothing but finite values
+        boolean skipZeroes = SparseAlgebra.isFinite(m2Values);
+
+        Parallel.forRange(m, operationsPerRow, (start, end) -> {
+
+            for(int i = start; i < end; i++) {
+
+                int row = i * n;
+
+                for(int p = 0; p < k; p++) {
+
+                    double value = m1Values[i * k + p];
+
+                    if(value == 0d && skipZeroes) {
+                        continue;
+                    }
+
+                    int m2Row = m2.getRowOffset(p) - m2.getFirstColumn(p);
+
+                    for(int j = m2.getFirstColumn(p); j < m2.getEndColumn(p); j++) {
+                        numbers[row + j] += value * m2Values[m2Row + j];
+                    }
+
+                }
+
+            }
+
+        });
+
+        return numbers;
+    }
+
+    /**
+     * Returns an empty range matrix with room for every value of m1 + m2 - null when the sum has no such structure
+     */
+    private static RangeMatrix sumShape(RangeMatrix m1, RangeMatrix m2) {
+        if(covers(m1, m2)) {
+            return empty(m1);
+        }
+
+        if(covers(m2, m1)) {
+            return empty(m2);
+        }
+
+        if(m1 instanceof BandedMatrix && m2 instanceof BandedMatrix) {
+            BandedMatrix b1 = (BandedMatrix) m1;
+            BandedMatrix b2 = (BandedMatrix) m2;
+            return band(m1.getRowCount(), m1.getColumnCount(),
+                    Math.max(b1.getLowerBandwidth(), b2.getLowerBandwidth()),
+                    Math.max(b1.getUpperBandwidth(), b2.getUpperBandwidth()));
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns an empty range matrix with room for every value of m1 x m2 - null when the product has no such structure
+     */
+    private static RangeMatrix productShape(RangeMatrix m1, RangeMatrix m2) {
+        //scaling the rows or columns of a matrix does not move any of its values
+        if(m1 instanceof DiagonalMatrix) {
+            return empty(m2);
+        }
+
+        if(m2 instanceof DiagonalMatrix) {
+            return empty(m1);
+        }
+
+        if(m1 instanceof TriangularMatrix && m2 instanceof TriangularMatrix
+                && ((TriangularMatrix) m1).isUpper() == ((TriangularMatrix) m2).isUpper()) {
+            return empty(m1);
+        }
+
+        if(m1 instanceof BandedMatrix && m2 instanceof BandedMatrix) {
+            BandedMatrix b1 = (BandedMatrix) m1;
+            BandedMatrix b2 = (BandedMatrix) m2;
+            int m = m1.getRowCount();
+            int n = m2.getColumnCount();
+            return band(m, n, Math.max(0, Math.min(b1.getLowerBandwidth() + b2.getLowerBandwidth(), m - 1)),
+                    Math.max(0, Math.min(b1.getUpperBandwidth() + b2.getUpperBandwidth(), n - 1)));
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns true if every range of the second matrix is inside the range of the same row of the first
+     */
+    private static boolean covers(RangeMatrix outer, RangeMatrix inner) {
+        for(int i = 0; i < inner.getRowCount(); i++) {
+
+            int first = inner.getFirstColumn(i);
+            int end = inner.getEndColumn(i);
+
+            if(first < end && (first < outer.getFirstColumn(i) || end > outer.getEndColumn(i))) {
+                return false;
+            }
+
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds the stored values of the range matrix into the range matrix sum - the sum must cover the matrix
+     */
+    private static void addRanges(RangeMatrix matrix, RangeMatrix sum) {
+        double[] values = matrix.getValues();
+        double[] numbers = sum.getValues();
+
+        for(int i = 0; i < matrix.getRowCount(); i++) {
+
+            int first = matrix.getFirstColumn(i);
+            int offset = matrix.getRowOffset(i);
+            int row = sum.getRowOffset(i) - sum.getFirstColumn(i) + first;
+
+            for(int p = 0; p < matrix.getEndColumn(i) - first; p++) {
+                numbers[row + p] += values[offset + p];
+            }
+
+        }
+    }
+
+    /**
+     * Adds the stored values of the range matrix into the row-major values of a dense matrix with n columns
+     */
+    private static void addRanges(RangeMatrix matrix, double[] numbers, int n) {
+        double[] values = matrix.getValues();
+
+        for(int i = 0; i < matrix.getRowCount(); i++) {
+
+            int first = matrix.getFirstColumn(i);
+            int offset = matrix.getRowOffset(i);
+            int row = i * n + first;
+
+            for(int p = 0; p < matrix.getEndColumn(i) - first; p++) {
+                numbers[row + p] += values[offset + p];
+            }
+
+        }
+    }
+
+    /**
+     * Copies the non-zero stored values of the range matrix into a compressed sparse row matrix
+     */
+    private static SparseMatrix toSparse(RangeMatrix matrix) {
+        int m = matrix.getRowCount();
+        double[] stored = matrix.getValues();
+
+        int[] rowPointers = new int[m + 1];
+        int[] columnIndices = new int[stored.length];
+        double[] values = new double[stored.length];
+
+        int count = 0;
+        for(int i = 0; i < m; i++) {
+
+            int first = matrix.getFirstColumn(i);
+            int offset = matrix.getRowOffset(i) - first;
+
+            for(int j = first; j < matrix.getEndColumn(i); j++) {
+                if(stored[offset + j] != 0d) {
+                    columnIndices[count] = j;
+                    values[count] = stored[offset + j];
+                    count++;
+                }
+            }
+
+            rowPointers[i + 1] = count;
+
+        }
+
+        return Matrix.buildSparseMatrix(m, matrix.getColumnCount(), rowPointers, columnIndices, values);
+    }
+
+    /**
+     * Returns a copy of the matrix that keeps its structure
+     */
+    private static Matrix copy(Matrix matrix) {
+        if(matrix instanceof IdentityMatrix) {
+            return Matrix.buildIdentityMatrix(matrix.getRowCount());
+        }
+
+        if(matrix instanceof ConstantMatrix) {
+            return Matrix.buildValueMatrix(matrix.getRowCount(), matrix.getColumnCount(), ((ConstantMatrix) matrix).getValue());
+        }
+
+        if(matrix instanceof RangeMatrix) {
+            return ((RangeMatrix) matrix).withValues(((RangeMatrix) matrix).getValues().clone());
+        }
+
+        return matrix.submatrix(0, matrix.getRowCount(), 0, matrix.getColumnCount());
+    }
+
+    /**
+     * Returns the values of the matrix in a new row-major array that can be written to
+     */
+    private static double[] denseCopy(Matrix matrix) {
+        if(matrix instanceof DenseMatrix) {
+            return ((DenseMatrix) matrix).getData().clone();
+        }
+
+        return matrix.toDense().getData();
+    }
+
+    private static RangeMatrix empty(RangeMatrix shape) {
+        return shape.withValues(new double[shape.getValues().length]);
+    }
+
+    private static RangeMatrix band(int m, int n, int lowerBandwidth, int upperBandwidth) {
+        return Matrix.buildBandedMatrix(m, n, lowerBandwidth, upperBandwidth,
+                new double[BandedMatrix.valueCount(m, lowerBandwidth, upperBandwidth)]);
+    }
+
+    private static DiagonalMatrix ones(int n) {
+        double[] diagonal = new double[n];
+        Arrays.fill(diagonal, 1d);
+        return Matrix.buildDiagonalMatrix(diagonal);
+    }
+
+}
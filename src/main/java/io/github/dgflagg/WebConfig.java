@@ -0,0 +1,31 @@
+package io.github.dgflagg;
+
+import io.github.dgflagg.web.GzipRequestFilter;
+import io.github.dgflagg.web.MatrixBinaryHttpMessageConverter;
+import io.github.dgflagg.web.MatrixJsonHttpMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the message converters that write matrices straight from their storage - converter beans are put ahead
+ * of the default converters - and the filter that accepts gzip compressed request bodies
+ */
+@Configuration
+public class WebConfig {
+
+    @Bean
+    public MatrixJsonHttpMessageConverter matrixJsonHttpMessageConverter() {
+        return new MatrixJsonHttpMessageConverter();
+    }
+
+    @Bean
+    public MatrixBinaryHttpMessageConverter matrixBinaryHttpMessageConverter() {
+        return new MatrixBinaryHttpMessageConverter();
+    }
+
+    @Bean
+    public GzipRequestFilter gzipRequestFilter() {
+        return new GzipRequestFilter();
+    }
+
+}
@@ -0,0 +1,234 @@
+package io.github.dgflagg.decomposition;
+
+import io.github.dgflagg.exceptions.ColumnsMustEqualRowsException;
+import io.github.dgflagg.exceptions.DimensionsNotSimilarException;
+import io.github.dgflagg.exceptions.NotPositiveDefiniteException;
+import io.github.dgflagg.kernel.Parallel;
+import io.github.dgflagg.model.DenseMatrix;
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.TriangularMatrix;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The Cholesky decomposition of a symmetric positive definite matrix - A = LL' where L is lower triangular
+ *
+ * Half the work of an LU decomposition and no pivoting. Only the values on and below the diagonal of A are read. L is
+ * worked out a column at a time in a row-major copy of A: every value of L is its value of A less the dot product of
+ * the starts of two rows of L, so every read runs along a row. The values below the diagonal of a column are
+ * independent of each other and are split across threads for large n.
+ */
+@Slf4j
+public class CholeskyDecomposition implements Factorization {
+
+    private final int n;
+    private final double[] l;
+    private final boolean positiveDefinite;
+
+    private CholeskyDecomposition(int n, double[] l, boolean positiveDefinite) {
+        this.n = n;
+        this.l = l;
+        this.positiveDefinite = positiveDefinite;
+    }
+
+    /**
+     * Decomposes a copy of the matrix - the matrix itself is not changed
+     * @param matrix must be square - the values above the diagonal are taken to be the same as those below it
+     * @return
+     */
+    public static CholeskyDecomposition decompose(Matrix matrix) {
+        log.info("decomposing matrix: " + matrix.getName());
+
+        if(!matrix.isSquare()) {
+            ColumnsMustEqualRowsException e = new ColumnsMustEqualRowsException("only a square matrix has a Cholesky decomposition - "
+                    + matrix.getRowCount() + " rows and " + matrix.getColumnCount() + " columns");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        int n = matrix.getRowCount();
+        double[] l = matrix instanceof DenseMatrix ? ((DenseMatrix) matrix).getData().clone() : matrix.toDense().getData();
+
+        for(int j = 0; j < n; j++) {
+
+            int jRow = j * n;
+            double diagonal = l[jRow + j] - dot(l, jRow, jRow, j);
+
+            //not positive definite - a square root of a negative or zero pivot cannot be taken
+            if(!(diagonal > 0d)) {
+                return new CholeskyDecomposition(n, l, false);
+            }
+
+            double ljj = Math.sqrt(diagonal);
+            l[jRow + j] = ljj;
+
+            int column = j;
+            int first = j + 1;
+            Parallel.forRange(n - first, j + 1, (start, end) -> {
+                for(int i = first + start; i < first + end; i++) {
+                    int iRow = i * n;
+                    l[iRow + column] = (l[iRow + column] - dot(l, iRow, jRow, column)) / ljj;
+                }
+            });
+
+        }
+
+        return new CholeskyDecomposition(n, l, true);
+    }
+
+    /**
+     * Dot product of the first length values of the two rows starting at a and b
+     */
+    private static double dot(double[] values, int a, int b, int length) {
+        double sum = 0d;
+        for(int p = 0; p < length; p++) {
+            sum += values[a + p] * values[b + p];
+        }
+        return sum;
+    }
+
+    @Override
+    public Matrix solve(Matrix b) {
+        if(b.getRowCount() != this.n) {
+            DimensionsNotSimilarException e = new DimensionsNotSimilarException("the right hand side has " + b.getRowCount()
+                    + " rows but the matrix of coefficients has " + this.n);
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        this.checkPositiveDefinite();
+
+        int n = this.n;
+        int r = b.getColumnCount();
+        double[] x = new double[n * r];
+        double[] row = new double[r];
+
+        for(int i = 0; i < n; i++) {
+            b.copyRow(i, row);
+            System.arraycopy(row, 0, x, i * r, r);
+        }
+
+        Parallel.forRange(r, (long) n * n, (start, end) -> this.substitute(x, r, start, end));
+
+        return Matrix.buildMatrix(n, r, x);
+    }
+
+    /**
+     * Returns the determinant - the square of the product of the diagonal of L
+     * @return
+     * @throws NotPositiveDefiniteException if the matrix is not symmetric positive definite
+     */
+    @Override
+    public double determinant() {
+        this.checkPositiveDefinite();
+
+        double product = 1d;
+        for(int i = 0; i < this.n; i++) {
+            product *= this.l[i * this.n + i];
+        }
+        return product * product;
+    }
+
+    /**
+     * Returns the inverse - every column of the identity solved as a right hand side
+     * @return
+     * @throws NotPositiveDefiniteException if the matrix is not symmetric positive definite
+     */
+    @Override
+    public Matrix inverse() {
+        return this.solve(Matrix.buildIdentityMatrix(this.n));
+    }
+
+    private void checkPositiveDefinite() {
+        if(!this.positiveDefinite) {
+            NotPositiveDefiniteException e = new NotPositiveDefiniteException("the matrix of coefficients is not symmetric positive definite");
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Forward substitution with L then back substitution with L' over the columns [start, end) of the r columns of x
+     */
+    private void substitute(double[] x, int r, int start, int end) {
+        int n = this.n;
+        double[] l = this.l;
+
+        for(int i = 0; i < n; i++) {
+
+            for(int p = 0; p < i; p++) {
+
+                double value = l[i * n + p];
+
+                if(value != 0d) {
+                    for(int c = start; c < end; c++) {
+                        x[i * r + c] -= value * x[p * r + c];
+                    }
+                }
+
+            }
+
+            double diagonal = l[i * n + i];
+            for(int c = start; c < end; c++) {
+                x[i * r + c] /= diagonal;
+            }
+
+        }
+
+        //the rows of L are the columns of L' - each solved value is taken from the rows above it along a row of L
+        for(int i = n - 1; i >= 0; i--) {
+
+            double diagonal = l[i * n + i];
+            for(int c = start; c < end; c++) {
+                x[i * r + c] /= diagonal;
+            }
+
+            for(int p = 0; p < i; p++) {
+
+                double value = l[i * n + p];
+
+                if(value != 0d) {
+                    for(int c = start; c < end; c++) {
+                        x[p * r + c] -= value * x[i * r + c];
+                    }
+                }
+
+            }
+
+        }
+    }
+
+    /**
+     * Returns L - lower triangular
+     * @return
+     */
+    public TriangularMatrix getLower() {
+        double[] values = new double[TriangularMatrix.valueCount(this.n)];
+
+        int index = 0;
+        for(int i = 0; i < this.n; i++) {
+            System.arraycopy(this.l, i * this.n, values, index, i + 1);
+            index += i + 1;
+        }
+
+        return Matrix.buildTriangularMatrix(this.n, false, values);
+    }
+
+    /**
+     * Returns true if the matrix was symmetric positive definite - nothing can be solved with the decomposition if not
+     * @return
+     */
+    public boolean isPositiveDefinite() {
+        return this.positiveDefinite;
+    }
+
+    @Override
+    public int getSize() {
+        return this.n;
+    }
+
+    @Override
+    public long getByteCount() {
+        return (long) this.l.length * Double.BYTES;
+    }
+
+}
@@ -0,0 +1,42 @@
+package io.github.dgflagg.decomposition;
+
+import io.github.dgflagg.model.Matrix;
+
+/**
+ * A square matrix factored once so that every system of equations with it as the matrix of coefficients can be
+ * solved in O(n^2) instead of O(n^3)
+ */
+public interface Factorization {
+
+    /**
+     * Solves AX = B for X where A is the factored matrix
+     * @param b one right hand side per column - must have as many rows as A
+     * @return X with the same shape as B
+     */
+    Matrix solve(Matrix b);
+
+    /**
+     * Returns the determinant of the factored matrix - the product of the diagonals of the factors
+     * @return
+     */
+    double determinant();
+
+    /**
+     * Returns the inverse of the factored matrix - the solution of AX = I
+     * @return
+     */
+    Matrix inverse();
+
+    /**
+     * Returns n - the number of rows and columns of the factored matrix
+     * @return
+     */
+    int getSize();
+
+    /**
+     * Approximate bytes the factorization takes in memory
+     * @return
+     */
+    long getByteCount();
+
+}
@@ -0,0 +1,368 @@
+package io.github.dgflagg.decomposition;
+
+import io.github.dgflagg.exceptions.ColumnsMustEqualRowsException;
+import io.github.dgflagg.exceptions.DimensionsNotSimilarException;
+import io.github.dgflagg.exceptions.SingularMatrixException;
+import io.github.dgflagg.kernel.Parallel;
+import io.github.dgflagg.model.DenseMatrix;
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.TriangularMatrix;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The LU decomposition of a square matrix with partial pivoting - PA = LU where P swaps the rows of A, L is lower
+ * triangular with ones on its diagonal and U is upper triangular
+ *
+ * L and U are worked out in place in a single row-major copy of A - L below the diagonal and U on and above it. The
+ * columns are factored a block at a time: each block of columns is eliminated on its own, then the rows of U to the
+ * right of it are solved and the rest of the matrix is updated with one pass per block rather than one pass per
+ * column. That pass is a matrix multiply over cache sized tiles and its rows are split across threads for large n.
+ *
+ * Once decomposed any number of right hand sides can be solved in O(n^2) each.
+ */
+@Slf4j
+public class LUDecomposition implements Factorization {
+
+    /**
+     * Number of columns factored together before the rest of the matrix is updated
+     */
+    static final int BLOCK = 64;
+    /**
+     * Number of columns of the rest of the matrix updated at once - BLOCK x BLOCK_J doubles of U is 128KB
+     */
+    static final int BLOCK_J = 256;
+
+    private final int n;
+    private final double[] lu;
+    private final int[] pivot;
+    private final int pivotSign;
+    private final boolean singular;
+
+    private LUDecomposition(int n, double[] lu, int[] pivot, int pivotSign, boolean singular) {
+        this.n = n;
+        this.lu = lu;
+        this.pivot = pivot;
+        this.pivotSign = pivotSign;
+        this.singular = singular;
+    }
+
+    /**
+     * Decomposes a copy of the matrix - the matrix itself is not changed
+     * @param matrix must be square
+     * @return
+     */
+    public static LUDecomposition decompose(Matrix matrix) {
+        log.info("decomposing matrix: " + matrix.getName());
+
+        if(!matrix.isSquare()) {
+            ColumnsMustEqualRowsException e = new ColumnsMustEqualRowsException("only a square matrix has an LU decomposition - "
+                    + matrix.getRowCount() + " rows and " + matrix.getColumnCount() + " columns");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        int n = matrix.getRowCount();
+        double[] lu = matrix instanceof DenseMatrix ? ((DenseMatrix) matrix).getData().clone() : matrix.toDense().getData();
+
+        int[] pivot = new int[n];
+        for(int i = 0; i < n; i++) {
+            pivot[i] = i;
+        }
+
+        //a pivot this small compared to the values of the matrix is zero but for rounding
+        double largest = 0d;
+        for(double value : lu) {
+            largest = Math.max(largest, Math.abs(value));
+        }
+        double tolerance = largest * n * Math.ulp(1d);
+
+        int pivotSign = 1;
+        boolean singular = false;
+
+        for(int kb = 0; kb < n; kb += BLOCK) {
+
+            int kEnd = Math.min(kb + BLOCK, n);
+
+            //eliminate the columns of the block - only the columns of the block are updated
+            for(int j = kb; j < kEnd; j++) {
+
+                int p = j;
+                for(int i = j + 1; i < n; i++) {
+                    if(Math.abs(lu[i * n + j]) > Math.abs(lu[p * n + j])) {
+                        p = i;
+                    }
+                }
+
+                if(p != j) {
+                    swapRows(lu, n, p, j);
+                    int row = pivot[p];
+                    pivot[p] = pivot[j];
+                    pivot[j] = row;
+                    pivotSign = -pivotSign;
+                }
+
+                double diagonal = lu[j * n + j];
+
+                if(Math.abs(diagonal) <= tolerance) {
+                    singular = true;
+                }
+
+                //the whole column is zero - there is nothing to eliminate
+                if(diagonal == 0d) {
+                    continue;
+                }
+
+                for(int i = j + 1; i < n; i++) {
+
+                    double l = lu[i * n + j] /= diagonal;
+
+                    if(l != 0d) {
+                        for(int c = j + 1; c < kEnd; c++) {
+                            lu[i * n + c] -= l * lu[j * n + c];
+                        }
+                    }
+
+                }
+
+            }
+
+            if(kEnd == n) {
+                break;
+            }
+
+            //the rows of U to the right of the block - forward substitution with the block of L
+            for(int j = kb; j < kEnd; j++) {
+                for(int i = j + 1; i < kEnd; i++) {
+
+                    double l = lu[i * n + j];
+
+                    if(l != 0d) {
+                        for(int c = kEnd; c < n; c++) {
+                            lu[i * n + c] -= l * lu[j * n + c];
+                        }
+                    }
+
+                }
+            }
+
+            updateTrailing(lu, n, kb, kEnd);
+
+        }
+
+        return new LUDecomposition(n, lu, pivot, pivotSign, singular);
+    }
+
+    /**
+     * Subtracts the block of L below the block times the block of U to the right of it from the rest of the matrix
+     */
+    private static void updateTrailing(double[] lu, int n, int kb, int kEnd) {
+        int rows = n - kEnd;
+
+        Parallel.forRange(rows, (long) (kEnd - kb) * rows, (start, end) -> {
+
+            //a tile of columns at a time so the rows of U being subtracted stay in cache for every row
+            for(int jj = kEnd; jj < n; jj += BLOCK_J) {
+
+                int jEnd = Math.min(jj + BLOCK_J, n);
+
+                for(int i = kEnd + start; i < kEnd + end; i++) {
+
+                    int row = i * n;
+
+                    for(int p = kb; p < kEnd; p++) {
+
+                        double l = lu[row + p];
+
+                        if(l == 0d) {
+                            continue;
+                        }
+
+                        int u = p * n;
+
+                        for(int j = jj; j < jEnd; j++) {
+                            lu[row + j] -= l * lu[u + j];
+                        }
+
+                    }
+
+                }
+
+            }
+
+        });
+    }
+
+    private static void swapRows(double[] lu, int n, int i, int j) {
+        for(int c = 0; c < n; c++) {
+            double value = lu[i * n + c];
+            lu[i * n + c] = lu[j * n + c];
+            lu[j * n + c] = value;
+        }
+    }
+
+    @Override
+    public Matrix solve(Matrix b) {
+        if(b.getRowCount() != this.n) {
+            DimensionsNotSimilarException e = new DimensionsNotSimilarException("the right hand side has " + b.getRowCount()
+                    + " rows but the matrix of coefficients has " + this.n);
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        if(this.singular) {
+            SingularMatrixException e = new SingularMatrixException("the matrix of coefficients is singular - the system has no single solution");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        int n = this.n;
+        int r = b.getColumnCount();
+        double[] x = new double[n * r];
+        double[] row = new double[r];
+
+        //the right hand sides in the pivoted order of the rows
+        for(int i = 0; i < n; i++) {
+            b.copyRow(this.pivot[i], row);
+            System.arraycopy(row, 0, x, i * r, r);
+        }
+
+        //every column of X is substituted on its own so the columns can be split across threads
+        Parallel.forRange(r, (long) n * n, (start, end) -> this.substitute(x, r, start, end));
+
+        return Matrix.buildMatrix(n, r, x);
+    }
+
+    /**
+     * Returns the determinant - the product of the diagonal of U with the sign flipped for every row swap
+     * @return
+     */
+    @Override
+    public double determinant() {
+        double determinant = this.pivotSign;
+        for(int i = 0; i < this.n; i++) {
+            determinant *= this.lu[i * this.n + i];
+        }
+        return determinant;
+    }
+
+    /**
+     * Returns the inverse - every column of the identity solved as a right hand side
+     * @return
+     * @throws SingularMatrixException if the matrix is singular
+     */
+    @Override
+    public Matrix inverse() {
+        return this.solve(Matrix.buildIdentityMatrix(this.n));
+    }
+
+    /**
+     * Forward substitution with L then back substitution with U over the columns [start, end) of the r columns of x
+     */
+    private void substitute(double[] x, int r, int start, int end) {
+        int n = this.n;
+        double[] lu = this.lu;
+
+        for(int i = 0; i < n; i++) {
+            for(int p = 0; p < i; p++) {
+
+                double l = lu[i * n + p];
+
+                if(l != 0d) {
+                    for(int c = start; c < end; c++) {
+                        x[i * r + c] -= l * x[p * r + c];
+                    }
+                }
+
+            }
+        }
+
+        for(int i = n - 1; i >= 0; i--) {
+
+            for(int p = i + 1; p < n; p++) {
+
+                double u = lu[i * n + p];
+
+                if(u != 0d) {
+                    for(int c = start; c < end; c++) {
+                        x[i * r + c] -= u * x[p * r + c];
+                    }
+                }
+
+            }
+
+            double diagonal = lu[i * n + i];
+            for(int c = start; c < end; c++) {
+                x[i * r + c] /= diagonal;
+            }
+
+        }
+    }
+
+    /**
+     * Returns L - lower triangular with ones on the diagonal
+     * @return
+     */
+    public TriangularMatrix getLower() {
+        double[] values = new double[TriangularMatrix.valueCount(this.n)];
+
+        int index = 0;
+        for(int i = 0; i < this.n; i++) {
+            System.arraycopy(this.lu, i * this.n, values, index, i);
+            index += i;
+            values[index++] = 1d;
+        }
+
+        return Matrix.buildTriangularMatrix(this.n, false, values);
+    }
+
+    /**
+     * Returns U - upper triangular
+     * @return
+     */
+    public TriangularMatrix getUpper() {
+        double[] values = new double[TriangularMatrix.valueCount(this.n)];
+
+        int index = 0;
+        for(int i = 0; i < this.n; i++) {
+            System.arraycopy(this.lu, i * this.n + i, values, index, this.n - i);
+            index += this.n - i;
+        }
+
+        return Matrix.buildTriangularMatrix(this.n, true, values);
+    }
+
+    /**
+     * Returns the row of A that each row of LU came from - row i of PA is row pivot[i] of A
+     * @return
+     */
+    public int[] getPivot() {
+        return this.pivot.clone();
+    }
+
+    /**
+     * Returns 1 if an even number of rows were swapped and -1 if an odd number were
+     * @return
+     */
+    public int getPivotSign() {
+        return this.pivotSign;
+    }
+
+    /**
+     * Returns true if U has a zero on its diagonal - no system with this matrix of coefficients can be solved
+     * @return
+     */
+    public boolean isSingular() {
+        return this.singular;
+    }
+
+    @Override
+    public int getSize() {
+        return this.n;
+    }
+
+    @Override
+    public long getByteCount() {
+        return (long) this.lu.length * Double.BYTES + (long) this.pivot.length * Integer.BYTES;
+    }
+
+}
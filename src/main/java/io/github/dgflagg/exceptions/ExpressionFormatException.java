@@ -0,0 +1,10 @@
+package io.github.dgflagg.exceptions;
+
+/**
+ * Thrown when the text of a matrix expression cannot be parsed - an IllegalArgumentException like every other bad input
+ */
+public class ExpressionFormatException extends IllegalArgumentException {
+    public ExpressionFormatException(String message) {
+        super(message);
+    }
+}
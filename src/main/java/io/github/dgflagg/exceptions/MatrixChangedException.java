@@ -0,0 +1,11 @@
+package io.github.dgflagg.exceptions;
+
+/**
+ * Thrown when the values of a mapped matrix are read after the file under it was updated in place - find the matrix
+ * again to read the new values
+ */
+public class MatrixChangedException extends MatrixStorageException {
+    public MatrixChangedException(String message) {
+        super(message);
+    }
+}
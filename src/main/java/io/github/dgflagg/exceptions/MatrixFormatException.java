@@ -0,0 +1,10 @@
+package io.github.dgflagg.exceptions;
+
+/**
+ * Thrown when the text of a matrix cannot be parsed - an IllegalArgumentException like every other bad input
+ */
+public class MatrixFormatException extends IllegalArgumentException {
+    public MatrixFormatException(String message) {
+        super(message);
+    }
+}
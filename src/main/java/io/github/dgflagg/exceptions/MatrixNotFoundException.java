@@ -0,0 +1,10 @@
+package io.github.dgflagg.exceptions;
+
+/**
+ * Thrown when no matrix has been saved under the requested name
+ */
+public class MatrixNotFoundException extends RuntimeException {
+    public MatrixNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package io.github.dgflagg.exceptions;
+
+/**
+ * Thrown when a matrix cannot be written to or read back from storage
+ */
+public class MatrixStorageException extends RuntimeException {
+    public MatrixStorageException(String message) {
+        super(message);
+    }
+
+    public MatrixStorageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,10 @@
+package io.github.dgflagg.exceptions;
+
+/**
+ * Thrown when a Cholesky decomposition is used for a matrix that is not symmetric positive definite
+ */
+public class NotPositiveDefiniteException extends RuntimeException {
+    public NotPositiveDefiniteException(String message) {
+        super(message);
+    }
+}
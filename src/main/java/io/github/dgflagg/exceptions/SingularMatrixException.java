@@ -0,0 +1,10 @@
+package io.github.dgflagg.exceptions;
+
+/**
+ * Thrown when a system of equations is solved with a matrix of coefficients that has no inverse
+ */
+public class SingularMatrixException extends RuntimeException {
+    public SingularMatrixException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,92 @@
+package io.github.dgflagg.expression;
+
+import io.github.dgflagg.MatrixAlgebra;
+import io.github.dgflagg.model.Matrix;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A product of matrices times a number - the numbers of the product are folded into the coefficient and the matrices
+ * are multiplied in the cheapest order with {@link MatrixChain}
+ */
+class Chain extends Expression {
+
+    private final double coefficient;
+    private final List<Expression> factors;
+
+    Chain(double coefficient, List<Expression> factors) {
+        this.coefficient = coefficient;
+        this.factors = factors;
+    }
+
+    @Override
+    public Matrix evaluate(Function<String, Matrix> operands) {
+        List<Matrix> matrices = new ArrayList<>(this.factors.size());
+        for(Expression factor : this.factors) {
+            matrices.add(factor.evaluate(operands));
+        }
+
+        if(this.coefficient == 1d) {
+            return MatrixChain.multiply(matrices);
+        }
+
+        //the number scales whichever of the matrices or the product has the fewest values
+        long productSize = (long) matrices.get(0).getRowCount() * matrices.get(matrices.size() - 1).getColumnCount();
+        int smallest = 0;
+        for(int i = 1; i < matrices.size(); i++) {
+            if(size(matrices.get(i)) < size(matrices.get(smallest))) {
+                smallest = i;
+            }
+        }
+
+        if(size(matrices.get(smallest)) < productSize) {
+            matrices.set(smallest, MatrixAlgebra.scalarMultiply(matrices.get(smallest), this.coefficient));
+            return MatrixChain.multiply(matrices);
+        }
+
+        return MatrixAlgebra.scalarMultiply(MatrixChain.multiply(matrices), this.coefficient);
+    }
+
+    /**
+     * A scaled matrix that is not multiplied by anything is left lazy so the sum it is part of scales it in the same
+     * pass
+     */
+    @Override
+    Matrix evaluateLazily(Function<String, Matrix> operands) {
+        if(this.factors.size() == 1) {
+
+            Matrix matrix = this.factors.get(0).evaluateLazily(operands);
+
+            if(isFusable(matrix)) {
+                return Matrix.lazy(matrix).times(this.coefficient);
+            }
+
+            return MatrixAlgebra.scalarMultiply(matrix, this.coefficient);
+
+        }
+
+        return this.evaluate(operands);
+    }
+
+    private static long size(Matrix matrix) {
+        return (long) matrix.getRowCount() * matrix.getColumnCount();
+    }
+
+    double getCoefficient() {
+        return this.coefficient;
+    }
+
+    List<Expression> getFactors() {
+        return this.factors;
+    }
+
+    @Override
+    public String toString() {
+        String product = this.factors.stream().map(Object::toString).collect(Collectors.joining(" * "));
+        return this.coefficient == 1d ? product : this.coefficient + " * " + product;
+    }
+
+}
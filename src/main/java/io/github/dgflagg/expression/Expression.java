@@ -0,0 +1,42 @@
+package io.github.dgflagg.expression;
+
+import io.github.dgflagg.model.DenseMatrix;
+import io.github.dgflagg.model.LazyMatrix;
+import io.github.dgflagg.model.Matrix;
+
+import java.util.function.Function;
+
+/**
+ * A node of a parsed matrix expression - see {@link ExpressionParser}
+ *
+ * Operands are only looked up by name when the expression is evaluated so the same parsed expression can be evaluated
+ * against inline and saved matrices alike.
+ */
+public abstract class Expression {
+
+    /**
+     * Evaluates the expression
+     * @param operands finds the matrix for every name in the expression
+     * @return
+     */
+    public abstract Matrix evaluate(Function<String, Matrix> operands);
+
+    /**
+     * Evaluates the expression but may leave element-wise operations as a {@link LazyMatrix} so the expression it is
+     * part of can fuse them into a single pass
+     * @param operands
+     * @return
+     */
+    Matrix evaluateLazily(Function<String, Matrix> operands) {
+        return this.evaluate(operands);
+    }
+
+    /**
+     * Returns true if the element-wise operations on the matrix can be fused - dense and lazy matrices. Structured
+     * and sparse matrices are added with {@link io.github.dgflagg.MatrixAlgebra} so they keep their structure
+     */
+    static boolean isFusable(Matrix matrix) {
+        return matrix instanceof DenseMatrix || matrix instanceof LazyMatrix;
+    }
+
+}
@@ -0,0 +1,292 @@
+package io.github.dgflagg.expression;
+
+import io.github.dgflagg.exceptions.ExpressionFormatException;
+import io.github.dgflagg.io.MatrixParser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses matrix expressions such as "2 * A * (B + C) * D^-1 - [[1,0],[0,1]]" into a tree of {@link Expression}s
+ *
+ * Matrices are either names - letters, digits and underscores starting with a letter or underscore - or written out
+ * as nested arrays like /matrix/save takes them. Numbers scale the products they are part of. Every run of
+ * multiplications, including any in parentheses, is gathered into a single product so its matrices can be
+ * multiplied in the cheapest order rather than from left to right. The usual precedence applies: ^ before unary minus
+ * before * before + and -. The exponent of ^ is an integer and -1 is the inverse.
+ *
+ * Errors are thrown as an {@link ExpressionFormatException} naming the character position they were found at.
+ */
+@Slf4j
+public class ExpressionParser {
+
+    private final String text;
+    private int position;
+
+    private ExpressionParser(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parses the whole text as one expression
+     * @param text
+     * @return
+     */
+    public static Expression parse(String text) {
+        ExpressionParser parser = new ExpressionParser(text);
+        Expression expression = parser.readSum();
+
+        if(parser.peek() >= 0) {
+            throw parser.error("expected an operator but found '" + (char) parser.peek() + "'");
+        }
+
+        if(expression instanceof Scalar) {
+            throw parser.error("expected a matrix in the expression");
+        }
+
+        log.info("parsed expression: " + expression);
+        return expression;
+    }
+
+    /**
+     * sum := product (('+' | '-') product)*
+     */
+    private Expression readSum() {
+        Expression sum = this.readProduct();
+
+        while(this.peek() == '+' || this.peek() == '-') {
+
+            boolean subtract = this.text.charAt(this.position++) == '-';
+            Expression term = this.readProduct();
+
+            if(sum instanceof Scalar || term instanceof Scalar) {
+                throw this.error("a number cannot be added to or subtracted from a matrix");
+            }
+
+            sum = new Sum(sum, term, subtract);
+
+        }
+
+        return sum;
+    }
+
+    /**
+     * product := unary ('*' unary)* - gathered into a single chain with the numbers folded into its coefficient
+     */
+    private Expression readProduct() {
+        double coefficient = 1d;
+        List<Expression> factors = new ArrayList<>();
+
+        coefficient = this.gather(this.readUnary(), coefficient, factors);
+
+        while(this.peek() == '*') {
+            this.position++;
+            coefficient = this.gather(this.readUnary(), coefficient, factors);
+        }
+
+        if(factors.isEmpty()) {
+            return new Scalar(coefficient);
+        }
+
+        if(factors.size() == 1 && coefficient == 1d) {
+            return factors.get(0);
+        }
+
+        return new Chain(coefficient, factors);
+    }
+
+    /**
+     * Adds the factors of a product to the chain being gathered
+     * @return the coefficient of the chain so far
+     */
+    private double gather(Expression factor, double coefficient, List<Expression> factors) {
+        if(factor instanceof Scalar) {
+            return coefficient * ((Scalar) factor).getValue();
+        }
+
+        if(factor instanceof Chain) {
+            Chain chain = (Chain) factor;
+            factors.addAll(chain.getFactors());
+            return coefficient * chain.getCoefficient();
+        }
+
+        factors.add(factor);
+        return coefficient;
+    }
+
+    /**
+     * unary := '-' unary | power
+     */
+    private Expression readUnary() {
+        if(this.peek() != '-') {
+            return this.readPower();
+        }
+
+        this.position++;
+        Expression operand = this.readUnary();
+
+        if(operand instanceof Scalar) {
+            return new Scalar(-((Scalar) operand).getValue());
+        }
+
+        List<Expression> factors = new ArrayList<>();
+        double coefficient = this.gather(operand, -1d, factors);
+        return new Chain(coefficient, factors);
+    }
+
+    /**
+     * power := primary ('^' integer)?
+     */
+    private Expression readPower() {
+        Expression base = this.readPrimary();
+
+        if(this.peek() != '^') {
+            return base;
+        }
+
+        this.position++;
+        int exponent = this.readExponent();
+
+        if(base instanceof Scalar) {
+            return new Scalar(Math.pow(((Scalar) base).getValue(), exponent));
+        }
+
+        return new Power(base, exponent);
+    }
+
+    /**
+     * primary := number | name | array | '(' sum ')'
+     */
+    private Expression readPrimary() {
+        int c = this.peek();
+
+        if(c == '(') {
+            this.position++;
+            Expression expression = this.readSum();
+            this.expect(')');
+            return expression;
+        }
+
+        if(c == '[') {
+            return new Literal(MatrixParser.parse(this.readArray()));
+        }
+
+        if((c >= '0' && c <= '9') || c == '.') {
+            return new Scalar(this.readNumber());
+        }
+
+        if(Character.isLetter(c) || c == '_') {
+            int start = this.position;
+            while(this.position < this.text.length() && (Character.isLetterOrDigit(this.text.charAt(this.position))
+                    || this.text.charAt(this.position) == '_')) {
+                this.position++;
+            }
+            return new Reference(this.text.substring(start, this.position));
+        }
+
+        throw this.error("expected a matrix, a number or '(' but found " + this.describe(c));
+    }
+
+    /**
+     * Returns the text of a nested array up to its matching closing bracket
+     */
+    private String readArray() {
+        int start = this.position;
+        int depth = 0;
+
+        do {
+
+            if(this.position == this.text.length()) {
+                throw this.error("expected ']' but found the end of the expression");
+            }
+
+            char c = this.text.charAt(this.position++);
+            if(c == '[') {
+                depth++;
+            } else if(c == ']') {
+                depth--;
+            }
+
+        } while(depth > 0);
+
+        return this.text.substring(start, this.position);
+    }
+
+    private double readNumber() {
+        int start = this.position;
+
+        while(this.position < this.text.length()) {
+
+            char c = this.text.charAt(this.position);
+
+            //an exponent may carry its own sign - 1e-3
+            boolean sign = (c == '-' || c == '+') && this.position > start
+                    && Character.toLowerCase(this.text.charAt(this.position - 1)) == 'e';
+
+            if(!((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || sign)) {
+                break;
+            }
+
+            this.position++;
+
+        }
+
+        String number = this.text.substring(start, this.position);
+        try {
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            throw this.error("cannot parse: \"" + number + "\" to a number");
+        }
+    }
+
+    private int readExponent() {
+        int sign = 1;
+        if(this.peek() == '-') {
+            this.position++;
+            sign = -1;
+        }
+
+        this.peek();
+        int start = this.position;
+        while(this.position < this.text.length() && Character.isDigit(this.text.charAt(this.position))) {
+            this.position++;
+        }
+
+        String exponent = this.text.substring(start, this.position);
+        try {
+            return sign * Integer.parseInt(exponent);
+        } catch (NumberFormatException e) {
+            throw this.error("expected an integer exponent but found \"" + exponent + "\"");
+        }
+    }
+
+    private void expect(char expected) {
+        int c = this.peek();
+        if(c != expected) {
+            throw this.error("expected '" + expected + "' but found " + this.describe(c));
+        }
+        this.position++;
+    }
+
+    /**
+     * Skips whitespace and returns the next character without consuming it - -1 at the end of the text
+     */
+    private int peek() {
+        while(this.position < this.text.length() && Character.isWhitespace(this.text.charAt(this.position))) {
+            this.position++;
+        }
+        return this.position < this.text.length() ? this.text.charAt(this.position) : -1;
+    }
+
+    private ExpressionFormatException error(String message) {
+        ExpressionFormatException e = new ExpressionFormatException(message + " at position " + this.position);
+        log.error(e.getMessage());
+        return e;
+    }
+
+    private String describe(int c) {
+        return c < 0 ? "the end of the expression" : "'" + (char) c + "'";
+    }
+
+}
@@ -0,0 +1,28 @@
+package io.github.dgflagg.expression;
+
+import io.github.dgflagg.model.Matrix;
+
+import java.util.function.Function;
+
+/**
+ * A matrix written out in the expression - [[1,2],[3,4]]
+ */
+class Literal extends Expression {
+
+    private final Matrix matrix;
+
+    Literal(Matrix matrix) {
+        this.matrix = matrix;
+    }
+
+    @Override
+    public Matrix evaluate(Function<String, Matrix> operands) {
+        return this.matrix;
+    }
+
+    @Override
+    public String toString() {
+        return this.matrix.toString();
+    }
+
+}
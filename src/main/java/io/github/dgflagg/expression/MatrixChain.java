@@ -0,0 +1,132 @@
+package io.github.dgflagg.expression;
+
+import io.github.dgflagg.MatrixAlgebra;
+import io.github.dgflagg.exceptions.ColumnsMustEqualRowsException;
+import io.github.dgflagg.model.Matrix;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * Multiplies a chain of matrices A1 x A2 x ... x An in the order that takes the fewest multiply-adds
+ *
+ * The product is the same whichever pairs are multiplied first but the work is not - a 1000 x 10 times a 10 x 1000
+ * times a 1000 x 10 is 20 thousand multiply-adds from the right and 20 million from the left. The cheapest order is
+ * found with the classic O(n^3) dynamic program over the shapes of the matrices before any of them are multiplied.
+ */
+@Slf4j
+public final class MatrixChain {
+
+    private MatrixChain() {
+        //don't want to instantiate this class
+    }
+
+    /**
+     * Returns the cheapest order to multiply the chain in
+     * @param dimensions the rows of every matrix followed by the columns of the last - matrix i is dimensions[i] x
+     *                   dimensions[i + 1]
+     * @return split[i][j] is where the product of matrices i to j is split - (i..split) x (split + 1..j)
+     */
+    public static int[][] order(int[] dimensions) {
+        int n = dimensions.length - 1;
+        long[][] cost = new long[n][n];
+        int[][] split = new int[n][n];
+
+        for(int length = 2; length <= n; length++) {
+            for(int i = 0; i + length - 1 < n; i++) {
+
+                int j = i + length - 1;
+                cost[i][j] = Long.MAX_VALUE;
+
+                for(int k = i; k < j; k++) {
+
+                    long c = cost[i][k] + cost[k + 1][j] + (long) dimensions[i] * dimensions[k + 1] * dimensions[j + 1];
+
+                    if(c < cost[i][j]) {
+                        cost[i][j] = c;
+                        split[i][j] = k;
+                    }
+
+                }
+
+            }
+        }
+
+        return split;
+    }
+
+    /**
+     * Returns the multiply-adds taken to multiply the chain in the order given by the splits
+     * @param dimensions
+     * @param split
+     * @return
+     */
+    public static long cost(int[] dimensions, int[][] split) {
+        return cost(dimensions, split, 0, dimensions.length - 2);
+    }
+
+    /**
+     * Returns the multiply-adds taken to multiply the chain from left to right
+     * @param dimensions
+     * @return
+     */
+    public static long leftToRightCost(int[] dimensions) {
+        long cost = 0;
+        for(int k = 1; k < dimensions.length - 1; k++) {
+            cost += (long) dimensions[0] * dimensions[k] * dimensions[k + 1];
+        }
+        return cost;
+    }
+
+    /**
+     * Returns the product of the chain multiplied in the cheapest order
+     * @param matrices at least one matrix - the columns of each must equal the rows of the next
+     * @return
+     */
+    public static Matrix multiply(List<Matrix> matrices) {
+        int[] dimensions = new int[matrices.size() + 1];
+        dimensions[0] = matrices.get(0).getRowCount();
+
+        for(int i = 0; i < matrices.size(); i++) {
+
+            Matrix matrix = matrices.get(i);
+
+            if(matrix.getRowCount() != dimensions[i]) {
+                ColumnsMustEqualRowsException e = new ColumnsMustEqualRowsException("matrix " + (i + 1) + " of the chain has "
+                        + matrix.getRowCount() + " rows but the matrix before it has " + dimensions[i] + " columns");
+                log.error(e.getMessage());
+                throw e;
+            }
+
+            dimensions[i + 1] = matrix.getColumnCount();
+
+        }
+
+        int[][] split = order(dimensions);
+
+        log.info("multiplying a chain of {} matrices with {} multiply-adds - {} from left to right", matrices.size(),
+                cost(dimensions, split), leftToRightCost(dimensions));
+
+        return multiply(matrices, split, 0, matrices.size() - 1);
+    }
+
+    private static Matrix multiply(List<Matrix> matrices, int[][] split, int i, int j) {
+        if(i == j) {
+            return matrices.get(i);
+        }
+
+        int k = split[i][j];
+        return MatrixAlgebra.multiply(multiply(matrices, split, i, k), multiply(matrices, split, k + 1, j));
+    }
+
+    private static long cost(int[] dimensions, int[][] split, int i, int j) {
+        if(i >= j) {
+            return 0;
+        }
+
+        int k = split[i][j];
+        return cost(dimensions, split, i, k) + cost(dimensions, split, k + 1, j)
+                + (long) dimensions[i] * dimensions[k + 1] * dimensions[j + 1];
+    }
+
+}
@@ -0,0 +1,31 @@
+package io.github.dgflagg.expression;
+
+import io.github.dgflagg.MatrixAlgebra;
+import io.github.dgflagg.model.Matrix;
+
+import java.util.function.Function;
+
+/**
+ * A square matrix raised to an integer power - see {@link MatrixAlgebra#power(Matrix, int)}
+ */
+class Power extends Expression {
+
+    private final Expression base;
+    private final int exponent;
+
+    Power(Expression base, int exponent) {
+        this.base = base;
+        this.exponent = exponent;
+    }
+
+    @Override
+    public Matrix evaluate(Function<String, Matrix> operands) {
+        return MatrixAlgebra.power(this.base.evaluate(operands), this.exponent);
+    }
+
+    @Override
+    public String toString() {
+        return this.base + "^" + this.exponent;
+    }
+
+}
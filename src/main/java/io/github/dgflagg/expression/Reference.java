@@ -0,0 +1,28 @@
+package io.github.dgflagg.expression;
+
+import io.github.dgflagg.model.Matrix;
+
+import java.util.function.Function;
+
+/**
+ * A matrix referred to by name
+ */
+class Reference extends Expression {
+
+    private final String name;
+
+    Reference(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public Matrix evaluate(Function<String, Matrix> operands) {
+        return operands.apply(this.name);
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+}
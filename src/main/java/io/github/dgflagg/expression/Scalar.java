@@ -0,0 +1,37 @@
+package io.github.dgflagg.expression;
+
+import io.github.dgflagg.exceptions.ExpressionFormatException;
+import io.github.dgflagg.model.Matrix;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.function.Function;
+
+/**
+ * A number - only ever a factor of a product, where it is folded into the coefficient of the {@link Chain}
+ */
+@Slf4j
+class Scalar extends Expression {
+
+    private final double value;
+
+    Scalar(double value) {
+        this.value = value;
+    }
+
+    double getValue() {
+        return this.value;
+    }
+
+    @Override
+    public Matrix evaluate(Function<String, Matrix> operands) {
+        ExpressionFormatException e = new ExpressionFormatException("the number " + this.value + " is not a matrix");
+        log.error(e.getMessage());
+        throw e;
+    }
+
+    @Override
+    public String toString() {
+        return Double.toString(this.value);
+    }
+
+}
@@ -0,0 +1,53 @@
+package io.github.dgflagg.expression;
+
+import io.github.dgflagg.MatrixAlgebra;
+import io.github.dgflagg.model.LazyMatrix;
+import io.github.dgflagg.model.Matrix;
+
+import java.util.function.Function;
+
+/**
+ * The sum or difference of two matrices
+ */
+class Sum extends Expression {
+
+    private final Expression left;
+    private final Expression right;
+    private final boolean subtract;
+
+    Sum(Expression left, Expression right, boolean subtract) {
+        this.left = left;
+        this.right = right;
+        this.subtract = subtract;
+    }
+
+    @Override
+    public Matrix evaluate(Function<String, Matrix> operands) {
+        Matrix sum = this.evaluateLazily(operands);
+
+        return sum instanceof LazyMatrix ? ((LazyMatrix) sum).materialize() : sum;
+    }
+
+    /**
+     * Sums of dense matrices are left lazy so a whole run of sums and scalings like 2A + B - C is evaluated in one
+     * pass with no intermediate matrices
+     */
+    @Override
+    Matrix evaluateLazily(Function<String, Matrix> operands) {
+        Matrix m1 = this.left.evaluateLazily(operands);
+        Matrix m2 = this.right.evaluateLazily(operands);
+
+        if(isFusable(m1) && isFusable(m2)) {
+            LazyMatrix lazy = Matrix.lazy(m1);
+            return this.subtract ? lazy.minus(m2) : lazy.plus(m2);
+        }
+
+        return this.subtract ? MatrixAlgebra.subtract(m1, m2) : MatrixAlgebra.add(m1, m2);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + this.left + (this.subtract ? " - " : " + ") + this.right + ")";
+    }
+
+}
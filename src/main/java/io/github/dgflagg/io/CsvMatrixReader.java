@@ -0,0 +1,488 @@
+package io.github.dgflagg.io;
+
+import io.github.dgflagg.exceptions.MatrixFormatException;
+import io.github.dgflagg.exceptions.MatrixStorageException;
+import io.github.dgflagg.kernel.Parallel;
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.MatrixBuilder;
+import io.github.dgflagg.model.SparseMatrix;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads matrices from csv text where the values are separated by commas and the rows by new lines
+ *
+ * The bytes are scanned straight out of a reusable buffer and each number is parsed directly into the primitive
+ * storage of a {@link MatrixBuilder} - no line or value Strings are created. Large files are split into line aligned
+ * chunks that are parsed at the same time on the {@link Parallel} pool and joined back together in order.
+ *
+ * Spaces around values, \r\n line endings and blank lines are ignored.
+ */
+@Slf4j
+public final class CsvMatrixReader {
+
+    /**
+     * Size of the buffer each chunk is scanned through - also the longest single value that can be read
+     */
+    static final int BUFFER_BYTES = 1 << 16;
+    /**
+     * Files are only split when every chunk would be at least this big - smaller chunks are not worth the join
+     */
+    static final long MINIMUM_CHUNK_BYTES = 1L << 22;
+    /**
+     * Number of chunks per thread in the pool - more than one so uneven chunks still balance out
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private CsvMatrixReader() {
+        //don't want to instantiate this class
+    }
+
+    /**
+     * Reads the matrix from a csv file
+     * @param file
+     * @return
+     */
+    public static Matrix read(Path file) {
+        return read(file, MINIMUM_CHUNK_BYTES);
+    }
+
+    /**
+     * Reads the matrix from a csv file - split into chunks of at least minimumChunkBytes when the pool has more than
+     * one thread
+     */
+    static Matrix read(Path file, long minimumChunkBytes) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            long size = channel.size();
+            int parallelism = Parallel.getPool().getParallelism();
+            int chunkCount = (int) Math.min((long) parallelism * CHUNKS_PER_THREAD, size / minimumChunkBytes);
+
+            if(parallelism < 2 || chunkCount < 2) {
+                MatrixBuilder builder = new MatrixBuilder();
+                new Scanner(new ChannelSource(channel, 0, size), 0).scan(builder);
+                return builder.build();
+            }
+
+            long[] boundaries = lineBoundaries(channel, size, chunkCount);
+            Matrix[] chunks = new Matrix[chunkCount];
+
+            //one chunk per item - the pool is given the byte count of a chunk as its cost
+            Parallel.forRange(chunkCount, size / chunkCount, (start, end) -> {
+
+                for(int c = start; c < end; c++) {
+
+                    MatrixBuilder builder = new MatrixBuilder();
+
+                    try {
+                        new Scanner(new ChannelSource(channel, boundaries[c], boundaries[c + 1]), boundaries[c])
+                                .scan(builder);
+                    } catch (IOException e) {
+                        throw new MatrixStorageException("cannot read csv file: " + file, e);
+                    }
+
+                    chunks[c] = builder.build();
+
+                }
+
+            });
+
+            return concatenate(chunks);
+
+        } catch (IOException e) {
+            MatrixStorageException exception = new MatrixStorageException("cannot read csv file: " + file, e);
+            log.error(exception.getMessage());
+            throw exception;
+        }
+    }
+
+    /**
+     * Reads the matrix from csv text - the stream is read to its end but not closed
+     * @param stream
+     * @return
+     */
+    public static Matrix read(InputStream stream) {
+        MatrixBuilder builder = new MatrixBuilder();
+
+        try {
+            new Scanner(stream::read, 0).scan(builder);
+        } catch (IOException e) {
+            MatrixStorageException exception = new MatrixStorageException("cannot read csv stream", e);
+            log.error(exception.getMessage());
+            throw exception;
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Reads count matrices from csv text where each matrix is separated from the next by a blank line - the stream
+     * is read to its end but not closed
+     * @param stream
+     * @param count
+     * @return
+     */
+    public static Matrix[] read(InputStream stream, int count) {
+        Matrix[] matrices = new Matrix[count];
+        int found = 0;
+
+        try {
+
+            Scanner scanner = new Scanner(stream::read, 0);
+            boolean more;
+
+            do {
+
+                MatrixBuilder builder = new MatrixBuilder();
+                more = scanner.scan(builder, true);
+
+                if(builder.getRowCount() > 0) {
+                    if(found == count) {
+                        throw new MatrixFormatException("expected " + count + " matrices but found more");
+                    }
+                    matrices[found++] = builder.build();
+                }
+
+            } while(more);
+
+        } catch (IOException e) {
+            MatrixStorageException exception = new MatrixStorageException("cannot read csv stream", e);
+            log.error(exception.getMessage());
+            throw exception;
+        }
+
+        if(found < count) {
+            throw new MatrixFormatException("expected " + count + " matrices separated by blank lines but found "
+                    + found);
+        }
+
+        return matrices;
+    }
+
+    /**
+     * Splits the file into chunkCount ranges of roughly equal size that each start at the beginning of a line
+     * @return chunkCount + 1 positions - chunk c is [boundaries[c], boundaries[c + 1])
+     */
+    private static long[] lineBoundaries(FileChannel channel, long size, int chunkCount) throws IOException {
+        long[] boundaries = new long[chunkCount + 1];
+        boundaries[chunkCount] = size;
+
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+        for(int c = 1; c < chunkCount; c++) {
+
+            //a chunk starts just after the first line break at or after its even share of the file
+            long position = Math.max(size / chunkCount * c - 1, boundaries[c - 1]);
+            long boundary = size;
+
+            search:
+            while(position < size) {
+
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if(read < 0) {
+                    break;
+                }
+
+                for(int b = 0; b < read; b++) {
+                    if(buffer.get(b) == '\n') {
+                        boundary = position + b + 1;
+                        break search;
+                    }
+                }
+
+                position += read;
+
+            }
+
+            boundaries[c] = boundary;
+
+        }
+
+        return boundaries;
+    }
+
+    /**
+     * Joins the rows of the chunks back into one matrix - sparse only if every chunk came out sparse
+     */
+    private static Matrix concatenate(Matrix[] chunks) {
+        int rowCount = 0;
+        int columnCount = -1;
+        long nonZeroCount = 0;
+        boolean sparse = true;
+        Matrix first = chunks[0];
+
+        for(Matrix chunk : chunks) {
+
+            //chunks of nothing but blank lines
+            if(chunk.getRowCount() == 0) {
+                continue;
+            }
+
+            if(columnCount < 0) {
+                columnCount = chunk.getColumnCount();
+                first = chunk;
+            } else if(chunk.getColumnCount() != columnCount) {
+                throw new MatrixFormatException("jagged matrices are not supported - row " + rowCount + " has "
+                        + chunk.getColumnCount() + " values but the first row has " + columnCount);
+            }
+
+            rowCount += chunk.getRowCount();
+
+            if(chunk instanceof SparseMatrix) {
+                nonZeroCount += ((SparseMatrix) chunk).getNonZeroCount();
+            } else {
+                sparse = false;
+            }
+
+        }
+
+        if(rowCount == first.getRowCount()) {
+            return first;
+        }
+
+        if(sparse) {
+
+            int[] rowPointers = new int[rowCount + 1];
+            int[] columnIndices = new int[(int) nonZeroCount];
+            double[] values = new double[(int) nonZeroCount];
+            int row = 0;
+            int count = 0;
+
+            for(Matrix chunk : chunks) {
+
+                if(chunk.getRowCount() == 0) {
+                    continue;
+                }
+
+                SparseMatrix sparseChunk = (SparseMatrix) chunk;
+                int[] chunkPointers = sparseChunk.getRowPointers();
+                int chunkCount = sparseChunk.getNonZeroCount();
+
+                System.arraycopy(sparseChunk.getColumnIndices(), 0, columnIndices, count, chunkCount);
+                System.arraycopy(sparseChunk.getValues(), 0, values, count, chunkCount);
+
+                for(int i = 1; i <= sparseChunk.getRowCount(); i++) {
+                    rowPointers[row + i] = count + chunkPointers[i];
+                }
+
+                row += sparseChunk.getRowCount();
+                count += chunkCount;
+
+            }
+
+            return Matrix.buildSparseMatrix(rowCount, columnCount, rowPointers, columnIndices, values);
+        }
+
+        double[] numbers = new double[rowCount * columnCount];
+        int offset = 0;
+
+        for(Matrix chunk : chunks) {
+
+            int chunkSize = chunk.getRowCount() * columnCount;
+            if(chunkSize > 0) {
+                System.arraycopy(chunk.toDense().getData(), 0, numbers, offset, chunkSize);
+            }
+            offset += chunkSize;
+
+        }
+
+        return Matrix.buildMatrix(rowCount, columnCount, numbers);
+    }
+
+    /**
+     * Somewhere bytes are read from into the scanner buffer
+     */
+    private interface Source {
+        /**
+         * @return number of bytes read or -1 at the end
+         */
+        int read(byte[] buffer, int offset, int length) throws IOException;
+    }
+
+    /**
+     * Reads the bytes [start, end) of a channel without moving its position - so chunks can share the channel
+     */
+    private static final class ChannelSource implements Source {
+
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        ChannelSource(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if(this.position >= this.end) {
+                return -1;
+            }
+
+            int wanted = (int) Math.min(length, this.end - this.position);
+            int read = this.channel.read(ByteBuffer.wrap(buffer, offset, wanted), this.position);
+
+            if(read > 0) {
+                this.position += read;
+            }
+
+            return read;
+        }
+    }
+
+    /**
+     * Walks the bytes of one source value by value, adding each to a builder
+     */
+    private static final class Scanner {
+
+        private final Source source;
+        private final byte[] buffer = new byte[BUFFER_BYTES];
+        private int position;
+        private int limit;
+        private boolean exhausted;
+        /**
+         * Position of buffer[0] in the whole input - used to report where bad values are
+         */
+        private long bufferStart;
+
+        Scanner(Source source, long start) {
+            this.source = source;
+            this.bufferStart = start;
+        }
+
+        void scan(MatrixBuilder builder) throws IOException {
+            this.scan(builder, false);
+        }
+
+        /**
+         * Adds every value up to the end of the input to the builder
+         * @param stopAtBlankLine true to stop at the first blank line after a row instead of skipping it
+         * @return true if it stopped at a blank line - false at the end of the input
+         */
+        boolean scan(MatrixBuilder builder, boolean stopAtBlankLine) throws IOException {
+            int rowLength = 0;
+
+            while(true) {
+
+                int delimiter = this.nextDelimiter();
+                boolean endOfRow = delimiter == this.limit || this.buffer[delimiter] == '\n';
+
+                //ignore spaces and the \r of \r\n line endings around the value
+                int start = this.position;
+                int end = delimiter;
+                while(start < end && isSpace(this.buffer[start])) {
+                    start++;
+                }
+                while(end > start && isSpace(this.buffer[end - 1])) {
+                    end--;
+                }
+
+                if(start < end) {
+                    builder.add(this.parse(start, end));
+                    rowLength++;
+                } else if(!endOfRow || rowLength > 0) {
+                    throw new MatrixFormatException("missing value at byte " + (this.bufferStart + start));
+                }
+
+                //a line with no values at all is blank and skipped
+                if(endOfRow && rowLength > 0) {
+
+                    if(builder.getRowCount() > 0 && rowLength != builder.getColumnCount()) {
+                        throw new MatrixFormatException("jagged matrices are not supported - row "
+                                + builder.getRowCount() + " has " + rowLength + " values but the first row has "
+                                + builder.getColumnCount() + " at byte " + (this.bufferStart + start));
+                    }
+
+                    builder.endRow();
+                    rowLength = 0;
+                }
+
+                if(delimiter == this.limit) {
+                    return false;
+                }
+
+                this.position = delimiter + 1;
+
+                if(stopAtBlankLine && endOfRow && start == end && builder.getRowCount() > 0) {
+                    return true;
+                }
+
+            }
+        }
+
+        /**
+         * Returns the index of the next comma or line break from the current position - refilling the buffer as
+         * needed - or the limit if the input ends first
+         */
+        private int nextDelimiter() throws IOException {
+            int i = this.position;
+
+            while(true) {
+
+                for(; i < this.limit; i++) {
+                    byte b = this.buffer[i];
+                    if(b == ',' || b == '\n') {
+                        return i;
+                    }
+                }
+
+                if(this.exhausted) {
+                    return this.limit;
+                }
+
+                int scanned = i - this.position;
+                this.refill();
+                i = this.position + scanned;
+
+            }
+        }
+
+        /**
+         * Moves the unfinished value to the front of the buffer and reads more bytes after it
+         */
+        private void refill() throws IOException {
+            int remaining = this.limit - this.position;
+
+            if(remaining == this.buffer.length) {
+                throw new MatrixFormatException("value longer than " + BUFFER_BYTES + " bytes at byte "
+                        + (this.bufferStart + this.position));
+            }
+
+            System.arraycopy(this.buffer, this.position, this.buffer, 0, remaining);
+            this.bufferStart += this.position;
+            this.position = 0;
+            this.limit = remaining;
+
+            int read = this.source.read(this.buffer, this.limit, this.buffer.length - this.limit);
+
+            if(read < 0) {
+                this.exhausted = true;
+            } else {
+                this.limit += read;
+            }
+        }
+
+        private double parse(int start, int end) {
+            try {
+                return DoubleParser.parse(this.buffer, start, end);
+            } catch (NumberFormatException e) {
+                throw new MatrixFormatException("cannot parse: \"" + new String(this.buffer, start, end - start,
+                        StandardCharsets.US_ASCII) + "\" at byte " + (this.bufferStart + start) + " to a number");
+            }
+        }
+
+        private static boolean isSpace(byte b) {
+            return b == ' ' || b == '\t' || b == '\r';
+        }
+    }
+
+}
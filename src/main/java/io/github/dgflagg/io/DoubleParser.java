@@ -0,0 +1,124 @@
+package io.github.dgflagg.io;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses decimal numbers straight out of a byte buffer without creating a String for the common cases
+ *
+ * Numbers with at most 15 significant digits and a power of ten exponent of at most 22 are exactly one multiply or
+ * divide of two exactly representable doubles, so the result is already correctly rounded. Anything else (long
+ * fractions, huge exponents, NaN, Infinity) goes through Double.parseDouble.
+ */
+final class DoubleParser {
+
+    /**
+     * Every power of ten that is exactly representable as a double
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    /**
+     * Most significant digits that always fit exactly in the 53 bit mantissa of a double
+     */
+    private static final int MAXIMUM_EXACT_DIGITS = 15;
+
+    private DoubleParser() {
+        //don't want to instantiate this class
+    }
+
+    /**
+     * Parses the number in b[start, end) - accepts everything Double.parseDouble does
+     * @throws NumberFormatException if it is not a number
+     */
+    static double parse(byte[] b, int start, int end) {
+        int i = start;
+
+        boolean negative = false;
+        if(i < end && (b[i] == '-' || b[i] == '+')) {
+            negative = b[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigits = false;
+
+        for(; i < end && isDigit(b[i]); i++) {
+            anyDigits = true;
+            if(mantissa != 0 || b[i] != '0') {
+                if(++digits <= MAXIMUM_EXACT_DIGITS) {
+                    mantissa = mantissa * 10 + (b[i] - '0');
+                }
+            }
+        }
+
+        if(i < end && b[i] == '.') {
+            i++;
+            for(; i < end && isDigit(b[i]); i++) {
+                anyDigits = true;
+                if(mantissa != 0 || b[i] != '0') {
+                    if(++digits <= MAXIMUM_EXACT_DIGITS) {
+                        mantissa = mantissa * 10 + (b[i] - '0');
+                    }
+                }
+                exponent--;
+            }
+        }
+
+        if(!anyDigits) {
+            return parseSlowly(b, start, end);
+        }
+
+        if(i < end && (b[i] == 'e' || b[i] == 'E')) {
+            i++;
+
+            boolean negativeExponent = false;
+            if(i < end && (b[i] == '-' || b[i] == '+')) {
+                negativeExponent = b[i] == '-';
+                i++;
+            }
+
+            if(i == end) {
+                return parseSlowly(b, start, end);
+            }
+
+            int e = 0;
+            for(; i < end && isDigit(b[i]); i++) {
+                if(e < 100000) {
+                    e = e * 10 + (b[i] - '0');
+                }
+            }
+
+            exponent += negativeExponent ? -e : e;
+        }
+
+        //trailing characters or too many digits to parse exactly here
+        if(i != end || digits > MAXIMUM_EXACT_DIGITS) {
+            return parseSlowly(b, start, end);
+        }
+
+        double value;
+        if(mantissa == 0) {
+            value = 0d;
+        } else if(exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else if(exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return parseSlowly(b, start, end);
+        }
+
+        return negative ? -value : value;
+    }
+
+    private static double parseSlowly(byte[] b, int start, int end) {
+        return Double.parseDouble(new String(b, start, end - start, StandardCharsets.US_ASCII));
+    }
+
+    static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+}
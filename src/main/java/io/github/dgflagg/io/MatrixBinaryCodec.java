@@ -0,0 +1,260 @@
+package io.github.dgflagg.io;
+
+import io.github.dgflagg.exceptions.MatrixFormatException;
+import io.github.dgflagg.exceptions.MatrixStorageException;
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.SparseMatrix;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Writes and reads matrices over streams in the same little-endian layout as a {@link MatrixFile} - a 32 byte header
+ * with the shape followed by the raw doubles (or the compressed sparse row arrays of a sparse matrix)
+ *
+ * Used for application/octet-stream request and response bodies so nothing is formatted or parsed as text. Values
+ * are moved through a reusable buffer in bulk and dense matrices are written a row at a time straight from their
+ * storage.
+ */
+public final class MatrixBinaryCodec {
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /**
+     * Most values of a matrix read from a stream - the largest array the JVM can allocate
+     */
+    private static final int MAXIMUM_VALUES = Integer.MAX_VALUE - 8;
+
+    private MatrixBinaryCodec() {
+        //don't want to instantiate this class
+    }
+
+    /**
+     * Writes the matrix to the stream - the stream is flushed but not closed
+     * @param matrix
+     * @param out
+     * @throws IOException
+     */
+    public static void write(Matrix matrix, OutputStream out) throws IOException {
+        int m = matrix.getRowCount();
+        int n = matrix.getColumnCount();
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(BUFFER_BYTES, n * Double.BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+
+        if(matrix instanceof SparseMatrix) {
+
+            SparseMatrix sparse = (SparseMatrix) matrix;
+            int nonZeroCount = sparse.getNonZeroCount();
+
+            MatrixFile.putHeader(buffer, MatrixFile.SPARSE, m, n, nonZeroCount);
+            writeDoubles(out, buffer, sparse.getValues(), nonZeroCount);
+            writeInts(out, buffer, sparse.getColumnIndices(), nonZeroCount);
+            writeInts(out, buffer, sparse.getRowPointers(), m + 1);
+
+        } else {
+
+            MatrixFile.putHeader(buffer, MatrixFile.DENSE, m, n, (long) m * n);
+
+            double[] row = new double[n];
+            for(int i = 0; i < m; i++) {
+                matrix.copyRow(i, row);
+                writeDoubles(out, buffer, row, n);
+            }
+
+        }
+
+        flush(out, buffer);
+        out.flush();
+    }
+
+    /**
+     * Reads the next matrix from the stream - nothing after it is read
+     *
+     * The header comes from the client so nothing is allocated from it up front - the arrays grow as the values
+     * actually arrive, and a sparse matrix is checked to be well formed before it is built.
+     * @param in
+     * @return
+     * @throws IOException
+     * @throws MatrixFormatException if the data is not a whole, well formed matrix
+     */
+    public static Matrix read(InputStream in) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        readFully(in, buffer, MatrixFile.HEADER_BYTES);
+
+        MatrixFile.Header header;
+        try {
+            header = MatrixFile.getHeader(buffer);
+        } catch (MatrixStorageException e) {
+            throw new MatrixFormatException(e.getMessage());
+        }
+
+        int m = header.getRowCount();
+        int n = header.getColumnCount();
+
+        if(header.getValueCount() > MAXIMUM_VALUES || (header.isSparse() && m > MAXIMUM_VALUES - 1)) {
+            throw new MatrixFormatException("matrix of " + m + " rows and " + header.getValueCount()
+                    + " values is too large to read");
+        }
+
+        int valueCount = (int) header.getValueCount();
+
+        if(header.isSparse()) {
+
+            double[] values = readDoubles(in, buffer, valueCount);
+            int[] columnIndices = readInts(in, buffer, valueCount);
+            int[] rowPointers = readInts(in, buffer, m + 1);
+
+            checkSparse(m, n, rowPointers, columnIndices, valueCount);
+
+            return Matrix.buildSparseMatrix(m, n, rowPointers, columnIndices, values);
+        }
+
+        return Matrix.buildMatrix(m, n, readDoubles(in, buffer, valueCount));
+    }
+
+    /**
+     * Checks the compressed sparse row arrays - the row pointers start at 0, never decrease and end at the number of
+     * values, and the columns of every row are in range and increasing
+     */
+    private static void checkSparse(int m, int n, int[] rowPointers, int[] columnIndices, int valueCount) {
+        if(rowPointers[0] != 0 || rowPointers[m] != valueCount) {
+            throw new MatrixFormatException("sparse row pointers must run from 0 to " + valueCount + " - from "
+                    + rowPointers[0] + " to " + rowPointers[m]);
+        }
+
+        for(int i = 0; i < m; i++) {
+
+            if(rowPointers[i + 1] < rowPointers[i]) {
+                throw new MatrixFormatException("sparse row pointers must not decrease - row: " + i);
+            }
+
+            for(int index = rowPointers[i]; index < rowPointers[i + 1]; index++) {
+
+                int column = columnIndices[index];
+                if(column < 0 || column >= n || (index > rowPointers[i] && column <= columnIndices[index - 1])) {
+                    throw new MatrixFormatException("sparse column indexes of row: " + i
+                            + " must be increasing and less than " + n + " - found: " + column);
+                }
+
+            }
+
+        }
+    }
+
+    /**
+     * Reads count matrices written one after the other from the stream
+     * @param in
+     * @param count
+     * @return
+     * @throws IOException
+     */
+    public static Matrix[] read(InputStream in, int count) throws IOException {
+        Matrix[] matrices = new Matrix[count];
+        for(int i = 0; i < count; i++) {
+            matrices[i] = read(in);
+        }
+        return matrices;
+    }
+
+    private static void writeDoubles(OutputStream out, ByteBuffer buffer, double[] values, int length) throws IOException {
+        for(int offset = 0; offset < length; ) {
+
+            if(buffer.remaining() < Double.BYTES) {
+                flush(out, buffer);
+            }
+
+            int count = Math.min(buffer.remaining() / Double.BYTES, length - offset);
+            buffer.asDoubleBuffer().put(values, offset, count);
+            buffer.position(buffer.position() + count * Double.BYTES);
+            offset += count;
+
+        }
+    }
+
+    private static void writeInts(OutputStream out, ByteBuffer buffer, int[] values, int length) throws IOException {
+        for(int offset = 0; offset < length; ) {
+
+            if(buffer.remaining() < Integer.BYTES) {
+                flush(out, buffer);
+            }
+
+            int count = Math.min(buffer.remaining() / Integer.BYTES, length - offset);
+            buffer.asIntBuffer().put(values, offset, count);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+            offset += count;
+
+        }
+    }
+
+    private static void flush(OutputStream out, ByteBuffer buffer) throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+
+    private static double[] readDoubles(InputStream in, ByteBuffer buffer, int length) throws IOException {
+        int perBuffer = buffer.capacity() / Double.BYTES;
+        double[] values = new double[Math.min(length, perBuffer)];
+
+        for(int offset = 0; offset < length; offset += perBuffer) {
+            int count = Math.min(perBuffer, length - offset);
+            readFully(in, buffer, count * Double.BYTES);
+
+            if(offset + count > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, offset + count, length));
+            }
+
+            buffer.asDoubleBuffer().get(values, offset, count);
+        }
+
+        return values;
+    }
+
+    private static int[] readInts(InputStream in, ByteBuffer buffer, int length) throws IOException {
+        int perBuffer = buffer.capacity() / Integer.BYTES;
+        int[] values = new int[Math.min(length, perBuffer)];
+
+        for(int offset = 0; offset < length; offset += perBuffer) {
+            int count = Math.min(perBuffer, length - offset);
+            readFully(in, buffer, count * Integer.BYTES);
+
+            if(offset + count > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, offset + count, length));
+            }
+
+            buffer.asIntBuffer().get(values, offset, count);
+        }
+
+        return values;
+    }
+
+    /**
+     * Doubles the length of an array being read into - at least the needed length and at most the final length
+     */
+    private static int grow(int current, int needed, int length) {
+        return (int) Math.min(length, Math.max(needed, 2L * current));
+    }
+
+    /**
+     * Reads exactly length bytes into the start of the buffer and leaves it ready to get them
+     */
+    private static void readFully(InputStream in, ByteBuffer buffer, int length) throws IOException {
+        byte[] bytes = buffer.array();
+        int filled = 0;
+
+        while(filled < length) {
+            int read = in.read(bytes, filled, length - filled);
+            if(read < 0) {
+                throw new MatrixFormatException("unexpected end of matrix data - " + (length - filled) + " bytes missing");
+            }
+            filled += read;
+        }
+
+        buffer.clear();
+        buffer.limit(length);
+    }
+
+}
@@ -0,0 +1,643 @@
+package io.github.dgflagg.io;
+
+import io.github.dgflagg.exceptions.MatrixStorageException;
+import io.github.dgflagg.model.DenseMatrix;
+import io.github.dgflagg.model.MappedMatrix;
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.MatrixUpdate;
+import io.github.dgflagg.model.SparseMatrix;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary file format for matrices - read and written through memory mapped regions of a FileChannel
+ *
+ * Layout - everything little-endian:
+ * <pre>
+ *  0  int    magic "TAGM"
+ *  4  short  format version
+ *  6  byte   value type - 1 = 64 bit floating point
+ *  7  byte   layout - 0 = dense, 1 = compressed sparse row
+ *  8  int    rows
+ * 12  int    columns
+ * 16  long   stored values - rows x columns for dense, non-zero values for sparse
+ * 24  long   reserved
+ * 32         dense: rows x columns doubles in row-major order
+ *            sparse: the stored doubles, then an int column index per value, then rows + 1 int row pointers
+ * </pre>
+ * The header is 32 bytes so the doubles that follow stay 8 byte aligned. A matrix can start at any position of a
+ * channel so the same format can be embedded in larger files.
+ */
+@Slf4j
+public final class MatrixFile {
+
+    public static final String FILE_EXTENSION = ".matrix";
+
+    public static final int MAGIC = 0x4D474154;
+    public static final short VERSION = 1;
+    public static final byte FLOAT64 = 1;
+    public static final byte DENSE = 0;
+    public static final byte SPARSE = 1;
+    public static final int HEADER_BYTES = 32;
+
+    /**
+     * Largest region mapped at once - a single mapping cannot be larger than 2GB
+     */
+    static final long SEGMENT_BYTES = 1L << 30;
+
+    /**
+     * Most values copied out of a matrix that is not dense before they are written
+     */
+    static final int CHUNK_VALUES = 1 << 17;
+
+    /**
+     * Size of the buffer values are copied through on their way to the channel - writes never map the file
+     */
+    static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+    private MatrixFile() {
+        //don't want to instantiate this class
+    }
+
+    /**
+     * The shape and layout read from the start of a matrix
+     */
+    public static final class Header {
+
+        private final byte layout;
+        private final int rowCount;
+        private final int columnCount;
+        private final long valueCount;
+
+        Header(byte layout, int rowCount, int columnCount, long valueCount) {
+            this.layout = layout;
+            this.rowCount = rowCount;
+            this.columnCount = columnCount;
+            this.valueCount = valueCount;
+        }
+
+        public boolean isSparse() {
+            return this.layout == SPARSE;
+        }
+
+        public int getRowCount() {
+            return this.rowCount;
+        }
+
+        public int getColumnCount() {
+            return this.columnCount;
+        }
+
+        public long getValueCount() {
+            return this.valueCount;
+        }
+
+        /**
+         * Returns the total bytes taken by the matrix including this header
+         * @return
+         */
+        public long getByteCount() {
+            if(this.isSparse()) {
+                return HEADER_BYTES + this.valueCount * (Double.BYTES + Integer.BYTES) + (this.rowCount + 1L) * Integer.BYTES;
+            }
+
+            return HEADER_BYTES + this.valueCount * Double.BYTES;
+        }
+    }
+
+    /**
+     * Writes the matrix to the file, replacing anything already there
+     *
+     * The matrix is written to a temporary file in the same directory which is then moved over the file, so the file
+     * is never truncated or changed in place - matrices already mapped from it keep their values and a reader never
+     * sees a half written file.
+     * @param matrix
+     * @param file
+     */
+    public static void write(Matrix matrix, Path file) {
+        log.info("writing matrix: {} to binary file: {}", matrix.getName(), file);
+
+        replace(file, channel -> write(matrix, channel, 0));
+    }
+
+    /**
+     * Writes the file through the writer into a temporary file that is forced to disk and then moved over the file
+     */
+    private static void replace(Path file, ChannelWriter writer) {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = null;
+
+        try {
+
+            temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+
+            try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                writer.write(channel);
+                channel.force(true);
+            }
+
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        } catch (IOException e) {
+            deleteQuietly(temporary);
+            MatrixStorageException exception = new MatrixStorageException("cannot write matrix to: " + file, e);
+            log.error(exception.getMessage());
+            throw exception;
+        } catch (RuntimeException e) {
+            deleteQuietly(temporary);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes into a channel open for reading and writing
+     */
+    private interface ChannelWriter {
+        void write(FileChannel channel) throws IOException;
+    }
+
+    private static void deleteQuietly(Path file) {
+        if(file == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("cannot delete temporary file: {} - {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the matrix into the channel starting at the position - the channel must be open for writing
+     * @param matrix
+     * @param channel
+     * @param position
+     * @return the number of bytes written
+     * @throws IOException
+     */
+    public static long write(Matrix matrix, FileChannel channel, long position) throws IOException {
+        int m = matrix.getRowCount();
+        int n = matrix.getColumnCount();
+
+        if(matrix instanceof SparseMatrix) {
+
+            SparseMatrix sparse = (SparseMatrix) matrix;
+            int nonZeroCount = sparse.getNonZeroCount();
+
+            long offset = position + writeHeader(channel, position, SPARSE, m, n, nonZeroCount);
+            offset += writeDoubles(channel, offset, sparse.getValues(), nonZeroCount);
+            offset += writeInts(channel, offset, sparse.getColumnIndices(), nonZeroCount);
+            offset += writeInts(channel, offset, sparse.getRowPointers(), m + 1);
+
+            return offset - position;
+
+        }
+
+        long offset = position + writeHeader(channel, position, DENSE, m, n, (long) m * n);
+
+        if(matrix instanceof DenseMatrix) {
+            double[] data = ((DenseMatrix) matrix).getData();
+            offset += writeDoubles(channel, offset, data, data.length);
+            return offset - position;
+        }
+
+        //every other matrix is written a few rows at a time so a structured matrix is never built in memory whole
+        int rowsPerChunk = n == 0 ? Math.max(1, m) : Math.max(1, CHUNK_VALUES / n);
+        double[] chunk = new double[Math.min(rowsPerChunk, m) * n];
+        double[] row = new double[n];
+
+        for(int i = 0; i < m; i += rowsPerChunk) {
+
+            int rows = Math.min(rowsPerChunk, m - i);
+            for(int r = 0; r < rows; r++) {
+                matrix.copyRow(i + r, row);
+                System.arraycopy(row, 0, chunk, r * n, n);
+            }
+
+            offset += writeDoubles(channel, offset, chunk, rows * n);
+
+        }
+
+        return offset - position;
+    }
+
+    /**
+     * Reads the whole matrix from the file onto the heap - the values are bulk copied, nothing is parsed
+     * @param file
+     * @return
+     */
+    public static Matrix read(Path file) {
+        log.info("reading matrix from binary file: {}", file);
+
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            return read(channel, 0);
+
+        } catch (IOException e) {
+            MatrixStorageException exception = new MatrixStorageException("cannot read matrix from: " + file, e);
+            log.error(exception.getMessage());
+            throw exception;
+        }
+    }
+
+    /**
+     * Reads the matrix starting at the position of the channel onto the heap
+     * @param channel
+     * @param position
+     * @return
+     * @throws IOException
+     */
+    public static Matrix read(FileChannel channel, long position) throws IOException {
+        Header header = readHeader(channel, position);
+
+        if(header.isSparse()) {
+            return readSparse(channel, position, header);
+        }
+
+        double[] data = new double[Math.toIntExact(header.getValueCount())];
+        readDoubles(channel, position + HEADER_BYTES, data, data.length);
+
+        return Matrix.buildMatrix(header.getRowCount(), header.getColumnCount(), data);
+    }
+
+    /**
+     * Reads a block of the matrix starting at the position of the channel onto the heap - the rows from fromRow up to
+     * but not including toRow and the columns from fromColumn up to but not including toColumn
+     *
+     * Only the bytes of the block are read - whole rows are one contiguous read and narrower blocks one read per row.
+     * A sparse matrix reads the row pointers of its rows and then only the values between them. Ranges that run past
+     * the end of the matrix are cut off at its size.
+     * @param channel
+     * @param position
+     * @param fromRow
+     * @param toRow
+     * @param fromColumn
+     * @param toColumn
+     * @return
+     * @throws IOException
+     */
+    public static Matrix read(FileChannel channel, long position, int fromRow, int toRow, int fromColumn, int toColumn) throws IOException {
+        Header header = readHeader(channel, position);
+        int m = header.getRowCount();
+        int n = header.getColumnCount();
+
+        toRow = Math.min(toRow, m);
+        toColumn = Math.min(toColumn, n);
+        Matrix.checkRange("row", fromRow, toRow, m);
+        Matrix.checkRange("column", fromColumn, toColumn, n);
+
+        int rows = toRow - fromRow;
+        int columns = toColumn - fromColumn;
+
+        if(header.isSparse()) {
+
+            int nonZeroCount = Math.toIntExact(header.getValueCount());
+            long valuesPosition = position + HEADER_BYTES;
+            long columnIndicesPosition = valuesPosition + (long) nonZeroCount * Double.BYTES;
+            long rowPointersPosition = columnIndicesPosition + (long) nonZeroCount * Integer.BYTES;
+
+            int[] rowPointers = new int[rows + 1];
+            readInts(channel, rowPointersPosition + (long) fromRow * Integer.BYTES, rowPointers, rows + 1);
+
+            int first = rowPointers[0];
+            int count = rowPointers[rows] - first;
+
+            double[] values = new double[count];
+            int[] columnIndices = new int[count];
+            readDoubles(channel, valuesPosition + (long) first * Double.BYTES, values, count);
+            readInts(channel, columnIndicesPosition + (long) first * Integer.BYTES, columnIndices, count);
+
+            //the pointers were offsets into the values of the whole matrix
+            for(int i = 0; i <= rows; i++) {
+                rowPointers[i] -= first;
+            }
+
+            SparseMatrix sparse = Matrix.buildSparseMatrix(rows, n, rowPointers, columnIndices, values);
+            return columns == n ? sparse : sparse.submatrix(0, rows, fromColumn, toColumn);
+
+        }
+
+        double[] data = new double[Math.multiplyExact(rows, columns)];
+        long rowBytes = (long) n * Double.BYTES;
+        long start = position + HEADER_BYTES + fromRow * rowBytes + (long) fromColumn * Double.BYTES;
+
+        if(columns == n) {
+            //whole rows are next to each other in the file
+            readDoubles(channel, start, data, data.length);
+        } else {
+
+            ByteBuffer buffer = ByteBuffer.allocate(columns * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            DoubleBuffer doubles = buffer.asDoubleBuffer();
+
+            for(int i = 0; i < rows; i++) {
+                buffer.clear();
+                readFully(channel, buffer, start + i * rowBytes);
+                doubles.clear();
+                doubles.get(data, i * columns, columns);
+            }
+
+        }
+
+        return Matrix.buildMatrix(rows, columns, data);
+    }
+
+    /**
+     * Opens the matrix in the file without copying the values onto the heap - they are read from the mapped file
+     * when accessed. Sparse matrices are small enough that they are read onto the heap.
+     * @param file
+     * @return
+     */
+    public static Matrix map(Path file) {
+        log.info("mapping matrix from binary file: {}", file);
+
+        //the mapping stays valid after the channel is closed
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            return map(channel, 0);
+
+        } catch (IOException e) {
+            MatrixStorageException exception = new MatrixStorageException("cannot map matrix from: " + file, e);
+            log.error(exception.getMessage());
+            throw exception;
+        }
+    }
+
+    /**
+     * Opens the matrix starting at the position of the channel without copying the values onto the heap
+     * @param channel
+     * @param position
+     * @return
+     * @throws IOException
+     */
+    public static Matrix map(FileChannel channel, long position) throws IOException {
+        Header header = readHeader(channel, position);
+
+        if(header.isSparse()) {
+            return readSparse(channel, position, header);
+        }
+
+        int m = header.getRowCount();
+        int n = header.getColumnCount();
+        long rowBytes = (long) n * Double.BYTES;
+
+        //whole rows per segment so a value never straddles two mappings
+        int rowsPerSegment = (int) Math.max(1, Math.min(m, rowBytes == 0 ? m : SEGMENT_BYTES / rowBytes));
+        int segmentCount = (m + rowsPerSegment - 1) / rowsPerSegment;
+        DoubleBuffer[] segments = new DoubleBuffer[segmentCount];
+
+        long offset = position + HEADER_BYTES;
+        for(int s = 0; s < segmentCount; s++) {
+
+            int rows = Math.min(rowsPerSegment, m - s * rowsPerSegment);
+            long bytes = rows * rowBytes;
+
+            segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, offset, bytes)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asDoubleBuffer();
+
+            offset += bytes;
+
+        }
+
+        return new MappedMatrix(m, n, rowsPerSegment, segments);
+    }
+
+    /**
+     * Writes the changes over the values of the dense matrix starting at the position of the channel - a row is one
+     * write and every value of a column or cell is a write of its 8 bytes, nothing else in the file is touched
+     *
+     * The changes are checked against the shape in the header before anything is written. The changes are not forced
+     * to disk.
+     * @param channel open for reading and writing
+     * @param position
+     * @param update
+     * @return false without writing anything when the matrix is sparse - its values cannot be changed in place
+     * @throws IOException
+     */
+    public static boolean update(FileChannel channel, long position, MatrixUpdate update) throws IOException {
+        Header header = readHeader(channel, position);
+
+        if(header.isSparse()) {
+            return false;
+        }
+
+        int n = header.getColumnCount();
+        update.check(header.getRowCount(), n);
+
+        long start = position + HEADER_BYTES;
+        long rowBytes = (long) n * Double.BYTES;
+
+        ByteBuffer row = ByteBuffer.allocate((int) rowBytes).order(ByteOrder.LITTLE_ENDIAN);
+        for(MatrixUpdate.Line line : update.getRows()) {
+            row.clear();
+            row.asDoubleBuffer().put(line.getValues());
+            writeFully(channel, row, start + line.getIndex() * rowBytes);
+        }
+
+        ByteBuffer value = ByteBuffer.allocate(Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for(MatrixUpdate.Line line : update.getColumns()) {
+            double[] values = line.getValues();
+            for(int i = 0; i < values.length; i++) {
+                value.clear();
+                value.putDouble(0, values[i]);
+                writeFully(channel, value, start + i * rowBytes + (long) line.getIndex() * Double.BYTES);
+            }
+        }
+
+        for(MatrixUpdate.Cell cell : update.getCells()) {
+            value.clear();
+            value.putDouble(0, cell.getValue());
+            writeFully(channel, value, start + cell.getRow() * rowBytes + (long) cell.getColumn() * Double.BYTES);
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads and checks the header of the matrix starting at the position
+     * @param channel
+     * @param position
+     * @return
+     * @throws IOException
+     */
+    public static Header readHeader(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, buffer, position);
+        buffer.flip();
+
+        return getHeader(buffer);
+    }
+
+    /**
+     * Reads and checks the header at the position of a little-endian buffer - shared with {@link MatrixBinaryCodec}
+     */
+    static Header getHeader(ByteBuffer buffer) {
+        int magic = buffer.getInt();
+        short version = buffer.getShort();
+        byte type = buffer.get();
+        byte layout = buffer.get();
+        int m = buffer.getInt();
+        int n = buffer.getInt();
+        long valueCount = buffer.getLong();
+
+        if(magic != MAGIC) {
+            throw new MatrixStorageException("not a matrix file - unexpected magic number: " + Integer.toHexString(magic));
+        }
+
+        if(version != VERSION || type != FLOAT64 || (layout != DENSE && layout != SPARSE)) {
+            throw new MatrixStorageException("unsupported matrix file - version: " + version + ", type: " + type + ", layout: " + layout);
+        }
+
+        if(m < 0 || n < 0 || valueCount < 0 || (layout == DENSE && valueCount != (long) m * n)) {
+            throw new MatrixStorageException("corrupt matrix file header - rows: " + m + ", columns: " + n + ", values: " + valueCount);
+        }
+
+        return new Header(layout, m, n, valueCount);
+    }
+
+    /**
+     * Returns the number of bytes the matrix takes when written
+     * @param matrix
+     * @return
+     */
+    public static long byteCount(Matrix matrix) {
+        if(matrix instanceof SparseMatrix) {
+            SparseMatrix sparse = (SparseMatrix) matrix;
+            return new Header(SPARSE, sparse.getRowCount(), sparse.getColumnCount(), sparse.getNonZeroCount()).getByteCount();
+        }
+
+        return new Header(DENSE, matrix.getRowCount(), matrix.getColumnCount(),
+                (long) matrix.getRowCount() * matrix.getColumnCount()).getByteCount();
+    }
+
+    private static SparseMatrix readSparse(FileChannel channel, long position, Header header) throws IOException {
+        int m = header.getRowCount();
+        int nonZeroCount = Math.toIntExact(header.getValueCount());
+
+        double[] values = new double[nonZeroCount];
+        int[] columnIndices = new int[nonZeroCount];
+        int[] rowPointers = new int[m + 1];
+
+        long offset = position + HEADER_BYTES;
+        offset += readDoubles(channel, offset, values, nonZeroCount);
+        offset += readInts(channel, offset, columnIndices, nonZeroCount);
+        readInts(channel, offset, rowPointers, m + 1);
+
+        return Matrix.buildSparseMatrix(m, header.getColumnCount(), rowPointers, columnIndices, values);
+    }
+
+    private static long writeHeader(FileChannel channel, long position, byte layout, int m, int n, long valueCount) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        putHeader(buffer, layout, m, n, valueCount);
+        buffer.flip();
+        writeFully(channel, buffer, position);
+        return HEADER_BYTES;
+    }
+
+    /**
+     * Puts the header at the position of a little-endian buffer - shared with {@link MatrixBinaryCodec}
+     */
+    static void putHeader(ByteBuffer buffer, byte layout, int m, int n, long valueCount) {
+        buffer.putInt(MAGIC)
+                .putShort(VERSION)
+                .put(FLOAT64)
+                .put(layout)
+                .putInt(m)
+                .putInt(n)
+                .putLong(valueCount)
+                .putLong(0L);
+    }
+
+    private static long writeDoubles(FileChannel channel, long position, double[] values, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        DoubleBuffer doubles = buffer.asDoubleBuffer();
+        int perWrite = WRITE_BUFFER_BYTES / Double.BYTES;
+
+        for(int offset = 0; offset < length; offset += perWrite) {
+            int count = Math.min(perWrite, length - offset);
+
+            doubles.clear();
+            doubles.put(values, offset, count);
+            buffer.clear();
+            buffer.limit(count * Double.BYTES);
+
+            writeFully(channel, buffer, position + (long) offset * Double.BYTES);
+        }
+
+        return (long) length * Double.BYTES;
+    }
+
+    private static long writeInts(FileChannel channel, long position, int[] values, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        IntBuffer ints = buffer.asIntBuffer();
+        int perWrite = WRITE_BUFFER_BYTES / Integer.BYTES;
+
+        for(int offset = 0; offset < length; offset += perWrite) {
+            int count = Math.min(perWrite, length - offset);
+
+            ints.clear();
+            ints.put(values, offset, count);
+            buffer.clear();
+            buffer.limit(count * Integer.BYTES);
+
+            writeFully(channel, buffer, position + (long) offset * Integer.BYTES);
+        }
+
+        return (long) length * Integer.BYTES;
+    }
+
+    private static long readDoubles(FileChannel channel, long position, double[] values, int length) throws IOException {
+        int perSegment = (int) (SEGMENT_BYTES / Double.BYTES);
+
+        for(int offset = 0; offset < length; offset += perSegment) {
+            int count = Math.min(perSegment, length - offset);
+            channel.map(FileChannel.MapMode.READ_ONLY, position + (long) offset * Double.BYTES, (long) count * Double.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asDoubleBuffer()
+                    .get(values, offset, count);
+        }
+
+        return (long) length * Double.BYTES;
+    }
+
+    private static long readInts(FileChannel channel, long position, int[] values, int length) throws IOException {
+        int perSegment = (int) (SEGMENT_BYTES / Integer.BYTES);
+
+        for(int offset = 0; offset < length; offset += perSegment) {
+            int count = Math.min(perSegment, length - offset);
+            channel.map(FileChannel.MapMode.READ_ONLY, position + (long) offset * Integer.BYTES, (long) count * Integer.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asIntBuffer()
+                    .get(values, offset, count);
+        }
+
+        return (long) length * Integer.BYTES;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while(buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if(read < 0) {
+                throw new MatrixStorageException("unexpected end of matrix file at byte: " + (position + buffer.position()));
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while(buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+}
@@ -0,0 +1,185 @@
+package io.github.dgflagg.io;
+
+import io.github.dgflagg.model.Matrix;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes matrices as nested json arrays - "[[1.0,2.0],[3.0,4.0]]" - straight from their primitive storage
+ *
+ * One row at a time is copied out of the matrix and formatted into a reusable byte buffer, so writing a result never
+ * boxes its values or builds the whole text in memory. The numbers are formatted the same way Double.toString does
+ * and NaN or infinite values, which json has no numbers for, are written as strings the way Jackson writes them.
+ */
+public final class MatrixJsonWriter {
+
+    private static final int BUFFER_BYTES = 1 << 13;
+    /**
+     * Longest text of a single double - "-2.2250738585072014E-308" plus the separator and brackets around it
+     */
+    private static final int MAXIMUM_VALUE_BYTES = 32;
+
+    /**
+     * Values from 10^-3 up to 10^7 are written in plain decimal notation by Double.toString - others in E notation
+     */
+    private static final double PLAIN_MINIMUM = 1e-3;
+    private static final double PLAIN_MAXIMUM = 1e7;
+    /**
+     * Most decimal places tried before falling back to Double.toString
+     */
+    private static final int MAXIMUM_FAST_DECIMALS = 8;
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8};
+    /**
+     * Integers below this are exactly representable - 2^53
+     */
+    private static final double EXACT_INTEGER_LIMIT = 9007199254740992d;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_BYTES];
+    private int size;
+    private final byte[] digits = new byte[20];
+
+    private MatrixJsonWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes the matrix to the stream - the stream is flushed but not closed
+     * @param matrix
+     * @param out
+     * @throws IOException
+     */
+    public static void write(Matrix matrix, OutputStream out) throws IOException {
+        MatrixJsonWriter writer = new MatrixJsonWriter(out);
+        writer.writeMatrix(matrix);
+        writer.flush();
+        out.flush();
+    }
+
+    private void writeMatrix(Matrix matrix) throws IOException {
+        int n = matrix.getColumnCount();
+        double[] row = new double[n];
+
+        this.writeByte('[');
+
+        for(int i = 0; i < matrix.getRowCount(); i++) {
+
+            if(i > 0) {
+                this.writeByte(',');
+            }
+
+            this.writeByte('[');
+
+            matrix.copyRow(i, row);
+
+            for(int j = 0; j < n; j++) {
+
+                if(j > 0) {
+                    this.writeByte(',');
+                }
+
+                this.writeDouble(row[j]);
+
+            }
+
+            this.writeByte(']');
+
+        }
+
+        this.writeByte(']');
+    }
+
+    /**
+     * Formats the value into the buffer
+     *
+     * A value in the plain notation range that is exactly some integer over a power of ten (up to 10^8) is written as
+     * that integer with the decimal point put in - the fewest decimal places that read back as exactly the same
+     * double, which is what Double.toString prints. Everything else is left to Double.toString.
+     */
+    void writeDouble(double value) throws IOException {
+        if(this.size + MAXIMUM_VALUE_BYTES > this.buffer.length) {
+            this.flush();
+        }
+
+        if(value != value || Double.isInfinite(value)) {
+            this.writeAscii("\"" + value + "\"");
+            return;
+        }
+
+        double magnitude = Math.abs(value);
+
+        if(magnitude == 0d) {
+            this.writeAscii(1 / value < 0 ? "-0.0" : "0.0");
+            return;
+        }
+
+        if(magnitude < PLAIN_MINIMUM || magnitude >= PLAIN_MAXIMUM) {
+            this.writeAscii(Double.toString(value));
+            return;
+        }
+
+        for(int decimals = 0; decimals <= MAXIMUM_FAST_DECIMALS; decimals++) {
+
+            double scaled = Math.rint(magnitude * POWERS_OF_TEN[decimals]);
+
+            //the division is correctly rounded so this is true only if the decimal text reads back as the value
+            if(scaled < EXACT_INTEGER_LIMIT && scaled / POWERS_OF_TEN[decimals] == magnitude) {
+                if(value < 0) {
+                    this.buffer[this.size++] = '-';
+                }
+                this.writeDecimal((long) scaled, decimals);
+                return;
+            }
+
+        }
+
+        this.writeAscii(Double.toString(value));
+    }
+
+    /**
+     * Writes the digits of the integer with the decimal point placed before the last decimals digits - always at
+     * least one digit on each side of the point
+     */
+    private void writeDecimal(long unscaled, int decimals) {
+        int count = 0;
+        do {
+            this.digits[count++] = (byte) ('0' + unscaled % 10);
+            unscaled /= 10;
+        } while(unscaled != 0 || count <= decimals);
+
+        //digits are collected lowest first
+        for(int d = count - 1; d >= decimals; d--) {
+            this.buffer[this.size++] = this.digits[d];
+        }
+
+        this.buffer[this.size++] = '.';
+
+        if(decimals == 0) {
+            this.buffer[this.size++] = '0';
+        }
+
+        for(int d = decimals - 1; d >= 0; d--) {
+            this.buffer[this.size++] = this.digits[d];
+        }
+    }
+
+    private void writeAscii(String text) {
+        for(int c = 0; c < text.length(); c++) {
+            this.buffer[this.size++] = (byte) text.charAt(c);
+        }
+    }
+
+    private void writeByte(char c) throws IOException {
+        if(this.size == this.buffer.length) {
+            this.flush();
+        }
+        this.buffer[this.size++] = (byte) c;
+    }
+
+    private void flush() throws IOException {
+        this.out.write(this.buffer, 0, this.size);
+        this.size = 0;
+    }
+
+}
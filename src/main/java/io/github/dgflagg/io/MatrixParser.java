@@ -0,0 +1,366 @@
+package io.github.dgflagg.io;
+
+import io.github.dgflagg.exceptions.MatrixFormatException;
+import io.github.dgflagg.exceptions.MatrixStorageException;
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.MatrixBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parses matrices written as nested arrays - "[[1,2,3],[4,5,6]]" - in a single pass over the characters
+ *
+ * Every value is parsed straight into the primitive storage of a {@link MatrixBuilder} as it is reached, so the text
+ * is never copied, split or held in memory as a whole. Whitespace is allowed between any two tokens. "[]" is a
+ * matrix with no rows and a flat "[1,2,3]" is a matrix with a single row.
+ *
+ * Errors are thrown as a {@link MatrixFormatException} naming the character position they were found at.
+ */
+@Slf4j
+public class MatrixParser {
+
+    private static final int BUFFER_CHARS = 8192;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_CHARS];
+    private int position;
+    private int limit;
+    /**
+     * Position of buffer[0] in the whole text - used to report where errors are
+     */
+    private long bufferStart;
+
+    /**
+     * Characters of the number being parsed - numbers are only ever ASCII
+     */
+    private byte[] number = new byte[32];
+
+    /**
+     * Creates a parser that reads the text from the reader as it goes
+     * @param reader
+     */
+    public MatrixParser(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Parses the matrix in the text - nothing but whitespace may follow it
+     * @param text
+     * @return
+     */
+    public static Matrix parse(String text) {
+        return parse(new StringReader(text));
+    }
+
+    /**
+     * Parses the matrix read from the reader - nothing but whitespace may follow it
+     * @param reader
+     * @return
+     */
+    public static Matrix parse(Reader reader) {
+        MatrixParser parser = new MatrixParser(reader);
+        Matrix matrix = parser.readMatrix();
+        parser.readEnd();
+        return matrix;
+    }
+
+    /**
+     * Parses the next matrix in the text
+     * @return
+     */
+    public Matrix readMatrix() {
+        MatrixBuilder builder = new MatrixBuilder();
+
+        this.expect('[');
+
+        int c = this.peek();
+
+        if(c == ']') {
+            //no rows at all
+            this.position++;
+        } else if(c == '[') {
+
+            do {
+                this.expect('[');
+                this.readRow(builder);
+            } while(this.expectEither(',', ']') == ',');
+
+        } else {
+            //a flat array of values is a single row
+            this.readRow(builder);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Parses the named operands of a request - either an object with one matrix per name such as
+     * {"m1": [[1,2]], "m2": [[3,4]]} or, when there is only one name, just the matrix itself
+     * @param names
+     * @return the operands in the same order as the names
+     */
+    public Matrix[] readOperands(String... names) {
+        Matrix[] operands = new Matrix[names.length];
+
+        if(names.length == 1 && this.peek() == '[') {
+            operands[0] = this.readMatrix();
+            return operands;
+        }
+
+        this.expect('{');
+
+        if(this.peek() == '}') {
+            this.position++;
+        } else {
+
+            do {
+
+                String name = this.readString();
+                int index = Arrays.asList(names).indexOf(name);
+
+                if(index < 0 || operands[index] != null) {
+                    throw this.error((index < 0 ? "unexpected" : "duplicate") + " operand \"" + name + "\"");
+                }
+
+                this.expect(':');
+                operands[index] = this.readMatrix();
+
+            } while(this.expectEither(',', '}') == ',');
+
+        }
+
+        for(int i = 0; i < names.length; i++) {
+            if(operands[i] == null) {
+                throw this.error("missing operand \"" + names[i] + "\"");
+            }
+        }
+
+        return operands;
+    }
+
+    /**
+     * Parses an object with one matrix per name whatever the names are - {"a": [[1,2]], "b": [[3,4]]}
+     * @return the matrices by name in the order they were sent
+     */
+    public Map<String, Matrix> readNamedOperands() {
+        Map<String, Matrix> operands = new LinkedHashMap<>();
+
+        this.expect('{');
+
+        if(this.peek() == '}') {
+            this.position++;
+            return operands;
+        }
+
+        do {
+
+            String name = this.readString();
+
+            if(operands.containsKey(name)) {
+                throw this.error("duplicate operand \"" + name + "\"");
+            }
+
+            this.expect(':');
+            operands.put(name, this.readMatrix());
+
+        } while(this.expectEither(',', '}') == ',');
+
+        return operands;
+    }
+
+    /**
+     * Checks that only whitespace is left in the text
+     */
+    public void readEnd() {
+        int c = this.peek();
+        if(c >= 0) {
+            throw this.error("expected the end of the text but found '" + (char) c + "'");
+        }
+    }
+
+    /**
+     * Reads the values of a row up to and including its closing bracket and ends the row
+     */
+    private void readRow(MatrixBuilder builder) {
+        int rowLength = 0;
+
+        if(this.peek() == ']') {
+            this.position++;
+        } else {
+
+            do {
+                builder.add(this.readNumber());
+                rowLength++;
+            } while(this.expectEither(',', ']') == ',');
+
+        }
+
+        //checked here rather than left to the builder so the position of the bad row can be reported
+        if(builder.getRowCount() > 0 && rowLength != builder.getColumnCount()) {
+            throw this.error("jagged matrices are not supported - row " + builder.getRowCount() + " has " + rowLength
+                    + " values but the first row has " + builder.getColumnCount());
+        }
+
+        builder.endRow();
+    }
+
+    /**
+     * Reads a quoted string - escaped characters are taken as they are
+     */
+    private String readString() {
+        this.expect('"');
+        StringBuilder string = new StringBuilder();
+
+        char c;
+        while((c = this.next()) != '"') {
+            string.append(c == '\\' ? this.next() : c);
+        }
+
+        return string.toString();
+    }
+
+    /**
+     * Reads the characters of the next number and parses them
+     */
+    private double readNumber() {
+        this.peek();
+        long start = this.offset();
+        int length = 0;
+
+        while(true) {
+
+            if(this.position == this.limit && !this.fill()) {
+                break;
+            }
+
+            char c = this.buffer[this.position];
+
+            //digits, signs, decimal points, exponents and the letters of NaN and Infinity
+            if(!((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.'
+                    || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+                break;
+            }
+
+            if(length == this.number.length) {
+                this.number = Arrays.copyOf(this.number, length * 2);
+            }
+
+            this.number[length++] = (byte) c;
+            this.position++;
+
+        }
+
+        if(length == 0) {
+            throw this.error("expected a number but found " + describe(this.peek()));
+        }
+
+        try {
+            return DoubleParser.parse(this.number, 0, length);
+        } catch (NumberFormatException e) {
+            throw new MatrixFormatException("cannot parse: \"" + new String(this.number, 0, length,
+                    StandardCharsets.US_ASCII) + "\" at position " + start + " to a number");
+        }
+    }
+
+    /**
+     * Skips whitespace and consumes the expected character
+     */
+    private void expect(char expected) {
+        int c = this.peek();
+        if(c != expected) {
+            throw this.error("expected '" + expected + "' but found " + describe(c));
+        }
+        this.position++;
+    }
+
+    /**
+     * Skips whitespace and consumes either of the expected characters
+     * @return the one that was found
+     */
+    private char expectEither(char first, char second) {
+        int c = this.peek();
+        if(c != first && c != second) {
+            throw this.error("expected '" + first + "' or '" + second + "' but found " + describe(c));
+        }
+        this.position++;
+        return (char) c;
+    }
+
+    /**
+     * Consumes the next character whatever it is
+     */
+    private char next() {
+        if(this.position == this.limit && !this.fill()) {
+            throw this.error("unexpected end of the text");
+        }
+        return this.buffer[this.position++];
+    }
+
+    /**
+     * Skips whitespace and returns the next character without consuming it - -1 at the end of the text
+     */
+    private int peek() {
+        while(true) {
+
+            if(this.position == this.limit && !this.fill()) {
+                return -1;
+            }
+
+            char c = this.buffer[this.position];
+            if(c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+                return c;
+            }
+
+            this.position++;
+
+        }
+    }
+
+    /**
+     * Reads the next characters into the buffer once every character in it has been consumed
+     * @return false at the end of the text
+     */
+    private boolean fill() {
+        try {
+
+            int read;
+            do {
+                read = this.reader.read(this.buffer, 0, this.buffer.length);
+            } while(read == 0);
+
+            if(read < 0) {
+                return false;
+            }
+
+            this.bufferStart += this.limit;
+            this.position = 0;
+            this.limit = read;
+            return true;
+
+        } catch (IOException e) {
+            MatrixStorageException exception = new MatrixStorageException("cannot read matrix text", e);
+            log.error(exception.getMessage());
+            throw exception;
+        }
+    }
+
+    private long offset() {
+        return this.bufferStart + this.position;
+    }
+
+    private MatrixFormatException error(String message) {
+        return new MatrixFormatException(message + " at position " + this.offset());
+    }
+
+    private static String describe(int c) {
+        return c < 0 ? "the end of the text" : "'" + (char) c + "'";
+    }
+
+}
@@ -0,0 +1,171 @@
+package io.github.dgflagg.kernel;
+
+/**
+ * Products of many small matrices packed one after the other in single arrays - a batch
+ *
+ * Matrix t of a batch of m x k matrices is at [t * m * k, (t + 1) * m * k) in row-major order. A stride of 0 uses
+ * the same matrix for every product of the batch. Products of 2 x 2, 3 x 3 and 4 x 4 matrices - the transforms of
+ * graphics and geometry pipelines - are fully unrolled with every value of both operands held in locals, so each
+ * product is a straight run of multiply-adds with no loops, bounds checks or index arithmetic between them. Any other
+ * shape uses a plain triple loop, which is as good as anything for matrices this small.
+ */
+public final class BatchKernel {
+
+    private BatchKernel() {
+        //don't want to instantiate this class
+    }
+
+    /**
+     * Computes products [start, end) of the batch - C_t = A_t x B_t
+     * Separate ranges of the batch write separate parts of C so they can be computed at the same time
+     * @param a batch of m x k matrices
+     * @param aStride values between the matrices of a - m x k, or 0 to use the first matrix for every product
+     * @param b batch of k x n matrices
+     * @param bStride values between the matrices of b - k x n, or 0 to use the first matrix for every product
+     * @param c batch of m x n matrices - overwritten
+     * @param start first product to compute
+     * @param end one past the last product to compute
+     * @param m rows of A and C
+     * @param k columns of A and rows of B
+     * @param n columns of B and C
+     */
+    public static void multiply(double[] a, int aStride, double[] b, int bStride, double[] c, int start, int end,
+                                int m, int k, int n) {
+        if(m == k && k == n) {
+            switch(m) {
+                case 2:
+                    multiply2(a, aStride, b, bStride, c, start, end);
+                    return;
+                case 3:
+                    multiply3(a, aStride, b, bStride, c, start, end);
+                    return;
+                case 4:
+                    multiply4(a, aStride, b, bStride, c, start, end);
+                    return;
+                default:
+                    break;
+            }
+        }
+
+        int cStride = m * n;
+
+        for(int t = start; t < end; t++) {
+
+            int ao = t * aStride;
+            int bo = t * bStride;
+            int co = t * cStride;
+
+            for(int i = 0; i < m; i++) {
+                for(int j = 0; j < n; j++) {
+
+                    double sum = 0d;
+                    for(int p = 0; p < k; p++) {
+                        sum += a[ao + i * k + p] * b[bo + p * n + j];
+                    }
+                    c[co + i * n + j] = sum;
+
+                }
+            }
+
+        }
+    }
+
+    /**
+     * Two by two products - every value of both operands held in locals
+     */
+    private static void multiply2(double[] a, int aStride, double[] b, int bStride, double[] c, int start, int end) {
+        for(int t = start; t < end; t++) {
+
+            int ao = t * aStride;
+            int bo = t * bStride;
+            int co = t * 4;
+
+            double b00 = b[bo], b01 = b[bo + 1];
+            double b10 = b[bo + 2], b11 = b[bo + 3];
+
+            double a00 = a[ao], a01 = a[ao + 1];
+            c[co] = a00 * b00 + a01 * b10;
+            c[co + 1] = a00 * b01 + a01 * b11;
+
+            double a10 = a[ao + 2], a11 = a[ao + 3];
+            c[co + 2] = a10 * b00 + a11 * b10;
+            c[co + 3] = a10 * b01 + a11 * b11;
+
+        }
+    }
+
+    /**
+     * Three by three products - every value of both operands held in locals
+     */
+    private static void multiply3(double[] a, int aStride, double[] b, int bStride, double[] c, int start, int end) {
+        for(int t = start; t < end; t++) {
+
+            int ao = t * aStride;
+            int bo = t * bStride;
+            int co = t * 9;
+
+            double b00 = b[bo], b01 = b[bo + 1], b02 = b[bo + 2];
+            double b10 = b[bo + 3], b11 = b[bo + 4], b12 = b[bo + 5];
+            double b20 = b[bo + 6], b21 = b[bo + 7], b22 = b[bo + 8];
+
+            double a00 = a[ao], a01 = a[ao + 1], a02 = a[ao + 2];
+            c[co] = a00 * b00 + a01 * b10 + a02 * b20;
+            c[co + 1] = a00 * b01 + a01 * b11 + a02 * b21;
+            c[co + 2] = a00 * b02 + a01 * b12 + a02 * b22;
+
+            double a10 = a[ao + 3], a11 = a[ao + 4], a12 = a[ao + 5];
+            c[co + 3] = a10 * b00 + a11 * b10 + a12 * b20;
+            c[co + 4] = a10 * b01 + a11 * b11 + a12 * b21;
+            c[co + 5] = a10 * b02 + a11 * b12 + a12 * b22;
+
+            double a20 = a[ao + 6], a21 = a[ao + 7], a22 = a[ao + 8];
+            c[co + 6] = a20 * b00 + a21 * b10 + a22 * b20;
+            c[co + 7] = a20 * b01 + a21 * b11 + a22 * b21;
+            c[co + 8] = a20 * b02 + a21 * b12 + a22 * b22;
+
+        }
+    }
+
+    /**
+     * Four by four products - every value of both operands held in locals
+     */
+    private static void multiply4(double[] a, int aStride, double[] b, int bStride, double[] c, int start, int end) {
+        for(int t = start; t < end; t++) {
+
+            int ao = t * aStride;
+            int bo = t * bStride;
+            int co = t * 16;
+
+            double b00 = b[bo], b01 = b[bo + 1], b02 = b[bo + 2], b03 = b[bo + 3];
+            double b10 = b[bo + 4], b11 = b[bo + 5], b12 = b[bo + 6], b13 = b[bo + 7];
+            double b20 = b[bo + 8], b21 = b[bo + 9], b22 = b[bo + 10], b23 = b[bo + 11];
+            double b30 = b[bo + 12], b31 = b[bo + 13], b32 = b[bo + 14], b33 = b[bo + 15];
+
+            double a00 = a[ao], a01 = a[ao + 1], a02 = a[ao + 2], a03 = a[ao + 3];
+            c[co] = a00 * b00 + a01 * b10 + a02 * b20 + a03 * b30;
+            c[co + 1] = a00 * b01 + a01 * b11 + a02 * b21 + a03 * b31;
+            c[co + 2] = a00 * b02 + a01 * b12 + a02 * b22 + a03 * b32;
+            c[co + 3] = a00 * b03 + a01 * b13 + a02 * b23 + a03 * b33;
+
+            double a10 = a[ao + 4], a11 = a[ao + 5], a12 = a[ao + 6], a13 = a[ao + 7];
+            c[co + 4] = a10 * b00 + a11 * b10 + a12 * b20 + a13 * b30;
+            c[co + 5] = a10 * b01 + a11 * b11 + a12 * b21 + a13 * b31;
+            c[co + 6] = a10 * b02 + a11 * b12 + a12 * b22 + a13 * b32;
+            c[co + 7] = a10 * b03 + a11 * b13 + a12 * b23 + a13 * b33;
+
+            double a20 = a[ao + 8], a21 = a[ao + 9], a22 = a[ao + 10], a23 = a[ao + 11];
+            c[co + 8] = a20 * b00 + a21 * b10 + a22 * b20 + a23 * b30;
+            c[co + 9] = a20 * b01 + a21 * b11 + a22 * b21 + a23 * b31;
+            c[co + 10] = a20 * b02 + a21 * b12 + a22 * b22 + a23 * b32;
+            c[co + 11] = a20 * b03 + a21 * b13 + a22 * b23 + a23 * b33;
+
+            double a30 = a[ao + 12], a31 = a[ao + 13], a32 = a[ao + 14], a33 = a[ao + 15];
+            c[co + 12] = a30 * b00 + a31 * b10 + a32 * b20 + a33 * b30;
+            c[co + 13] = a30 * b01 + a31 * b11 + a32 * b21 + a33 * b31;
+            c[co + 14] = a30 * b02 + a31 * b12 + a32 * b22 + a33 * b32;
+            c[co + 15] = a30 * b03 + a31 * b13 + a32 * b23 + a33 * b33;
+
+        }
+    }
+
+}
@@ -0,0 +1,311 @@
+package io.github.dgflagg.kernel;
+
+import java.util.Arrays;
+
+/**
+ * General matrix multiply (GEMM) over row-major primitive arrays
+ *
+ * The right hand operand is packed once into its transpose so every output value becomes a dot product of two
+ * contiguous runs of memory. The i / j / k loops are tiled so the blocks of both operands being worked on stay in
+ * cache, and the innermost loop computes a 2 x 4 tile of the output at a time with independent accumulators.
+ */
+public final class GemmKernel {
+
+    /**
+     * Length of the shared dimension worked on at once - a BLOCK_K run of a row is 1KB
+     */
+    static final int BLOCK_K = 128;
+    /**
+     * Number of packed columns of B worked on at once - BLOCK_J x BLOCK_K doubles is 64KB and stays in L2
+     */
+    static final int BLOCK_J = 64;
+    /**
+     * Number of rows of A worked on at once against the same block of packed columns
+     */
+    static final int BLOCK_I = 64;
+    /**
+     * Length of the runs of a row of B and C worked on at once when B is not packed - 2KB each
+     */
+    static final int BLOCK_ROW = 256;
+
+    private GemmKernel() {
+        //don't want to instantiate this class
+    }
+
+    /**
+     * Computes C = A x B where A is m x k, B is k x n and C is m x n, all in row-major order
+     * C is overwritten
+     * @param a values of A
+     * @param b values of B
+     * @param c values of C - must have room for m x n values
+     * @param m rows of A and C
+     * @param k columns of A and rows of B
+     * @param n columns of B and C
+     */
+    public static void multiply(double[] a, double[] b, double[] c, int m, int k, int n) {
+        Arrays.fill(c, 0, m * n, 0d);
+        multiplyPacked(a, transpose(b, k, n), c, 0, m, k, n);
+    }
+
+    /**
+     * Packs the k x n row-major matrix B into its n x k transpose so each column of B is contiguous
+     * @param b values of B
+     * @param k rows of B
+     * @param n columns of B
+     * @return
+     */
+    public static double[] transpose(double[] b, int k, int n) {
+        return transpose(b, new double[k * n], k, n);
+    }
+
+    /**
+     * Packs the k x n row-major matrix B into its n x k transpose in a buffer that is reused between multiplies
+     * @param b values of B
+     * @param bt buffer for the packed values - must have room for k x n values
+     * @param k rows of B
+     * @param n columns of B
+     * @return bt
+     */
+    public static double[] transpose(double[] b, double[] bt, int k, int n) {
+        //transpose in square tiles so neither the reads nor the writes stride through all of memory
+        for(int pp = 0; pp < k; pp += BLOCK_J) {
+
+            int pEnd = Math.min(pp + BLOCK_J, k);
+
+            for(int jj = 0; jj < n; jj += BLOCK_J) {
+
+                int jEnd = Math.min(jj + BLOCK_J, n);
+
+                for(int p = pp; p < pEnd; p++) {
+                    for(int j = jj; j < jEnd; j++) {
+                        bt[j * k + p] = b[p * n + j];
+                    }
+                }
+
+            }
+
+        }
+
+        return bt;
+    }
+
+    /**
+     * Accumulates rows [rowStart, rowEnd) of A x B into C - ie: C += A x B for those rows only
+     * B must already be packed with {@link #transpose(double[], int, int)}
+     * Separate row ranges touch separate parts of C so they can safely be computed at the same time
+     * @param a values of A - m x k
+     * @param bt packed values of B - n x k
+     * @param c values of C - m x n
+     * @param rowStart first row of C to compute
+     * @param rowEnd one past the last row of C to compute
+     * @param k columns of A and rows of B
+     * @param n columns of B and C
+     */
+    public static void multiplyPacked(double[] a, double[] bt, double[] c, int rowStart, int rowEnd, int k, int n) {
+
+        for(int ii = rowStart; ii < rowEnd; ii += BLOCK_I) {
+
+            int iEnd = Math.min(ii + BLOCK_I, rowEnd);
+
+            for(int kk = 0; kk < k; kk += BLOCK_K) {
+
+                int kEnd = Math.min(kk + BLOCK_K, k);
+
+                for(int jj = 0; jj < n; jj += BLOCK_J) {
+
+                    int jEnd = Math.min(jj + BLOCK_J, n);
+
+                    multiplyBlock(a, bt, c, ii, iEnd, jj, jEnd, kk, kEnd, k, n);
+
+                }
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Accumulates rows [rowStart, rowEnd) of alpha x A x B into C - ie: C += alpha A x B for those rows only
+     *
+     * Unlike {@link #multiplyPacked} B is read in its own row-major order so nothing has to be packed or allocated:
+     * every value of A scales a row of B into the row of C, over tiles small enough that the rows of C being
+     * accumulated stay in cache. Separate row ranges touch separate parts of C so they can be computed at the same time.
+     * @param a values of A - m x k
+     * @param b values of B - k x n
+     * @param c values of C - m x n
+     * @param rowStart first row of C to compute
+     * @param rowEnd one past the last row of C to compute
+     * @param k columns of A and rows of B
+     * @param n columns of B and C
+     * @param alpha scales the product
+     */
+    public static void multiplyAccumulate(double[] a, double[] b, double[] c, int rowStart, int rowEnd, int k, int n,
+                                          double alpha) {
+
+        for(int ii = rowStart; ii < rowEnd; ii += BLOCK_I) {
+
+            int iEnd = Math.min(ii + BLOCK_I, rowEnd);
+
+            for(int kk = 0; kk < k; kk += BLOCK_K) {
+
+                int kEnd = Math.min(kk + BLOCK_K, k);
+
+                for(int jj = 0; jj < n; jj += BLOCK_ROW) {
+
+                    int jEnd = Math.min(jj + BLOCK_ROW, n);
+
+                    for(int i = ii; i < iEnd; i++) {
+
+                        int row = i * n;
+
+                        for(int p = kk; p < kEnd; p++) {
+
+                            //zeroes are not skipped - 0 x Inf and 0 x NaN in B must give NaN like multiplyPacked
+                            double x = alpha * a[i * k + p];
+
+                            int bRow = p * n;
+                            for(int j = jj; j < jEnd; j++) {
+                                c[row + j] += x * b[bRow + j];
+                            }
+
+                        }
+
+                    }
+
+                }
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Accumulates the product of one block of A and one block of packed B into C
+     */
+    private static void multiplyBlock(double[] a, double[] bt, double[] c,
+                                      int iStart, int iEnd, int jStart, int jEnd, int kStart, int kEnd,
+                                      int k, int n) {
+        int i = iStart;
+
+        //two rows of the output at a time
+        for(; i + 1 < iEnd; i += 2) {
+
+            int a0 = i * k;
+            int a1 = a0 + k;
+
+            int j = jStart;
+
+            //four columns of the output at a time - eight independent accumulators
+            for(; j + 3 < jEnd; j += 4) {
+
+                int b0 = j * k;
+                int b1 = b0 + k;
+                int b2 = b1 + k;
+                int b3 = b2 + k;
+
+                double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+                double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+
+                for(int p = kStart; p < kEnd; p++) {
+
+                    double x0 = a[a0 + p];
+                    double x1 = a[a1 + p];
+                    double y0 = bt[b0 + p];
+                    double y1 = bt[b1 + p];
+                    double y2 = bt[b2 + p];
+                    double y3 = bt[b3 + p];
+
+                    c00 += x0 * y0;
+                    c01 += x0 * y1;
+                    c02 += x0 * y2;
+                    c03 += x0 * y3;
+                    c10 += x1 * y0;
+                    c11 += x1 * y1;
+                    c12 += x1 * y2;
+                    c13 += x1 * y3;
+
+                }
+
+                int c0 = i * n + j;
+                int c1 = c0 + n;
+                c[c0] += c00;
+                c[c0 + 1] += c01;
+                c[c0 + 2] += c02;
+                c[c0 + 3] += c03;
+                c[c1] += c10;
+                c[c1 + 1] += c11;
+                c[c1 + 2] += c12;
+                c[c1 + 3] += c13;
+
+            }
+
+            //remaining columns one at a time
+            for(; j < jEnd; j++) {
+
+                int b0 = j * k;
+
+                double c00 = 0, c10 = 0;
+
+                for(int p = kStart; p < kEnd; p++) {
+                    double y0 = bt[b0 + p];
+                    c00 += a[a0 + p] * y0;
+                    c10 += a[a1 + p] * y0;
+                }
+
+                c[i * n + j] += c00;
+                c[(i + 1) * n + j] += c10;
+
+            }
+
+        }
+
+        //odd row left over
+        for(; i < iEnd; i++) {
+
+            int a0 = i * k;
+
+            for(int j = jStart; j < jEnd; j++) {
+                c[i * n + j] += dot(a, a0, bt, j * k, kStart, kEnd);
+            }
+
+        }
+
+    }
+
+    /**
+     * Dot product of x[xOffset + p] and y[yOffset + p] for p in [pStart, pEnd) using four accumulators
+     */
+    private static double dot(double[] x, int xOffset, double[] y, int yOffset, int pStart, int pEnd) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+
+        int p = pStart;
+        for(; p + 3 < pEnd; p += 4) {
+            s0 += x[xOffset + p] * y[yOffset + p];
+            s1 += x[xOffset + p + 1] * y[yOffset + p + 1];
+            s2 += x[xOffset + p + 2] * y[yOffset + p + 2];
+            s3 += x[xOffset + p + 3] * y[yOffset + p + 3];
+        }
+
+        for(; p < pEnd; p++) {
+            s0 += x[xOffset + p] * y[yOffset + p];
+        }
+
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Dot product of two equal length runs of values - x[xOffset..xOffset + length) and y[yOffset..yOffset + length)
+     * @param x
+     * @param xOffset
+     * @param y
+     * @param yOffset
+     * @param length
+     * @return
+     */
+    public static double dot(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        return dot(x, xOffset, y, yOffset, 0, length);
+    }
+
+}
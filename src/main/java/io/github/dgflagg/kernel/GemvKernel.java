@@ -0,0 +1,101 @@
+package io.github.dgflagg.kernel;
+
+/**
+ * Matrix x vector (GEMV) and vector x matrix (GEVM) products over row-major primitive arrays
+ *
+ * A x x reads each row of A once as a dot product with x - four rows at a time so each value of x is loaded once for
+ * four rows, with an independent accumulator per row. x' x A scales each row of A by its value of x into the result,
+ * a run of columns at a time so that run of the result stays in cache while every row is added to it.
+ */
+public final class GemvKernel {
+
+    /**
+     * Number of columns of the result of x' x A worked on at once - 4KB
+     */
+    static final int BLOCK_J = 512;
+
+    private GemvKernel() {
+        //don't want to instantiate this class
+    }
+
+    /**
+     * Computes rows [rowStart, rowEnd) of y = A x x where A is m x n in row-major order
+     * Separate row ranges write separate values of y so they can be computed at the same time
+     * @param a values of A
+     * @param x n values
+     * @param y m values - overwritten
+     * @param rowStart first row to compute
+     * @param rowEnd one past the last row to compute
+     * @param n columns of A
+     */
+    public static void multiply(double[] a, double[] x, double[] y, int rowStart, int rowEnd, int n) {
+        int i = rowStart;
+
+        for(; i + 3 < rowEnd; i += 4) {
+
+            int a0 = i * n;
+            int a1 = a0 + n;
+            int a2 = a1 + n;
+            int a3 = a2 + n;
+
+            double y0 = 0, y1 = 0, y2 = 0, y3 = 0;
+
+            for(int p = 0; p < n; p++) {
+                double value = x[p];
+                y0 += a[a0 + p] * value;
+                y1 += a[a1 + p] * value;
+                y2 += a[a2 + p] * value;
+                y3 += a[a3 + p] * value;
+            }
+
+            y[i] = y0;
+            y[i + 1] = y1;
+            y[i + 2] = y2;
+            y[i + 3] = y3;
+
+        }
+
+        //remaining rows one at a time
+        for(; i < rowEnd; i++) {
+            y[i] = GemmKernel.dot(a, i * n, x, 0, n);
+        }
+    }
+
+    /**
+     * Computes columns [columnStart, columnEnd) of y = x' x A where A is m x n in row-major order
+     * Separate column ranges write separate values of y so they can be computed at the same time
+     * @param a values of A
+     * @param x m values
+     * @param y n values - overwritten
+     * @param columnStart first column to compute
+     * @param columnEnd one past the last column to compute
+     * @param m rows of A
+     * @param n columns of A
+     */
+    public static void multiplyTransposed(double[] a, double[] x, double[] y, int columnStart, int columnEnd, int m, int n) {
+
+        for(int jj = columnStart; jj < columnEnd; jj += BLOCK_J) {
+
+            int jEnd = Math.min(jj + BLOCK_J, columnEnd);
+
+            for(int j = jj; j < jEnd; j++) {
+                y[j] = 0d;
+            }
+
+            for(int i = 0; i < m; i++) {
+
+                //zeroes of x are not skipped - 0 x Inf and 0 x NaN in A must give NaN like the dense product
+                double value = x[i];
+
+                int row = i * n;
+                for(int j = jj; j < jEnd; j++) {
+                    y[j] += value * a[row + j];
+                }
+
+            }
+
+        }
+
+    }
+
+}
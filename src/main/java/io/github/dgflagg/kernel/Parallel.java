@@ -0,0 +1,120 @@
+package io.github.dgflagg.kernel;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits a range of independent work items (rows, tiles, array indexes) into fork/join tasks
+ *
+ * Work below the threshold runs on the calling thread so small requests do not pay for task creation
+ */
+public final class Parallel {
+
+    /**
+     * Default minimum number of operations (multiply-adds, element updates) before work is split across threads
+     */
+    public static final long DEFAULT_THRESHOLD = 1L << 16;
+
+    /**
+     * Number of tasks created per thread in the pool - more than one so uneven tasks still balance out
+     */
+    private static final int TASKS_PER_THREAD = 4;
+
+    private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+    private static volatile long threshold = DEFAULT_THRESHOLD;
+
+    private Parallel() {
+        //don't want to instantiate this class
+    }
+
+    /**
+     * A piece of work over the items [start, end)
+     */
+    public interface RangeTask {
+        void run(int start, int end);
+    }
+
+    /**
+     * Sets the pool that parallel work is run on
+     * @param forkJoinPool
+     */
+    public static void setPool(ForkJoinPool forkJoinPool) {
+        pool = forkJoinPool;
+    }
+
+    public static ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Sets the minimum number of operations before work is split across threads - Long.MAX_VALUE keeps everything
+     * on the calling thread
+     * @param minimumOperations
+     */
+    public static void setThreshold(long minimumOperations) {
+        threshold = minimumOperations;
+    }
+
+    public static long getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Returns true if work of the given number of operations would be split across threads
+     * @param operations
+     * @return
+     */
+    public static boolean isParallel(long operations) {
+        return operations >= threshold && pool.getParallelism() > 1;
+    }
+
+    /**
+     * Runs the task over the items [0, count) - split across the pool when the total work is over the threshold
+     * @param count number of items
+     * @param operationsPerItem approximate cost of one item - used against the threshold
+     * @param task
+     */
+    public static void forRange(int count, long operationsPerItem, RangeTask task) {
+        if(count < 2 || !isParallel(count * operationsPerItem)) {
+            task.run(0, count);
+            return;
+        }
+
+        ForkJoinPool forkJoinPool = pool;
+        int tasks = forkJoinPool.getParallelism() * TASKS_PER_THREAD;
+        int grain = Math.max(1, (count + tasks - 1) / tasks);
+
+        forkJoinPool.invoke(new RangeAction(task, 0, count, grain));
+    }
+
+    /**
+     * Halves its range until it is no bigger than the grain then runs the task on it
+     */
+    private static class RangeAction extends RecursiveAction {
+
+        private final RangeTask task;
+        private final int start;
+        private final int end;
+        private final int grain;
+
+        RangeAction(RangeTask task, int start, int end, int grain) {
+            this.task = task;
+            this.start = start;
+            this.end = end;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if(this.end - this.start <= this.grain) {
+                this.task.run(this.start, this.end);
+                return;
+            }
+
+            int middle = (this.start + this.end) >>> 1;
+            invokeAll(new RangeAction(this.task, this.start, middle, this.grain),
+                      new RangeAction(this.task, middle, this.end, this.grain));
+        }
+    }
+
+}
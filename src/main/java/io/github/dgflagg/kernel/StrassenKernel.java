@@ -0,0 +1,348 @@
+package io.github.dgflagg.kernel;
+
+import java.util.Arrays;
+
+/**
+ * Multiplies large square matrices with the Winograd variant of Strassen's algorithm over row-major primitive arrays
+ *
+ * Each level splits both operands into quadrants and forms the product from 7 half sized products instead of 8, with
+ * 15 quadrant additions. The recursion stops at the cutoff and hands the remaining products to {@link GemmKernel}, so
+ * the work is about n^2.81 rather than n^3 once n is many times the cutoff. A size that does not halve down to the
+ * cutoff is padded with zeroes first.
+ *
+ * The 7 products of the top levels are independent and are run as separate fork/join tasks when the work is over the
+ * {@link Parallel} threshold. Below those every level runs in order on one thread and each level of the recursion has
+ * one set of buffers that all 7 of its products reuse, so the workspace is allocated once per task and is about 5 n^2
+ * values in all. Rounding errors grow a little faster than with the classical kernel.
+ */
+public final class StrassenKernel {
+
+    /**
+     * Default size at or below which products are handed to the classical kernel
+     */
+    public static final int DEFAULT_CUTOFF = 256;
+    /**
+     * Default smallest size of square matrices multiplied with Strassen when no algorithm is asked for
+     */
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    /**
+     * Number of levels of the recursion whose products are run as separate tasks - 49 tasks at most
+     */
+    private static final int PARALLEL_LEVELS = 2;
+
+    private static volatile int cutoff = DEFAULT_CUTOFF;
+    private static volatile int threshold = DEFAULT_THRESHOLD;
+
+    private StrassenKernel() {
+        //don't want to instantiate this class
+    }
+
+    /**
+     * Sets the size at or below which products are handed to the classical kernel
+     * @param size at least 1
+     */
+    public static void setCutoff(int size) {
+        cutoff = Math.max(1, size);
+    }
+
+    public static int getCutoff() {
+        return cutoff;
+    }
+
+    /**
+     * Sets the smallest size of square matrices multiplied with Strassen when no algorithm is asked for -
+     * Integer.MAX_VALUE always uses the classical kernel
+     * @param size
+     */
+    public static void setThreshold(int size) {
+        threshold = size;
+    }
+
+    public static int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Computes C = A x B where A, B and C are n x n in row-major order
+     * C is overwritten
+     * @param a values of A
+     * @param b values of B
+     * @param c values of C - must have room for n x n values
+     * @param n rows and columns of A, B and C
+     */
+    public static void multiply(double[] a, double[] b, double[] c, int n) {
+        int levels = 0;
+        int size = n;
+        while(size > cutoff) {
+            size = (size + 1) / 2;
+            levels++;
+        }
+
+        if(levels == 0) {
+            Arrays.fill(c, 0, n * n, 0d);
+            double[] bt = GemmKernel.transpose(b, n, n);
+            Parallel.forRange(n, (long) n * n, (start, end) -> GemmKernel.multiplyPacked(a, bt, c, start, end, n, n));
+            return;
+        }
+
+        //every level halves exactly so the operands are padded with zeroes - by less than one row per 2^levels
+        int padded = size << levels;
+
+        if(padded == n) {
+            multiply(a, b, c, n, levels, 0, null);
+            return;
+        }
+
+        double[] product = new double[padded * padded];
+        multiply(pad(a, n, padded), pad(b, n, padded), product, padded, levels, 0, null);
+
+        for(int i = 0; i < n; i++) {
+            System.arraycopy(product, i * padded, c, i * n, n);
+        }
+    }
+
+    /**
+     * C = A x B for contiguous n x n values with the given number of levels of recursion left
+     * @param depth levels of the recursion above this one
+     * @param workspace buffers for this level and the ones below it - created when null
+     */
+    private static void multiply(double[] a, double[] b, double[] c, int n, int levels, int depth, Workspace workspace) {
+        if(levels == 0) {
+            Arrays.fill(c, 0, n * n, 0d);
+            double[] bt = workspace == null ? new double[n * n] : workspace.getPacked();
+            GemmKernel.multiplyPacked(a, GemmKernel.transpose(b, bt, n, n), c, 0, n, n, n);
+            return;
+        }
+
+        if(depth < PARALLEL_LEVELS && Parallel.isParallel((long) n * n * n)) {
+            multiplyInParallel(a, b, c, n, levels, depth);
+            return;
+        }
+
+        if(workspace == null) {
+            workspace = new Workspace(n, levels);
+        }
+
+        int h = n / 2;
+        int size = h * h;
+        Level level = workspace.getLevel(levels);
+
+        double[] a11 = level.a11, a12 = level.a12, a21 = level.a21, a22 = level.a22;
+        double[] b11 = level.b11, b12 = level.b12, b21 = level.b21, b22 = level.b22;
+        double[] c11 = level.c11, c12 = level.c12, c21 = level.c21, c22 = level.c22;
+        double[] s = level.s, t = level.t, p = level.p;
+
+        split(a, n, a11, a12, a21, a22);
+        split(b, n, b11, b12, b21, b22);
+
+        //the products are ordered so the sums are built up in place in the quadrants of C with only one spare buffer
+        multiply(a11, b11, c22, h, levels - 1, depth + 1, workspace);
+        multiply(a12, b21, c11, h, levels - 1, depth + 1, workspace);
+        add(c11, c22, c11, size);
+
+        subtract(a11, a21, s, size);
+        subtract(b22, b12, t, size);
+        multiply(s, t, c21, h, levels - 1, depth + 1, workspace);
+
+        add(a21, a22, s, size);
+        subtract(b12, b11, t, size);
+        multiply(s, t, c12, h, levels - 1, depth + 1, workspace);
+
+        subtract(s, a11, s, size);
+        subtract(b22, t, t, size);
+        multiply(s, t, p, h, levels - 1, depth + 1, workspace);
+
+        add(c22, p, c22, size);
+        add(c21, c22, c21, size);
+        add(c22, c12, c22, size);
+        add(c21, c12, c12, size);
+
+        //c12 now holds the bottom right quadrant and c22 the top right one less its last product
+        double[] swap = c12;
+        c12 = c22;
+        c22 = swap;
+
+        subtract(a12, s, s, size);
+        multiply(s, b22, p, h, levels - 1, depth + 1, workspace);
+        add(c12, p, c12, size);
+
+        subtract(t, b21, t, size);
+        multiply(a22, t, p, h, levels - 1, depth + 1, workspace);
+        subtract(c21, p, c21, size);
+
+        join(c11, c12, c21, c22, c, n);
+    }
+
+    /**
+     * C = A x B with the 7 products of this level run as separate tasks - each task has its own workspace
+     */
+    private static void multiplyInParallel(double[] a, double[] b, double[] c, int n, int levels, int depth) {
+        int h = n / 2;
+        int size = h * h;
+
+        double[] a11 = new double[size], a12 = new double[size], a21 = new double[size], a22 = new double[size];
+        double[] b11 = new double[size], b12 = new double[size], b21 = new double[size], b22 = new double[size];
+
+        split(a, n, a11, a12, a21, a22);
+        split(b, n, b11, b12, b21, b22);
+
+        double[] s1 = new double[size], s2 = new double[size], s3 = new double[size], s4 = new double[size];
+        double[] t1 = new double[size], t2 = new double[size], t3 = new double[size], t4 = new double[size];
+
+        add(a21, a22, s1, size);
+        subtract(s1, a11, s2, size);
+        subtract(a11, a21, s3, size);
+        subtract(a12, s2, s4, size);
+        subtract(b12, b11, t1, size);
+        subtract(b22, t1, t2, size);
+        subtract(b22, b12, t3, size);
+        subtract(t2, b21, t4, size);
+
+        double[][] left = {a11, a12, s4, a22, s1, s2, s3};
+        double[][] right = {b11, b21, b22, t4, t1, t2, t3};
+        double[][] products = new double[7][size];
+
+        Parallel.forRange(7, (long) size * h, (start, end) -> {
+
+            Workspace workspace = new Workspace(h, levels - 1);
+
+            for(int m = start; m < end; m++) {
+                multiply(left[m], right[m], products[m], h, levels - 1, depth + 1, workspace);
+            }
+
+        });
+
+        double[] m1 = products[0], m2 = products[1], m3 = products[2], m4 = products[3];
+        double[] m5 = products[4], m6 = products[5], m7 = products[6];
+
+        add(m2, m1, m2, size);
+        add(m1, m6, m1, size);
+        add(m7, m1, m7, size);
+        add(m1, m5, m1, size);
+        add(m3, m1, m3, size);
+        add(m5, m7, m5, size);
+        subtract(m7, m4, m7, size);
+
+        join(m2, m3, m7, m5, c, n);
+    }
+
+    /**
+     * Copies the four quadrants of the n x n values into contiguous buffers
+     */
+    private static void split(double[] x, int n, double[] x11, double[] x12, double[] x21, double[] x22) {
+        int h = n / 2;
+        for(int i = 0; i < h; i++) {
+            System.arraycopy(x, i * n, x11, i * h, h);
+            System.arraycopy(x, i * n + h, x12, i * h, h);
+            System.arraycopy(x, (i + h) * n, x21, i * h, h);
+            System.arraycopy(x, (i + h) * n + h, x22, i * h, h);
+        }
+    }
+
+    /**
+     * Copies four contiguous quadrants into the n x n values
+     */
+    private static void join(double[] x11, double[] x12, double[] x21, double[] x22, double[] x, int n) {
+        int h = n / 2;
+        for(int i = 0; i < h; i++) {
+            System.arraycopy(x11, i * h, x, i * n, h);
+            System.arraycopy(x12, i * h, x, i * n + h, h);
+            System.arraycopy(x21, i * h, x, (i + h) * n, h);
+            System.arraycopy(x22, i * h, x, (i + h) * n + h, h);
+        }
+    }
+
+    private static void add(double[] x, double[] y, double[] out, int size) {
+        for(int i = 0; i < size; i++) {
+            out[i] = x[i] + y[i];
+        }
+    }
+
+    private static void subtract(double[] x, double[] y, double[] out, int size) {
+        for(int i = 0; i < size; i++) {
+            out[i] = x[i] - y[i];
+        }
+    }
+
+    /**
+     * Copies the n x n values into the top left of a zeroed padded x padded matrix
+     */
+    private static double[] pad(double[] x, int n, int padded) {
+        double[] values = new double[padded * padded];
+        for(int i = 0; i < n; i++) {
+            System.arraycopy(x, i * n, values, i * padded, n);
+        }
+        return values;
+    }
+
+    /**
+     * The buffers of every level of the recursion below a size - each level is allocated the first time it is used
+     */
+    private static class Workspace {
+
+        private final int n;
+        private final Level[] levels;
+        private double[] packed;
+
+        Workspace(int n, int levels) {
+            this.n = n;
+            this.levels = new Level[levels + 1];
+        }
+
+        /**
+         * Returns the buffers of the level with the given number of levels left below the size
+         */
+        Level getLevel(int levels) {
+            int index = this.levels.length - 1 - levels;
+            if(this.levels[index] == null) {
+                int h = (this.n >> index) / 2;
+                this.levels[index] = new Level(h * h);
+            }
+            return this.levels[index];
+        }
+
+        /**
+         * Returns the buffer B is packed into for the classical kernel at the bottom of the recursion
+         */
+        double[] getPacked() {
+            if(this.packed == null) {
+                int size = this.n >> (this.levels.length - 1);
+                this.packed = new double[size * size];
+            }
+            return this.packed;
+        }
+
+    }
+
+    /**
+     * The quadrants of both operands and the product and three spare buffers for one level of the recursion
+     */
+    private static class Level {
+
+        final double[] a11, a12, a21, a22;
+        final double[] b11, b12, b21, b22;
+        final double[] c11, c12, c21, c22;
+        final double[] s, t, p;
+
+        Level(int size) {
+            this.a11 = new double[size];
+            this.a12 = new double[size];
+            this.a21 = new double[size];
+            this.a22 = new double[size];
+            this.b11 = new double[size];
+            this.b12 = new double[size];
+            this.b21 = new double[size];
+            this.b22 = new double[size];
+            this.c11 = new double[size];
+            this.c12 = new double[size];
+            this.c21 = new double[size];
+            this.c22 = new double[size];
+            this.s = new double[size];
+            this.t = new double[size];
+            this.p = new double[size];
+        }
+
+    }
+
+}
@@ -0,0 +1,89 @@
+package io.github.dgflagg.model;
+
+import io.github.dgflagg.exceptions.ColumnsMustEqualRowsException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A view of two matrices side by side - [left | right] - nothing is copied, the values are read from the two matrices
+ *
+ * Both matrices must have the same number of rows. The first columns are the columns of the left matrix and the
+ * rest the columns of the right matrix - such as a matrix of coefficients augmented with a column of constants.
+ */
+@Slf4j
+public class AugmentedMatrix extends Matrix {
+
+    private final Matrix left;
+    private final Matrix right;
+    private final int leftColumnCount;
+
+    /**
+     * @param left
+     * @param right must have as many rows as the left matrix
+     */
+    public AugmentedMatrix(Matrix left, Matrix right) {
+        if(left.getRowCount() != right.getRowCount()) {
+            ColumnsMustEqualRowsException e = new ColumnsMustEqualRowsException("cannot augment a matrix of "
+                    + left.getRowCount() + " rows with a matrix of " + right.getRowCount() + " rows");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        this.left = left;
+        this.right = right;
+        this.leftColumnCount = left.getColumnCount();
+    }
+
+    public Matrix getLeft() {
+        return this.left;
+    }
+
+    public Matrix getRight() {
+        return this.right;
+    }
+
+    @Override
+    protected double get(int i, int j) {
+        return j < this.leftColumnCount ? this.left.get(i, j) : this.right.get(i, j - this.leftColumnCount);
+    }
+
+    @Override
+    protected void copyRowValues(int i, double[] destination) {
+        //the left row fills the start of the destination - the right row is read value by value after it
+        this.left.copyRowValues(i, destination);
+
+        for(int j = 0; j < this.right.getColumnCount(); j++) {
+            destination[this.leftColumnCount + j] = this.right.get(i, j);
+        }
+    }
+
+    /**
+     * Copies the values of both matrices into a new dense matrix
+     */
+    @Override
+    public DenseMatrix toDense() {
+        int m = this.getRowCount();
+        int n = this.getColumnCount();
+        double[] values = new double[denseSize(m, n)];
+        double[] row = new double[n];
+
+        for(int i = 0; i < m; i++) {
+            this.copyRowValues(i, row);
+            System.arraycopy(row, 0, values, i * n, n);
+        }
+
+        DenseMatrix matrix = Matrix.buildMatrix(m, n, values);
+        matrix.setName(this.getName());
+        return matrix;
+    }
+
+    @Override
+    public int getRowCount() {
+        return this.left.getRowCount();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return this.leftColumnCount + this.right.getColumnCount();
+    }
+
+}
@@ -0,0 +1,85 @@
+package io.github.dgflagg.model;
+
+/**
+ * A matrix that is zero everywhere but a band around the diagonal - the value at i, j is only stored when j is at
+ * most lowerBandwidth columns before i and at most upperBandwidth columns after it
+ *
+ * Every row takes lowerBandwidth + upperBandwidth + 1 places of the values array, so the value at i, j is at index
+ * i * width + j - i + lowerBandwidth. The places of a row that fall outside the matrix are left unused.
+ *
+ * Create instances with {@link Matrix#buildBandedMatrix(Matrix, int, int)} or
+ * {@link Matrix#buildBandedMatrix(int, int, int, int, double[])}
+ */
+public class BandedMatrix extends RangeMatrix {
+
+    private final int rowCount;
+    private final int columnCount;
+    private final int lowerBandwidth;
+    private final int upperBandwidth;
+
+    BandedMatrix(int rowCount, int columnCount, int lowerBandwidth, int upperBandwidth, double[] values) {
+        super(values);
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.lowerBandwidth = lowerBandwidth;
+        this.upperBandwidth = upperBandwidth;
+    }
+
+    /**
+     * Returns the number of values stored by an m x n banded matrix
+     * @param m rows
+     * @param lowerBandwidth
+     * @param upperBandwidth
+     * @return
+     */
+    public static int valueCount(int m, int lowerBandwidth, int upperBandwidth) {
+        return Math.toIntExact((long) m * (lowerBandwidth + upperBandwidth + 1));
+    }
+
+    /**
+     * Returns the number of columns before the diagonal that are stored
+     * @return
+     */
+    public int getLowerBandwidth() {
+        return this.lowerBandwidth;
+    }
+
+    /**
+     * Returns the number of columns after the diagonal that are stored
+     * @return
+     */
+    public int getUpperBandwidth() {
+        return this.upperBandwidth;
+    }
+
+    @Override
+    public int getFirstColumn(int i) {
+        return Math.min(Math.max(0, i - this.lowerBandwidth), this.columnCount);
+    }
+
+    @Override
+    public int getEndColumn(int i) {
+        return Math.max(this.getFirstColumn(i), Math.min(this.columnCount, i + this.upperBandwidth + 1));
+    }
+
+    @Override
+    public int getRowOffset(int i) {
+        return i * (this.lowerBandwidth + this.upperBandwidth + 1) + this.getFirstColumn(i) - i + this.lowerBandwidth;
+    }
+
+    @Override
+    public RangeMatrix withValues(double[] values) {
+        return Matrix.buildBandedMatrix(this.rowCount, this.columnCount, this.lowerBandwidth, this.upperBandwidth, values);
+    }
+
+    @Override
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return this.columnCount;
+    }
+
+}
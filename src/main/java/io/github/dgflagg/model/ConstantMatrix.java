@@ -0,0 +1,67 @@
+package io.github.dgflagg.model;
+
+import java.util.Arrays;
+
+/**
+ * An m x n matrix where every value is the same - only the size and the value are stored
+ *
+ * Create instances with {@link Matrix#buildValueMatrix(int, int, double)} or {@link Matrix#buildZeroMatrix(int, int)}
+ */
+public class ConstantMatrix extends Matrix {
+
+    private final int rowCount;
+    private final int columnCount;
+    private final double value;
+
+    ConstantMatrix(int rowCount, int columnCount, double value) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.value = value;
+    }
+
+    /**
+     * Returns the value of every number in this matrix
+     * @return
+     */
+    public double getValue() {
+        return this.value;
+    }
+
+    @Override
+    protected double get(int i, int j) {
+        return this.value;
+    }
+
+    @Override
+    protected void copyRowValues(int i, double[] destination) {
+        Arrays.fill(destination, 0, this.columnCount, this.value);
+    }
+
+    /**
+     * Writes the value into every place of a new dense matrix - m x n values
+     */
+    @Override
+    public DenseMatrix toDense() {
+        double[] data = new double[denseSize(this.rowCount, this.columnCount)];
+
+        //a new array is already filled with zeroes
+        if(this.value != 0d) {
+            Arrays.fill(data, this.value);
+        }
+
+        DenseMatrix matrix = Matrix.buildMatrix(this.rowCount, this.columnCount, data);
+        matrix.setName(this.getName());
+        return matrix;
+    }
+
+    @Override
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return this.columnCount;
+    }
+
+}
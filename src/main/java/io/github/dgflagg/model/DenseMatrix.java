@@ -0,0 +1,124 @@
+package io.github.dgflagg.model;
+
+/**
+ * A matrix that stores every value in a single primitive array in row-major order
+ *
+ * Create instances with {@link Matrix#buildMatrix(int, int, double[])} or one of the other Matrix build functions
+ */
+public class DenseMatrix extends Matrix {
+
+    /**
+     * The m dimension - number of rows in this matrix
+     */
+    private final int rowCount;
+    /**
+     * The n dimension - number of columns in this matrix
+     */
+    private final int columnCount;
+    /**
+     * Stores all values assigned to this matrix in row-major order - the value at i, j is at index i * n + j
+     */
+    private final double[] data;
+
+    DenseMatrix(int rowCount, int columnCount, double[] data) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.data = data;
+    }
+
+    /**
+     * Returns the array backing this matrix - not a copy - the value at i, j is at index i * n + j
+     * @return
+     */
+    public double[] getData() {
+        return this.data;
+    }
+
+    /**
+     * Returns a view of the whole matrix over the same array - see {@link StridedMatrix}
+     * @return
+     */
+    public StridedMatrix view() {
+        StridedMatrix view = new StridedMatrix(this.data, 0, this.columnCount, 1, this.rowCount, this.columnCount);
+        view.setName(this.getName());
+        return view;
+    }
+
+    /**
+     * Returns a view of the rows from fromRow up to but not including toRow and the columns from fromColumn up to but
+     * not including toColumn - nothing is copied
+     * @param fromRow
+     * @param toRow
+     * @param fromColumn
+     * @param toColumn
+     * @return
+     */
+    public StridedMatrix window(int fromRow, int toRow, int fromColumn, int toColumn) {
+        return this.view().window(fromRow, toRow, fromColumn, toColumn);
+    }
+
+    /**
+     * Returns a view of the ith row as a 1 x n matrix - nothing is copied
+     * @param i row index
+     * @return
+     */
+    public StridedMatrix rowView(int i) {
+        return this.view().row(i);
+    }
+
+    /**
+     * Returns a view of the jth column as an m x 1 matrix - nothing is copied
+     * @param j column index
+     * @return
+     */
+    public StridedMatrix columnView(int j) {
+        return this.view().column(j);
+    }
+
+    /**
+     * Returns a view of the transpose of this matrix - nothing is copied
+     * @return
+     */
+    public StridedMatrix transposeView() {
+        return this.view().transpose();
+    }
+
+    @Override
+    protected double get(int i, int j) {
+        return this.data[i * this.columnCount + j];
+    }
+
+    @Override
+    protected void copyRowValues(int i, double[] destination) {
+        System.arraycopy(this.data, i * this.columnCount, destination, 0, this.columnCount);
+    }
+
+    @Override
+    protected Matrix copySubmatrix(int fromRow, int toRow, int fromColumn, int toColumn) {
+        int m = toRow - fromRow;
+        int n = toColumn - fromColumn;
+        double[] submatrix = new double[m * n];
+
+        for(int i = 0; i < m; i++) {
+            System.arraycopy(this.data, (fromRow + i) * this.columnCount + fromColumn, submatrix, i * n, n);
+        }
+
+        return Matrix.buildMatrix(m, n, submatrix);
+    }
+
+    @Override
+    public DenseMatrix toDense() {
+        return this;
+    }
+
+    @Override
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return this.columnCount;
+    }
+
+}
@@ -0,0 +1,52 @@
+package io.github.dgflagg.model;
+
+/**
+ * A square matrix that is zero everywhere but the diagonal - only the n values of the diagonal are stored
+ *
+ * Create instances with {@link Matrix#buildDiagonalMatrix(double[])}
+ */
+public class DiagonalMatrix extends RangeMatrix {
+
+    DiagonalMatrix(double[] diagonal) {
+        super(diagonal);
+    }
+
+    /**
+     * Returns the values of the diagonal - not a copy - the value at i, i is at index i
+     * @return
+     */
+    public double[] getDiagonal() {
+        return this.getValues();
+    }
+
+    @Override
+    public int getFirstColumn(int i) {
+        return i;
+    }
+
+    @Override
+    public int getEndColumn(int i) {
+        return i + 1;
+    }
+
+    @Override
+    public int getRowOffset(int i) {
+        return i;
+    }
+
+    @Override
+    public RangeMatrix withValues(double[] values) {
+        return Matrix.buildDiagonalMatrix(values);
+    }
+
+    @Override
+    public int getRowCount() {
+        return this.getValues().length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return this.getValues().length;
+    }
+
+}
@@ -0,0 +1,56 @@
+package io.github.dgflagg.model;
+
+import java.util.Arrays;
+
+/**
+ * The n x n identity matrix - only the size is stored, every value is worked out as it is read
+ *
+ * Create instances with {@link Matrix#buildIdentityMatrix(int)}
+ */
+public class IdentityMatrix extends Matrix {
+
+    private final int n;
+
+    IdentityMatrix(int n) {
+        this.n = n;
+    }
+
+    @Override
+    protected double get(int i, int j) {
+        return i == j ? 1d : 0d;
+    }
+
+    @Override
+    protected void copyRowValues(int i, double[] destination) {
+        Arrays.fill(destination, 0, this.n, 0d);
+        destination[i] = 1d;
+    }
+
+    /**
+     * Writes the identity into a new dense matrix - n x n values
+     */
+    @Override
+    public DenseMatrix toDense() {
+        double[] data = new double[denseSize(this.n, this.n)];
+
+        //only the diagonal needs to be written - the rest of the array is already zero
+        for(int i = 0; i < this.n; i++) {
+            data[i * this.n + i] = 1d;
+        }
+
+        DenseMatrix matrix = Matrix.buildMatrix(this.n, this.n, data);
+        matrix.setName(this.getName());
+        return matrix;
+    }
+
+    @Override
+    public int getRowCount() {
+        return this.n;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return this.n;
+    }
+
+}
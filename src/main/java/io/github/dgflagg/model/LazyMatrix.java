@@ -0,0 +1,394 @@
+package io.github.dgflagg.model;
+
+import io.github.dgflagg.exceptions.DimensionsNotSimilarException;
+import io.github.dgflagg.kernel.Parallel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * A matrix whose values are worked out from other matrices only when they are needed - element-wise sums,
+ * differences, scalings, Hadamard products and maps of any number of matrices
+ *
+ * Each operation only adds a node to a graph, so 2A + B - C allocates nothing until it is materialized. Materializing
+ * makes a single pass over the output a chunk of CHUNK values at a time: the whole graph is evaluated for one chunk
+ * into a few small buffers that stay in L1 cache before moving on to the next. No intermediate matrix is ever
+ * allocated, every operand is read once and the output written once, and chunks are split across threads for large
+ * matrices.
+ *
+ * Start a graph with {@link Matrix#lazy(Matrix)}. A lazy matrix is a matrix like any other - anything that reads its
+ * values evaluates just the values it reads.
+ */
+@Slf4j
+public abstract class LazyMatrix extends Matrix {
+
+    /**
+     * Number of values evaluated at once - 8KB per buffer
+     */
+    static final int CHUNK = 1024;
+
+    private final int rowCount;
+    private final int columnCount;
+
+    private LazyMatrix(int rowCount, int columnCount) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+    }
+
+    /**
+     * Starts a graph from a matrix - a lazy matrix is returned as it is
+     * @param matrix
+     * @return
+     */
+    static LazyMatrix of(Matrix matrix) {
+        return matrix instanceof LazyMatrix ? (LazyMatrix) matrix : new Operand(matrix);
+    }
+
+    /**
+     * Returns this + other - evaluated when the values are needed
+     * @param other
+     * @return
+     */
+    public LazyMatrix plus(Matrix other) {
+        return this.combine(other, Operation.ADD, "add");
+    }
+
+    /**
+     * Returns this - other - evaluated when the values are needed
+     * @param other
+     * @return
+     */
+    public LazyMatrix minus(Matrix other) {
+        return this.combine(other, Operation.SUBTRACT, "subtract");
+    }
+
+    /**
+     * Returns the Hadamard product of this and other - every value multiplied by the value in the same place
+     * @param other
+     * @return
+     */
+    public LazyMatrix hadamard(Matrix other) {
+        return this.combine(other, Operation.MULTIPLY, "find the Hadamard product of");
+    }
+
+    /**
+     * Returns this times the scalar - evaluated when the values are needed
+     * @param s
+     * @return
+     */
+    public LazyMatrix times(double s) {
+        //a scaling of a scaling is a single scaling
+        if(this instanceof Scaled) {
+            Scaled scaled = (Scaled) this;
+            return new Scaled(scaled.operand, scaled.scalar * s);
+        }
+
+        return new Scaled(this, s);
+    }
+
+    /**
+     * Returns the function applied to every value - the function must not depend on the order it is called in as
+     * values are evaluated in chunks on several threads
+     * @param function
+     * @return
+     */
+    public LazyMatrix map(DoubleUnaryOperator function) {
+        return new Mapped(this, function);
+    }
+
+    /**
+     * Evaluates every value in a single pass over the output
+     * @return
+     */
+    public DenseMatrix materialize() {
+        int size = denseSize(this.rowCount, this.columnCount);
+        double[] data = new double[size];
+        int chunks = (int) (((long) size + CHUNK - 1) / CHUNK);
+        int buffers = this.getBufferCount();
+
+        //every value costs about one operation per node of the graph
+        Parallel.forRange(chunks, (long) CHUNK * this.getNodeCount(), (start, end) -> {
+
+            double[][] scratch = new double[buffers][CHUNK];
+
+            for(int chunk = start; chunk < end; chunk++) {
+                int from = chunk * CHUNK;
+                this.evaluate(from, Math.min(CHUNK, size - from), data, from, scratch, 0);
+            }
+
+        });
+
+        DenseMatrix matrix = Matrix.buildMatrix(this.rowCount, this.columnCount, data);
+        matrix.setName(this.getName());
+        return matrix;
+    }
+
+    @Override
+    public DenseMatrix toDense() {
+        return this.materialize();
+    }
+
+    @Override
+    protected double get(int i, int j) {
+        return this.value(i * this.columnCount + j);
+    }
+
+    @Override
+    protected void copyRowValues(int i, double[] destination) {
+        int n = this.columnCount;
+        this.evaluate(i * n, n, destination, 0, new double[this.getBufferCount()][n], 0);
+    }
+
+    @Override
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return this.columnCount;
+    }
+
+    /**
+     * Writes the values at row-major indexes [start, start + length) into out from offset
+     * @param scratch buffers of at least length values - the ones from depth on are free for this node to use
+     * @param depth the first free buffer
+     */
+    abstract void evaluate(int start, int length, double[] out, int offset, double[][] scratch, int depth);
+
+    /**
+     * Returns the value at a row-major index
+     */
+    abstract double value(int index);
+
+    /**
+     * Returns the number of scratch buffers the graph needs
+     */
+    abstract int getBufferCount();
+
+    /**
+     * Returns the number of nodes in the graph
+     */
+    abstract int getNodeCount();
+
+    private LazyMatrix combine(Matrix other, Operation operation, String description) {
+        if(this.rowCount != other.getRowCount() || this.columnCount != other.getColumnCount()) {
+            DimensionsNotSimilarException e = new DimensionsNotSimilarException("cannot " + description
+                    + " matrices - dimensions not equal");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        return new Combined(this, of(other), operation);
+    }
+
+    private enum Operation {
+        ADD, SUBTRACT, MULTIPLY
+    }
+
+    /**
+     * A matrix the graph reads from - dense values are copied straight out of their storage
+     */
+    private static class Operand extends LazyMatrix {
+
+        private final Matrix matrix;
+
+        private Operand(Matrix matrix) {
+            super(matrix.getRowCount(), matrix.getColumnCount());
+            this.matrix = matrix;
+            this.setName(matrix.getName());
+        }
+
+        @Override
+        void evaluate(int start, int length, double[] out, int offset, double[][] scratch, int depth) {
+            if(this.matrix instanceof DenseMatrix) {
+                System.arraycopy(((DenseMatrix) this.matrix).getData(), start, out, offset, length);
+                return;
+            }
+
+            int n = this.getColumnCount();
+            int i = start / n;
+            int j = start % n;
+
+            for(int k = 0; k < length; k++) {
+
+                out[offset + k] = this.matrix.get(i, j);
+
+                if(++j == n) {
+                    j = 0;
+                    i++;
+                }
+
+            }
+        }
+
+        @Override
+        double value(int index) {
+            int n = this.getColumnCount();
+            return this.matrix.get(index / n, index % n);
+        }
+
+        @Override
+        int getBufferCount() {
+            return 0;
+        }
+
+        @Override
+        int getNodeCount() {
+            return 1;
+        }
+
+    }
+
+    /**
+     * Two matrices combined value by value - the left is evaluated into the output and the right into a buffer
+     */
+    private static class Combined extends LazyMatrix {
+
+        private final LazyMatrix left;
+        private final LazyMatrix right;
+        private final Operation operation;
+
+        private Combined(LazyMatrix left, LazyMatrix right, Operation operation) {
+            super(left.getRowCount(), left.getColumnCount());
+            this.left = left;
+            this.right = right;
+            this.operation = operation;
+        }
+
+        @Override
+        void evaluate(int start, int length, double[] out, int offset, double[][] scratch, int depth) {
+            this.left.evaluate(start, length, out, offset, scratch, depth);
+
+            double[] buffer = scratch[depth];
+            this.right.evaluate(start, length, buffer, 0, scratch, depth + 1);
+
+            //the operation is picked once per chunk so each loop is a plain pass the JIT can vectorize
+            switch(this.operation) {
+                case ADD:
+                    for(int k = 0; k < length; k++) {
+                        out[offset + k] += buffer[k];
+                    }
+                    break;
+                case SUBTRACT:
+                    for(int k = 0; k < length; k++) {
+                        out[offset + k] -= buffer[k];
+                    }
+                    break;
+                default:
+                    for(int k = 0; k < length; k++) {
+                        out[offset + k] *= buffer[k];
+                    }
+                    break;
+            }
+        }
+
+        @Override
+        double value(int index) {
+            double a = this.left.value(index);
+            double b = this.right.value(index);
+
+            switch(this.operation) {
+                case ADD:
+                    return a + b;
+                case SUBTRACT:
+                    return a - b;
+                default:
+                    return a * b;
+            }
+        }
+
+        @Override
+        int getBufferCount() {
+            return Math.max(this.left.getBufferCount(), this.right.getBufferCount() + 1);
+        }
+
+        @Override
+        int getNodeCount() {
+            return 1 + this.left.getNodeCount() + this.right.getNodeCount();
+        }
+
+    }
+
+    /**
+     * A matrix times a scalar - scaled in place in the output
+     */
+    private static class Scaled extends LazyMatrix {
+
+        private final LazyMatrix operand;
+        private final double scalar;
+
+        private Scaled(LazyMatrix operand, double scalar) {
+            super(operand.getRowCount(), operand.getColumnCount());
+            this.operand = operand;
+            this.scalar = scalar;
+        }
+
+        @Override
+        void evaluate(int start, int length, double[] out, int offset, double[][] scratch, int depth) {
+            this.operand.evaluate(start, length, out, offset, scratch, depth);
+
+            double s = this.scalar;
+            for(int k = 0; k < length; k++) {
+                out[offset + k] *= s;
+            }
+        }
+
+        @Override
+        double value(int index) {
+            return this.operand.value(index) * this.scalar;
+        }
+
+        @Override
+        int getBufferCount() {
+            return this.operand.getBufferCount();
+        }
+
+        @Override
+        int getNodeCount() {
+            return 1 + this.operand.getNodeCount();
+        }
+
+    }
+
+    /**
+     * A function applied to every value of a matrix - mapped in place in the output
+     */
+    private static class Mapped extends LazyMatrix {
+
+        private final LazyMatrix operand;
+        private final DoubleUnaryOperator function;
+
+        private Mapped(LazyMatrix operand, DoubleUnaryOperator function) {
+            super(operand.getRowCount(), operand.getColumnCount());
+            this.operand = operand;
+            this.function = function;
+        }
+
+        @Override
+        void evaluate(int start, int length, double[] out, int offset, double[][] scratch, int depth) {
+            this.operand.evaluate(start, length, out, offset, scratch, depth);
+
+            for(int k = 0; k < length; k++) {
+                out[offset + k] = this.function.applyAsDouble(out[offset + k]);
+            }
+        }
+
+        @Override
+        double value(int index) {
+            return this.function.applyAsDouble(this.operand.value(index));
+        }
+
+        @Override
+        int getBufferCount() {
+            return this.operand.getBufferCount();
+        }
+
+        @Override
+        int getNodeCount() {
+            return 1 + this.operand.getNodeCount();
+        }
+
+    }
+
+}
@@ -0,0 +1,126 @@
+package io.github.dgflagg.model;
+
+import io.github.dgflagg.exceptions.MatrixChangedException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.DoubleBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A dense matrix whose values are read straight out of a memory mapped file instead of the heap
+ *
+ * The rows are split over one or more mapped segments because a single mapping cannot be larger than 2GB.
+ * Values are only read with absolute gets so instances are safe to share between threads.
+ *
+ * A file can be updated in place under the mapping. A matrix stamped with the version of its file checks the version
+ * after every read, so a read that overlaps an update throws rather than returning a mix of old and new values.
+ */
+@Slf4j
+public class MappedMatrix extends Matrix {
+
+    private final int rowCount;
+    private final int columnCount;
+    private final int rowsPerSegment;
+    private final DoubleBuffer[] segments;
+
+    /**
+     * Bumped before the file is updated - null when the file is never updated in place
+     */
+    private final AtomicLong version;
+    private final long mappedVersion;
+
+    /**
+     * Creates a matrix over mapped row-major values
+     * @param rowCount m
+     * @param columnCount n
+     * @param rowsPerSegment number of whole rows held by each segment - only the last segment may hold fewer
+     * @param segments the mapped values of each segment in row-major order
+     */
+    public MappedMatrix(int rowCount, int columnCount, int rowsPerSegment, DoubleBuffer[] segments) {
+        this(rowCount, columnCount, rowsPerSegment, segments, null);
+    }
+
+    private MappedMatrix(int rowCount, int columnCount, int rowsPerSegment, DoubleBuffer[] segments, AtomicLong version) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.rowsPerSegment = rowsPerSegment;
+        this.segments = segments;
+        this.version = version;
+        this.mappedVersion = version == null ? 0L : version.get();
+    }
+
+    /**
+     * Returns the same mapping stamped with the current version of its file - reads fail once the version changes
+     * @param version bumped before every in place update of the file
+     * @return
+     */
+    public MappedMatrix withVersion(AtomicLong version) {
+        MappedMatrix matrix = new MappedMatrix(this.rowCount, this.columnCount, this.rowsPerSegment, this.segments, version);
+        matrix.setName(this.getName());
+        return matrix;
+    }
+
+    @Override
+    protected double get(int i, int j) {
+        double value = this.segments[i / this.rowsPerSegment].get((i % this.rowsPerSegment) * this.columnCount + j);
+        this.checkVersion();
+        return value;
+    }
+
+    @Override
+    protected void copyRowValues(int i, double[] destination) {
+        //duplicate so the bulk get does not move the position other threads may be relying on
+        DoubleBuffer values = this.segments[i / this.rowsPerSegment].duplicate();
+        values.position((i % this.rowsPerSegment) * this.columnCount);
+        values.get(destination, 0, this.columnCount);
+        this.checkVersion();
+    }
+
+    /**
+     * Copies the mapped values onto the heap
+     * @return
+     */
+    @Override
+    public DenseMatrix toDense() {
+        double[] data = new double[this.rowCount * this.columnCount];
+
+        int offset = 0;
+        for(DoubleBuffer segment : this.segments) {
+            //duplicate so the bulk get does not move the position other threads may be relying on
+            DoubleBuffer values = segment.duplicate();
+            values.rewind();
+            int length = values.remaining();
+            values.get(data, offset, length);
+            offset += length;
+        }
+
+        this.checkVersion();
+
+        DenseMatrix matrix = Matrix.buildMatrix(this.rowCount, this.columnCount, data);
+        matrix.setName(this.getName());
+        return matrix;
+    }
+
+    @Override
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return this.columnCount;
+    }
+
+    /**
+     * Checked after the values are read - an update bumps the version before it writes anything
+     */
+    private void checkVersion() {
+        if(this.version != null && this.version.get() != this.mappedVersion) {
+            MatrixChangedException e = new MatrixChangedException("matrix: " + this.getName()
+                    + " was updated while it was being read - find it again to read the new values");
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
+
+}
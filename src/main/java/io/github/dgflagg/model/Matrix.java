@@ -3,32 +3,72 @@ package io.github.dgflagg.model;
 import io.github.dgflagg.exceptions.ColumnsMustEqualRowsException;
 import io.github.dgflagg.exceptions.IndexExceedsSizeException;
 import io.github.dgflagg.exceptions.NegativeIndexException;
-import lombok.Data;
+import io.github.dgflagg.io.CsvMatrixReader;
+import io.github.dgflagg.io.MatrixParser;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.Assert;
 
 import java.io.*;
+import java.nio.file.Paths;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Created by dgflagg on 11/15/16.
+ *
+ * Base type of every matrix - the storage of the values is left to the subclasses:
+ * {@link DenseMatrix} keeps every value, {@link SparseMatrix} keeps only the non-zero values and the structured
+ * matrices - {@link IdentityMatrix}, {@link ConstantMatrix} and the {@link RangeMatrix} types - keep only what their
+ * structure needs
  */
 @Slf4j
-@Data
-public class Matrix {
+public abstract class Matrix {
 
     /**
      * The name assigned to help identify this matrix
      */
+    @Getter
+    @Setter
     private String name;
+
+    protected Matrix() {
+        //do not instantiate directly - use one of the build functions
+    }
+
     /**
-     * Stores all values assigned to this matrix - outer list is the rows - inner list the columns
+     * Returns the value at location i, j without checking the indexes - callers have already checked them
+     * @param i row index
+     * @param j column index
+     * @return
      */
-    private List<List<Double>> numbers;
+    protected abstract double get(int i, int j);
 
-    private Matrix() {
-        //do not instantiate using this constructor
+    /**
+     * Returns this matrix with every value stored - the same instance if it is already dense
+     * @return
+     */
+    public abstract DenseMatrix toDense();
+
+    /**
+     * Returns m x n - the number of values in a dense copy of an m x n matrix
+     * @param m rows
+     * @param n columns
+     * @return
+     * @throws IndexExceedsSizeException if there are more values than an array can hold
+     */
+    protected static int denseSize(int m, int n) {
+        try {
+            return Math.multiplyExact(m, n);
+        } catch (ArithmeticException e) {
+            IndexExceedsSizeException exception = new IndexExceedsSizeException("cannot store every value of a " + m
+                    + " x " + n + " matrix - it has more values than an array can hold");
+            log.error(exception.getMessage());
+            throw exception;
+        }
     }
 
     /**
@@ -38,11 +78,11 @@ public class Matrix {
 
         System.out.println("name: " + this.getName());
 
-        for(List<Double> row : this.getNumbers()) {
+        for(int i = 0; i < this.getRowCount(); i++) {
 
-            for(Double number : row) {
+            for(int j = 0; j < this.getColumnCount(); j++) {
 
-                System.out.print(number + " ");
+                System.out.print(this.get(i, j) + " ");
 
             }
 
@@ -59,17 +99,17 @@ public class Matrix {
 
         log.info("name: " + this.getName());
 
-        for(List<Double> row : this.getNumbers()) {
+        for(int i = 0; i < this.getRowCount(); i++) {
 
-            String rowValues = "";
+            StringBuilder rowValues = new StringBuilder();
 
-            for(Double number : row) {
+            for(int j = 0; j < this.getColumnCount(); j++) {
 
-                rowValues = rowValues + number + " ";
+                rowValues.append(this.get(i, j)).append(" ");
 
             }
 
-            log.info(rowValues);
+            log.info(rowValues.toString());
 
         }
 
@@ -81,46 +121,103 @@ public class Matrix {
      */
     @Override
     public String toString() {
-        return this.getNumbers().toString().replace(" ","");
+        StringBuilder sb = new StringBuilder("[");
+
+        for(int i = 0; i < this.getRowCount(); i++) {
+
+            if(i > 0) {
+                sb.append(",");
+            }
+
+            sb.append("[");
+
+            for(int j = 0; j < this.getColumnCount(); j++) {
+
+                if(j > 0) {
+                    sb.append(",");
+                }
+
+                sb.append(this.get(i, j));
+
+            }
+
+            sb.append("]");
+
+        }
+
+        return sb.append("]").toString();
     }
 
     /**
-     * Creates an identity matrix with dimensions n x n
-     * @param n rows and columns
+     * Matrices are equal when they have the same shape and the same values however they are stored - the name is not
+     * compared. Values are compared like {@link java.util.Arrays#equals(double[], double[])}
+     * @param o
      * @return
      */
-    public static Matrix buildIdentityMatrix(int n) {
-        log.info("building identity matrix when n = {}", n);
-
-        Assert.isTrue(n > -1, "cannot create a matrix with negative dimension size");
+    @Override
+    public boolean equals(Object o) {
+        if(o == this) {
+            return true;
+        }
 
-        Matrix identityMatrix = new Matrix();
-        identityMatrix.setName("I" + n);
+        if(!(o instanceof Matrix)) {
+            return false;
+        }
 
-        List<List<Double>> numbers = new ArrayList<List<Double>>();
+        Matrix other = (Matrix) o;
+        int m = this.getRowCount();
+        int n = this.getColumnCount();
 
-        for(int i = 1; i <= n; i++) {
+        if(other.getRowCount() != m || other.getColumnCount() != n) {
+            return false;
+        }
 
-            List<Double> rows = new ArrayList<Double>();
+        double[] row = new double[n];
+        double[] otherRow = new double[n];
 
-            for(int j = 1; j <= n; j++) {
+        for(int i = 0; i < m; i++) {
+            this.copyRow(i, row);
+            other.copyRow(i, otherRow);
+            if(!Arrays.equals(row, otherRow)) {
+                return false;
+            }
+        }
 
-                if(i == j) {
+        return true;
+    }
 
-                    rows.add(1d);
+    /**
+     * Hashes the shape and the values row by row so equal matrices of different types hash the same
+     * @return
+     */
+    @Override
+    public int hashCode() {
+        int m = this.getRowCount();
+        int n = this.getColumnCount();
+        int hash = 31 * m + n;
 
-                } else {
+        double[] row = new double[n];
 
-                    rows.add(0d);
+        for(int i = 0; i < m; i++) {
+            this.copyRow(i, row);
+            hash = 31 * hash + Arrays.hashCode(row);
+        }
 
-                }
+        return hash;
+    }
 
-            }
+    /**
+     * Creates an identity matrix with dimensions n x n - nothing but n is stored, see {@link IdentityMatrix}
+     * @param n rows and columns
+     * @return
+     */
+    public static Matrix buildIdentityMatrix(int n) {
+        log.info("building identity matrix when n = {}", n);
 
-            numbers.add(rows);
-        }
+        Assert.isTrue(n > -1, "cannot create a matrix with negative dimension size");
 
-        identityMatrix.setNumbers(numbers);
+        Matrix identityMatrix = new IdentityMatrix(n);
+        identityMatrix.setName("I" + n);
 
         return identityMatrix;
     }
@@ -140,42 +237,138 @@ public class Matrix {
     }
 
     /**
-     * Creates a matrix filled with only the specified value with dimensions m x n
+     * Creates a matrix filled with only the specified value with dimensions m x n - only the value is stored, see
+     * {@link ConstantMatrix}
      * @param m rows
      * @param n columns
      * @param value the value that is used for every number in the matrix
      * @return
      */
-    public static Matrix buildValueMatrix(int m, int n, Double value) {
+    public static Matrix buildValueMatrix(int m, int n, double value) {
         log.info("building value matrix when m = {}, n = {} and value = {}", m, n, value);
 
         //TODO: build common function for testing dimensions and use in each build function
         Assert.isTrue(n > -1, "cannot create a matrix with negative dimension size");
         Assert.isTrue(m > -1, "cannot create a matrix with negative dimension size");
 
-        Matrix matrix = new Matrix();
+        Matrix matrix = new ConstantMatrix(m, n, value);
         matrix.setName("value (" + m + ", " + n + ") matrix");
+        return matrix;
+    }
 
-        List<List<Double>> numbers = new ArrayList<List<Double>>();
+    /**
+     * Creates an n x n diagonal matrix directly on top of the array of diagonal values - the array is not copied
+     * @param diagonal the value at i, i is at index i
+     * @return
+     */
+    public static DiagonalMatrix buildDiagonalMatrix(double[] diagonal) {
+        DiagonalMatrix matrix = new DiagonalMatrix(diagonal);
+        matrix.setName("diagonal matrix");
 
-        for(int row = 1; row <= m; row++) {
+        return matrix;
+    }
 
-            List<Double> rows = new ArrayList<Double>();
+    /**
+     * Creates an n x n triangular matrix directly on top of the array of values - the array is not copied
+     * @param n rows and columns
+     * @param upper true if the values are the columns i to n - 1 of each row i - false if they are the columns 0 to i
+     * @param values the stored values of each row one after the other - n(n + 1) / 2 of them
+     * @return
+     */
+    public static TriangularMatrix buildTriangularMatrix(int n, boolean upper, double[] values) {
+        Assert.isTrue(n > -1, "cannot create a matrix with negative dimension size");
+        Assert.isTrue(values.length == TriangularMatrix.valueCount(n), "the number of values must equal n(n + 1) / 2");
 
-            for(int column = 1; column <= n; column++) {
+        TriangularMatrix matrix = new TriangularMatrix(n, upper, values);
+        matrix.setName(upper ? "upper triangular matrix" : "lower triangular matrix");
 
-                rows.add(value);
+        return matrix;
+    }
 
-            }
+    /**
+     * Creates a triangular copy of the values on and below the diagonal of a square matrix
+     * @param matrix
+     * @return
+     */
+    public static TriangularMatrix buildLowerTriangularMatrix(Matrix matrix) {
+        return buildTriangularMatrix(matrix, false);
+    }
+
+    /**
+     * Creates a triangular copy of the values on and above the diagonal of a square matrix
+     * @param matrix
+     * @return
+     */
+    public static TriangularMatrix buildUpperTriangularMatrix(Matrix matrix) {
+        return buildTriangularMatrix(matrix, true);
+    }
 
-            numbers.add(rows);
+    private static TriangularMatrix buildTriangularMatrix(Matrix matrix, boolean upper) {
+        if(!matrix.isSquare()) {
+            ColumnsMustEqualRowsException e = new ColumnsMustEqualRowsException("only a square matrix can be triangular");
+            log.error(e.getMessage());
+            throw e;
         }
 
-        matrix.setNumbers(numbers);
+        int n = matrix.getRowCount();
+        TriangularMatrix triangular = buildTriangularMatrix(n, upper, new double[TriangularMatrix.valueCount(n)]);
+        copyRanges(matrix, triangular);
+        triangular.setName(matrix.getName());
+        return triangular;
+    }
+
+    /**
+     * Creates an m x n banded matrix directly on top of the array of values - the array is not copied
+     * @param m rows
+     * @param n columns
+     * @param lowerBandwidth number of columns stored before the diagonal
+     * @param upperBandwidth number of columns stored after the diagonal
+     * @param values lowerBandwidth + upperBandwidth + 1 places for each row - the value at i, j is at index
+     *               i * (lowerBandwidth + upperBandwidth + 1) + j - i + lowerBandwidth
+     * @return
+     */
+    public static BandedMatrix buildBandedMatrix(int m, int n, int lowerBandwidth, int upperBandwidth, double[] values) {
+        Assert.isTrue(m > -1, "cannot create a matrix with negative dimension size");
+        Assert.isTrue(n > -1, "cannot create a matrix with negative dimension size");
+        Assert.isTrue(lowerBandwidth > -1 && upperBandwidth > -1, "cannot create a band with negative width");
+        Assert.isTrue(values.length == BandedMatrix.valueCount(m, lowerBandwidth, upperBandwidth),
+                "the number of values must equal m x (lowerBandwidth + upperBandwidth + 1)");
+
+        BandedMatrix matrix = new BandedMatrix(m, n, lowerBandwidth, upperBandwidth, values);
+        matrix.setName("banded matrix");
+
         return matrix;
     }
 
+    /**
+     * Creates a banded copy of the values of the matrix inside the band - the values outside of it are dropped
+     * @param matrix
+     * @param lowerBandwidth number of columns kept before the diagonal
+     * @param upperBandwidth number of columns kept after the diagonal
+     * @return
+     */
+    public static BandedMatrix buildBandedMatrix(Matrix matrix, int lowerBandwidth, int upperBandwidth) {
+        int m = matrix.getRowCount();
+        BandedMatrix banded = buildBandedMatrix(m, matrix.getColumnCount(), lowerBandwidth, upperBandwidth,
+                new double[BandedMatrix.valueCount(m, lowerBandwidth, upperBandwidth)]);
+        copyRanges(matrix, banded);
+        banded.setName(matrix.getName());
+        return banded;
+    }
 
+    /**
+     * Copies the values of the matrix inside the ranges of the destination into the destination
+     */
+    private static void copyRanges(Matrix matrix, RangeMatrix destination) {
+        double[] values = destination.getValues();
+        double[] row = new double[matrix.getColumnCount()];
+
+        for(int i = 0; i < matrix.getRowCount(); i++) {
+            int first = destination.getFirstColumn(i);
+            matrix.copyRowValues(i, row);
+            System.arraycopy(row, first, values, destination.getRowOffset(i), destination.getEndColumn(i) - first);
+        }
+    }
 
     /**
      * Returns the value at in the matrix at location i, j
@@ -183,8 +376,35 @@ public class Matrix {
      * @param j column index
      * @return
      */
-    public Double getNumber(int i, int j) {
-       return this.getRow(i).get(j);
+    public double getNumber(int i, int j) {
+        this.checkRowIndex(i);
+        this.checkColumnIndex(j);
+
+        return this.get(i, j);
+    }
+
+    /**
+     * Returns all the values in this matrix as nested lists - outer list is the rows - inner list the columns
+     * The lists are built from the primitive storage on every call and are not kept by the matrix - this exists for
+     * the JSON layer and callers that still expect nested lists
+     * @return
+     */
+    public List<List<Double>> getNumbers() {
+        List<List<Double>> numbers = new ArrayList<>(this.getRowCount());
+
+        for(int i = 0; i < this.getRowCount(); i++) {
+
+            List<Double> row = new ArrayList<>(this.getColumnCount());
+
+            for(int j = 0; j < this.getColumnCount(); j++) {
+                row.add(this.get(i, j));
+            }
+
+            numbers.add(row);
+
+        }
+
+        return numbers;
     }
 
     /**
@@ -193,27 +413,115 @@ public class Matrix {
      * @return
      */
     public List<Double> getRow(int i) {
-        if(i < 0) {
-            NegativeIndexException e = new NegativeIndexException("the value of i = " + i + " is negative - the row cannot be found");
+        this.checkRowIndex(i);
+
+        return new RowView(this, i);
+    }
+
+    /**
+     * Copies the values of the ith row into the start of the destination without boxing them
+     * @param i row index
+     * @param destination must have room for n values
+     */
+    public void copyRow(int i, double[] destination) {
+        this.checkRowIndex(i);
+
+        this.copyRowValues(i, destination);
+    }
+
+    /**
+     * Copies the values of the ith row into the destination without checking the index - subclasses copy straight
+     * out of their storage
+     */
+    protected void copyRowValues(int i, double[] destination) {
+        for(int j = 0; j < this.getColumnCount(); j++) {
+            destination[j] = this.get(i, j);
+        }
+    }
+
+    /**
+     * Copies a block of this matrix into a new matrix - the rows from fromRow up to but not including toRow and the
+     * columns from fromColumn up to but not including toColumn
+     * @param fromRow first row index
+     * @param toRow row index after the last row
+     * @param fromColumn first column index
+     * @param toColumn column index after the last column
+     * @return
+     */
+    public Matrix submatrix(int fromRow, int toRow, int fromColumn, int toColumn) {
+        checkRange("row", fromRow, toRow, this.getRowCount());
+        checkRange("column", fromColumn, toColumn, this.getColumnCount());
+
+        Matrix submatrix = this.copySubmatrix(fromRow, toRow, fromColumn, toColumn);
+        submatrix.setName(this.getName());
+        return submatrix;
+    }
+
+    /**
+     * Copies the block without checking the ranges - subclasses copy straight out of their storage
+     */
+    protected Matrix copySubmatrix(int fromRow, int toRow, int fromColumn, int toColumn) {
+        int m = toRow - fromRow;
+        int n = toColumn - fromColumn;
+        double[] data = new double[m * n];
+        double[] row = new double[this.getColumnCount()];
+
+        for(int i = 0; i < m; i++) {
+            this.copyRowValues(fromRow + i, row);
+            System.arraycopy(row, fromColumn, data, i * n, n);
+        }
+
+        return Matrix.buildMatrix(m, n, data);
+    }
+
+    /**
+     * Checks that from up to but not including to is a range of indices of a dimension with the size
+     * @param dimension "row" or "column" - used in the messages
+     * @param from
+     * @param to
+     * @param size
+     */
+    public static void checkRange(String dimension, int from, int to, int size) {
+        if(from < 0) {
+            NegativeIndexException e = new NegativeIndexException("the first " + dimension + " = " + from + " is negative");
             log.error(e.getMessage());
             throw e;
         }
 
-        if(i >= this.getRowCount()) {
-            IndexExceedsSizeException e = new IndexExceedsSizeException("the value of i = " + i + " is greater than or equal to the size: " + this.getRowCount());
+        if(to > size || from > to) {
+            IndexExceedsSizeException e = new IndexExceedsSizeException("the " + dimension + " range " + from + " to " + to
+                    + " is not within the size: " + size);
             log.error(e.getMessage());
             throw e;
         }
-
-        return this.getNumbers().get(i);
     }
 
     /**
-     * Returns the list of numbers in the jth column
+     * Returns the list of numbers in the jth column - a view, the values are read from the matrix as they are used
      * @param j column index
      * @return
      */
     public List<Double> getColumn(int j) {
+        this.checkColumnIndex(j);
+
+        return new ColumnView(this, j);
+    }
+
+    private void checkRowIndex(int i) {
+        if(i < 0) {
+            NegativeIndexException e = new NegativeIndexException("the value of i = " + i + " is negative - the row cannot be found");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        if(i >= this.getRowCount()) {
+            IndexExceedsSizeException e = new IndexExceedsSizeException("the value of i = " + i + " is greater than or equal to the size: " + this.getRowCount());
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
+
+    private void checkColumnIndex(int j) {
         if(j < 0) {
             NegativeIndexException e = new NegativeIndexException("the value of j = " + j + " is negative - the column cannot be found");
             log.error(e.getMessage());
@@ -225,15 +533,6 @@ public class Matrix {
             log.error(e.getMessage());
             throw e;
         }
-
-        //TODO: column is calculated when function is called - should this be constantly maintained on mutation of...
-        //TODO: ... the parent matrix? ie: currently there is a row-centric view - also maintain column-centric view
-        List<Double> column = new ArrayList<>();
-        for(List<Double> row : this.getNumbers()) {
-            Double columnValue = row.get(j);
-            column.add(columnValue);
-        }
-        return column;
     }
 
     /**
@@ -244,13 +543,125 @@ public class Matrix {
     public static Matrix buildMatrix(List<List<Double>> numbers) {
         log.info("building new matrix");
 
-        Matrix matrix = new Matrix();
+        int m = numbers.size();
+        int n = m == 0 ? 0 : numbers.get(0).size();
+        double[] data = new double[m * n];
+
+        int index = 0;
+        for(List<Double> row : numbers) {
+
+            Assert.isTrue(row.size() == n, "jagged matrices are not supported");
+
+            for(Double number : row) {
+                data[index++] = number;
+            }
+
+        }
+
+        return Matrix.buildMatrix(m, n, data);
+    }
+
+    /**
+     * Creates a new Matrix of m x n dimensions directly on top of the row-major array of values - the array is not copied
+     * @param m rows
+     * @param n columns
+     * @param data the values in row-major order - the value at i, j is at index i * n + j
+     * @return
+     */
+    public static DenseMatrix buildMatrix(int m, int n, double[] data) {
+        Assert.isTrue(m > -1, "cannot create a matrix with negative dimension size");
+        Assert.isTrue(n > -1, "cannot create a matrix with negative dimension size");
+        Assert.isTrue(data.length == (long) m * n, "the number of values must equal m x n");
+
+        DenseMatrix matrix = new DenseMatrix(m, n, data);
         matrix.setName("matrix");
-        matrix.setNumbers(numbers);
 
         return matrix;
     }
 
+    /**
+     * Creates a new compressed sparse row matrix of m x n dimensions directly on top of the arrays - they are not copied
+     * The non-zero values of row i are values[rowPointers[i]] up to values[rowPointers[i + 1]] and the column of each
+     * value is at the same index of columnIndices - the columns must be increasing within each row
+     * @param m rows
+     * @param n columns
+     * @param rowPointers m + 1 offsets into columnIndices and values
+     * @param columnIndices column of each stored value
+     * @param values the stored values
+     * @return
+     */
+    public static SparseMatrix buildSparseMatrix(int m, int n, int[] rowPointers, int[] columnIndices, double[] values) {
+        Assert.isTrue(m > -1, "cannot create a matrix with negative dimension size");
+        Assert.isTrue(n > -1, "cannot create a matrix with negative dimension size");
+        Assert.isTrue(rowPointers.length == m + 1, "there must be m + 1 row pointers");
+        Assert.isTrue(columnIndices.length >= rowPointers[m] && values.length >= rowPointers[m],
+                "there must be a column index and value for every stored value");
+
+        SparseMatrix matrix = new SparseMatrix(m, n, rowPointers, columnIndices, values);
+        matrix.setName("sparse matrix");
+
+        return matrix;
+    }
+
+    /**
+     * Starts a lazily evaluated graph of element-wise operations on the matrix - see {@link LazyMatrix}
+     * @param matrix
+     * @return
+     */
+    public static LazyMatrix lazy(Matrix matrix) {
+        return LazyMatrix.of(matrix);
+    }
+
+    /**
+     * Creates a compressed sparse row copy of the matrix that only keeps the non-zero values
+     * @param matrix
+     * @return
+     */
+    public static SparseMatrix buildSparseMatrix(Matrix matrix) {
+        if(matrix instanceof SparseMatrix) {
+            return (SparseMatrix) matrix;
+        }
+
+        int m = matrix.getRowCount();
+        int n = matrix.getColumnCount();
+
+        //count the non-zero values of each row first so the arrays are allocated at their final size
+        int[] rowPointers = new int[m + 1];
+        for(int i = 0; i < m; i++) {
+
+            int count = 0;
+            for(int j = 0; j < n; j++) {
+                if(matrix.get(i, j) != 0d) {
+                    count++;
+                }
+            }
+
+            rowPointers[i + 1] = rowPointers[i] + count;
+
+        }
+
+        int[] columnIndices = new int[rowPointers[m]];
+        double[] values = new double[rowPointers[m]];
+
+        int p = 0;
+        for(int i = 0; i < m; i++) {
+            for(int j = 0; j < n; j++) {
+
+                double value = matrix.get(i, j);
+                if(value != 0d) {
+                    columnIndices[p] = j;
+                    values[p] = value;
+                    p++;
+                }
+
+            }
+        }
+
+        SparseMatrix sparseMatrix = Matrix.buildSparseMatrix(m, n, rowPointers, columnIndices, values);
+        sparseMatrix.setName(matrix.getName());
+        return sparseMatrix;
+    }
+
     /**
      * Saves this matrix to a csv file where the contents of the csv file are the values of the matrix
      * and the name of the csv file is the name of the matrix with .csv extension
@@ -264,10 +675,10 @@ public class Matrix {
 
         log.info("writing matrix: {} to csv file with name: {}", this.getName(), csvFileName);
 
-        FileWriter fileWriter = null;
+        Writer fileWriter = null;
         try {
-            //create the csv file that will be written to
-            fileWriter = new FileWriter(csvFileName);
+            //create the csv file that will be written to - buffered so each value is not its own write call
+            fileWriter = new BufferedWriter(new FileWriter(csvFileName));
 
             //iterate through the rows in the matrix
             for(int i = 0; i < this.getRowCount(); i++) {
@@ -275,11 +686,11 @@ public class Matrix {
                 //iterate through the columns
                 for(int j = 0; j < this.getColumnCount(); j++) {
 
+                    fileWriter.write(Double.toString(this.get(i, j)));
+
                     //last element in the row - do not append a comma to the last line
-                    if(j == this.getColumnCount() - 1) {
-                        fileWriter.append(this.getNumber(i, j).toString());
-                    } else {
-                        fileWriter.append(this.getNumber(i, j) + VALUE_SEPARATOR);
+                    if(j < this.getColumnCount() - 1) {
+                        fileWriter.write(VALUE_SEPARATOR);
                     }
 
                 }
@@ -294,8 +705,9 @@ public class Matrix {
         } finally {
 
             try {
-                fileWriter.flush();
-                fileWriter.close();
+                if(fileWriter != null) {
+                    fileWriter.close();
+                }
             } catch (IOException e) {
                 log.error(e.getMessage());
             }
@@ -307,64 +719,14 @@ public class Matrix {
     /**
      * Creates a matrix instance from a standard csv file where the elements are separated by commas
      * and the rows are separated by new lines
+     * The file is scanned byte by byte straight into primitive storage - see {@link CsvMatrixReader}
      * @param file
      * @return
      */
     public static Matrix csv(String file) {
         log.info("creating matrix from csv file: {}", file);
 
-        String CSV_RECORD_DELIMITER = ",";
-
-        List<List<Double>> numbers = new ArrayList<>();
-
-        String line = "";
-        BufferedReader br = null;
-        try {
-
-            br = new BufferedReader(new FileReader(file));
-            while ((line = br.readLine()) != null) {
-
-                List<Double> row = new ArrayList<>();
-
-                String[] elements = line.split(CSV_RECORD_DELIMITER);
-
-                for(int i = 0; i < elements.length; i++) {
-
-                    row.add(new Double(elements[i]));
-
-                }
-
-                numbers.add(row);
-
-            }
-
-        } catch (FileNotFoundException e) {
-
-            log.error(e.getMessage());
-
-        } catch (IOException e) {
-
-            log.error(e.getMessage());
-
-        } finally {
-
-            if (br != null) {
-
-                try {
-
-                    br.close();
-
-                } catch (IOException e) {
-
-                    log.error(e.getMessage());
-
-                }
-
-            }
-
-        }
-
-        Matrix matrix = Matrix.buildMatrix(numbers);
+        Matrix matrix = CsvMatrixReader.read(Paths.get(file));
         matrix.setName(file);
         return matrix;
     }
@@ -372,66 +734,14 @@ public class Matrix {
     /**
      * Converts the contents of a two dimensional string array representing the values in a matrix to a matrix instance
      * Expected format: "[[1,2,3],[4,5,6]]" where each inner square bracket grouping represents the contents of one
-     * entire row and "],[" delineates between the rows
-     * The entire matrix is represented on a single line surrounded by enclosing square brackets
-     * Spaces and jagged matrices are not supported
+     * entire row - "[1,2,3]" is a single row and "[]" is a matrix with no rows
+     * The text is parsed in a single pass - see {@link MatrixParser}
+     * Spaces are allowed between values - jagged matrices are not supported
      * @param strArr
      * @return
      */
     public static Matrix fromString(String strArr) {
-
-        //represents the "],[" delineating rows in the string matrix
-        final String ROW_DELIMITER = "],\\[";
-
-        //represents the comma delineating individual values in the string matrix
-        final String VALUE_DELIMITER = ",";
-
-        //represents the start of a row
-        final String BEGIN_ROW_SYMBOL = "[";
-
-        //represents the end of a row
-        final String END_ROW_SYMBOL = "]";
-
-        //represents the start of the matrix
-        final String BEGIN_MATRIX_SYMBOL = "[[";
-
-        //represents the end of the matrix
-        final String END_MATRIX_SYMBOL = "]]";
-
-        //strip the spaces from the string
-        String strippedSpaces = strArr.replace(" ","");
-
-        //strip the surrounding square brackets
-        String strippedWrapperBrackets = strippedSpaces
-                .replace(BEGIN_MATRIX_SYMBOL, BEGIN_ROW_SYMBOL)
-                .replace(END_MATRIX_SYMBOL, END_ROW_SYMBOL);
-
-        //split the stripped string by the row delimiter
-        String[] rows = strippedWrapperBrackets.split(ROW_DELIMITER);
-
-        List<List<Double>> numbers = new ArrayList<>();
-
-        //iterate through the rows of the string array
-        for(String row : rows) {
-
-            //strip the row brackets from the string and split on the comma
-            String[] values = row.replace(BEGIN_ROW_SYMBOL,"").replace(END_ROW_SYMBOL,"").split(VALUE_DELIMITER);
-
-            List<Double> numberRows = new ArrayList<>();
-
-            //iterate through each value in this row
-            for(String value : values) {
-
-                Double number = new Double(value);
-                numberRows.add(number);
-
-            }
-
-            numbers.add(numberRows);
-        }
-
-        Matrix matrix = Matrix.buildMatrix(numbers);
-        return matrix;
+        return MatrixParser.parse(strArr);
     }
 
     /**
@@ -440,7 +750,14 @@ public class Matrix {
      * @return
      */
     public static List<Double> vectorFromString(String strArr) {
-        List<Double> numbers = fromString(strArr).getRow(0);
+        Matrix matrix = fromString(strArr);
+
+        //"[]" has no rows at all
+        if(matrix.getRowCount() == 0) {
+            return new ArrayList<>();
+        }
+
+        List<Double> numbers = matrix.getRow(0);
         return numbers;
     }
 
@@ -466,33 +783,14 @@ public class Matrix {
 
         }
 
-        //counter for tracking the current value of the coefficient column list
-        int i = 0;
-        List<List<Double>> numbers = new ArrayList<>();
-
-        //iterate through each of the rows in the original matrix
-        for(List<Double> row : matrix.getNumbers()) {
-
-            //iterate through each of the values in a row of the original matrix
-            List<Double> numberRow = new ArrayList<>();
-            for(Double number : row) {
-
-                //add each value from the original matrix to the new matrix row
-                numberRow.add(number);
-
-            }
-
-            //add the value of from the coefficient column to this row
-            numberRow.add(coefficientColumnValues.get(i));
-
-            //increment coefficient column value counter
-            i++;
-
-            //add each of the new rows to the new matrix
-            numbers.add(numberRow);
+        int m = matrix.getRowCount();
+        double[] coefficients = new double[m];
+        for(int i = 0; i < m; i++) {
+            coefficients[i] = coefficientColumnValues.get(i);
         }
 
-        Matrix augmentedMatrix = Matrix.buildMatrix(numbers);
+        //the rows of the matrix are not copied - the augmented matrix reads them from the matrix
+        Matrix augmentedMatrix = new AugmentedMatrix(matrix, Matrix.buildMatrix(m, 1, coefficients));
         augmentedMatrix.setName("augmented_" + matrix.getName());
         return augmentedMatrix;
     }
@@ -510,19 +808,93 @@ public class Matrix {
     }
 
     /**
-     * Returns the m dimension - number of rows in this matrix
+     * Returns true if the matrix is square and the value at i, j is the same as the value at j, i
      * @return
      */
-    public int getRowCount() {
-        return this.getNumbers().size();
+    public boolean isSymmetric() {
+        if(!this.isSquare()) {
+            return false;
+        }
+
+        for(int i = 0; i < this.getRowCount(); i++) {
+            for(int j = 0; j < i; j++) {
+
+                if(this.get(i, j) != this.get(j, i)) {
+                    return false;
+                }
+
+            }
+        }
+
+        return true;
     }
 
     /**
-     * Returns the n dimension - number of columns in the first row of this matrix
+     * Returns the m dimension - number of rows in this matrix
      * @return
      */
-    public int getColumnCount() {
-        return this.getRow(0).size();
+    public abstract int getRowCount();
+
+    /**
+     * Returns the n dimension - number of columns in this matrix
+     * @return
+     */
+    public abstract int getColumnCount();
+
+    /**
+     * Read only list over the primitive values of one column of a matrix
+     */
+    private static class ColumnView extends AbstractList<Double> {
+
+        private final Matrix matrix;
+        private final int j;
+
+        ColumnView(Matrix matrix, int j) {
+            this.matrix = matrix;
+            this.j = j;
+        }
+
+        @Override
+        public Double get(int i) {
+            if(i < 0 || i >= this.size()) {
+                throw new IndexOutOfBoundsException("the value of i = " + i + " is outside of the column size: " + this.size());
+            }
+
+            return this.matrix.get(i, this.j);
+        }
+
+        @Override
+        public int size() {
+            return this.matrix.getRowCount();
+        }
+    }
+
+    /**
+     * Read only list over the primitive values of one row of a matrix
+     */
+    private static class RowView extends AbstractList<Double> {
+
+        private final Matrix matrix;
+        private final int i;
+
+        RowView(Matrix matrix, int i) {
+            this.matrix = matrix;
+            this.i = i;
+        }
+
+        @Override
+        public Double get(int j) {
+            if(j < 0 || j >= this.size()) {
+                throw new IndexOutOfBoundsException("the value of j = " + j + " is outside of the row size: " + this.size());
+            }
+
+            return this.matrix.get(this.i, j);
+        }
+
+        @Override
+        public int size() {
+            return this.matrix.getColumnCount();
+        }
     }
 
 }
@@ -0,0 +1,189 @@
+package io.github.dgflagg.model;
+
+import org.springframework.util.Assert;
+
+import java.util.Arrays;
+
+/**
+ * Collects the values of a matrix one row at a time straight into primitive storage and decides on build whether the
+ * result is a {@link DenseMatrix} or a {@link SparseMatrix}
+ *
+ * Values start out collected in compressed sparse row form so a mostly zero matrix never needs m x n memory. As soon
+ * as the rows seen so far are too dense the values are moved to dense storage and stay there.
+ */
+public class MatrixBuilder {
+
+    /**
+     * Matrices with at most this fraction of non-zero values are kept sparse
+     */
+    public static final double SPARSE_DENSITY = 0.1;
+    /**
+     * Matrices with fewer values than this are always dense - there is nothing to save on them
+     */
+    public static final int SPARSE_MINIMUM_SIZE = 1024;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private boolean sparse;
+    private int rowCount;
+    private int columnCount = -1;
+    private int rowLength;
+
+    //dense storage
+    private double[] data;
+    private int size;
+
+    //sparse storage
+    private int[] rowPointers;
+    private int[] columnIndices;
+    private double[] values;
+    private int nonZeroCount;
+
+    /**
+     * Creates a builder that picks dense or sparse storage by how many values are zero
+     */
+    public MatrixBuilder() {
+        this(true);
+    }
+
+    /**
+     * Creates a builder
+     * @param sparseAllowed false to always build a dense matrix
+     */
+    public MatrixBuilder(boolean sparseAllowed) {
+        this.sparse = sparseAllowed;
+
+        if(this.sparse) {
+            this.rowPointers = new int[INITIAL_CAPACITY];
+            this.columnIndices = new int[INITIAL_CAPACITY];
+            this.values = new double[INITIAL_CAPACITY];
+        } else {
+            this.data = new double[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Adds the next value of the current row
+     * @param value
+     */
+    public void add(double value) {
+        if(this.sparse) {
+
+            if(value != 0d) {
+
+                if(this.nonZeroCount == this.values.length) {
+                    int capacity = this.values.length * 2;
+                    this.columnIndices = Arrays.copyOf(this.columnIndices, capacity);
+                    this.values = Arrays.copyOf(this.values, capacity);
+                }
+
+                this.columnIndices[this.nonZeroCount] = this.rowLength;
+                this.values[this.nonZeroCount] = value;
+                this.nonZeroCount++;
+
+            }
+
+        } else {
+
+            if(this.size == this.data.length) {
+                this.data = Arrays.copyOf(this.data, this.data.length * 2);
+            }
+
+            this.data[this.size++] = value;
+
+        }
+
+        this.rowLength++;
+    }
+
+    /**
+     * Ends the current row - the first row sets the column count and every other row must match it
+     */
+    public void endRow() {
+        if(this.columnCount < 0) {
+            this.columnCount = this.rowLength;
+        }
+
+        Assert.isTrue(this.rowLength == this.columnCount, "jagged matrices are not supported - row " + this.rowCount
+                + " has " + this.rowLength + " values but the first row has " + this.columnCount);
+
+        this.rowCount++;
+        this.rowLength = 0;
+
+        if(this.sparse) {
+
+            if(this.rowCount == this.rowPointers.length) {
+                this.rowPointers = Arrays.copyOf(this.rowPointers, this.rowPointers.length * 2);
+            }
+
+            this.rowPointers[this.rowCount] = this.nonZeroCount;
+
+            //too many non-zero values so far to be worth keeping sparse
+            long seen = (long) this.rowCount * this.columnCount;
+            if(seen >= SPARSE_MINIMUM_SIZE && this.nonZeroCount > SPARSE_DENSITY * seen) {
+                this.moveToDenseStorage();
+            }
+
+        }
+    }
+
+    /**
+     * Returns the number of rows ended so far
+     * @return
+     */
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    /**
+     * Returns the number of columns set by the first row - 0 until a row has ended
+     * @return
+     */
+    public int getColumnCount() {
+        return Math.max(this.columnCount, 0);
+    }
+
+    /**
+     * Builds the matrix from every ended row - sparse if it is big enough and mostly zeroes, otherwise dense
+     * @return
+     */
+    public Matrix build() {
+        Assert.isTrue(this.rowLength == 0, "the last row of the matrix was not ended");
+
+        int n = this.getColumnCount();
+        long elements = (long) this.rowCount * n;
+
+        if(this.sparse && elements >= SPARSE_MINIMUM_SIZE && this.nonZeroCount <= SPARSE_DENSITY * elements) {
+            return Matrix.buildSparseMatrix(this.rowCount, n, Arrays.copyOf(this.rowPointers, this.rowCount + 1),
+                    Arrays.copyOf(this.columnIndices, this.nonZeroCount), Arrays.copyOf(this.values, this.nonZeroCount));
+        }
+
+        if(this.sparse) {
+            this.moveToDenseStorage();
+        }
+
+        double[] numbers = this.size == this.data.length ? this.data : Arrays.copyOf(this.data, this.size);
+        return Matrix.buildMatrix(this.rowCount, n, numbers);
+    }
+
+    /**
+     * Scatters the sparse values collected so far into dense storage - only called between rows
+     */
+    private void moveToDenseStorage() {
+        int n = this.getColumnCount();
+        this.size = this.rowCount * n;
+        this.data = new double[Math.max(INITIAL_CAPACITY, this.size * 2)];
+
+        for(int i = 0; i < this.rowCount; i++) {
+            for(int p = this.rowPointers[i]; p < this.rowPointers[i + 1]; p++) {
+                this.data[i * n + this.columnIndices[p]] = this.values[p];
+            }
+        }
+
+        this.sparse = false;
+        this.rowPointers = null;
+        this.columnIndices = null;
+        this.values = null;
+    }
+
+}
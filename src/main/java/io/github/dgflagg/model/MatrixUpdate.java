@@ -0,0 +1,162 @@
+package io.github.dgflagg.model;
+
+import io.github.dgflagg.exceptions.DimensionsNotSimilarException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changes to some of the values of a saved matrix - whole rows, whole columns and single cells
+ *
+ * Sent as json:
+ * <pre>
+ * {"rows": [{"index": 0, "values": [1, 2, 3]}],
+ *  "columns": [{"index": 2, "values": [4, 5]}],
+ *  "cells": [{"row": 1, "column": 0, "value": 6}]}
+ * </pre>
+ * The rows are applied first, then the columns and then the cells - so a cell wins over the row or column it is in.
+ */
+@Slf4j
+@Data
+@NoArgsConstructor
+public class MatrixUpdate {
+
+    private List<Line> rows = new ArrayList<>();
+    private List<Line> columns = new ArrayList<>();
+    private List<Cell> cells = new ArrayList<>();
+
+    /**
+     * New values for a whole row or column
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private int index;
+        private double[] values;
+    }
+
+    /**
+     * A new value for a single cell
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Cell {
+        private int row;
+        private int column;
+        private double value;
+    }
+
+    /**
+     * Returns the number of values changed
+     * @return
+     */
+    public long getValueCount() {
+        long count = this.cells.size();
+        for(Line row : this.rows) {
+            count += row.values.length;
+        }
+        for(Line column : this.columns) {
+            count += column.values.length;
+        }
+        return count;
+    }
+
+    /**
+     * Checks every change is inside a matrix of m rows and n columns and that every row has n values and every
+     * column m values
+     * @param m
+     * @param n
+     */
+    public void check(int m, int n) {
+        for(Line row : this.rows) {
+            Matrix.checkRange("row", row.index, row.index + 1, m);
+            checkLength("row", row, n);
+        }
+
+        for(Line column : this.columns) {
+            Matrix.checkRange("column", column.index, column.index + 1, n);
+            checkLength("column", column, m);
+        }
+
+        for(Cell cell : this.cells) {
+            Matrix.checkRange("row", cell.row, cell.row + 1, m);
+            Matrix.checkRange("column", cell.column, cell.column + 1, n);
+        }
+    }
+
+    /**
+     * Writes the changes into a copy of the matrix
+     * @param matrix
+     * @return a new dense matrix - the matrix itself is not changed
+     */
+    public DenseMatrix apply(Matrix matrix) {
+        int m = matrix.getRowCount();
+        int n = matrix.getColumnCount();
+        this.check(m, n);
+
+        double[] data = new double[m * n];
+        double[] row = new double[n];
+        for(int i = 0; i < m; i++) {
+            matrix.copyRowValues(i, row);
+            System.arraycopy(row, 0, data, i * n, n);
+        }
+
+        DenseMatrix updated = Matrix.buildMatrix(m, n, data);
+        this.applyTo(updated, 0, 0);
+        updated.setName(matrix.getName());
+        return updated;
+    }
+
+    /**
+     * Writes the changes that fall inside a block of a matrix into the block - the block starts at fromRow and
+     * fromColumn of the matrix the changes were made to
+     * @param block
+     * @param fromRow
+     * @param fromColumn
+     */
+    public void applyTo(DenseMatrix block, int fromRow, int fromColumn) {
+        int m = block.getRowCount();
+        int n = block.getColumnCount();
+        double[] data = block.getData();
+
+        for(Line row : this.rows) {
+            int i = row.index - fromRow;
+            if(i >= 0 && i < m) {
+                System.arraycopy(row.values, fromColumn, data, i * n, n);
+            }
+        }
+
+        for(Line column : this.columns) {
+            int j = column.index - fromColumn;
+            if(j >= 0 && j < n) {
+                for(int i = 0; i < m; i++) {
+                    data[i * n + j] = column.values[fromRow + i];
+                }
+            }
+        }
+
+        for(Cell cell : this.cells) {
+            int i = cell.row - fromRow;
+            int j = cell.column - fromColumn;
+            if(i >= 0 && i < m && j >= 0 && j < n) {
+                data[i * n + j] = cell.value;
+            }
+        }
+    }
+
+    private static void checkLength(String dimension, Line line, int length) {
+        if(line.values == null || line.values.length != length) {
+            DimensionsNotSimilarException e = new DimensionsNotSimilarException(dimension + " " + line.index + " has "
+                    + (line.values == null ? 0 : line.values.length) + " values but must have " + length);
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
+
+}
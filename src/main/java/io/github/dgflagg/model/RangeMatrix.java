@@ -0,0 +1,98 @@
+package io.github.dgflagg.model;
+
+import java.util.Arrays;
+
+/**
+ * A matrix that only stores one range of columns of each row - every value outside the range is zero
+ *
+ * The stored values of row i are the columns from getFirstColumn(i) up to but not including getEndColumn(i) and sit
+ * side by side in the values array starting at getRowOffset(i). Diagonal, triangular and banded matrices all have
+ * this shape, so the algebra only has to work through the ranges to skip every zero of any of them.
+ */
+public abstract class RangeMatrix extends Matrix {
+
+    private final double[] values;
+
+    protected RangeMatrix(double[] values) {
+        this.values = values;
+    }
+
+    /**
+     * Returns the array of stored values - not a copy
+     * @return
+     */
+    public double[] getValues() {
+        return this.values;
+    }
+
+    /**
+     * Returns the first column stored for the ith row
+     * @param i row index
+     * @return
+     */
+    public abstract int getFirstColumn(int i);
+
+    /**
+     * Returns the column after the last column stored for the ith row - the same as the first column when nothing
+     * is stored for the row
+     * @param i row index
+     * @return
+     */
+    public abstract int getEndColumn(int i);
+
+    /**
+     * Returns the index in the values array of the first stored value of the ith row
+     * @param i row index
+     * @return
+     */
+    public abstract int getRowOffset(int i);
+
+    /**
+     * Returns a matrix with the same shape as this one that stores the values instead - used to build results with
+     * the same structure as an operand
+     * @param values must be as long as the values of this matrix
+     * @return
+     */
+    public abstract RangeMatrix withValues(double[] values);
+
+    @Override
+    protected double get(int i, int j) {
+        int first = this.getFirstColumn(i);
+
+        if(j < first || j >= this.getEndColumn(i)) {
+            return 0d;
+        }
+
+        return this.values[this.getRowOffset(i) + j - first];
+    }
+
+    @Override
+    protected void copyRowValues(int i, double[] destination) {
+        int first = this.getFirstColumn(i);
+        int end = this.getEndColumn(i);
+
+        Arrays.fill(destination, 0, first, 0d);
+        System.arraycopy(this.values, this.getRowOffset(i), destination, first, end - first);
+        Arrays.fill(destination, end, this.getColumnCount(), 0d);
+    }
+
+    /**
+     * Copies the stored values into a new dense matrix - every other value is zero
+     */
+    @Override
+    public DenseMatrix toDense() {
+        int m = this.getRowCount();
+        int n = this.getColumnCount();
+        double[] data = new double[denseSize(m, n)];
+
+        for(int i = 0; i < m; i++) {
+            int first = this.getFirstColumn(i);
+            System.arraycopy(this.values, this.getRowOffset(i), data, i * n + first, this.getEndColumn(i) - first);
+        }
+
+        DenseMatrix matrix = Matrix.buildMatrix(m, n, data);
+        matrix.setName(this.getName());
+        return matrix;
+    }
+
+}
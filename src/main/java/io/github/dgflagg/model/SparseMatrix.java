@@ -0,0 +1,148 @@
+package io.github.dgflagg.model;
+
+import java.util.Arrays;
+
+/**
+ * A matrix that only stores its non-zero values in compressed sparse row (CSR) form
+ *
+ * The non-zero values of row i are values[rowPointers[i]] up to values[rowPointers[i + 1]] with the column of each
+ * value at the same index of columnIndices - columns are increasing within a row. Memory is proportional to the
+ * number of non-zero values rather than m x n.
+ *
+ * Create instances with {@link Matrix#buildSparseMatrix(int, int, int[], int[], double[])} - or let
+ * {@link MatrixBuilder} pick sparse storage when a loaded matrix is mostly zeroes
+ */
+public class SparseMatrix extends Matrix {
+
+    private final int rowCount;
+    private final int columnCount;
+    private final int[] rowPointers;
+    private final int[] columnIndices;
+    private final double[] values;
+
+    SparseMatrix(int rowCount, int columnCount, int[] rowPointers, int[] columnIndices, double[] values) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.rowPointers = rowPointers;
+        this.columnIndices = columnIndices;
+        this.values = values;
+    }
+
+    /**
+     * Returns the m + 1 offsets of each row into the column indices and values - not a copy
+     * @return
+     */
+    public int[] getRowPointers() {
+        return this.rowPointers;
+    }
+
+    /**
+     * Returns the column of each stored value - not a copy
+     * @return
+     */
+    public int[] getColumnIndices() {
+        return this.columnIndices;
+    }
+
+    /**
+     * Returns the stored values - not a copy
+     * @return
+     */
+    public double[] getValues() {
+        return this.values;
+    }
+
+    /**
+     * Returns the number of values that are stored
+     * @return
+     */
+    public int getNonZeroCount() {
+        return this.rowPointers[this.rowCount];
+    }
+
+    /**
+     * Returns the fraction of the m x n values that are stored
+     * @return
+     */
+    public double getDensity() {
+        long size = (long) this.rowCount * this.columnCount;
+        return size == 0 ? 0d : (double) this.getNonZeroCount() / size;
+    }
+
+    @Override
+    protected double get(int i, int j) {
+        int index = Arrays.binarySearch(this.columnIndices, this.rowPointers[i], this.rowPointers[i + 1], j);
+        return index < 0 ? 0d : this.values[index];
+    }
+
+    @Override
+    protected void copyRowValues(int i, double[] destination) {
+        Arrays.fill(destination, 0, this.columnCount, 0d);
+
+        for(int p = this.rowPointers[i]; p < this.rowPointers[i + 1]; p++) {
+            destination[this.columnIndices[p]] = this.values[p];
+        }
+    }
+
+    /**
+     * Keeps the values of the rows whose columns are in the range - stays sparse
+     */
+    @Override
+    protected Matrix copySubmatrix(int fromRow, int toRow, int fromColumn, int toColumn) {
+        int m = toRow - fromRow;
+        int[] pointers = new int[m + 1];
+
+        //count first so the arrays are allocated once at their final size
+        int count = 0;
+        for(int i = 0; i < m; i++) {
+            for(int p = this.rowPointers[fromRow + i]; p < this.rowPointers[fromRow + i + 1]; p++) {
+                if(this.columnIndices[p] >= fromColumn && this.columnIndices[p] < toColumn) {
+                    count++;
+                }
+            }
+        }
+
+        int[] columns = new int[count];
+        double[] kept = new double[count];
+        int k = 0;
+
+        for(int i = 0; i < m; i++) {
+            for(int p = this.rowPointers[fromRow + i]; p < this.rowPointers[fromRow + i + 1]; p++) {
+                if(this.columnIndices[p] >= fromColumn && this.columnIndices[p] < toColumn) {
+                    columns[k] = this.columnIndices[p] - fromColumn;
+                    kept[k++] = this.values[p];
+                }
+            }
+            pointers[i + 1] = k;
+        }
+
+        return Matrix.buildSparseMatrix(m, toColumn - fromColumn, pointers, columns, kept);
+    }
+
+    @Override
+    public DenseMatrix toDense() {
+        double[] data = new double[this.rowCount * this.columnCount];
+
+        //scatter the stored values of each row into their columns - everything else is already zero
+        for(int i = 0; i < this.rowCount; i++) {
+            for(int p = this.rowPointers[i]; p < this.rowPointers[i + 1]; p++) {
+                data[i * this.columnCount + this.columnIndices[p]] = this.values[p];
+            }
+        }
+
+        DenseMatrix matrix = Matrix.buildMatrix(this.rowCount, this.columnCount, data);
+        matrix.setName(this.getName());
+        return matrix;
+    }
+
+    @Override
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return this.columnCount;
+    }
+
+}
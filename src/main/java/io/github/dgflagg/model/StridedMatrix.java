@@ -0,0 +1,136 @@
+package io.github.dgflagg.model;
+
+/**
+ * A view of some of the values of a dense matrix - nothing is copied, the values are read from the array of the
+ * matrix the view was taken from
+ *
+ * The value at i, j is at index offset + i * rowStride + j * columnStride of the array, so a window is a different
+ * offset and size, a column is a stride of n and a transpose swaps the two strides. Views of views are views of the
+ * same array. Changes made to the values of the dense matrix are seen by its views.
+ *
+ * Create instances with {@link DenseMatrix#view()} and the view functions of DenseMatrix
+ */
+public class StridedMatrix extends Matrix {
+
+    private final double[] data;
+    private final int offset;
+    private final int rowStride;
+    private final int columnStride;
+    private final int rowCount;
+    private final int columnCount;
+
+    StridedMatrix(double[] data, int offset, int rowStride, int columnStride, int rowCount, int columnCount) {
+        this.data = data;
+        this.offset = offset;
+        this.rowStride = rowStride;
+        this.columnStride = columnStride;
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+    }
+
+    /**
+     * Returns a view of the rows from fromRow up to but not including toRow and the columns from fromColumn up to but
+     * not including toColumn
+     * @param fromRow
+     * @param toRow
+     * @param fromColumn
+     * @param toColumn
+     * @return
+     */
+    public StridedMatrix window(int fromRow, int toRow, int fromColumn, int toColumn) {
+        checkRange("row", fromRow, toRow, this.rowCount);
+        checkRange("column", fromColumn, toColumn, this.columnCount);
+
+        return new StridedMatrix(this.data, this.offset + fromRow * this.rowStride + fromColumn * this.columnStride,
+                this.rowStride, this.columnStride, toRow - fromRow, toColumn - fromColumn);
+    }
+
+    /**
+     * Returns a view of the ith row as a 1 x n matrix
+     * @param i row index
+     * @return
+     */
+    public StridedMatrix row(int i) {
+        return this.window(i, i + 1, 0, this.columnCount);
+    }
+
+    /**
+     * Returns a view of the jth column as an m x 1 matrix
+     * @param j column index
+     * @return
+     */
+    public StridedMatrix column(int j) {
+        return this.window(0, this.rowCount, j, j + 1);
+    }
+
+    /**
+     * Returns a view of the transpose - the rows of the view are the columns of this matrix
+     * @return
+     */
+    public StridedMatrix transpose() {
+        return new StridedMatrix(this.data, this.offset, this.columnStride, this.rowStride, this.columnCount, this.rowCount);
+    }
+
+    @Override
+    protected double get(int i, int j) {
+        return this.data[this.offset + i * this.rowStride + j * this.columnStride];
+    }
+
+    @Override
+    protected void copyRowValues(int i, double[] destination) {
+        int start = this.offset + i * this.rowStride;
+
+        if(this.columnStride == 1) {
+            System.arraycopy(this.data, start, destination, 0, this.columnCount);
+            return;
+        }
+
+        for(int j = 0; j < this.columnCount; j++) {
+            destination[j] = this.data[start + j * this.columnStride];
+        }
+    }
+
+    @Override
+    protected Matrix copySubmatrix(int fromRow, int toRow, int fromColumn, int toColumn) {
+        return this.window(fromRow, toRow, fromColumn, toColumn).toDense();
+    }
+
+    /**
+     * Copies the values of the view into a new dense matrix
+     */
+    @Override
+    public DenseMatrix toDense() {
+        int n = this.columnCount;
+        double[] values = new double[denseSize(this.rowCount, n)];
+
+        for(int i = 0; i < this.rowCount; i++) {
+
+            int start = this.offset + i * this.rowStride;
+
+            if(this.columnStride == 1) {
+                System.arraycopy(this.data, start, values, i * n, n);
+                continue;
+            }
+
+            for(int j = 0; j < n; j++) {
+                values[i * n + j] = this.data[start + j * this.columnStride];
+            }
+
+        }
+
+        DenseMatrix matrix = Matrix.buildMatrix(this.rowCount, this.columnCount, values);
+        matrix.setName(this.getName());
+        return matrix;
+    }
+
+    @Override
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return this.columnCount;
+    }
+
+}
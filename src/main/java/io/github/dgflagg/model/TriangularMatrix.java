@@ -0,0 +1,71 @@
+package io.github.dgflagg.model;
+
+/**
+ * A square matrix that is zero on one side of the diagonal - only the n(n + 1) / 2 values of the other half are
+ * stored, row after row
+ *
+ * A lower triangular matrix stores the columns 0 to i of row i and an upper triangular matrix the columns i to n - 1.
+ *
+ * Create instances with {@link Matrix#buildLowerTriangularMatrix(Matrix)}, {@link Matrix#buildUpperTriangularMatrix(Matrix)}
+ * or {@link Matrix#buildTriangularMatrix(int, boolean, double[])}
+ */
+public class TriangularMatrix extends RangeMatrix {
+
+    private final int n;
+    private final boolean upper;
+
+    TriangularMatrix(int n, boolean upper, double[] values) {
+        super(values);
+        this.n = n;
+        this.upper = upper;
+    }
+
+    /**
+     * Returns the number of values stored by an n x n triangular matrix
+     * @param n rows and columns
+     * @return
+     */
+    public static int valueCount(int n) {
+        return Math.toIntExact((long) n * (n + 1) / 2);
+    }
+
+    /**
+     * Returns true if the values above the diagonal are the ones stored - false if it is the values below
+     * @return
+     */
+    public boolean isUpper() {
+        return this.upper;
+    }
+
+    @Override
+    public int getFirstColumn(int i) {
+        return this.upper ? i : 0;
+    }
+
+    @Override
+    public int getEndColumn(int i) {
+        return this.upper ? this.n : i + 1;
+    }
+
+    @Override
+    public int getRowOffset(int i) {
+        //the rows before i of an upper matrix store n, n - 1, ... values and of a lower matrix 1, 2, ... values
+        return this.upper ? (int) ((long) i * this.n - (long) i * (i - 1) / 2) : (int) ((long) i * (i + 1) / 2);
+    }
+
+    @Override
+    public RangeMatrix withValues(double[] values) {
+        return Matrix.buildTriangularMatrix(this.n, this.upper, values);
+    }
+
+    @Override
+    public int getRowCount() {
+        return this.n;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return this.n;
+    }
+
+}
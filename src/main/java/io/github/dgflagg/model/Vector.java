@@ -0,0 +1,198 @@
+package io.github.dgflagg.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import io.github.dgflagg.exceptions.DimensionsNotSimilarException;
+import io.github.dgflagg.exceptions.IndexExceedsSizeException;
+import io.github.dgflagg.exceptions.NegativeIndexException;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A vector of n values stored in a single primitive array
+ *
+ * The operand and result of matrix x vector products - see {@link io.github.dgflagg.MatrixAlgebra#multiply(Matrix,
+ * Vector)}. Written to json as a flat array - [1.0,2.0,3.0]. Create instances with {@link #buildVector(double[])} or
+ * one of the other build functions.
+ */
+@Slf4j
+public class Vector {
+
+    /**
+     * The name assigned to help identify this vector
+     */
+    @Getter
+    @Setter
+    private String name;
+
+    private final double[] values;
+
+    private Vector(double[] values) {
+        this.values = values;
+    }
+
+    /**
+     * Creates a vector over the values - the array is used as it is and not copied
+     * @param values
+     * @return
+     */
+    public static Vector buildVector(double... values) {
+        return new Vector(values);
+    }
+
+    /**
+     * Creates a vector of n zeroes
+     * @param n
+     * @return
+     */
+    public static Vector buildZeroVector(int n) {
+        return new Vector(new double[n]);
+    }
+
+    /**
+     * Creates a vector from a list of values
+     * @param values
+     * @return
+     */
+    public static Vector buildVector(List<Double> values) {
+        double[] numbers = new double[values.size()];
+        for(int i = 0; i < numbers.length; i++) {
+            numbers[i] = values.get(i);
+        }
+        return new Vector(numbers);
+    }
+
+    /**
+     * Creates a vector from a matrix with a single row or a single column - a dense matrix shares its array
+     * @param matrix
+     * @return
+     */
+    public static Vector buildVector(Matrix matrix) {
+        if(matrix.getRowCount() > 1 && matrix.getColumnCount() > 1) {
+            DimensionsNotSimilarException e = new DimensionsNotSimilarException("only a matrix with a single row or column is a vector - "
+                    + matrix.getRowCount() + " rows and " + matrix.getColumnCount() + " columns");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        //the row-major values of a single row or a single column are the values of the vector in order
+        return new Vector(matrix.toDense().getData());
+    }
+
+    /**
+     * Returns the vector written as a flat array - "[1,2,3]"
+     * @param strArr
+     * @return
+     */
+    public static Vector fromString(String strArr) {
+        return buildVector(Matrix.fromString(strArr));
+    }
+
+    /**
+     * Returns the value at index i
+     * @param i
+     * @return
+     */
+    public double get(int i) {
+        if(i < 0) {
+            NegativeIndexException e = new NegativeIndexException("the value of i = " + i + " is negative - the value cannot be found");
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        if(i >= this.values.length) {
+            IndexExceedsSizeException e = new IndexExceedsSizeException("the value of i = " + i + " is greater than or equal to the length: " + this.values.length);
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        return this.values[i];
+    }
+
+    /**
+     * Returns the array backing this vector - not a copy
+     * @return
+     */
+    @JsonValue
+    public double[] getValues() {
+        return this.values;
+    }
+
+    /**
+     * Returns the number of values
+     * @return
+     */
+    public int getLength() {
+        return this.values.length;
+    }
+
+    /**
+     * Returns a view of the values as a list - nothing is copied
+     * @return
+     */
+    public List<Double> toList() {
+        return new AbstractList<Double>() {
+            @Override
+            public Double get(int i) {
+                return Vector.this.values[i];
+            }
+
+            @Override
+            public int size() {
+                return Vector.this.values.length;
+            }
+        };
+    }
+
+    /**
+     * Returns an n x 1 matrix over the same values
+     * @return
+     */
+    public DenseMatrix toColumn() {
+        return Matrix.buildMatrix(this.values.length, 1, this.values);
+    }
+
+    /**
+     * Returns a 1 x n matrix over the same values
+     * @return
+     */
+    public DenseMatrix toRow() {
+        return Matrix.buildMatrix(1, this.values.length, this.values);
+    }
+
+    /**
+     * Returns the values in a standard format without spaces - "[1.0,2.0]"
+     * @return
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+
+        for(int i = 0; i < this.values.length; i++) {
+
+            if(i > 0) {
+                sb.append(",");
+            }
+
+            sb.append(this.values[i]);
+
+        }
+
+        return sb.append("]").toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Vector && Arrays.equals(this.values, ((Vector) o).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.values);
+    }
+
+}
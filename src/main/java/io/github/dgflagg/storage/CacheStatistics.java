@@ -0,0 +1,37 @@
+package io.github.dgflagg.storage;
+
+import lombok.Getter;
+
+/**
+ * A snapshot of the counters of a {@link CachingMatrixRepository}
+ */
+@Getter
+public class CacheStatistics {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final int entryCount;
+    private final long byteCount;
+    private final long maximumByteCount;
+
+    public CacheStatistics(long hitCount, long missCount, long evictionCount, int entryCount, long byteCount,
+                           long maximumByteCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.entryCount = entryCount;
+        this.byteCount = byteCount;
+        this.maximumByteCount = maximumByteCount;
+    }
+
+    /**
+     * Returns the fraction of lookups that were served from memory - 0 before the first lookup
+     * @return
+     */
+    public double getHitRate() {
+        long lookups = this.hitCount + this.missCount;
+        return lookups == 0 ? 0d : (double) this.hitCount / lookups;
+    }
+
+}
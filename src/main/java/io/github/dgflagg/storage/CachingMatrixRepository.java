@@ -0,0 +1,219 @@
+package io.github.dgflagg.storage;
+
+import io.github.dgflagg.io.MatrixFile;
+import io.github.dgflagg.model.DenseMatrix;
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.MatrixUpdate;
+import io.github.dgflagg.model.SparseMatrix;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the most recently used matrices of another repository in memory
+ *
+ * The cache is bounded by the bytes the values of its matrices take rather than by how many matrices it holds, so a
+ * few huge matrices cannot push the heap over. Saves are written through to the other repository before they are
+ * cached, one at a time for each name. Matrices bigger than the whole cache are never cached.
+ *
+ * Every save or update of a name starts a new generation of it like the versions of {@link FactorizationCache}. A
+ * matrix loaded from storage is only cached if no save or update of its name happened while it was being loaded.
+ */
+@Slf4j
+public class CachingMatrixRepository implements MatrixRepository {
+
+    private final MatrixRepository repository;
+    private final long maximumBytes;
+
+    /**
+     * Least recently used first
+     */
+    private final LinkedHashMap<String, Matrix> matrices = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    /**
+     * Number of saves and updates of each name - guarded by the lock of the cache
+     */
+    private final Map<String, Long> generations = new HashMap<>();
+
+    /**
+     * Held while a name is written to storage and cached - finds do not take it
+     */
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * @param repository where the matrices are stored
+     * @param maximumBytes most bytes of matrix values held in memory at once
+     */
+    public CachingMatrixRepository(MatrixRepository repository, long maximumBytes) {
+        this.repository = repository;
+        this.maximumBytes = maximumBytes;
+    }
+
+    /**
+     * Writes the matrix through and caches it - saves and updates of the same name are serialized so the cache always
+     * ends up holding what was written last
+     */
+    @Override
+    public void save(String name, Matrix matrix) {
+        synchronized(this.lock(name)) {
+            this.repository.save(name, matrix);
+            this.put(name, matrix, this.invalidate(name));
+        }
+    }
+
+    @Override
+    public Matrix find(String name) {
+        long generation;
+
+        synchronized(this) {
+            Matrix matrix = this.matrices.get(name);
+            if(matrix != null) {
+                this.hitCount.incrementAndGet();
+                return matrix;
+            }
+
+            //read before the matrix so a save that lands while it loads keeps the old matrix out of the cache
+            generation = this.generations.getOrDefault(name, 0L);
+        }
+
+        this.missCount.incrementAndGet();
+
+        //loaded outside the lock so hits are not held up by storage
+        Matrix matrix = this.repository.find(name);
+
+        //values read from a mapped file are copied onto the heap so later hits do not touch storage at all
+        if(!(matrix instanceof DenseMatrix) && !(matrix instanceof SparseMatrix) && weigh(matrix) <= this.maximumBytes) {
+            matrix = matrix.toDense();
+            matrix.setName(name);
+        }
+
+        this.put(name, matrix, generation);
+        return matrix;
+    }
+
+    /**
+     * Changes the stored matrix and drops it from the cache - it is read with the changes the next time it is found
+     */
+    @Override
+    public void update(String name, MatrixUpdate update) {
+        synchronized(this.lock(name)) {
+            this.repository.update(name, update);
+            this.invalidate(name);
+        }
+    }
+
+    /**
+     * Copies the block out of the cached matrix - otherwise only the block is read from storage and, being a part of
+     * the matrix, it is not cached
+     */
+    @Override
+    public Matrix find(String name, int fromRow, int toRow, int fromColumn, int toColumn) {
+        Matrix matrix;
+        synchronized(this) {
+            matrix = this.matrices.get(name);
+        }
+
+        if(matrix == null) {
+            this.missCount.incrementAndGet();
+            return this.repository.find(name, fromRow, toRow, fromColumn, toColumn);
+        }
+
+        this.hitCount.incrementAndGet();
+
+        Matrix block = matrix.submatrix(fromRow, Math.min(toRow, matrix.getRowCount()),
+                fromColumn, Math.min(toColumn, matrix.getColumnCount()));
+        block.setName(name);
+        return block;
+    }
+
+    /**
+     * Drops every cached matrix - the stored matrices are not touched
+     */
+    public synchronized void clear() {
+        this.matrices.clear();
+        this.bytes = 0;
+    }
+
+    /**
+     * Drops every cached matrix and closes the repository behind the cache
+     */
+    @Override
+    public void close() {
+        this.clear();
+        this.repository.close();
+    }
+
+    /**
+     * Returns the current counters of the cache
+     * @return
+     */
+    public synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(this.hitCount.get(), this.missCount.get(), this.evictionCount.get(),
+                this.matrices.size(), this.bytes, this.maximumBytes);
+    }
+
+    /**
+     * Starts a new generation of the name and drops its cached matrix
+     * @return the new generation
+     */
+    private synchronized long invalidate(String name) {
+        Matrix previous = this.matrices.remove(name);
+        if(previous != null) {
+            this.bytes -= weigh(previous);
+        }
+
+        return this.generations.merge(name, 1L, Long::sum);
+    }
+
+    private synchronized void put(String name, Matrix matrix, long generation) {
+        //the name was saved or updated again after the matrix was read
+        if(generation != this.generations.getOrDefault(name, 0L)) {
+            return;
+        }
+
+        Matrix previous = this.matrices.remove(name);
+        if(previous != null) {
+            this.bytes -= weigh(previous);
+        }
+
+        long weight = weigh(matrix);
+        if(weight > this.maximumBytes) {
+            log.info("matrix: {} of {} bytes is larger than the cache and is not cached", name, weight);
+            return;
+        }
+
+        this.matrices.put(name, matrix);
+        this.bytes += weight;
+
+        //evict least recently used matrices until everything fits
+        Iterator<Map.Entry<String, Matrix>> leastRecentlyUsed = this.matrices.entrySet().iterator();
+        while(this.bytes > this.maximumBytes) {
+            Map.Entry<String, Matrix> eldest = leastRecentlyUsed.next();
+            this.bytes -= weigh(eldest.getValue());
+            leastRecentlyUsed.remove();
+            this.evictionCount.incrementAndGet();
+        }
+    }
+
+    private Object lock(String name) {
+        return this.locks.computeIfAbsent(name, key -> new Object());
+    }
+
+    /**
+     * Approximate bytes the values of the matrix take in memory - the same as its binary encoding
+     */
+    private static long weigh(Matrix matrix) {
+        return MatrixFile.byteCount(matrix);
+    }
+
+}
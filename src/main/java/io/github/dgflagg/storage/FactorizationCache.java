@@ -0,0 +1,225 @@
+package io.github.dgflagg.storage;
+
+import io.github.dgflagg.decomposition.CholeskyDecomposition;
+import io.github.dgflagg.decomposition.Factorization;
+import io.github.dgflagg.decomposition.LUDecomposition;
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.MatrixUpdate;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the factorizations of saved matrices so a matrix solved against many right hand sides is only factored once
+ *
+ * Every save or update of a name starts a new version of it and factorizations are kept by name and version, so a
+ * factorization of a matrix that has since been saved again is never handed out - even one that was still being
+ * worked out when the save happened. Symmetric positive definite matrices get a Cholesky decomposition and every other
+ * matrix an LU decomposition. The cache is bounded by the bytes the factorizations take like
+ * {@link CachingMatrixRepository}.
+ */
+@Slf4j
+public class FactorizationCache implements MatrixRepository {
+
+    private final MatrixRepository repository;
+    private final long maximumBytes;
+
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Least recently used first
+     */
+    private final LinkedHashMap<Key, Factorization> factorizations = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    @Value
+    private static class Key {
+        String name;
+        long version;
+    }
+
+    /**
+     * @param repository where the matrices are stored
+     * @param maximumBytes most bytes of factorizations held in memory at once
+     */
+    public FactorizationCache(MatrixRepository repository, long maximumBytes) {
+        this.repository = repository;
+        this.maximumBytes = maximumBytes;
+    }
+
+    @Override
+    public void save(String name, Matrix matrix) {
+        this.repository.save(name, matrix);
+        this.invalidate(name);
+    }
+
+    @Override
+    public void update(String name, MatrixUpdate update) {
+        this.repository.update(name, update);
+        this.invalidate(name);
+    }
+
+    @Override
+    public Matrix find(String name) {
+        return this.repository.find(name);
+    }
+
+    @Override
+    public Matrix find(String name, int fromRow, int toRow, int fromColumn, int toColumn) {
+        return this.repository.find(name, fromRow, toRow, fromColumn, toColumn);
+    }
+
+    /**
+     * Returns the factorization of the matrix saved under the name - factored on the first call and kept until the
+     * matrix is saved again or the factorization is evicted
+     * @param name
+     * @return
+     * @throws io.github.dgflagg.exceptions.MatrixNotFoundException if nothing is saved under the name
+     */
+    public Factorization factorize(String name) {
+        //the version is read before the matrix so a save that lands in between is never cached under the new version
+        Key key = new Key(name, this.versions.getOrDefault(name, 0L));
+
+        synchronized(this) {
+            Factorization factorization = this.factorizations.get(key);
+            if(factorization != null) {
+                this.hitCount.incrementAndGet();
+                return factorization;
+            }
+        }
+
+        this.missCount.incrementAndGet();
+
+        //factored outside the lock so other names are not held up
+        Factorization factorization = factor(this.repository.find(name));
+
+        this.put(key, factorization);
+        return factorization;
+    }
+
+    /**
+     * Solves AX = B for X where A is the matrix saved under the name
+     * @param name
+     * @param b one right hand side per column
+     * @return
+     */
+    public Matrix solve(String name, Matrix b) {
+        return this.factorize(name).solve(b);
+    }
+
+    /**
+     * Returns the determinant of the matrix saved under the name
+     * @param name
+     * @return
+     */
+    public double determinant(String name) {
+        return this.factorize(name).determinant();
+    }
+
+    /**
+     * Returns the inverse of the matrix saved under the name
+     * @param name
+     * @return
+     */
+    public Matrix inverse(String name) {
+        return this.factorize(name).inverse();
+    }
+
+    /**
+     * Drops every factorization - the stored matrices are not touched
+     */
+    public synchronized void clear() {
+        this.factorizations.clear();
+        this.bytes = 0;
+    }
+
+    /**
+     * Drops every factorization and closes the repository behind the cache
+     */
+    @Override
+    public void close() {
+        this.clear();
+        this.repository.close();
+    }
+
+    /**
+     * Returns the current counters of the cache
+     * @return
+     */
+    public synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(this.hitCount.get(), this.missCount.get(), this.evictionCount.get(),
+                this.factorizations.size(), this.bytes, this.maximumBytes);
+    }
+
+    /**
+     * Cholesky when the matrix is symmetric positive definite - otherwise LU
+     */
+    private static Factorization factor(Matrix matrix) {
+        if(matrix.isSymmetric()) {
+
+            CholeskyDecomposition cholesky = CholeskyDecomposition.decompose(matrix);
+            if(cholesky.isPositiveDefinite()) {
+                return cholesky;
+            }
+
+        }
+
+        return LUDecomposition.decompose(matrix);
+    }
+
+    /**
+     * Starts a new version of the name and drops the factorizations of the old versions
+     */
+    private void invalidate(String name) {
+        this.versions.merge(name, 1L, Long::sum);
+
+        synchronized(this) {
+            Iterator<Map.Entry<Key, Factorization>> entries = this.factorizations.entrySet().iterator();
+            while(entries.hasNext()) {
+                Map.Entry<Key, Factorization> entry = entries.next();
+                if(entry.getKey().getName().equals(name)) {
+                    this.bytes -= entry.getValue().getByteCount();
+                    entries.remove();
+                }
+            }
+        }
+    }
+
+    private synchronized void put(Key key, Factorization factorization) {
+        //the matrix was saved again while it was being factored
+        if(key.getVersion() != this.versions.getOrDefault(key.getName(), 0L)) {
+            return;
+        }
+
+        long weight = factorization.getByteCount();
+        if(weight > this.maximumBytes) {
+            log.info("factorization of: {} of {} bytes is larger than the cache and is not cached", key.getName(), weight);
+            return;
+        }
+
+        Factorization previous = this.factorizations.put(key, factorization);
+        if(previous != null) {
+            this.bytes -= previous.getByteCount();
+        }
+        this.bytes += weight;
+
+        //evict least recently used factorizations until everything fits
+        Iterator<Map.Entry<Key, Factorization>> leastRecentlyUsed = this.factorizations.entrySet().iterator();
+        while(this.bytes > this.maximumBytes) {
+            Map.Entry<Key, Factorization> eldest = leastRecentlyUsed.next();
+            this.bytes -= eldest.getValue().getByteCount();
+            leastRecentlyUsed.remove();
+            this.evictionCount.incrementAndGet();
+        }
+    }
+
+}
@@ -0,0 +1,198 @@
+package io.github.dgflagg.storage;
+
+import io.github.dgflagg.exceptions.MatrixNotFoundException;
+import io.github.dgflagg.exceptions.MatrixStorageException;
+import io.github.dgflagg.io.MatrixFile;
+import io.github.dgflagg.model.MappedMatrix;
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.MatrixUpdate;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps each matrix in its own binary file named after the matrix in a directory
+ *
+ * Matrices saved before the binary format was introduced are still found in their csv files.
+ */
+@Slf4j
+public class FileMatrixRepository implements MatrixRepository {
+
+    private static final String CSV_FILE_EXTENSION = ".csv";
+
+    private final Path directory;
+
+    /**
+     * Serializes the saves, updates and reads of each name - other names are never held up
+     */
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    /**
+     * The version of the current file of each name - bumped before every in place update. A save starts a new file
+     * and a new version, the old file is never written to again
+     */
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory where the matrix files are kept
+     */
+    public FileMatrixRepository(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Writes a new file and moves it over the old one - matrices mapped from the old file keep their values
+     */
+    @Override
+    public void save(String name, Matrix matrix) {
+        ReentrantLock lock = this.lock(name);
+        lock.lock();
+        try {
+            MatrixFile.write(matrix, this.directory.resolve(name + MatrixFile.FILE_EXTENSION));
+            this.versions.put(name, new AtomicLong());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Maps the binary file of the matrix - the values are read from the file as they are used. The matrix is stamped
+     * with the version of the file so reading it after an update of the file throws a
+     * {@link io.github.dgflagg.exceptions.MatrixChangedException} instead of mixing old and new values
+     */
+    @Override
+    public Matrix find(String name) {
+        Path binaryFile = this.directory.resolve(name + MatrixFile.FILE_EXTENSION);
+
+        ReentrantLock lock = this.lock(name);
+        lock.lock();
+        try {
+
+            if(Files.exists(binaryFile)) {
+                Matrix matrix = MatrixFile.map(binaryFile);
+                if(matrix instanceof MappedMatrix) {
+                    matrix = ((MappedMatrix) matrix).withVersion(this.version(name));
+                }
+                matrix.setName(name);
+                return matrix;
+            }
+
+        } finally {
+            lock.unlock();
+        }
+
+        //matrices saved before the binary format were written to csv files
+        Path csvFile = this.directory.resolve(name + CSV_FILE_EXTENSION);
+
+        if(Files.exists(csvFile)) {
+            Matrix matrix = Matrix.csv(csvFile.toString());
+            matrix.setName(name);
+            return matrix;
+        }
+
+        MatrixNotFoundException e = new MatrixNotFoundException("no matrix saved with name: " + name);
+        log.error(e.getMessage());
+        throw e;
+    }
+
+    /**
+     * Reads only the bytes of the block from the binary file of the matrix - matrices still in csv files are read
+     * whole and the block copied out
+     */
+    @Override
+    public Matrix find(String name, int fromRow, int toRow, int fromColumn, int toColumn) {
+        Path binaryFile = this.directory.resolve(name + MatrixFile.FILE_EXTENSION);
+
+        if(!Files.exists(binaryFile)) {
+            return MatrixRepository.super.find(name, fromRow, toRow, fromColumn, toColumn);
+        }
+
+        //the block is read under the lock so an update never lands half way through it
+        ReentrantLock lock = this.lock(name);
+        lock.lock();
+        try(FileChannel channel = FileChannel.open(binaryFile, StandardOpenOption.READ)) {
+
+            Matrix matrix = MatrixFile.read(channel, 0, fromRow, toRow, fromColumn, toColumn);
+            matrix.setName(name);
+            return matrix;
+
+        } catch (IOException e) {
+            MatrixStorageException exception = new MatrixStorageException("cannot read matrix from: " + binaryFile, e);
+            log.error(exception.getMessage());
+            throw exception;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the changed values over their bytes in the binary file of a dense matrix - only the changed values are
+     * written. Sparse matrices and matrices still in csv files are changed and saved again as a whole, after which
+     * they are in a binary file
+     */
+    @Override
+    public void update(String name, MatrixUpdate update) {
+        Path binaryFile = this.directory.resolve(name + MatrixFile.FILE_EXTENSION);
+
+        ReentrantLock lock = this.lock(name);
+        lock.lock();
+        try {
+
+            if(Files.exists(binaryFile) && this.updateInPlace(name, binaryFile, update)) {
+                return;
+            }
+
+            MatrixRepository.super.update(name, update);
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean updateInPlace(String name, Path binaryFile, MatrixUpdate update) {
+        try(FileChannel channel = FileChannel.open(binaryFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+            MatrixFile.Header header = MatrixFile.readHeader(channel, 0);
+
+            if(header.isSparse()) {
+                return false;
+            }
+
+            //checked before the version is bumped so a bad update does not fail the readers of the matrix
+            update.check(header.getRowCount(), header.getColumnCount());
+            this.version(name).incrementAndGet();
+
+            MatrixFile.update(channel, 0, update);
+            channel.force(false);
+
+            log.info("updated {} values of matrix: {} in place", update.getValueCount(), name);
+            return true;
+
+        } catch (IOException e) {
+            MatrixStorageException exception = new MatrixStorageException("cannot update matrix in: " + binaryFile, e);
+            log.error(exception.getMessage());
+            throw exception;
+        }
+    }
+
+    private ReentrantLock lock(String name) {
+        return this.locks.computeIfAbsent(name, key -> new ReentrantLock());
+    }
+
+    private AtomicLong version(String name) {
+        return this.versions.computeIfAbsent(name, key -> new AtomicLong());
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+}
@@ -0,0 +1,759 @@
+package io.github.dgflagg.storage;
+
+import io.github.dgflagg.exceptions.MatrixNotFoundException;
+import io.github.dgflagg.exceptions.MatrixStorageException;
+import io.github.dgflagg.io.MatrixFile;
+import io.github.dgflagg.model.DenseMatrix;
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.MatrixUpdate;
+import io.github.dgflagg.model.SparseMatrix;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Stores every matrix as a record appended to a log of segment files, with an in-memory index from each name to
+ * where its latest record starts
+ *
+ * Record layout - everything little-endian:
+ * <pre>
+ *  0  int    magic "TAGR" for a whole matrix, "TAGD" for changes to the matrix saved before it
+ *  4  int    CRC32 of everything in the record after this field
+ *  8  int    bytes of the name
+ * 12  long   bytes of the payload
+ * 20         name in UTF-8, padded with zeroes to a multiple of 8 bytes
+ *            payload padded with zeroes to a multiple of 8 bytes - either the matrix in the {@link MatrixFile} layout
+ *            or the changes: int rows, int columns, int cells, int reserved, then an int index, an int count and
+ *            the doubles of every row and then every column, then an int row, an int column and a double per cell
+ * </pre>
+ * A save appends the whole record and forces it to disk before the index points at it, so a save either completes or
+ * leaves nothing behind - on start up the segments are replayed to rebuild the index and a torn record at the end of
+ * a segment (one whose checksum does not match) is cut off.
+ *
+ * Saving over a name leaves its old record behind as garbage. Once a segment is full a new one is started and, when
+ * the garbage is more than half of the log, the live records of the full segments are copied forward and the full
+ * segments deleted.
+ *
+ * Updating a matrix appends only its changes. Finding it applies the changes to a copy of the matrix, so after a
+ * handful of them - or when its records are compacted - the changes are folded into a new record of the whole
+ * matrix.
+ */
+@Slf4j
+public class LogMatrixRepository implements MatrixRepository {
+
+    public static final int RECORD_MAGIC = 0x52474154;
+    public static final int DELTA_MAGIC = 0x44474154;
+    static final int RECORD_HEADER_BYTES = 20;
+    static final String SEGMENT_PREFIX = "segment-";
+    static final String SEGMENT_EXTENSION = ".log";
+
+    /**
+     * Default size a segment grows to before a new one is started
+     */
+    public static final long DEFAULT_SEGMENT_BYTES = 1L << 28;
+    /**
+     * Fraction of the log that has to be garbage before full segments are compacted
+     */
+    private static final double COMPACTION_GARBAGE_RATIO = 0.5;
+    /**
+     * Most changes kept for a matrix before they are folded into a new record of the whole matrix
+     */
+    static final int MAXIMUM_DELTAS = 16;
+    private static final int DELTA_HEADER_BYTES = 16;
+
+    private final Path directory;
+    private final long segmentBytes;
+
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+
+    /**
+     * Held to append to the log - only one writer at a time
+     */
+    private final Object writeLock = new Object();
+    /**
+     * Held for reading while a record is mapped and for writing while segments are closed and deleted
+     */
+    private final ReadWriteLock segmentLock = new ReentrantReadWriteLock();
+
+    private Segment active;
+
+    /**
+     * Opens the log in the directory - replaying every segment already there to rebuild the index
+     * @param directory
+     * @param segmentBytes size a segment grows to before a new one is started
+     */
+    public LogMatrixRepository(Path directory, long segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+
+        try {
+
+            Files.createDirectories(directory);
+
+            for(Path file : segmentFiles(directory)) {
+                Segment segment = new Segment(segmentId(file), file);
+                this.segments.put(segment.id, segment);
+                this.recover(segment);
+            }
+
+            this.active = this.segments.isEmpty() ? this.startSegment(1) : this.segments.lastEntry().getValue();
+
+            log.info("opened matrix log: {} with {} segments and {} matrices", directory.toAbsolutePath(),
+                    this.segments.size(), this.index.size());
+
+        } catch (IOException e) {
+            MatrixStorageException exception = new MatrixStorageException("cannot open matrix log: " + directory, e);
+            log.error(exception.getMessage());
+            throw exception;
+        }
+    }
+
+    @Override
+    public void save(String name, Matrix matrix) {
+        synchronized(this.writeLock) {
+
+            try {
+
+                if(this.active.size >= this.segmentBytes) {
+                    this.rollOver();
+                }
+
+                Location location = this.append(this.active, RECORD_MAGIC, name, (channel, position) ->
+                        MatrixFile.write(matrix, channel, position));
+                this.active.channel.force(false);
+
+                //the record is on disk so it can be pointed at
+                this.point(name, location);
+
+            } catch (IOException e) {
+                MatrixStorageException exception = new MatrixStorageException("cannot save matrix: " + name, e);
+                log.error(exception.getMessage());
+                throw exception;
+            }
+
+        }
+    }
+
+    /**
+     * Appends only the changes - the record of the whole matrix is left as it is
+     */
+    @Override
+    public void update(String name, MatrixUpdate update) {
+        synchronized(this.writeLock) {
+
+            try {
+
+                if(this.active.size >= this.segmentBytes) {
+                    this.rollOver();
+                }
+
+                Location location = this.locate(name);
+                MatrixFile.Header header = MatrixFile.readHeader(location.segment.channel, location.payloadPosition());
+                update.check(header.getRowCount(), header.getColumnCount());
+
+                Location delta = this.append(this.active, DELTA_MAGIC, name, (channel, position) ->
+                        writeUpdate(update, channel, position));
+                this.active.channel.force(false);
+                location = this.addDelta(name, delta);
+
+                if(location.deltas.size() >= MAXIMUM_DELTAS) {
+                    Matrix folded = this.fold(location);
+                    Location record = this.append(this.active, RECORD_MAGIC, name, (channel, position) ->
+                            MatrixFile.write(folded, channel, position));
+                    this.active.channel.force(false);
+                    this.point(name, record);
+                }
+
+            } catch (IOException e) {
+                MatrixStorageException exception = new MatrixStorageException("cannot update matrix: " + name, e);
+                log.error(exception.getMessage());
+                throw exception;
+            }
+
+        }
+    }
+
+    /**
+     * Maps the latest record of the matrix - one seek no matter how many matrices are in the log
+     */
+    @Override
+    public Matrix find(String name) {
+        return this.read(name, (channel, position) -> MatrixFile.map(channel, position), 0, 0);
+    }
+
+    /**
+     * Reads only the bytes of the block from the latest record of the matrix
+     */
+    @Override
+    public Matrix find(String name, int fromRow, int toRow, int fromColumn, int toColumn) {
+        return this.read(name, (channel, position) -> MatrixFile.read(channel, position, fromRow, toRow, fromColumn, toColumn),
+                fromRow, fromColumn);
+    }
+
+    private Matrix read(String name, RecordReader reader, int fromRow, int fromColumn) {
+        this.segmentLock.readLock().lock();
+
+        try {
+
+            Location location = this.locate(name);
+
+            Matrix matrix = reader.read(location.segment.channel, location.payloadPosition());
+
+            if(!location.deltas.isEmpty()) {
+                matrix = this.applyDeltas(location, matrix, fromRow, fromColumn);
+            }
+
+            matrix.setName(name);
+            return matrix;
+
+        } catch (IOException e) {
+            MatrixStorageException exception = new MatrixStorageException("cannot read matrix: " + name, e);
+            log.error(exception.getMessage());
+            throw exception;
+        } finally {
+            this.segmentLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the live records of every segment to a new segment at the end of the log and deletes the old segments
+     */
+    public void compact() {
+        synchronized(this.writeLock) {
+
+            try {
+
+                long before = this.getByteCount();
+
+                //seal the segment being written so every segment before the one the copies go to is compacted
+                if(this.active.size > 0) {
+                    this.rollOver(false);
+                }
+
+                Set<Segment> full = new HashSet<>(this.segments.headMap(this.active.id).values());
+
+                if(full.isEmpty()) {
+                    return;
+                }
+
+                for(Map.Entry<String, Location> entry : this.index.entrySet()) {
+
+                    Location location = entry.getValue();
+                    if(!location.isIn(full)) {
+                        continue;
+                    }
+
+                    if(this.active.size >= this.segmentBytes) {
+                        this.rollOver(false);
+                    }
+
+                    if(!location.deltas.isEmpty()) {
+                        //the changes are folded into a new record rather than copied forward
+                        Matrix folded = this.fold(location);
+                        this.point(entry.getKey(), this.append(this.active, RECORD_MAGIC, entry.getKey(), (channel, position) ->
+                                MatrixFile.write(folded, channel, position)));
+                        continue;
+                    }
+
+                    long position = this.active.size;
+                    long copied = 0;
+                    while(copied < location.length) {
+                        copied += location.segment.channel.transferTo(location.position + copied, location.length - copied,
+                                this.active.channel.position(position + copied));
+                    }
+
+                    this.active.size += location.length;
+                    this.active.liveBytes += location.length;
+                    entry.setValue(new Location(this.active, position, location.length, location.nameLength));
+
+                }
+
+                this.active.channel.force(false);
+
+                //nothing points into the full segments any more - wait for readers mapping them then delete them
+                this.segmentLock.writeLock().lock();
+                try {
+                    for(Segment segment : full) {
+                        this.segments.remove(segment.id);
+                        segment.channel.close();
+                        Files.delete(segment.file);
+                    }
+                } finally {
+                    this.segmentLock.writeLock().unlock();
+                }
+
+                log.info("compacted {} matrix log segments from {} to {} bytes", full.size(), before, this.getByteCount());
+
+            } catch (IOException e) {
+                MatrixStorageException exception = new MatrixStorageException("cannot compact matrix log: " + this.directory, e);
+                log.error(exception.getMessage());
+                throw exception;
+            }
+
+        }
+    }
+
+    /**
+     * Returns the total bytes of every segment in the log
+     * @return
+     */
+    public long getByteCount() {
+        long bytes = 0;
+        for(Segment segment : this.segments.values()) {
+            bytes += segment.size;
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the bytes of the latest record of every matrix
+     * @return
+     */
+    public long getLiveByteCount() {
+        long bytes = 0;
+        for(Segment segment : this.segments.values()) {
+            bytes += segment.liveBytes;
+        }
+        return bytes;
+    }
+
+    public int getSegmentCount() {
+        return this.segments.size();
+    }
+
+    public int getMatrixCount() {
+        return this.index.size();
+    }
+
+    @Override
+    public void close() {
+        synchronized(this.writeLock) {
+            for(Segment segment : this.segments.values()) {
+                try {
+                    segment.channel.close();
+                } catch (IOException e) {
+                    log.error(e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Seals the active segment, starts a new one and compacts when too much of the log is garbage
+     */
+    private void rollOver() throws IOException {
+        this.rollOver(true);
+    }
+
+    private void rollOver(boolean compactIfNeeded) throws IOException {
+        this.active = this.startSegment(this.active.id + 1);
+
+        long bytes = this.getByteCount();
+        if(compactIfNeeded && bytes > 0 && bytes - this.getLiveByteCount() > COMPACTION_GARBAGE_RATIO * bytes) {
+            this.compact();
+        }
+    }
+
+    private Segment startSegment(int id) throws IOException {
+        Segment segment = new Segment(id, this.directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, id, SEGMENT_EXTENSION)));
+        this.segments.put(id, segment);
+        return segment;
+    }
+
+    private Location locate(String name) {
+        Location location = this.index.get(name);
+
+        if(location == null) {
+            MatrixNotFoundException e = new MatrixNotFoundException("no matrix saved with name: " + name);
+            log.error(e.getMessage());
+            throw e;
+        }
+
+        return location;
+    }
+
+    /**
+     * Applies the changes made since the record of the matrix was written to a copy of the matrix - or of the block
+     * of it starting at fromRow and fromColumn
+     */
+    private DenseMatrix applyDeltas(Location location, Matrix matrix, int fromRow, int fromColumn) throws IOException {
+        //a mapped or sparse matrix is copied - a dense one was just read onto the heap and can be changed
+        DenseMatrix updated = matrix.toDense();
+
+        for(Location delta : location.deltas) {
+            readUpdate(delta).applyTo(updated, fromRow, fromColumn);
+        }
+
+        return updated;
+    }
+
+    /**
+     * Returns the whole matrix with every change applied - sparse if its record is sparse
+     */
+    private Matrix fold(Location location) throws IOException {
+        Matrix matrix = MatrixFile.map(location.segment.channel, location.payloadPosition());
+        DenseMatrix updated = this.applyDeltas(location, matrix, 0, 0);
+
+        return matrix instanceof SparseMatrix ? Matrix.buildSparseMatrix(updated) : updated;
+    }
+
+    /**
+     * Writes a whole record at the end of the segment
+     */
+    private Location append(Segment segment, int magic, String name, PayloadWriter payload) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        long position = segment.size;
+        long payloadPosition = position + RECORD_HEADER_BYTES + pad(nameBytes.length);
+
+        //the name first - the magic and checksum go in last once everything they cover is written
+        ByteBuffer nameBuffer = ByteBuffer.allocate(pad(nameBytes.length));
+        nameBuffer.put(nameBytes).clear();
+        writeFully(segment.channel, nameBuffer, position + RECORD_HEADER_BYTES);
+
+        long payloadBytes = payload.write(segment.channel, payloadPosition);
+        long end = payloadPosition + pad(payloadBytes);
+
+        //zero the padding after the payload so the checksum covers known bytes
+        writeFully(segment.channel, ByteBuffer.allocate((int) (end - payloadPosition - payloadBytes)), payloadPosition + payloadBytes);
+
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(magic).putInt(0).putInt(nameBytes.length).putLong(payloadBytes);
+        header.putInt(4, checksum(segment.channel, header, position, end));
+        header.clear();
+        writeFully(segment.channel, header, position);
+
+        segment.size = end;
+        return new Location(segment, position, end - position, nameBytes.length);
+    }
+
+    /**
+     * Points the name at its new record and counts the bytes of its old records as garbage
+     */
+    private void point(String name, Location location) {
+        Location previous = this.index.put(name, location);
+
+        if(previous != null) {
+            previous.segment.liveBytes -= previous.length;
+            for(Location delta : previous.deltas) {
+                delta.segment.liveBytes -= delta.length;
+            }
+        }
+
+        location.segment.liveBytes += location.length;
+    }
+
+    /**
+     * Adds the changes to the record the name points at - changes to a name with no record are garbage
+     */
+    private Location addDelta(String name, Location delta) {
+        Location location = this.index.get(name);
+
+        if(location == null) {
+            return null;
+        }
+
+        location = location.withDelta(delta);
+        this.index.put(name, location);
+        delta.segment.liveBytes += delta.length;
+        return location;
+    }
+
+    /**
+     * Replays every record of the segment into the index - cutting the segment off at the first record that is torn
+     */
+    private void recover(Segment segment) throws IOException {
+        long size = segment.channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        while(position + RECORD_HEADER_BYTES <= size) {
+
+            header.clear();
+            readFully(segment.channel, header, position);
+
+            int magic = header.getInt(0);
+            int storedChecksum = header.getInt(4);
+            int nameLength = header.getInt(8);
+            long payloadBytes = header.getLong(12);
+
+            if((magic != RECORD_MAGIC && magic != DELTA_MAGIC) || nameLength < 0
+                    || payloadBytes < (magic == RECORD_MAGIC ? MatrixFile.HEADER_BYTES : DELTA_HEADER_BYTES)
+                    || position + RECORD_HEADER_BYTES + pad(nameLength) + pad(payloadBytes) > size) {
+                break;
+            }
+
+            long end = position + RECORD_HEADER_BYTES + pad(nameLength) + pad(payloadBytes);
+
+            if(checksum(segment.channel, header, position, end) != storedChecksum) {
+                break;
+            }
+
+            ByteBuffer name = ByteBuffer.allocate(nameLength);
+            readFully(segment.channel, name, position + RECORD_HEADER_BYTES);
+
+            Location location = new Location(segment, position, end - position, nameLength);
+            if(magic == RECORD_MAGIC) {
+                this.point(new String(name.array(), StandardCharsets.UTF_8), location);
+            } else {
+                this.addDelta(new String(name.array(), StandardCharsets.UTF_8), location);
+            }
+
+            position = end;
+
+        }
+
+        if(position < size) {
+            log.warn("discarding {} bytes of incomplete records at the end of matrix log segment: {}", size - position, segment.file);
+            segment.channel.truncate(position);
+            segment.channel.force(true);
+        }
+
+        segment.size = position;
+    }
+
+    /**
+     * CRC32 of the record fields after the checksum and of everything after the record header up to the end
+     */
+    private static int checksum(FileChannel channel, ByteBuffer header, long position, long end) throws IOException {
+        CRC32 crc = new CRC32();
+
+        ByteBuffer fields = header.duplicate();
+        fields.position(8).limit(RECORD_HEADER_BYTES);
+        crc.update(fields);
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        for(long offset = position + RECORD_HEADER_BYTES; offset < end; ) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - offset));
+            readFully(channel, buffer, offset);
+            crc.update(buffer);
+            offset += buffer.limit();
+        }
+
+        return (int) crc.getValue();
+    }
+
+    private static long writeUpdate(MatrixUpdate update, FileChannel channel, long position) throws IOException {
+        long bytes = DELTA_HEADER_BYTES + (update.getRows().size() + update.getColumns().size()) * 8L
+                + update.getCells().size() * 16L;
+        for(MatrixUpdate.Line line : update.getRows()) {
+            bytes += line.getValues().length * (long) Double.BYTES;
+        }
+        for(MatrixUpdate.Line line : update.getColumns()) {
+            bytes += line.getValues().length * (long) Double.BYTES;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(bytes)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(update.getRows().size()).putInt(update.getColumns().size()).putInt(update.getCells().size()).putInt(0);
+
+        for(MatrixUpdate.Line line : update.getRows()) {
+            putLine(buffer, line);
+        }
+        for(MatrixUpdate.Line line : update.getColumns()) {
+            putLine(buffer, line);
+        }
+        for(MatrixUpdate.Cell cell : update.getCells()) {
+            buffer.putInt(cell.getRow()).putInt(cell.getColumn()).putDouble(cell.getValue());
+        }
+
+        buffer.flip();
+        writeFully(channel, buffer, position);
+        return bytes;
+    }
+
+    private static void putLine(ByteBuffer buffer, MatrixUpdate.Line line) {
+        buffer.putInt(line.getIndex()).putInt(line.getValues().length);
+        buffer.asDoubleBuffer().put(line.getValues());
+        buffer.position(buffer.position() + line.getValues().length * Double.BYTES);
+    }
+
+    private static MatrixUpdate readUpdate(Location delta) throws IOException {
+        //the padding after the changes is read with them and ignored
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(delta.position + delta.length - delta.payloadPosition()))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        readFully(delta.segment.channel, buffer, delta.payloadPosition());
+
+        int rows = buffer.getInt();
+        int columns = buffer.getInt();
+        int cells = buffer.getInt();
+        buffer.getInt();
+
+        MatrixUpdate update = new MatrixUpdate();
+        for(int r = 0; r < rows; r++) {
+            update.getRows().add(getLine(buffer));
+        }
+        for(int c = 0; c < columns; c++) {
+            update.getColumns().add(getLine(buffer));
+        }
+        for(int c = 0; c < cells; c++) {
+            update.getCells().add(new MatrixUpdate.Cell(buffer.getInt(), buffer.getInt(), buffer.getDouble()));
+        }
+
+        return update;
+    }
+
+    private static MatrixUpdate.Line getLine(ByteBuffer buffer) {
+        int index = buffer.getInt();
+        double[] values = new double[buffer.getInt()];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Double.BYTES);
+        return new MatrixUpdate.Line(index, values);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while(buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * Reads until the buffer is full and leaves it ready to get from
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int start = buffer.position();
+        while(buffer.hasRemaining()) {
+            if(channel.read(buffer, position + buffer.position() - start) < 0) {
+                throw new MatrixStorageException("unexpected end of matrix log at byte: " + (position + buffer.position() - start));
+            }
+        }
+        buffer.flip();
+        buffer.position(start);
+    }
+
+    private static int pad(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    private static long pad(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static List<Path> segmentFiles(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_EXTENSION)) {
+            for(Path file : stream) {
+                files.add(file);
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    private static int segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_EXTENSION.length()));
+    }
+
+    /**
+     * Reads the matrix of a record that starts at the position of a segment
+     */
+    @FunctionalInterface
+    private interface RecordReader {
+        Matrix read(FileChannel channel, long position) throws IOException;
+    }
+
+    /**
+     * Writes the payload of a record at the position of a segment and returns its bytes
+     */
+    @FunctionalInterface
+    private interface PayloadWriter {
+        long write(FileChannel channel, long position) throws IOException;
+    }
+
+    /**
+     * One file of the log
+     */
+    private static final class Segment {
+
+        private final int id;
+        private final Path file;
+        private final FileChannel channel;
+        /**
+         * End of the last complete record - where the next record is appended
+         */
+        private volatile long size;
+        /**
+         * Bytes of the records the index points at
+         */
+        private volatile long liveBytes;
+
+        Segment(int id, Path file) throws IOException {
+            this.id = id;
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+    }
+
+    /**
+     * Where a record starts and how long it is
+     */
+    private static final class Location {
+
+        private final Segment segment;
+        private final long position;
+        private final long length;
+        private final int nameLength;
+        /**
+         * Records of the changes made since this record was written - oldest first
+         */
+        private final List<Location> deltas;
+
+        Location(Segment segment, long position, long length, int nameLength) {
+            this(segment, position, length, nameLength, Collections.emptyList());
+        }
+
+        private Location(Segment segment, long position, long length, int nameLength, List<Location> deltas) {
+            this.segment = segment;
+            this.position = position;
+            this.length = length;
+            this.nameLength = nameLength;
+            this.deltas = deltas;
+        }
+
+        long payloadPosition() {
+            return this.position + RECORD_HEADER_BYTES + pad(this.nameLength);
+        }
+
+        Location withDelta(Location delta) {
+            List<Location> deltas = new ArrayList<>(this.deltas);
+            deltas.add(delta);
+            return new Location(this.segment, this.position, this.length, this.nameLength, Collections.unmodifiableList(deltas));
+        }
+
+        /**
+         * Returns true if this record or any of its changes are in one of the segments
+         */
+        boolean isIn(Set<Segment> segments) {
+            if(segments.contains(this.segment)) {
+                return true;
+            }
+            for(Location delta : this.deltas) {
+                if(segments.contains(delta.segment)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package io.github.dgflagg.storage;
+
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.MatrixUpdate;
+import io.github.dgflagg.model.SparseMatrix;
+
+import java.io.Closeable;
+
+/**
+ * Stores matrices by name
+ *
+ * Matrices handed out may be shared with other callers and must not be modified.
+ */
+public interface MatrixRepository extends Closeable {
+
+    /**
+     * Saves the matrix under the name - replacing any matrix already saved under it
+     * @param name
+     * @param matrix
+     */
+    void save(String name, Matrix matrix);
+
+    /**
+     * Returns the matrix saved under the name
+     * @param name
+     * @return
+     * @throws io.github.dgflagg.exceptions.MatrixNotFoundException if nothing is saved under the name
+     */
+    Matrix find(String name);
+
+    /**
+     * Returns a block of the matrix saved under the name - the rows from fromRow up to but not including toRow and the
+     * columns from fromColumn up to but not including toColumn. Ranges that run past the end of the matrix are cut off
+     * at its size.
+     *
+     * Repositories that can seek to the block read only its bytes - by default the whole matrix is found and the block
+     * copied out of it.
+     * @param name
+     * @param fromRow
+     * @param toRow
+     * @param fromColumn
+     * @param toColumn
+     * @return
+     * @throws io.github.dgflagg.exceptions.MatrixNotFoundException if nothing is saved under the name
+     */
+    default Matrix find(String name, int fromRow, int toRow, int fromColumn, int toColumn) {
+        Matrix matrix = this.find(name);
+        return matrix.submatrix(fromRow, Math.min(toRow, matrix.getRowCount()),
+                fromColumn, Math.min(toColumn, matrix.getColumnCount()));
+    }
+
+    /**
+     * Changes some of the values of the matrix saved under the name
+     *
+     * Repositories that can write the changed values where they are stored do so - by default the whole matrix is
+     * found, changed and saved again.
+     * @param name
+     * @param update
+     * @throws io.github.dgflagg.exceptions.MatrixNotFoundException if nothing is saved under the name
+     */
+    default void update(String name, MatrixUpdate update) {
+        Matrix matrix = this.find(name);
+        Matrix updated = update.apply(matrix);
+
+        this.save(name, matrix instanceof SparseMatrix ? Matrix.buildSparseMatrix(updated) : updated);
+    }
+
+    /**
+     * Releases any files held open - nothing by default
+     */
+    @Override
+    default void close() {
+    }
+
+}
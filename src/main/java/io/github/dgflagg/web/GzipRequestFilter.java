@@ -0,0 +1,124 @@
+package io.github.dgflagg.web;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decompresses request bodies sent with Content-Encoding: gzip as they are read, so every endpoint and message
+ * converter sees the plain body - compressed responses are left to the server.compression properties
+ */
+public class GzipRequestFilter extends OncePerRequestFilter {
+
+    private static final String GZIP = "gzip";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        if(GZIP.equalsIgnoreCase(request.getHeader("Content-Encoding"))) {
+            filterChain.doFilter(new GzipRequest(request), response);
+        } else {
+            filterChain.doFilter(request, response);
+        }
+
+    }
+
+    /**
+     * The original request with its body read through a GZIPInputStream
+     */
+    private static class GzipRequest extends HttpServletRequestWrapper {
+
+        private ServletInputStream body;
+
+        GzipRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if(this.body == null) {
+                this.body = new GzipInputStream(new GZIPInputStream(super.getInputStream()));
+            }
+            return this.body;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = this.getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(this.getInputStream(), encoding == null ? "UTF-8" : encoding));
+        }
+
+        @Override
+        public int getContentLength() {
+            //the length of the compressed body no longer applies
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1L;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return "Content-Encoding".equalsIgnoreCase(name) || "Content-Length".equalsIgnoreCase(name)
+                    ? null : super.getHeader(name);
+        }
+    }
+
+    private static class GzipInputStream extends ServletInputStream {
+
+        private final GZIPInputStream in;
+        private boolean finished;
+
+        GzipInputStream(GZIPInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = this.in.read();
+            this.finished = read < 0;
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = this.in.read(b, off, len);
+            this.finished = read < 0;
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return this.finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("gzip request bodies are only read blocking");
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.in.close();
+        }
+    }
+
+}
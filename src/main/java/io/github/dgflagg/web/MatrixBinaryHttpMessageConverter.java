@@ -0,0 +1,37 @@
+package io.github.dgflagg.web;
+
+import io.github.dgflagg.io.MatrixBinaryCodec;
+import io.github.dgflagg.model.Matrix;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes {@link Matrix} bodies as application/octet-stream in the little-endian layout of
+ * {@link MatrixBinaryCodec} - picked when a client sends Accept: application/octet-stream
+ */
+public class MatrixBinaryHttpMessageConverter extends AbstractHttpMessageConverter<Matrix> {
+
+    public MatrixBinaryHttpMessageConverter() {
+        super(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Matrix.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected Matrix readInternal(Class<? extends Matrix> clazz, HttpInputMessage inputMessage) throws IOException {
+        return MatrixBinaryCodec.read(inputMessage.getBody());
+    }
+
+    @Override
+    protected void writeInternal(Matrix matrix, HttpOutputMessage outputMessage) throws IOException {
+        MatrixBinaryCodec.write(matrix, outputMessage.getBody());
+    }
+
+}
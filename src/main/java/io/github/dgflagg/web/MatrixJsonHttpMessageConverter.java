@@ -0,0 +1,48 @@
+package io.github.dgflagg.web;
+
+import io.github.dgflagg.io.MatrixJsonWriter;
+import io.github.dgflagg.io.MatrixParser;
+import io.github.dgflagg.model.Matrix;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads and writes {@link Matrix} bodies as nested json arrays without going through Jackson
+ *
+ * Responses are written row by row straight from the primitive storage of the matrix by {@link MatrixJsonWriter} and
+ * requests are parsed straight into primitive storage by {@link MatrixParser}, so no boxed values are created either
+ * way. Registered ahead of the Jackson converter so it is used for every endpoint that returns a Matrix.
+ */
+public class MatrixJsonHttpMessageConverter extends AbstractHttpMessageConverter<Matrix> {
+
+    public MatrixJsonHttpMessageConverter() {
+        super(StandardCharsets.UTF_8, MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Matrix.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected Matrix readInternal(Class<? extends Matrix> clazz, HttpInputMessage inputMessage) throws IOException {
+        MediaType contentType = inputMessage.getHeaders().getContentType();
+        Charset charset = contentType != null && contentType.getCharset() != null
+                ? contentType.getCharset() : StandardCharsets.UTF_8;
+
+        return MatrixParser.parse(new InputStreamReader(inputMessage.getBody(), charset));
+    }
+
+    @Override
+    protected void writeInternal(Matrix matrix, HttpOutputMessage outputMessage) throws IOException {
+        MatrixJsonWriter.write(matrix, outputMessage.getBody());
+    }
+
+}
@@ -4,6 +4,7 @@ import io.github.dgflagg.model.Matrix;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Created by dgflagg on 11/20/16.
@@ -60,4 +61,19 @@ public class Fixtures {
         return matrix;
     }
 
+    /**
+     * Returns values spread evenly over [-1, 1) - the same seed always gives the same values
+     * @param size number of values
+     * @param seed
+     * @return
+     */
+    public static double[] random(int size, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[size];
+        for(int i = 0; i < size; i++) {
+            values[i] = random.nextDouble() * 2 - 1;
+        }
+        return values;
+    }
+
 }
@@ -2,13 +2,27 @@ package io.github.dgflagg;
 
 import io.github.dgflagg.exceptions.ColumnsMustEqualRowsException;
 import io.github.dgflagg.exceptions.DimensionsNotSimilarException;
+import io.github.dgflagg.kernel.Parallel;
+import io.github.dgflagg.kernel.StrassenKernel;
+import io.github.dgflagg.model.BandedMatrix;
+import io.github.dgflagg.model.ConstantMatrix;
+import io.github.dgflagg.model.DenseMatrix;
+import io.github.dgflagg.model.DiagonalMatrix;
+import io.github.dgflagg.model.IdentityMatrix;
 import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.SparseMatrix;
+import io.github.dgflagg.model.TriangularMatrix;
+import io.github.dgflagg.model.Vector;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -165,4 +179,473 @@ public class MatrixAlgebraTest {
         assertTrue(MatrixAlgebra.isEqual(result, AB));
     }
 
+    @Test
+    public void verify_multiply_with_strassen_matches_classical() {
+        int threshold = StrassenKernel.getThreshold();
+        int cutoff = StrassenKernel.getCutoff();
+        Matrix m1 = Matrix.buildMatrix(75, 75, Fixtures.random(75 * 75, 1));
+        Matrix m2 = Matrix.buildMatrix(75, 75, randomSparse(75 * 75, 7));
+        Matrix classical = MatrixAlgebra.multiply(m1, m2, false);
+
+        try {
+            StrassenKernel.setCutoff(16);
+            assertTrue(isClose(classical, MatrixAlgebra.multiply(m1, m2, true)));
+
+            //chosen automatically from the size
+            StrassenKernel.setThreshold(75);
+            assertTrue(isClose(classical, MatrixAlgebra.multiply(m1, m2)));
+            assertTrue(isClose(MatrixAlgebra.multiply(MatrixAlgebra.multiply(m1, m1, false), m1, false),
+                    MatrixAlgebra.power(m1, 3)));
+        } finally {
+            StrassenKernel.setThreshold(threshold);
+            StrassenKernel.setCutoff(cutoff);
+        }
+    }
+
+    @Test(expected = DimensionsNotSimilarException.class)
+    public void verify_multiplyStrassen_throws_DimensionsNotSimilarException_when_not_square() {
+        MatrixAlgebra.multiplyStrassen(Matrix.buildZeroMatrix(2, 3), Matrix.buildZeroMatrix(3, 2));
+    }
+
+    @Test
+    public void verify_zero_times_infinity_is_NaN_in_sparse_and_vector_products() {
+        Matrix infinite = Matrix.buildMatrix(2, 2, new double[] {Double.POSITIVE_INFINITY, 0, 0, 1});
+        Matrix row = Matrix.buildMatrix(1, 2, new double[] {0, 1});
+
+        Matrix sparseProduct = MatrixAlgebra.multiply(row, Matrix.buildSparseMatrix(infinite));
+        assertTrue(Double.isNaN(sparseProduct.getNumber(0, 0)));
+        assertThat(sparseProduct.getNumber(0, 1), equalTo(1d));
+
+        Vector vectorProduct = MatrixAlgebra.multiply(Vector.buildVector(0, 1), infinite);
+        assertTrue(Double.isNaN(vectorProduct.get(0)));
+        assertThat(vectorProduct.get(1), equalTo(1d));
+    }
+
+    @Test
+    public void verify_sparse_sum_keeps_negative_zero() {
+        SparseMatrix negativeZero = Matrix.buildSparseMatrix(1, 1, new int[] {0, 1}, new int[] {0}, new double[] {-0d});
+
+        double sum = MatrixAlgebra.add(negativeZero, negativeZero).getNumber(0, 0);
+
+        assertThat(1 / sum, equalTo(Double.NEGATIVE_INFINITY));
+    }
+
+    @Test
+    public void verify_parallel_operations_match_sequential() {
+        long threshold = Parallel.getThreshold();
+        Matrix m1 = Matrix.buildMatrix(97, 61, Fixtures.random(97 * 61, 2));
+        Matrix m2 = Matrix.buildMatrix(61, 89, Fixtures.random(61 * 89, 3));
+        Matrix m3 = Matrix.buildMatrix(97, 61, Fixtures.random(97 * 61, 4));
+
+        try {
+            Parallel.setThreshold(Long.MAX_VALUE);
+            Matrix product = MatrixAlgebra.multiply(m1, m2);
+            Matrix sum = MatrixAlgebra.add(m1, m3);
+            Matrix scaled = MatrixAlgebra.scalarMultiply(m1, 1.5);
+
+            Parallel.setThreshold(0);
+            assertTrue(MatrixAlgebra.isEqual(product, MatrixAlgebra.multiply(m1, m2)));
+            assertTrue(MatrixAlgebra.isEqual(sum, MatrixAlgebra.add(m1, m3)));
+            assertTrue(MatrixAlgebra.isEqual(scaled, MatrixAlgebra.scalarMultiply(m1, 1.5)));
+        } finally {
+            Parallel.setThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void verify_sparse_operations_match_dense() {
+        Matrix d1 = Matrix.buildMatrix(60, 50, randomSparse(60 * 50, 1));
+        Matrix d2 = Matrix.buildMatrix(50, 70, randomSparse(50 * 70, 2));
+        Matrix d3 = Matrix.buildMatrix(60, 50, randomSparse(60 * 50, 7));
+        Matrix s1 = Matrix.buildSparseMatrix(d1);
+        Matrix s2 = Matrix.buildSparseMatrix(d2);
+        Matrix s3 = Matrix.buildSparseMatrix(d3);
+
+        Matrix product = MatrixAlgebra.multiply(d1, d2);
+        assertTrue(isClose(product, MatrixAlgebra.multiply(s1, s2)));
+        assertTrue(isClose(product, MatrixAlgebra.multiply(s1, d2)));
+        assertTrue(isClose(product, MatrixAlgebra.multiply(d1, s2)));
+
+        Matrix sum = MatrixAlgebra.add(d1, d3);
+        assertTrue(MatrixAlgebra.isEqual(sum, MatrixAlgebra.add(s1, s3)));
+        assertTrue(MatrixAlgebra.isEqual(sum, MatrixAlgebra.add(s1, d3)));
+        assertTrue(MatrixAlgebra.isEqual(sum, MatrixAlgebra.add(d1, s3)));
+
+        assertTrue(MatrixAlgebra.isEqual(MatrixAlgebra.subtract(d1, d3), MatrixAlgebra.subtract(s1, s3)));
+        assertTrue(MatrixAlgebra.isEqual(MatrixAlgebra.scalarMultiply(d1, 2.5), MatrixAlgebra.scalarMultiply(s1, 2.5)));
+        assertTrue(MatrixAlgebra.isEqual(Matrix.buildZeroMatrix(60, 50), MatrixAlgebra.scalarMultiply(s1, 0)));
+    }
+
+    @Test
+    public void verify_sparse_results_stay_sparse() {
+        Matrix s1 = Matrix.buildSparseMatrix(Matrix.buildMatrix(60, 50, randomSparse(60 * 50, 1)));
+        Matrix s2 = Matrix.buildSparseMatrix(Matrix.buildMatrix(50, 60, randomSparse(50 * 60, 3)));
+
+        assertThat(MatrixAlgebra.add(s1, s1), instanceOf(SparseMatrix.class));
+        assertThat(MatrixAlgebra.scalarMultiply(s1, 3), instanceOf(SparseMatrix.class));
+        assertThat(MatrixAlgebra.multiply(s1, s2), instanceOf(SparseMatrix.class));
+    }
+
+    @Test
+    public void verify_structured_operations_match_dense() {
+        Matrix square = Matrix.buildMatrix(40, 40, Fixtures.random(40 * 40, 5));
+        Matrix wide = Matrix.buildMatrix(40, 30, Fixtures.random(40 * 30, 6));
+        Matrix sparse = Matrix.buildSparseMatrix(Matrix.buildMatrix(40, 40, randomSparse(40 * 40, 5)));
+        double[] diagonal = Fixtures.random(40, 7);
+
+        Matrix[] structured = {
+                Matrix.buildIdentityMatrix(40),
+                Matrix.buildValueMatrix(40, 40, 1.5),
+                Matrix.buildDiagonalMatrix(diagonal),
+                Matrix.buildLowerTriangularMatrix(square),
+                Matrix.buildUpperTriangularMatrix(square),
+                Matrix.buildBandedMatrix(square, 2, 1),
+                Matrix.buildBandedMatrix(square, 0, 3)
+        };
+
+        for(Matrix s1 : structured) {
+
+            Matrix d1 = s1.toDense();
+
+            assertTrue(isClose(MatrixAlgebra.multiply(d1, wide), MatrixAlgebra.multiply(s1, wide)));
+            assertTrue(isClose(MatrixAlgebra.multiply(square, d1), MatrixAlgebra.multiply(square, s1)));
+            assertTrue(isClose(MatrixAlgebra.multiply(sparse, d1), MatrixAlgebra.multiply(sparse, s1)));
+            assertTrue(isClose(MatrixAlgebra.multiply(d1, sparse), MatrixAlgebra.multiply(s1, sparse)));
+            assertTrue(MatrixAlgebra.isEqual(MatrixAlgebra.add(d1, square), MatrixAlgebra.add(s1, square)));
+            assertTrue(MatrixAlgebra.isEqual(MatrixAlgebra.add(sparse, d1), MatrixAlgebra.add(sparse, s1)));
+            assertTrue(MatrixAlgebra.isEqual(MatrixAlgebra.subtract(square, d1), MatrixAlgebra.subtract(square, s1)));
+            assertTrue(isClose(MatrixAlgebra.scalarMultiply(d1, -2.5), MatrixAlgebra.scalarMultiply(s1, -2.5)));
+
+            for(Matrix s2 : structured) {
+                Matrix d2 = s2.toDense();
+                assertTrue(isClose(MatrixAlgebra.multiply(d1, d2), MatrixAlgebra.multiply(s1, s2)));
+                assertTrue(MatrixAlgebra.isEqual(MatrixAlgebra.add(d1, d2), MatrixAlgebra.add(s1, s2)));
+            }
+
+        }
+    }
+
+    @Test
+    public void verify_structured_results_keep_their_structure() {
+        Matrix square = Matrix.buildMatrix(20, 20, Fixtures.random(20 * 20, 8));
+        Matrix lower = Matrix.buildLowerTriangularMatrix(square);
+        Matrix upper = Matrix.buildUpperTriangularMatrix(square);
+        Matrix diagonal = Matrix.buildDiagonalMatrix(Fixtures.random(20, 9));
+        Matrix band = Matrix.buildBandedMatrix(square, 1, 2);
+
+        assertThat(MatrixAlgebra.scalarMultiply(Matrix.buildIdentityMatrix(20), 3), instanceOf(DiagonalMatrix.class));
+        assertThat(MatrixAlgebra.add(diagonal, Matrix.buildIdentityMatrix(20)), instanceOf(DiagonalMatrix.class));
+        assertThat(MatrixAlgebra.multiply(diagonal, diagonal), instanceOf(DiagonalMatrix.class));
+        assertThat(MatrixAlgebra.multiply(Matrix.buildIdentityMatrix(20), lower), instanceOf(TriangularMatrix.class));
+        assertThat(MatrixAlgebra.multiply(lower, lower), instanceOf(TriangularMatrix.class));
+        assertThat(MatrixAlgebra.multiply(diagonal, upper), instanceOf(TriangularMatrix.class));
+        assertThat(MatrixAlgebra.add(upper, diagonal), instanceOf(TriangularMatrix.class));
+        assertThat(MatrixAlgebra.multiply(band, band), instanceOf(BandedMatrix.class));
+        assertThat(MatrixAlgebra.add(band, Matrix.buildBandedMatrix(square, 3, 0)), instanceOf(BandedMatrix.class));
+        assertThat(MatrixAlgebra.add(Matrix.buildValueMatrix(20, 20, 1), Matrix.buildZeroMatrix(20, 20)),
+                instanceOf(ConstantMatrix.class));
+        assertThat(MatrixAlgebra.multiply(Matrix.buildSparseMatrix(square), diagonal), instanceOf(SparseMatrix.class));
+    }
+
+    @Test
+    public void verify_identity_is_never_materialized() {
+        Matrix identity = Matrix.buildIdentityMatrix(50000);
+        Matrix column = Matrix.buildMatrix(50000, 1, Fixtures.random(50000, 10));
+
+        assertTrue(MatrixAlgebra.isEqual(column, MatrixAlgebra.multiply(identity, column)));
+        assertThat(MatrixAlgebra.multiply(identity, identity), instanceOf(IdentityMatrix.class));
+        assertThat(MatrixAlgebra.add(identity, identity).getNumber(49999, 49999), equalTo(2d));
+    }
+
+    @Test
+    public void verify_determinant() {
+        Matrix m1 = Matrix.buildMatrix(3, 3, new double[] {2, 0, 1, 1, 3, 2, 1, 1, 2});
+        Matrix triangular = Matrix.buildTriangularMatrix(3, true, new double[] {2, 5, 7, 3, 1, 4});
+
+        assertThat(Math.abs(MatrixAlgebra.determinant(m1) - 6d) < 1e-12, equalTo(true));
+        assertThat(MatrixAlgebra.determinant(triangular), equalTo(24d));
+        assertThat(MatrixAlgebra.determinant(Matrix.buildIdentityMatrix(N)), equalTo(1d));
+        assertThat(MatrixAlgebra.determinant(Matrix.buildMatrix(2, 2, new double[] {0, 1, 1, 0})), equalTo(-1d));
+    }
+
+    @Test
+    public void verify_inverse() {
+        Matrix m1 = Matrix.buildMatrix(40, 40, Fixtures.random(40 * 40, 11));
+
+        assertTrue(isClose(Matrix.buildIdentityMatrix(40), MatrixAlgebra.multiply(m1, MatrixAlgebra.inverse(m1))));
+
+        Matrix diagonal = MatrixAlgebra.inverse(Matrix.buildDiagonalMatrix(new double[] {2, 4, -0.5}));
+        assertThat(diagonal, instanceOf(DiagonalMatrix.class));
+        assertTrue(isClose(Matrix.buildDiagonalMatrix(new double[] {0.5, 0.25, -2}), diagonal));
+    }
+
+    @Test
+    public void verify_power_matches_repeated_multiply() {
+        int n = 30;
+        Matrix m1 = MatrixAlgebra.scalarMultiply(Matrix.buildMatrix(n, n, Fixtures.random(n * n, 12)), 1d / n);
+
+        Matrix expected = m1;
+        for(int k = 2; k <= 13; k++) {
+            expected = MatrixAlgebra.multiply(expected, m1);
+        }
+
+        assertTrue(isClose(expected, MatrixAlgebra.power(m1, 13)));
+        assertTrue(isClose(m1, MatrixAlgebra.power(m1, 1)));
+        assertTrue(isClose(Matrix.buildIdentityMatrix(n), MatrixAlgebra.power(m1, 0)));
+    }
+
+    @Test
+    public void verify_negative_power_is_power_of_inverse() {
+        Matrix m1 = Matrix.buildMatrix(2, 2, new double[] {2, 1, 1, 1});
+
+        Matrix expected = Matrix.buildMatrix(2, 2, new double[] {2, -3, -3, 5});
+        assertTrue(isClose(expected, MatrixAlgebra.power(m1, -2)));
+        assertTrue(isClose(Matrix.buildIdentityMatrix(2), MatrixAlgebra.multiply(MatrixAlgebra.power(m1, 3),
+                MatrixAlgebra.power(m1, -3))));
+    }
+
+    @Test
+    public void verify_power_of_diagonal_stays_diagonal() {
+        Matrix power = MatrixAlgebra.power(Matrix.buildDiagonalMatrix(new double[] {2, -1, 3}), 5);
+
+        assertThat(power, instanceOf(DiagonalMatrix.class));
+        assertTrue(isClose(Matrix.buildDiagonalMatrix(new double[] {32, -1, 243}), power));
+    }
+
+    @Test(expected = ColumnsMustEqualRowsException.class)
+    public void verify_power_throws_ColumnsMustEqualRowsException_when_not_square() {
+        MatrixAlgebra.power(Matrix.buildMatrix(2, 3, new double[6]), 2);
+    }
+
+    @Test
+    public void verify_element_wise_operations_into_destination() {
+        DenseMatrix m1 = Matrix.buildMatrix(2, 2, new double[] {1, 2, 3, 4});
+        Matrix m2 = Matrix.buildIdentityMatrix(2);
+        DenseMatrix destination = Matrix.buildMatrix(2, 2, new double[4]);
+        double[] data = destination.getData();
+
+        assertThat(MatrixAlgebra.addInto(m1, m2, destination).getData(), sameInstance(data));
+        assertTrue(MatrixAlgebra.isEqual(MatrixAlgebra.add(m1, m2), destination));
+
+        MatrixAlgebra.subtractInto(m1, m2, destination);
+        assertTrue(MatrixAlgebra.isEqual(MatrixAlgebra.subtract(m1, m2), destination));
+
+        MatrixAlgebra.scaleInto(m1, 3, destination);
+        assertTrue(MatrixAlgebra.isEqual(MatrixAlgebra.scalarMultiply(m1, 3), destination));
+
+        //the destination may be one of the operands
+        MatrixAlgebra.addInto(destination, m1, destination);
+        MatrixAlgebra.scaleInPlace(destination, 0.5);
+        assertTrue(MatrixAlgebra.isEqual(MatrixAlgebra.scalarMultiply(m1, 2), destination));
+    }
+
+    @Test
+    public void verify_axpy() {
+        DenseMatrix y = Matrix.buildMatrix(2, 3, new double[] {1, 1, 1, 1, 1, 1});
+        Matrix x = Matrix.buildMatrix(2, 3, new double[] {0, 2, 0, 4, 0, 0});
+
+        MatrixAlgebra.axpy(2, x, y);
+        MatrixAlgebra.axpy(-1, Matrix.buildSparseMatrix(x), y);
+
+        assertThat(y.toString(), equalTo("[[1.0,3.0,1.0],[5.0,1.0,1.0]]"));
+    }
+
+    @Test
+    public void verify_multiplyInto_matches_multiply() {
+        long threshold = Parallel.getThreshold();
+        Matrix a = Matrix.buildMatrix(70, 300, Fixtures.random(70 * 300, 13));
+        Matrix b = Matrix.buildMatrix(300, 90, Fixtures.random(300 * 90, 14));
+        DenseMatrix c = Matrix.buildMatrix(70, 90, Fixtures.random(70 * 90, 15));
+        Matrix before = Matrix.buildMatrix(70, 90, c.getData().clone());
+
+        try {
+            Parallel.setThreshold(0);
+
+            Matrix expected = MatrixAlgebra.add(MatrixAlgebra.scalarMultiply(MatrixAlgebra.multiply(a, b), 2),
+                    MatrixAlgebra.scalarMultiply(before, -0.5));
+
+            assertTrue(isClose(expected, MatrixAlgebra.multiplyInto(c, a, b, 2, -0.5)));
+            assertTrue(isClose(MatrixAlgebra.multiply(a, b), MatrixAlgebra.multiplyInto(c, a, b)));
+
+            Matrix sparse = Matrix.buildSparseMatrix(Matrix.buildMatrix(70, 300, randomSparse(70 * 300, 9)));
+            assertTrue(isClose(MatrixAlgebra.multiply(sparse, b), MatrixAlgebra.multiplyInto(c, sparse, b)));
+        } finally {
+            Parallel.setThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void verify_multiplyInto_with_zero_beta_ignores_destination() {
+        DenseMatrix c = Matrix.buildMatrix(1, 1, new double[] {Double.NaN});
+
+        MatrixAlgebra.multiplyInto(c, Matrix.buildMatrix(1, 2, new double[] {1, 2}), Matrix.buildMatrix(2, 1, new double[] {3, 4}));
+
+        assertThat(c.getNumber(0, 0), equalTo(11d));
+    }
+
+    @Test(expected = DimensionsNotSimilarException.class)
+    public void verify_multiplyInto_throws_DimensionsNotSimilarException_when_destination_is_wrong_size() {
+        MatrixAlgebra.multiplyInto(Matrix.buildMatrix(2, 2, new double[4]), Matrix.buildIdentityMatrix(2),
+                Matrix.buildMatrix(2, 3, new double[6]));
+    }
+
+    @Test
+    public void verify_multiplyInto_reads_view_of_destination_before_overwriting_it() {
+        DenseMatrix c = Matrix.buildMatrix(2, 2, new double[] {1, 2, 3, 4});
+        Matrix expected = MatrixAlgebra.multiply(c.transposeView().toDense(), Matrix.buildIdentityMatrix(2).toDense());
+
+        MatrixAlgebra.multiplyInto(c, c.transposeView(), Matrix.buildMatrix(2, 2, new double[] {1, 0, 0, 1}));
+
+        assertTrue(isClose(expected, c));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void verify_multiplyInto_vector_throws_IllegalArgumentException_when_destination_is_the_vector() {
+        Vector x = Vector.buildVector(1, 2);
+
+        MatrixAlgebra.multiplyInto(x, Matrix.buildMatrix(2, 2, new double[] {1, 2, 3, 4}), x);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void verify_multiplyInto_throws_IllegalArgumentException_when_destination_is_an_operand() {
+        DenseMatrix c = Matrix.buildMatrix(2, 2, new double[4]);
+        MatrixAlgebra.multiplyInto(c, c, Matrix.buildIdentityMatrix(2));
+    }
+
+    @Test
+    public void verify_vector_matrix_products_of_sparse_and_banded_matrices_match_dense_across_threads() {
+        long threshold = Parallel.getThreshold();
+        ForkJoinPool originalPool = Parallel.getPool();
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        Matrix a = Matrix.buildMatrix(300, 40, Fixtures.random(300 * 40, 16));
+        Vector x = Vector.buildVector(Fixtures.random(300, 17));
+        Vector expected = MatrixAlgebra.multiply(x, a);
+        Matrix banded = Matrix.buildBandedMatrix(a, 2, 30);
+        Vector expectedBanded = MatrixAlgebra.multiply(x, banded.toDense());
+
+        try {
+            Parallel.setThreshold(0);
+            Parallel.setPool(pool);
+
+            assertTrue(isClose(expected.toRow(), MatrixAlgebra.multiply(x, Matrix.buildSparseMatrix(a)).toRow()));
+            assertTrue(isClose(expectedBanded.toRow(), MatrixAlgebra.multiply(x, banded).toRow()));
+        } finally {
+            Parallel.setThreshold(threshold);
+            Parallel.setPool(originalPool);
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void verify_matrix_vector_products_match_multiply() {
+        long threshold = Parallel.getThreshold();
+        Matrix a = Matrix.buildMatrix(203, 150, Fixtures.random(203 * 150, 18));
+        Vector x = Vector.buildVector(Fixtures.random(150, 19));
+        Vector w = Vector.buildVector(Fixtures.random(203, 20));
+
+        try {
+            Parallel.setThreshold(0);
+
+            Matrix column = MatrixAlgebra.multiply(a, x.toColumn());
+            assertTrue(isClose(column, MatrixAlgebra.multiply(a, x).toColumn()));
+            assertTrue(isClose(column, MatrixAlgebra.multiply(Matrix.buildSparseMatrix(a), x).toColumn()));
+
+            Matrix row = MatrixAlgebra.multiply(w.toRow(), a);
+            assertTrue(isClose(row, MatrixAlgebra.multiply(w, a).toRow()));
+            assertTrue(isClose(row, MatrixAlgebra.multiply(w, Matrix.buildSparseMatrix(a)).toRow()));
+
+            Matrix banded = Matrix.buildBandedMatrix(a, 3, 5);
+            assertTrue(isClose(MatrixAlgebra.multiply(w.toRow(), banded.toDense()),
+                    MatrixAlgebra.multiply(w, banded).toRow()));
+        } finally {
+            Parallel.setThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void verify_vector_dot_product_and_identity() {
+        Vector v = Vector.buildVector(1, 2, 3);
+
+        assertThat(MatrixAlgebra.dotProduct(v, Vector.buildVector(4, 5, 6)), equalTo(32d));
+        assertThat(MatrixAlgebra.multiply(Matrix.buildIdentityMatrix(3), v), equalTo(v));
+        assertThat(MatrixAlgebra.multiply(v, Matrix.buildIdentityMatrix(3)), equalTo(v));
+    }
+
+    @Test(expected = ColumnsMustEqualRowsException.class)
+    public void verify_multiply_vector_throws_ColumnsMustEqualRowsException_when_lengths_differ() {
+        MatrixAlgebra.multiply(Matrix.buildIdentityMatrix(3), Vector.buildVector(1, 2));
+    }
+
+    @Test
+    public void verify_multiplyBatch_matches_multiply_of_each_pair() {
+        long threshold = Parallel.getThreshold();
+        int count = 500;
+        Matrix a = Matrix.buildMatrix(count, 9, Fixtures.random(count * 9, 21));
+        Matrix b = Matrix.buildMatrix(count, 3, randomSparse(count * 3, 5));
+
+        try {
+            Parallel.setThreshold(0);
+
+            //a batch of 3 x 3 matrices times a batch of 3 x 1 columns
+            DenseMatrix products = MatrixAlgebra.multiplyBatch(a, b, 3);
+
+            assertThat(products.getRowCount(), equalTo(count));
+            for(int t = 0; t < count; t++) {
+
+                double[] aValues = new double[9];
+                double[] bValues = new double[3];
+                a.copyRow(t, aValues);
+                b.copyRow(t, bValues);
+
+                Matrix expected = MatrixAlgebra.multiply(Matrix.buildMatrix(3, 3, aValues), Matrix.buildMatrix(3, 1, bValues));
+                assertTrue(isClose(expected, products.submatrix(t, t + 1, 0, 3).toDense().transposeView()));
+
+            }
+        } finally {
+            Parallel.setThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void verify_multiplyBatch_of_square_matrices_with_single_transform() {
+        Matrix transform = Matrix.buildMatrix(1, 4, new double[] {0, 1, 1, 0});
+        Matrix batch = Matrix.buildMatrix(2, 4, new double[] {1, 2, 3, 4, 5, 6, 7, 8});
+
+        assertThat(MatrixAlgebra.multiplyBatch(transform, batch).toString(), equalTo("[[3.0,4.0,1.0,2.0],[7.0,8.0,5.0,6.0]]"));
+    }
+
+    @Test(expected = DimensionsNotSimilarException.class)
+    public void verify_multiplyBatch_throws_DimensionsNotSimilarException_when_batch_sizes_differ() {
+        MatrixAlgebra.multiplyBatch(Matrix.buildMatrix(2, 4, new double[8]), Matrix.buildMatrix(3, 4, new double[12]));
+    }
+
+    private static boolean isClose(Matrix m1, Matrix m2) {
+        if(!MatrixAlgebra.dimensionsEqual(m1, m2)) {
+            return false;
+        }
+        for(int i = 0; i < m1.getRowCount(); i++) {
+            for(int j = 0; j < m1.getColumnCount(); j++) {
+                if(Math.abs(m1.getNumber(i, j) - m2.getNumber(i, j)) > 1e-9) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * About 5% of the values are non-zero
+     */
+    private static double[] randomSparse(int size, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[size];
+        for(int i = 0; i < size; i++) {
+            if(random.nextInt(20) == 0) {
+                values[i] = random.nextInt(19) - 9;
+            }
+        }
+        return values;
+    }
+
 }
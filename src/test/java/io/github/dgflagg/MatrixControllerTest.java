@@ -1,20 +1,34 @@
 package io.github.dgflagg;
 
+import io.github.dgflagg.io.MatrixBinaryCodec;
+import io.github.dgflagg.io.MatrixFile;
 import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.MatrixUpdate;
+import io.github.dgflagg.storage.CachingMatrixRepository;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.junit.Assert.assertTrue;
@@ -30,6 +44,9 @@ public class MatrixControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private CachingMatrixRepository matrixCache;
+
     @Test
     public void idShouldReturnIdMatrixOfSizeN() throws Exception {
         int N = 3;
@@ -178,24 +195,24 @@ public class MatrixControllerTest {
     }
 
     @Test
-    public void saveShouldSaveFileToCsvFile() throws Exception {
+    public void saveShouldSaveMatrixToBinaryFile() throws Exception {
         Matrix matrix = Matrix.csv("src/test/resources/2x4-matrix.csv");
-        matrix.setName("testMatrixCsv");
+        matrix.setName("testMatrixBinary");
 
         this.mockMvc.perform(get("/matrix/save").param("m", matrix.toString()).param("name", matrix.getName()))
                 .andDo(print()).andExpect(status().isOk());
                 //.andExpect(jsonPath("*").value("testMatrixCsv")); TODO: not sure why this fails when it clearly returns
 
-        Matrix savedMatrix = Matrix.csv(matrix.getName() + ".csv");
+        Matrix savedMatrix = MatrixFile.read(Paths.get(matrix.getName() + MatrixFile.FILE_EXTENSION));
 
-        File csvFile = new File(matrix.getName() + ".csv");
-        csvFile.delete();
+        File binaryFile = new File(matrix.getName() + MatrixFile.FILE_EXTENSION);
+        binaryFile.delete();
 
         assertTrue(MatrixAlgebra.isEqual(matrix, savedMatrix));
     }
 
     @Test
-    public void retrieveShouldReadCsvFile() throws Exception {
+    public void retrieveShouldReadSavedMatrix() throws Exception {
         Matrix matrix = Matrix.csv("src/test/resources/3x3-matrix.csv");
         matrix.setName("testMatrix");
 
@@ -204,6 +221,20 @@ public class MatrixControllerTest {
                 .andDo(print()).andExpect(status().isOk());
 
         //read back the matrix
+        this.mockMvc.perform(get("/matrix/retrieve").param("name", matrix.getName()))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(jsonPath("*").value(matrix.getNumbers()));
+
+        File binaryFile = new File(matrix.getName() + MatrixFile.FILE_EXTENSION);
+        binaryFile.delete();
+    }
+
+    @Test
+    public void retrieveShouldReadCsvFileWhenThereIsNoBinaryFile() throws Exception {
+        Matrix matrix = Matrix.csv("src/test/resources/3x3-matrix.csv");
+        matrix.setName("testMatrixCsv");
+        matrix.csv();
+
         this.mockMvc.perform(get("/matrix/retrieve").param("name", matrix.getName()))
                 .andDo(print()).andExpect(status().isOk())
                 .andExpect(jsonPath("*").value(matrix.getNumbers()));
@@ -212,4 +243,457 @@ public class MatrixControllerTest {
         csvFile.delete();
     }
 
+    @Test
+    public void postAddShouldReturnSumMatrixOfJsonBody() throws Exception {
+        Matrix m1 = Matrix.csv("src/test/resources/3x3-matrix.csv");
+        Matrix m2 = Matrix.buildValueMatrix(3,3,5d);
+        Matrix sumMatrix = MatrixAlgebra.add(m1,m2);
+
+        this.mockMvc.perform(post("/matrix/add").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"m1\": " + m1 + ", \"m2\": " + m2 + "}"))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(jsonPath("*").value(sumMatrix.getNumbers()));
+    }
+
+    @Test
+    public void postMultiplyShouldReturnProductMatrixOfCsvBody() throws Exception {
+        Matrix m1 = Matrix.csv("src/test/resources/4x2-matrix.csv");
+        Matrix m2 = Matrix.csv("src/test/resources/2x4-matrix.csv");
+        Matrix productMatrix = MatrixAlgebra.multiply(m1,m2);
+
+        String body = new String(Files.readAllBytes(Paths.get("src/test/resources/4x2-matrix.csv"))) + "\n\n"
+                + new String(Files.readAllBytes(Paths.get("src/test/resources/2x4-matrix.csv")));
+
+        this.mockMvc.perform(post("/matrix/multiply").contentType("text/csv").content(body))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(jsonPath("*").value(productMatrix.getNumbers()));
+    }
+
+    @Test
+    public void postSubtractShouldReturnDifferenceMatrixOfJsonBody() throws Exception {
+        Matrix m1 = Matrix.csv("src/test/resources/3x3-matrix.csv");
+        Matrix m2 = Matrix.buildValueMatrix(3,3,7d);
+        Matrix differenceMatrix = MatrixAlgebra.subtract(m1,m2);
+
+        this.mockMvc.perform(post("/matrix/subtract").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"m2\": " + m2 + ", \"m1\": " + m1 + "}"))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(jsonPath("*").value(differenceMatrix.getNumbers()));
+    }
+
+    @Test
+    public void postScalarShouldReturnScalarProductMatrixOfJsonBody() throws Exception {
+        double SCALAR = 3;
+        Matrix operandMatrix = Matrix.csv("src/test/resources/2x4-matrix.csv");
+        Matrix resultMatrix = MatrixAlgebra.scalarMultiply(operandMatrix, SCALAR);
+
+        this.mockMvc.perform(post("/matrix/scalar").param("s", SCALAR + "")
+                .contentType(MediaType.APPLICATION_JSON).content(operandMatrix.toString()))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(jsonPath("*").value(resultMatrix.getNumbers()));
+    }
+
+    @Test
+    public void postAugmentShouldReturnAugmentedMatrixOfJsonBody() throws Exception {
+        Matrix m1 = Matrix.csv("src/test/resources/3x3-matrix.csv");
+        List<Double> coefficientColumn = new ArrayList<>();
+        coefficientColumn.add(5d);
+        coefficientColumn.add(3d);
+        coefficientColumn.add(6d);
+        Matrix augmentedMatrix = Matrix.buildAugmentedCoefficientColumnMatrix(m1, coefficientColumn);
+
+        this.mockMvc.perform(post("/matrix/augment").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"m\": " + m1 + ", \"c\": " + coefficientColumn + "}"))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(jsonPath("*").value(augmentedMatrix.getNumbers()));
+    }
+
+    @Test
+    public void postSaveShouldSaveCsvBodyToBinaryFile() throws Exception {
+        Matrix matrix = Matrix.csv("src/test/resources/3x3-matrix.csv");
+        matrix.setName("testMatrixPost");
+
+        this.mockMvc.perform(post("/matrix/save").param("name", matrix.getName()).contentType("text/csv")
+                .content(Files.readAllBytes(Paths.get("src/test/resources/3x3-matrix.csv"))))
+                .andDo(print()).andExpect(status().isOk());
+
+        Matrix savedMatrix = MatrixFile.read(Paths.get(matrix.getName() + MatrixFile.FILE_EXTENSION));
+
+        File binaryFile = new File(matrix.getName() + MatrixFile.FILE_EXTENSION);
+        binaryFile.delete();
+
+        assertTrue(MatrixAlgebra.isEqual(matrix, savedMatrix));
+    }
+
+    @Test
+    public void postAddShouldReturnBadRequestWhenBodyIsNotAMatrix() throws Exception {
+        this.mockMvc.perform(post("/matrix/add").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"m1\": [[1,2]], \"m2\": [[1,x]]}"))
+                .andDo(print()).andExpect(status().isBadRequest());
+
+        this.mockMvc.perform(post("/matrix/add").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"m1\": [[1,2]]}"))
+                .andDo(print()).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void multiplyShouldWriteMatrixJsonFromStorage() throws Exception {
+        this.mockMvc.perform(get("/matrix/multiply").param("m1", "[[1,2],[3,4]]").param("m2", "[[0.5,0],[0,-1]]"))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(content().string("[[0.5,-2.0],[1.5,-4.0]]"));
+    }
+
+    @Test
+    public void multiplyShouldReturnBinaryMatrixWhenAcceptIsOctetStream() throws Exception {
+        Matrix m1 = Matrix.csv("src/test/resources/4x2-matrix.csv");
+        Matrix m2 = Matrix.csv("src/test/resources/2x4-matrix.csv");
+        Matrix productMatrix = MatrixAlgebra.multiply(m1,m2);
+
+        byte[] body = this.mockMvc.perform(get("/matrix/multiply").param("m1", m1.toString()).param("m2", m2.toString())
+                .accept(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertTrue(MatrixAlgebra.isEqual(productMatrix, MatrixBinaryCodec.read(new ByteArrayInputStream(body))));
+    }
+
+    @Test
+    public void postAddShouldReturnSumMatrixOfBinaryBody() throws Exception {
+        Matrix m1 = Matrix.csv("src/test/resources/3x3-matrix.csv");
+        Matrix m2 = Matrix.buildValueMatrix(3,3,5d);
+        Matrix sumMatrix = MatrixAlgebra.add(m1,m2);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        MatrixBinaryCodec.write(m1, body);
+        MatrixBinaryCodec.write(m2, body);
+
+        this.mockMvc.perform(post("/matrix/add").contentType(MediaType.APPLICATION_OCTET_STREAM).content(body.toByteArray()))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(jsonPath("*").value(sumMatrix.getNumbers()));
+    }
+
+    @Test
+    public void postAddShouldReadGzipCompressedBody() throws Exception {
+        Matrix m1 = Matrix.csv("src/test/resources/3x3-matrix.csv");
+        Matrix m2 = Matrix.buildValueMatrix(3,3,5d);
+        Matrix sumMatrix = MatrixAlgebra.add(m1,m2);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try(GZIPOutputStream gzip = new GZIPOutputStream(body)) {
+            gzip.write(("{\"m1\": " + m1 + ", \"m2\": " + m2 + "}").getBytes(StandardCharsets.UTF_8));
+        }
+
+        this.mockMvc.perform(post("/matrix/add").contentType(MediaType.APPLICATION_JSON)
+                .header("Content-Encoding", "gzip").content(body.toByteArray()))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(jsonPath("*").value(sumMatrix.getNumbers()));
+    }
+
+    @Test
+    public void retrieveShouldServeSavedMatrixFromCache() throws Exception {
+        Matrix matrix = Matrix.csv("src/test/resources/3x3-matrix.csv");
+        matrix.setName("testMatrixCached");
+
+        this.mockMvc.perform(get("/matrix/save").param("m", matrix.toString()).param("name", matrix.getName()))
+                .andExpect(status().isOk());
+
+        //the file is gone but the matrix is still in memory
+        new File(matrix.getName() + MatrixFile.FILE_EXTENSION).delete();
+
+        this.mockMvc.perform(get("/matrix/retrieve").param("name", matrix.getName()))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(jsonPath("*").value(matrix.getNumbers()));
+
+        this.mockMvc.perform(get("/matrix/cache"))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(jsonPath("hitCount").isNumber())
+                .andExpect(jsonPath("evictionCount").isNumber());
+    }
+
+    @Test
+    public void retrieveShouldReturnNotFoundWhenNothingIsSaved() throws Exception {
+        this.mockMvc.perform(get("/matrix/retrieve").param("name", "neverSaved"))
+                .andDo(print()).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void retrieveShouldReturnBlockOfSavedMatrix() throws Exception {
+        Matrix matrix = Matrix.csv("src/test/resources/3x3-matrix.csv");
+        matrix.setName("testMatrixBlock");
+
+        this.mockMvc.perform(get("/matrix/save").param("m", matrix.toString()).param("name", matrix.getName()))
+                .andExpect(status().isOk());
+
+        //the block is read from the file rather than the cache
+        this.matrixCache.clear();
+
+        this.mockMvc.perform(get("/matrix/retrieve").param("name", matrix.getName())
+                .param("fromRow", "1").param("fromColumn", "1").param("toColumn", "3"))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(jsonPath("*").value(matrix.submatrix(1, 3, 1, 3).getNumbers()));
+
+        new File(matrix.getName() + MatrixFile.FILE_EXTENSION).delete();
+    }
+
+    @Test
+    public void retrieveShouldReturnBadRequestForRangeOutsideMatrix() throws Exception {
+        Matrix matrix = Matrix.csv("src/test/resources/3x3-matrix.csv");
+        matrix.setName("testMatrixBadBlock");
+
+        this.mockMvc.perform(get("/matrix/save").param("m", matrix.toString()).param("name", matrix.getName()))
+                .andExpect(status().isOk());
+
+        this.mockMvc.perform(get("/matrix/retrieve").param("name", matrix.getName()).param("fromRow", "5"))
+                .andDo(print()).andExpect(status().isBadRequest());
+
+        new File(matrix.getName() + MatrixFile.FILE_EXTENSION).delete();
+    }
+
+    @Test
+    public void updateShouldChangeValuesOfSavedMatrix() throws Exception {
+        Matrix matrix = Matrix.csv("src/test/resources/3x3-matrix.csv");
+        matrix.setName("testMatrixUpdate");
+
+        this.mockMvc.perform(get("/matrix/save").param("m", matrix.toString()).param("name", matrix.getName()))
+                .andExpect(status().isOk());
+
+        this.mockMvc.perform(patch("/matrix/update").param("name", matrix.getName()).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"rows\": [{\"index\": 0, \"values\": [7, 8, 9]}], \"cells\": [{\"row\": 2, \"column\": 1, \"value\": -1}]}"))
+                .andDo(print()).andExpect(status().isOk());
+
+        MatrixUpdate update = new MatrixUpdate();
+        update.getRows().add(new MatrixUpdate.Line(0, new double[] {7, 8, 9}));
+        update.getCells().add(new MatrixUpdate.Cell(2, 1, -1));
+
+        this.mockMvc.perform(get("/matrix/retrieve").param("name", matrix.getName()))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(jsonPath("*").value(update.apply(matrix).getNumbers()));
+
+        new File(matrix.getName() + MatrixFile.FILE_EXTENSION).delete();
+    }
+
+    @Test
+    public void updateShouldReturnBadRequestForRowOfWrongLength() throws Exception {
+        Matrix matrix = Matrix.csv("src/test/resources/3x3-matrix.csv");
+        matrix.setName("testMatrixBadUpdate");
+
+        this.mockMvc.perform(get("/matrix/save").param("m", matrix.toString()).param("name", matrix.getName()))
+                .andExpect(status().isOk());
+
+        this.mockMvc.perform(patch("/matrix/update").param("name", matrix.getName()).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"rows\": [{\"index\": 0, \"values\": [7, 8]}]}"))
+                .andDo(print()).andExpect(status().isBadRequest());
+
+        new File(matrix.getName() + MatrixFile.FILE_EXTENSION).delete();
+    }
+
+    @Test
+    public void solveShouldReturnSolutionAsRow() throws Exception {
+        this.mockMvc.perform(get("/matrix/solve").param("a", "[[1,1,0],[1,-1,0],[0,0,2]]").param("b", "[10,2,-3]"))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(content().string("[[6.0,4.0,-1.5]]"));
+    }
+
+    @Test
+    public void solveShouldSolveEveryColumnOfPostedRightHandSide() throws Exception {
+        this.mockMvc.perform(post("/matrix/solve").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"a\": [[1,1],[1,-1]], \"b\": [[10,4],[2,0]]}"))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(content().string("[[6.0,2.0],[4.0,2.0]]"));
+    }
+
+    @Test
+    public void solveShouldReturnUnprocessableEntityForSingularMatrix() throws Exception {
+        this.mockMvc.perform(get("/matrix/solve").param("a", "[[1,2],[2,4]]").param("b", "[1,2]"))
+                .andDo(print()).andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    public void solveShouldReturnBadRequestForMatrixThatIsNotSquare() throws Exception {
+        this.mockMvc.perform(get("/matrix/solve").param("a", "[[1,2,3],[4,5,6]]").param("b", "[1,2]"))
+                .andDo(print()).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void solveShouldSolveAgainstSavedMatrixByName() throws Exception {
+        this.mockMvc.perform(get("/matrix/save").param("m", "[[1,1],[1,-1]]").param("name", "testSolveMatrix"))
+                .andDo(print()).andExpect(status().isOk());
+
+        try {
+            this.mockMvc.perform(get("/matrix/solve").param("name", "testSolveMatrix").param("b", "[10,2]"))
+                    .andDo(print()).andExpect(status().isOk())
+                    .andExpect(content().string("[[6.0,4.0]]"));
+
+            this.mockMvc.perform(post("/matrix/solve").param("name", "testSolveMatrix")
+                    .contentType(MediaType.APPLICATION_JSON).content("[[4,10],[2,2]]"))
+                    .andDo(print()).andExpect(status().isOk())
+                    .andExpect(content().string("[[3.0,6.0],[1.0,4.0]]"));
+        } finally {
+            new File("testSolveMatrix" + MatrixFile.FILE_EXTENSION).delete();
+        }
+    }
+
+    @Test
+    public void solveShouldReturnBadRequestForMalformedSystem() throws Exception {
+        this.mockMvc.perform(get("/matrix/solve").param("a", "[[2,1],[1").param("b", "[[3,2]]"))
+                .andDo(print()).andExpect(status().isBadRequest());
+        this.mockMvc.perform(get("/matrix/solve").param("a", "[[2,1],[1,1]]").param("b", "[[3,"))
+                .andDo(print()).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void determinantShouldReturnDeterminant() throws Exception {
+        this.mockMvc.perform(get("/matrix/determinant").param("m", "[[0,1],[1,0]]"))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(content().string("-1.0"));
+    }
+
+    @Test
+    public void inverseShouldInvertSavedMatrixByName() throws Exception {
+        this.mockMvc.perform(get("/matrix/save").param("m", "[[2,0],[1,4]]").param("name", "testInverseMatrix"))
+                .andDo(print()).andExpect(status().isOk());
+
+        try {
+            this.mockMvc.perform(get("/matrix/inverse").param("name", "testInverseMatrix"))
+                    .andDo(print()).andExpect(status().isOk())
+                    .andExpect(content().string("[[0.5,0.0],[-0.125,0.25]]"));
+        } finally {
+            new File("testInverseMatrix" + MatrixFile.FILE_EXTENSION).delete();
+        }
+    }
+
+    @Test
+    public void inverseShouldReturnUnprocessableEntityForSingularMatrix() throws Exception {
+        this.mockMvc.perform(post("/matrix/inverse").contentType(MediaType.APPLICATION_JSON).content("[[1,2],[2,4]]"))
+                .andDo(print()).andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    public void powerShouldRaiseMatrixToPower() throws Exception {
+        this.mockMvc.perform(get("/matrix/power").param("m", "[[1,1],[1,0]]").param("k", "10"))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(content().string("[[89.0,55.0],[55.0,34.0]]"));
+    }
+
+    @Test
+    public void determinantShouldReturnBadRequestForMalformedMatrix() throws Exception {
+        this.mockMvc.perform(get("/matrix/determinant").param("m", "[[1,2],[3"))
+                .andDo(print()).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void postedDeterminantAndInverseShouldUseSavedMatrixByName() throws Exception {
+        this.mockMvc.perform(get("/matrix/save").param("m", "[[2,0],[1,4]]").param("name", "testPostedInverseMatrix"))
+                .andDo(print()).andExpect(status().isOk());
+
+        try {
+            this.mockMvc.perform(post("/matrix/determinant").param("name", "testPostedInverseMatrix")
+                    .contentType(MediaType.APPLICATION_JSON).content(""))
+                    .andDo(print()).andExpect(status().isOk())
+                    .andExpect(content().string("8.0"));
+            this.mockMvc.perform(post("/matrix/inverse").param("name", "testPostedInverseMatrix")
+                    .contentType(MediaType.APPLICATION_JSON).content(""))
+                    .andDo(print()).andExpect(status().isOk())
+                    .andExpect(content().string("[[0.5,0.0],[-0.125,0.25]]"));
+        } finally {
+            new File("testPostedInverseMatrix" + MatrixFile.FILE_EXTENSION).delete();
+        }
+    }
+
+    @Test
+    public void inverseShouldReturnBadRequestForMalformedMatrix() throws Exception {
+        this.mockMvc.perform(get("/matrix/inverse").param("m", "[[1,x]]"))
+                .andDo(print()).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void powerShouldReturnBadRequestForMalformedInput() throws Exception {
+        this.mockMvc.perform(get("/matrix/power").param("m", "[[1,1],[1,0]]").param("k", "two"))
+                .andDo(print()).andExpect(status().isBadRequest());
+        this.mockMvc.perform(get("/matrix/power").param("m", "[[1,1],[1,").param("k", "2"))
+                .andDo(print()).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void evalShouldEvaluateExpressionOfSavedMatrices() throws Exception {
+        this.mockMvc.perform(get("/matrix/save").param("m", "[[1,2],[3,4]]").param("name", "testEvalMatrix"))
+                .andDo(print()).andExpect(status().isOk());
+
+        try {
+            this.mockMvc.perform(get("/matrix/eval").param("expression", "2 * testEvalMatrix * [[1],[1]] - [[1],[1]]"))
+                    .andDo(print()).andExpect(status().isOk())
+                    .andExpect(content().string("[[5.0],[13.0]]"));
+        } finally {
+            new File("testEvalMatrix" + MatrixFile.FILE_EXTENSION).delete();
+        }
+    }
+
+    @Test
+    public void evalShouldUsePostedOperands() throws Exception {
+        this.mockMvc.perform(post("/matrix/eval").param("expression", "A * B * A")
+                .contentType(MediaType.APPLICATION_JSON).content("{\"A\": [[1],[2]], \"B\": [[3,4]]}"))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(content().string("[[11.0],[22.0]]"));
+    }
+
+    @Test
+    public void evalShouldReturnBadRequestForBadExpression() throws Exception {
+        this.mockMvc.perform(get("/matrix/eval").param("expression", "[[1]] +"))
+                .andDo(print()).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void multiplyVectorShouldReturnFlatArray() throws Exception {
+        this.mockMvc.perform(get("/matrix/multiply-vector").param("m", "[[1,2],[3,4],[5,6]]").param("v", "[1,-1]"))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(content().string("[-1.0,-1.0,-1.0]"));
+    }
+
+    @Test
+    public void multiplyVectorShouldMultiplyVectorOnTheLeft() throws Exception {
+        this.mockMvc.perform(post("/matrix/multiply-vector").param("left", "true").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"m\": [[1,2],[3,4],[5,6]], \"v\": [[1],[0],[2]]}"))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(content().string("[11.0,14.0]"));
+    }
+
+    @Test
+    public void multiplyVectorShouldReturnBadRequestWhenLengthsDiffer() throws Exception {
+        this.mockMvc.perform(get("/matrix/multiply-vector").param("m", "[[1,2],[3,4]]").param("v", "[1,2,3]"))
+                .andDo(print()).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void batchShouldMultiplyEveryPairOfPackedMatrices() throws Exception {
+        this.mockMvc.perform(post("/matrix/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"a\": [[1,0,0,1],[2,0,0,2]], \"b\": [[1,2,3,4],[1,2,3,4]]}"))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(content().string("[[1.0,2.0,3.0,4.0],[2.0,4.0,6.0,8.0]]"));
+    }
+
+    @Test
+    public void batchShouldTakeRowsOfNonSquareMatrices() throws Exception {
+        this.mockMvc.perform(post("/matrix/batch").param("rows", "1").contentType("text/csv")
+                .content("1,2\n3,4\n\n1,1\n"))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(content().string("[[3.0],[7.0]]"));
+    }
+
+    @Test
+    public void multiplyShouldUseStrassenWhenAskedFor() throws Exception {
+        this.mockMvc.perform(post("/matrix/multiply").param("strassen", "true").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"m1\": [[1,2],[3,4]], \"m2\": [[5,6],[7,8]]}"))
+                .andDo(print()).andExpect(status().isOk())
+                .andExpect(content().string("[[19.0,22.0],[43.0,50.0]]"));
+    }
+
+    @Test
+    public void multiplyShouldReturnBadRequestWhenStrassenOperandsAreNotSquare() throws Exception {
+        this.mockMvc.perform(get("/matrix/multiply").param("m1", "[[1,2,3]]").param("m2", "[[1],[2],[3]]")
+                .param("strassen", "true"))
+                .andDo(print()).andExpect(status().isBadRequest());
+    }
+
 }
@@ -0,0 +1,98 @@
+package io.github.dgflagg.decomposition;
+
+import io.github.dgflagg.Fixtures;
+import io.github.dgflagg.MatrixAlgebra;
+import io.github.dgflagg.exceptions.ColumnsMustEqualRowsException;
+import io.github.dgflagg.exceptions.NotPositiveDefiniteException;
+import io.github.dgflagg.kernel.Parallel;
+import io.github.dgflagg.model.DenseMatrix;
+import io.github.dgflagg.model.Matrix;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the Cholesky decomposition of symmetric positive definite matrices and the solutions found with it
+ */
+public class CholeskyDecompositionTest {
+
+    @Test
+    public void verify_solve_small_system() {
+        Matrix a = Matrix.buildMatrix(3, 3, new double[] {
+                4, 12, -16,
+                12, 37, -43,
+                -16, -43, 98});
+        Matrix b = Matrix.buildMatrix(3, 1, new double[] {0, 6, 39});
+
+        CholeskyDecomposition cholesky = CholeskyDecomposition.decompose(a);
+
+        assertTrue(cholesky.isPositiveDefinite());
+        assertArrayEquals(new double[] {2, 0, 0, 6, 1, 0, -8, 5, 3}, cholesky.getLower().toDense().getData(), 1e-12);
+        assertArrayEquals(new double[] {1, 1, 1}, cholesky.solve(b).toDense().getData(), 1e-12);
+        assertThat(Math.abs(cholesky.determinant() - 36d) < 1e-9, equalTo(true));
+    }
+
+    @Test
+    public void verify_large_system_in_parallel_matches_lu() {
+        long threshold = Parallel.getThreshold();
+        int n = 200;
+        Matrix a = symmetricPositiveDefinite(n, 1);
+        Matrix b = Matrix.buildMatrix(n, 2, Fixtures.random(n * 2, 2));
+
+        try {
+            Parallel.setThreshold(0);
+
+            double[] expected = LUDecomposition.decompose(a).solve(b).toDense().getData();
+            double[] actual = CholeskyDecomposition.decompose(a).solve(b).toDense().getData();
+
+            for(int i = 0; i < expected.length; i++) {
+                assertThat(Math.abs(expected[i] - actual[i]) < 1e-9, equalTo(true));
+            }
+        } finally {
+            Parallel.setThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void verify_decompose_does_not_change_the_matrix() {
+        double[] values = {4, 2, 2, 3};
+        DenseMatrix a = Matrix.buildMatrix(2, 2, values.clone());
+
+        CholeskyDecomposition.decompose(a);
+
+        assertArrayEquals(values, a.getData(), 0d);
+    }
+
+    @Test
+    public void verify_matrix_that_is_not_positive_definite() {
+        Matrix a = Matrix.buildMatrix(2, 2, new double[] {1, 2, 2, 1});
+
+        assertFalse(CholeskyDecomposition.decompose(a).isPositiveDefinite());
+    }
+
+    @Test(expected = NotPositiveDefiniteException.class)
+    public void verify_solve_throws_NotPositiveDefiniteException_when_not_positive_definite() {
+        Matrix a = Matrix.buildMatrix(2, 2, new double[] {1, 2, 2, 1});
+
+        CholeskyDecomposition.decompose(a).solve(Matrix.buildMatrix(2, 1, new double[] {1, 2}));
+    }
+
+    @Test(expected = ColumnsMustEqualRowsException.class)
+    public void verify_decompose_throws_ColumnsMustEqualRowsException_when_not_square() {
+        CholeskyDecomposition.decompose(Matrix.buildMatrix(2, 3, new double[6]));
+    }
+
+    /**
+     * A'A + nI for a random A
+     */
+    private static Matrix symmetricPositiveDefinite(int n, long seed) {
+        DenseMatrix a = Matrix.buildMatrix(n, n, Fixtures.random(n * n, seed));
+        Matrix product = MatrixAlgebra.multiply(a.transposeView(), a);
+        return MatrixAlgebra.add(product, MatrixAlgebra.scalarMultiply(Matrix.buildIdentityMatrix(n), n));
+    }
+
+}
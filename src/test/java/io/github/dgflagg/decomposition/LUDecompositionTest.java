@@ -0,0 +1,143 @@
+package io.github.dgflagg.decomposition;
+
+import io.github.dgflagg.Fixtures;
+import io.github.dgflagg.MatrixAlgebra;
+import io.github.dgflagg.exceptions.ColumnsMustEqualRowsException;
+import io.github.dgflagg.exceptions.DimensionsNotSimilarException;
+import io.github.dgflagg.exceptions.SingularMatrixException;
+import io.github.dgflagg.kernel.Parallel;
+import io.github.dgflagg.model.AugmentedMatrix;
+import io.github.dgflagg.model.DenseMatrix;
+import io.github.dgflagg.model.Matrix;
+import org.junit.Test;
+
+import java.util.Arrays;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the blocked LU decomposition and the solutions found with it
+ */
+public class LUDecompositionTest {
+
+    @Test
+    public void verify_solve_small_system() {
+        Matrix a = Matrix.buildMatrix(3, 3, new double[] {
+                2, 1, -1,
+                -3, -1, 2,
+                -2, 1, 2});
+        Matrix b = Matrix.buildMatrix(3, 1, new double[] {8, -11, -3});
+
+        Matrix x = LUDecomposition.decompose(a).solve(b);
+
+        assertArrayEquals(new double[] {2, 3, -1}, x.toDense().getData(), 1e-12);
+    }
+
+    @Test
+    public void verify_pivoting_handles_zero_on_diagonal() {
+        Matrix a = Matrix.buildMatrix(2, 2, new double[] {0, 1, 1, 0});
+
+        LUDecomposition lu = LUDecomposition.decompose(a);
+
+        assertFalse(lu.isSingular());
+        assertThat(lu.getPivotSign(), equalTo(-1));
+        assertArrayEquals(new double[] {5, 4},
+                lu.solve(Matrix.buildMatrix(2, 1, new double[] {4, 5})).toDense().getData(), 0d);
+    }
+
+    @Test
+    public void verify_lower_times_upper_is_pivoted_matrix() {
+        int n = 150;
+        DenseMatrix a = Matrix.buildMatrix(n, n, Fixtures.random(n * n, 1));
+
+        LUDecomposition lu = LUDecomposition.decompose(a);
+        Matrix product = MatrixAlgebra.multiply(lu.getLower(), lu.getUpper());
+
+        int[] pivot = lu.getPivot();
+        for(int i = 0; i < n; i++) {
+            for(int j = 0; j < n; j++) {
+                assertThat(Math.abs(product.getNumber(i, j) - a.getNumber(pivot[i], j)) < 1e-9, equalTo(true));
+            }
+        }
+    }
+
+    @Test
+    public void verify_blocked_solve_of_large_system_in_parallel() {
+        long threshold = Parallel.getThreshold();
+        int n = 300;
+        Matrix a = Matrix.buildMatrix(n, n, Fixtures.random(n * n, 2));
+        Matrix x = Matrix.buildMatrix(n, 3, Fixtures.random(n * 3, 3));
+        Matrix b = MatrixAlgebra.multiply(a, x);
+
+        try {
+            Parallel.setThreshold(0);
+            Matrix solution = MatrixAlgebra.solve(a, b);
+
+            double[] expected = x.toDense().getData();
+            double[] actual = solution.toDense().getData();
+            for(int i = 0; i < expected.length; i++) {
+                assertThat(Math.abs(expected[i] - actual[i]) < 1e-8, equalTo(true));
+            }
+        } finally {
+            Parallel.setThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void verify_solve_augmented_system() {
+        Matrix a = Matrix.buildMatrix(2, 2, new double[] {1, 1, 1, -1});
+        Matrix system = Matrix.buildAugmentedCoefficientColumnMatrix(a, Arrays.asList(10d, 2d));
+
+        Matrix x = MatrixAlgebra.solve((AugmentedMatrix) system);
+
+        assertArrayEquals(new double[] {6, 4}, x.toDense().getData(), 1e-12);
+    }
+
+    @Test
+    public void verify_decompose_does_not_change_the_matrix() {
+        double[] values = {4, 3, 6, 3};
+        DenseMatrix a = Matrix.buildMatrix(2, 2, values.clone());
+
+        LUDecomposition.decompose(a);
+
+        assertArrayEquals(values, a.getData(), 0d);
+    }
+
+    @Test
+    public void verify_determinant_and_inverse() {
+        Matrix a = Matrix.buildMatrix(2, 2, new double[] {4, 7, 2, 6});
+
+        LUDecomposition lu = LUDecomposition.decompose(a);
+
+        assertThat(Math.abs(lu.determinant() - 10d) < 1e-12, equalTo(true));
+        assertArrayEquals(new double[] {0.6, -0.7, -0.2, 0.4}, lu.inverse().toDense().getData(), 1e-12);
+    }
+
+    @Test
+    public void verify_singular_matrix() {
+        Matrix a = Matrix.buildMatrix(3, 3, new double[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+
+        assertTrue(LUDecomposition.decompose(a).isSingular());
+    }
+
+    @Test(expected = SingularMatrixException.class)
+    public void verify_solve_throws_SingularMatrixException_when_matrix_is_singular() {
+        Matrix a = Matrix.buildMatrix(2, 2, new double[] {1, 2, 2, 4});
+
+        MatrixAlgebra.solve(a, Matrix.buildMatrix(2, 1, new double[] {1, 2}));
+    }
+
+    @Test(expected = ColumnsMustEqualRowsException.class)
+    public void verify_decompose_throws_ColumnsMustEqualRowsException_when_not_square() {
+        LUDecomposition.decompose(Matrix.buildMatrix(2, 3, new double[6]));
+    }
+
+    @Test(expected = DimensionsNotSimilarException.class)
+    public void verify_solve_throws_DimensionsNotSimilarException_when_rows_differ() {
+        MatrixAlgebra.solve(Matrix.buildIdentityMatrix(3), Matrix.buildMatrix(2, 1, new double[2]));
+    }
+
+}
@@ -0,0 +1,106 @@
+package io.github.dgflagg.expression;
+
+import io.github.dgflagg.exceptions.ExpressionFormatException;
+import io.github.dgflagg.exceptions.MatrixNotFoundException;
+import io.github.dgflagg.model.LazyMatrix;
+import io.github.dgflagg.model.Matrix;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks matrix expressions are parsed with the usual precedence and evaluated against named operands
+ */
+public class ExpressionParserTest {
+
+    private static final Map<String, Matrix> OPERANDS = new HashMap<>();
+
+    static {
+        OPERANDS.put("A", Matrix.buildMatrix(2, 2, new double[] {1, 2, 3, 4}));
+        OPERANDS.put("B", Matrix.buildMatrix(2, 2, new double[] {0, 1, 1, 0}));
+        OPERANDS.put("row_1", Matrix.buildMatrix(1, 2, new double[] {1, 1}));
+    }
+
+    @Test
+    public void verify_precedence() {
+        assertThat(evaluate("A + B * A"), equalTo("[[4.0,6.0],[4.0,6.0]]"));
+        assertThat(evaluate("(A + B) * A"), equalTo("[[10.0,14.0],[16.0,24.0]]"));
+        assertThat(evaluate("A - B - A"), equalTo("[[0.0,-1.0],[-1.0,0.0]]"));
+        assertThat(evaluate("-A^2"), equalTo("[[-7.0,-10.0],[-15.0,-22.0]]"));
+    }
+
+    @Test
+    public void verify_numbers_scale_products() {
+        assertThat(evaluate("2 * A * 0.5e1"), equalTo("[[10.0,20.0],[30.0,40.0]]"));
+        assertThat(evaluate("2^3 * B"), equalTo("[[0.0,8.0],[8.0,0.0]]"));
+    }
+
+    @Test
+    public void verify_literals_and_names() {
+        assertThat(evaluate("row_1 * [[1, 2], [3, 4]] * [[1],[1]]"), equalTo("[[10.0]]"));
+    }
+
+    @Test
+    public void verify_inverse_power() {
+        assertThat(evaluate("B^-1 * B"), equalTo("[[1.0,0.0],[0.0,1.0]]"));
+    }
+
+    @Test
+    public void verify_parenthesized_products_join_the_chain() {
+        Expression expression = ExpressionParser.parse("2 * (A * B) * -(A * B)");
+
+        assertThat(expression, instanceOf(Chain.class));
+        assertThat(((Chain) expression).getFactors().size(), equalTo(4));
+        assertThat(((Chain) expression).getCoefficient(), equalTo(-2d));
+    }
+
+    @Test
+    public void verify_sums_of_dense_matrices_are_fused() {
+        Expression expression = ExpressionParser.parse("2 * A + B - -(A - B)");
+
+        assertThat(expression.evaluateLazily(OPERANDS::get), instanceOf(LazyMatrix.class));
+        assertThat(expression.evaluate(OPERANDS::get).toString(), equalTo("[[3.0,6.0],[9.0,12.0]]"));
+    }
+
+    @Test
+    public void verify_parse_reports_errors() {
+        verifyError("A +", "expected a matrix, a number or '(' but found the end of the expression at position 3");
+        verifyError("(A * B", "expected ')' but found the end of the expression at position 6");
+        verifyError("A B", "expected an operator but found 'B' at position 2");
+        verifyError("A + 2", "a number cannot be added to or subtracted from a matrix at position 5");
+        verifyError("2 * 3", "expected a matrix in the expression at position 5");
+        verifyError("A^x", "expected an integer exponent but found \"\" at position 2");
+    }
+
+    @Test(expected = MatrixNotFoundException.class)
+    public void verify_evaluate_throws_MatrixNotFoundException_for_unknown_name() {
+        evaluate("A * C");
+    }
+
+    private static String evaluate(String expression) {
+        return ExpressionParser.parse(expression).evaluate(name -> {
+            Matrix matrix = OPERANDS.get(name);
+            if(matrix == null) {
+                throw new MatrixNotFoundException(name);
+            }
+            return matrix;
+        }).toString();
+    }
+
+    private static void verifyError(String expression, String message) {
+        try {
+            ExpressionParser.parse(expression);
+            fail("expected an ExpressionFormatException for: " + expression);
+        } catch (ExpressionFormatException e) {
+            assertThat(e.getMessage(), containsString(message));
+        }
+    }
+
+}
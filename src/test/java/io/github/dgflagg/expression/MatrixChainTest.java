@@ -0,0 +1,64 @@
+package io.github.dgflagg.expression;
+
+import io.github.dgflagg.Fixtures;
+import io.github.dgflagg.MatrixAlgebra;
+import io.github.dgflagg.exceptions.ColumnsMustEqualRowsException;
+import io.github.dgflagg.model.Matrix;
+import org.junit.Test;
+
+import java.util.Arrays;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Checks the cheapest order of a chain of products is found and gives the same product as left to right
+ */
+public class MatrixChainTest {
+
+    @Test
+    public void verify_order_of_textbook_chain() {
+        //the six matrices of the classic example - 15125 multiply-adds at best
+        int[] dimensions = {30, 35, 15, 5, 10, 20, 25};
+
+        int[][] split = MatrixChain.order(dimensions);
+
+        assertThat(MatrixChain.cost(dimensions, split), equalTo(15125L));
+        //((A1 (A2 A3)) ((A4 A5) A6))
+        assertThat(split[0][5], equalTo(2));
+        assertThat(split[0][2], equalTo(0));
+        assertThat(split[3][5], equalTo(4));
+    }
+
+    @Test
+    public void verify_order_prefers_thin_intermediates() {
+        int[] dimensions = {1000, 10, 1000, 10};
+
+        int[][] split = MatrixChain.order(dimensions);
+
+        assertThat(MatrixChain.cost(dimensions, split), equalTo(200000L));
+        assertThat(MatrixChain.leftToRightCost(dimensions), equalTo(20000000L));
+    }
+
+    @Test
+    public void verify_multiply_matches_left_to_right() {
+        Matrix a = Matrix.buildMatrix(20, 3, Fixtures.random(20 * 3, 1));
+        Matrix b = Matrix.buildMatrix(3, 40, Fixtures.random(3 * 40, 2));
+        Matrix c = Matrix.buildMatrix(40, 2, Fixtures.random(40 * 2, 3));
+        Matrix d = Matrix.buildMatrix(2, 30, Fixtures.random(2 * 30, 4));
+
+        Matrix expected = MatrixAlgebra.multiply(MatrixAlgebra.multiply(MatrixAlgebra.multiply(a, b), c), d);
+        Matrix actual = MatrixChain.multiply(Arrays.asList(a, b, c, d));
+
+        for(int i = 0; i < 20; i++) {
+            for(int j = 0; j < 30; j++) {
+                assertThat(Math.abs(expected.getNumber(i, j) - actual.getNumber(i, j)) < 1e-9, equalTo(true));
+            }
+        }
+    }
+
+    @Test(expected = ColumnsMustEqualRowsException.class)
+    public void verify_multiply_throws_ColumnsMustEqualRowsException_when_shapes_do_not_chain() {
+        MatrixChain.multiply(Arrays.asList(Matrix.buildIdentityMatrix(2), Matrix.buildIdentityMatrix(3)));
+    }
+
+}
@@ -0,0 +1,192 @@
+package io.github.dgflagg.io;
+
+import io.github.dgflagg.MatrixAlgebra;
+import io.github.dgflagg.exceptions.MatrixFormatException;
+import io.github.dgflagg.exceptions.MatrixStorageException;
+import io.github.dgflagg.kernel.Parallel;
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.SparseMatrix;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the byte level csv scanner against Double.parseDouble and the chunked parallel read against a single pass
+ */
+public class CsvMatrixReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ForkJoinPool pool;
+    private ForkJoinPool originalPool;
+
+    @Before
+    public void setup() {
+        this.originalPool = Parallel.getPool();
+        this.pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void teardown() {
+        Parallel.setPool(this.originalPool);
+        this.pool.shutdown();
+    }
+
+    private static Matrix read(String text) {
+        return CsvMatrixReader.read(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private Path write(String text) throws IOException {
+        Path file = this.folder.newFile().toPath();
+        Files.write(file, text.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    private static String csv(int rows, int columns, Random random, double density) {
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < rows; i++) {
+            for(int j = 0; j < columns; j++) {
+                if(j > 0) {
+                    text.append(',');
+                }
+                text.append(random.nextDouble() < density ? Double.toString(random.nextGaussian() * 1000) : "0.0");
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void verify_read_file() {
+        Matrix matrix = CsvMatrixReader.read(Paths.get("src/test/resources/3x3-matrix.csv"));
+
+        assertThat(matrix.getRowCount(), equalTo(3));
+        assertThat(matrix.getColumnCount(), equalTo(3));
+        assertThat(matrix.getNumber(0, 0), equalTo(1.0));
+        assertThat(matrix.getNumber(2, 2), equalTo(9.0));
+    }
+
+    @Test
+    public void verify_read_ignores_spaces_blank_lines_and_carriage_returns() {
+        Matrix matrix = read("\n 1, 2.5 ,-3\r\n\r\n4,\t5,6e1\n\n");
+
+        assertThat(matrix.toString(), equalTo("[[1.0,2.5,-3.0],[4.0,5.0,60.0]]"));
+    }
+
+    @Test
+    public void verify_read_without_trailing_line_break() {
+        assertThat(read("1,2\n3,4").toString(), equalTo("[[1.0,2.0],[3.0,4.0]]"));
+    }
+
+    @Test
+    public void verify_read_empty() {
+        assertThat(read("").getRowCount(), equalTo(0));
+        assertThat(read("\n\n").getRowCount(), equalTo(0));
+    }
+
+    @Test
+    public void verify_read_matrices_separated_by_blank_lines() {
+        Matrix[] matrices = CsvMatrixReader.read(new ByteArrayInputStream(
+                "\n1,2\n3,4\n\n\n5\n6\n\n".getBytes(StandardCharsets.US_ASCII)), 2);
+
+        assertThat(matrices[0].toString(), equalTo("[[1.0,2.0],[3.0,4.0]]"));
+        assertThat(matrices[1].toString(), equalTo("[[5.0],[6.0]]"));
+    }
+
+    @Test(expected = MatrixFormatException.class)
+    public void verify_read_throws_MatrixFormatException_when_matrices_are_missing() {
+        CsvMatrixReader.read(new ByteArrayInputStream("1,2\n3,4\n".getBytes(StandardCharsets.US_ASCII)), 2);
+    }
+
+    @Test
+    public void verify_parse_matches_Double_parseDouble() {
+        String[] values = {"0", "-1.25", "+7", "007.50", "1.0E-5", "1e22", "1e23", "123456789012345",
+                "1234567890123456789", "0.1", "0.30000000000000004", "4.9E-324", "1.7976931348623157E308",
+                "2.2250738585072014E-308", "NaN", "-Infinity", ".5", "5."};
+
+        for(String value : values) {
+            double expected = Double.parseDouble(value);
+            double actual = read(value).getNumber(0, 0);
+            assertThat(value, Double.doubleToLongBits(actual), equalTo(Double.doubleToLongBits(expected)));
+        }
+
+        Random random = new Random(6);
+        for(int t = 0; t < 10000; t++) {
+            double expected = Double.longBitsToDouble(random.nextLong());
+            if(t % 2 == 0) {
+                //short values that take the fast path
+                expected = Math.round(random.nextGaussian() * 1e6) / 1e3;
+            }
+            String value = Double.toString(expected);
+            assertThat(value, Double.doubleToLongBits(read(value).getNumber(0, 0)),
+                    equalTo(Double.doubleToLongBits(expected)));
+        }
+    }
+
+    @Test
+    public void verify_parallel_read_matches_single_pass() throws IOException {
+        Path file = this.write(csv(300, 17, new Random(3), 1d));
+        Matrix expected = CsvMatrixReader.read(file);
+
+        Parallel.setPool(this.pool);
+        Matrix actual = CsvMatrixReader.read(file, 1024);
+
+        assertThat(actual.getRowCount(), equalTo(300));
+        assertThat(actual.getColumnCount(), equalTo(17));
+        assertTrue(MatrixAlgebra.isEqual(expected, actual));
+    }
+
+    @Test
+    public void verify_parallel_read_keeps_sparse_chunks_sparse() throws IOException {
+        Path file = this.write(csv(400, 60, new Random(4), 0.02));
+        Matrix expected = CsvMatrixReader.read(file);
+
+        Parallel.setPool(this.pool);
+        Matrix actual = CsvMatrixReader.read(file, 16 * 1024);
+
+        assertThat(expected, instanceOf(SparseMatrix.class));
+        assertThat(actual, instanceOf(SparseMatrix.class));
+        assertTrue(MatrixAlgebra.isEqual(expected, actual));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void verify_parallel_read_throws_IllegalArgumentException_when_jagged() throws IOException {
+        Path file = this.write(csv(100, 10, new Random(5), 1d) + "1,2\n" + csv(100, 10, new Random(5), 1d));
+
+        Parallel.setPool(this.pool);
+        CsvMatrixReader.read(file, 512);
+    }
+
+    @Test(expected = MatrixFormatException.class)
+    public void verify_read_throws_MatrixFormatException_when_value_is_not_a_number() {
+        read("1,2\n3,x\n");
+    }
+
+    @Test(expected = MatrixFormatException.class)
+    public void verify_read_throws_MatrixFormatException_when_value_is_missing() {
+        read("1,,2\n");
+    }
+
+    @Test(expected = MatrixStorageException.class)
+    public void verify_read_throws_MatrixStorageException_when_file_does_not_exist() {
+        CsvMatrixReader.read(Paths.get("does-not-exist.csv"));
+    }
+
+}
@@ -0,0 +1,146 @@
+package io.github.dgflagg.io;
+
+import io.github.dgflagg.MatrixAlgebra;
+import io.github.dgflagg.exceptions.MatrixFormatException;
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.SparseMatrix;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Round trips matrices through the binary stream encoding
+ */
+public class MatrixBinaryCodecTest {
+
+    private static byte[] write(Matrix... matrices) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for(Matrix matrix : matrices) {
+            MatrixBinaryCodec.write(matrix, out);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void verify_write_and_read_dense() throws IOException {
+        Random random = new Random(11);
+        double[] values = new double[300 * 70];
+        for(int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian();
+        }
+        Matrix matrix = Matrix.buildMatrix(300, 70, values);
+
+        byte[] bytes = write(matrix);
+
+        assertThat((long) bytes.length, equalTo(MatrixFile.byteCount(matrix)));
+        assertTrue(MatrixAlgebra.isEqual(matrix, MatrixBinaryCodec.read(new ByteArrayInputStream(bytes))));
+    }
+
+    @Test
+    public void verify_write_and_read_sparse() throws IOException {
+        double[] data = new double[100 * 100];
+        for(int i = 0; i < 100; i++) {
+            data[i * 100 + (i * 13) % 100] = i + 0.5;
+        }
+        SparseMatrix matrix = Matrix.buildSparseMatrix(Matrix.buildMatrix(100, 100, data));
+
+        Matrix read = MatrixBinaryCodec.read(new ByteArrayInputStream(write(matrix)));
+
+        assertThat(read, instanceOf(SparseMatrix.class));
+        assertTrue(MatrixAlgebra.isEqual(matrix, read));
+    }
+
+    @Test
+    public void verify_read_several_matrices() throws IOException {
+        Matrix m1 = Matrix.fromString("[[1,2],[3,4]]");
+        Matrix m2 = Matrix.fromString("[[5,6,7]]");
+
+        Matrix[] matrices = MatrixBinaryCodec.read(new ByteArrayInputStream(write(m1, m2)), 2);
+
+        assertThat(matrices[0].toString(), equalTo(m1.toString()));
+        assertThat(matrices[1].toString(), equalTo(m2.toString()));
+    }
+
+    @Test(expected = MatrixFormatException.class)
+    public void verify_read_throws_MatrixFormatException_when_truncated() throws IOException {
+        byte[] bytes = write(Matrix.buildIdentityMatrix(5));
+
+        MatrixBinaryCodec.read(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1)));
+    }
+
+    @Test(expected = MatrixFormatException.class)
+    public void verify_read_throws_MatrixFormatException_when_not_a_matrix() throws IOException {
+        MatrixBinaryCodec.read(new ByteArrayInputStream(new byte[64]));
+    }
+
+    @Test(expected = MatrixFormatException.class)
+    public void verify_read_does_not_allocate_from_header_of_huge_matrix() throws IOException {
+        //a header claiming about 2^31 values followed by only a few of them
+        ByteBuffer buffer = ByteBuffer.allocate(MatrixFile.HEADER_BYTES + 64).order(ByteOrder.LITTLE_ENDIAN);
+        MatrixFile.putHeader(buffer, MatrixFile.DENSE, 46340, 46340, 46340L * 46340);
+
+        MatrixBinaryCodec.read(new ByteArrayInputStream(buffer.array()));
+    }
+
+    @Test(expected = MatrixFormatException.class)
+    public void verify_read_throws_MatrixFormatException_when_sparse_rows_overflow() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(MatrixFile.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        MatrixFile.putHeader(buffer, MatrixFile.SPARSE, Integer.MAX_VALUE, 1, 0);
+
+        MatrixBinaryCodec.read(new ByteArrayInputStream(buffer.array()));
+    }
+
+    @Test(expected = MatrixFormatException.class)
+    public void verify_read_throws_MatrixFormatException_when_row_pointers_decrease() throws IOException {
+        MatrixBinaryCodec.read(new ByteArrayInputStream(sparse(new int[] {0, 2, 1, 2}, new int[] {0, 1})));
+    }
+
+    @Test(expected = MatrixFormatException.class)
+    public void verify_read_throws_MatrixFormatException_when_row_pointers_do_not_end_at_value_count() throws IOException {
+        MatrixBinaryCodec.read(new ByteArrayInputStream(sparse(new int[] {0, 1, 1, 1}, new int[] {0, 1})));
+    }
+
+    @Test(expected = MatrixFormatException.class)
+    public void verify_read_throws_MatrixFormatException_when_column_index_out_of_range() throws IOException {
+        MatrixBinaryCodec.read(new ByteArrayInputStream(sparse(new int[] {0, 1, 2, 2}, new int[] {0, 3})));
+    }
+
+    @Test(expected = MatrixFormatException.class)
+    public void verify_read_throws_MatrixFormatException_when_columns_of_row_not_increasing() throws IOException {
+        MatrixBinaryCodec.read(new ByteArrayInputStream(sparse(new int[] {0, 2, 2, 2}, new int[] {1, 1})));
+    }
+
+    /**
+     * A 3 x 3 sparse matrix with the row pointers and column indexes as given and a value of 1 for every index
+     */
+    private static byte[] sparse(int[] rowPointers, int[] columnIndices) {
+        int count = columnIndices.length;
+        ByteBuffer buffer = ByteBuffer.allocate(MatrixFile.HEADER_BYTES + count * 12 + rowPointers.length * 4)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        MatrixFile.putHeader(buffer, MatrixFile.SPARSE, 3, 3, count);
+        for(int i = 0; i < count; i++) {
+            buffer.putDouble(1d);
+        }
+        for(int column : columnIndices) {
+            buffer.putInt(column);
+        }
+        for(int pointer : rowPointers) {
+            buffer.putInt(pointer);
+        }
+
+        return buffer.array();
+    }
+
+}
@@ -0,0 +1,199 @@
+package io.github.dgflagg.io;
+
+import io.github.dgflagg.MatrixAlgebra;
+import io.github.dgflagg.exceptions.MatrixStorageException;
+import io.github.dgflagg.model.MappedMatrix;
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.MatrixUpdate;
+import io.github.dgflagg.model.SparseMatrix;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Round trips matrices through the binary file format
+ */
+public class MatrixFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void verify_write_and_read_dense() throws IOException {
+        Matrix matrix = Matrix.csv("src/test/resources/B.csv");
+        Path file = this.folder.newFile("B" + MatrixFile.FILE_EXTENSION).toPath();
+
+        MatrixFile.write(matrix, file);
+
+        assertThat(Files.size(file), equalTo(MatrixFile.byteCount(matrix)));
+        assertTrue(MatrixAlgebra.isEqual(matrix, MatrixFile.read(file)));
+    }
+
+    @Test
+    public void verify_map_dense_does_not_copy_onto_heap() throws IOException {
+        Matrix matrix = Matrix.csv("src/test/resources/2x4-matrix.csv");
+        Path file = this.folder.newFile().toPath();
+
+        MatrixFile.write(matrix, file);
+        Matrix mapped = MatrixFile.map(file);
+
+        assertThat(mapped, instanceOf(MappedMatrix.class));
+        assertTrue(MatrixAlgebra.isEqual(matrix, mapped));
+        assertTrue(MatrixAlgebra.isEqual(matrix, mapped.toDense()));
+    }
+
+    @Test
+    public void verify_write_and_read_sparse() throws IOException {
+        double[] data = new double[50 * 50];
+        for(int i = 0; i < 50; i++) {
+            data[i * 50 + (i * 7) % 50] = i - 25;
+        }
+        SparseMatrix matrix = Matrix.buildSparseMatrix(Matrix.buildMatrix(50, 50, data));
+        Path file = this.folder.newFile().toPath();
+
+        MatrixFile.write(matrix, file);
+        Matrix read = MatrixFile.read(file);
+
+        assertThat(Files.size(file), equalTo(MatrixFile.byteCount(matrix)));
+        assertThat(read, instanceOf(SparseMatrix.class));
+        assertTrue(MatrixAlgebra.isEqual(matrix, read));
+        assertTrue(MatrixAlgebra.isEqual(matrix, MatrixFile.map(file)));
+    }
+
+    @Test
+    public void verify_write_and_read_empty() throws IOException {
+        Matrix matrix = Matrix.buildZeroMatrix(0, 0);
+        Path file = this.folder.newFile().toPath();
+
+        MatrixFile.write(matrix, file);
+
+        assertThat(MatrixFile.read(file).getRowCount(), equalTo(0));
+        assertThat(MatrixFile.map(file).getRowCount(), equalTo(0));
+    }
+
+    @Test
+    public void verify_header_is_little_endian() throws IOException {
+        Path file = this.folder.newFile().toPath();
+        MatrixFile.write(Matrix.buildIdentityMatrix(3), file);
+
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+
+        assertThat(bytes.getInt(0), equalTo(MatrixFile.MAGIC));
+        assertThat(bytes.getInt(8), equalTo(3));
+        assertThat(bytes.getInt(12), equalTo(3));
+        assertThat(bytes.getDouble(MatrixFile.HEADER_BYTES), equalTo(1d));
+    }
+
+    @Test(expected = MatrixStorageException.class)
+    public void verify_read_throws_MatrixStorageException_when_file_is_not_a_matrix() throws IOException {
+        Path file = this.folder.newFile().toPath();
+        Files.write(file, "1,2,3\n4,5,6\n7,8,9\n0,0,0\n".getBytes());
+
+        MatrixFile.read(file);
+    }
+
+    @Test(expected = MatrixStorageException.class)
+    public void verify_read_throws_MatrixStorageException_when_file_is_truncated() throws IOException {
+        Path file = this.folder.newFile().toPath();
+        MatrixFile.write(Matrix.buildIdentityMatrix(10), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 8));
+
+        MatrixFile.read(file);
+    }
+
+    @Test
+    public void verify_read_block_of_dense() throws IOException {
+        double[] data = new double[20 * 10];
+        for(int k = 0; k < data.length; k++) {
+            data[k] = k;
+        }
+        Matrix matrix = Matrix.buildMatrix(20, 10, data);
+        Path file = this.folder.newFile().toPath();
+        MatrixFile.write(matrix, file);
+
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            assertTrue(MatrixAlgebra.isEqual(matrix.submatrix(5, 8, 0, 10), MatrixFile.read(channel, 0, 5, 8, 0, 10)));
+            assertTrue(MatrixAlgebra.isEqual(matrix.submatrix(5, 8, 2, 7), MatrixFile.read(channel, 0, 5, 8, 2, 7)));
+
+            //ranges past the end are cut off
+            assertTrue(MatrixAlgebra.isEqual(matrix.submatrix(18, 20, 9, 10),
+                    MatrixFile.read(channel, 0, 18, Integer.MAX_VALUE, 9, Integer.MAX_VALUE)));
+
+        }
+    }
+
+    @Test
+    public void verify_read_block_of_sparse() throws IOException {
+        double[] data = new double[30 * 30];
+        for(int i = 0; i < 30; i++) {
+            data[i * 30 + i] = i + 1;
+            data[i * 30 + (i * 7) % 30] = -i;
+        }
+        Matrix matrix = Matrix.buildSparseMatrix(Matrix.buildMatrix(30, 30, data));
+        Path file = this.folder.newFile().toPath();
+        MatrixFile.write(matrix, file);
+
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            Matrix rows = MatrixFile.read(channel, 0, 10, 20, 0, 30);
+            assertThat(rows, instanceOf(SparseMatrix.class));
+            assertTrue(MatrixAlgebra.isEqual(matrix.submatrix(10, 20, 0, 30), rows));
+
+            Matrix block = MatrixFile.read(channel, 0, 10, 20, 5, 15);
+            assertThat(block, instanceOf(SparseMatrix.class));
+            assertTrue(MatrixAlgebra.isEqual(Matrix.buildMatrix(30, 30, data).submatrix(10, 20, 5, 15), block));
+
+        }
+    }
+
+    @Test
+    public void verify_update_writes_dense_values_in_place() throws IOException {
+        Matrix matrix = Matrix.buildIdentityMatrix(4);
+        Path file = this.folder.newFile().toPath();
+        MatrixFile.write(matrix, file);
+
+        MatrixUpdate update = new MatrixUpdate();
+        update.getRows().add(new MatrixUpdate.Line(1, new double[] {5, 6, 7, 8}));
+        update.getColumns().add(new MatrixUpdate.Line(3, new double[] {-1, -2, -3, -4}));
+        update.getCells().add(new MatrixUpdate.Cell(2, 0, 9));
+
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            assertTrue(MatrixFile.update(channel, 0, update));
+        }
+
+        assertThat(Files.size(file), equalTo(MatrixFile.byteCount(matrix)));
+        assertTrue(MatrixAlgebra.isEqual(update.apply(matrix), MatrixFile.read(file)));
+    }
+
+    @Test
+    public void verify_update_leaves_sparse_matrix_alone() throws IOException {
+        Matrix matrix = Matrix.buildSparseMatrix(Matrix.buildIdentityMatrix(4));
+        Path file = this.folder.newFile().toPath();
+        MatrixFile.write(matrix, file);
+
+        MatrixUpdate update = new MatrixUpdate();
+        update.getCells().add(new MatrixUpdate.Cell(2, 0, 9));
+
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            assertThat(MatrixFile.update(channel, 0, update), equalTo(false));
+        }
+
+        assertTrue(MatrixAlgebra.isEqual(matrix, MatrixFile.read(file)));
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.dgflagg.io;
+
+import io.github.dgflagg.model.Matrix;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Checks the json writer against Double.toString and that everything it writes parses back exactly
+ */
+public class MatrixJsonWriterTest {
+
+    private static String write(Matrix matrix) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatrixJsonWriter.write(matrix, out);
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void verify_write() throws IOException {
+        Matrix matrix = Matrix.fromString("[[1,-2.5,0.001,1234567],[0.1,-0.0,12345678,6.02e23]]");
+
+        assertThat(write(matrix), equalTo("[[1.0,-2.5,0.001,1234567.0],[0.1,0.0,1.2345678E7,6.02E23]]"));
+    }
+
+    @Test
+    public void verify_write_empty() throws IOException {
+        assertThat(write(Matrix.buildZeroMatrix(0, 0)), equalTo("[]"));
+    }
+
+    @Test
+    public void verify_write_matches_toString_for_short_values() throws IOException {
+        Random random = new Random(9);
+        double[] values = new double[2000];
+        for(int i = 0; i < values.length; i++) {
+            values[i] = Math.round(random.nextGaussian() * 1e6) / Math.pow(10, random.nextInt(7));
+        }
+        Matrix matrix = Matrix.buildMatrix(40, 50, values);
+
+        assertThat(write(matrix), equalTo(matrix.toString()));
+    }
+
+    @Test
+    public void verify_write_reads_back_exactly() throws IOException {
+        Random random = new Random(10);
+        double[] values = new double[3000];
+        for(int i = 0; i < values.length; i++) {
+            values[i] = i % 3 == 0 ? random.nextDouble() : random.nextGaussian() * Math.pow(10, random.nextInt(20) - 10);
+        }
+        Matrix matrix = Matrix.buildMatrix(60, 50, values);
+
+        Matrix read = MatrixParser.parse(write(matrix));
+
+        for(int i = 0; i < 60; i++) {
+            for(int j = 0; j < 50; j++) {
+                assertThat(Double.doubleToLongBits(read.getNumber(i, j)),
+                        equalTo(Double.doubleToLongBits(matrix.getNumber(i, j))));
+            }
+        }
+    }
+
+    @Test
+    public void verify_write_non_finite_values_as_strings() throws IOException {
+        Matrix matrix = Matrix.buildMatrix(1, 3, new double[]{Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY});
+
+        assertThat(write(matrix), equalTo("[[\"NaN\",\"Infinity\",\"-Infinity\"]]"));
+    }
+
+}
@@ -0,0 +1,154 @@
+package io.github.dgflagg.io;
+
+import io.github.dgflagg.MatrixAlgebra;
+import io.github.dgflagg.exceptions.MatrixFormatException;
+import io.github.dgflagg.model.Matrix;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the single pass nested array parser and the positions it reports errors at
+ */
+public class MatrixParserTest {
+
+    private static void verifyError(String text, String message) {
+        try {
+            MatrixParser.parse(text);
+            fail("expected a MatrixFormatException for: " + text);
+        } catch (MatrixFormatException e) {
+            assertThat(e.getMessage(), containsString(message));
+        }
+    }
+
+    @Test
+    public void verify_parse() {
+        Matrix matrix = MatrixParser.parse("[[1,2,3],[4,5.5,-6e2]]");
+
+        assertThat(matrix.getRowCount(), equalTo(2));
+        assertThat(matrix.getColumnCount(), equalTo(3));
+        assertThat(matrix.toString(), equalTo("[[1.0,2.0,3.0],[4.0,5.5,-600.0]]"));
+    }
+
+    @Test
+    public void verify_parse_allows_whitespace_between_tokens() {
+        Matrix matrix = MatrixParser.parse(" [ [1 , 2] ,\n [3,\t4] ] \n");
+
+        assertThat(matrix.toString(), equalTo("[[1.0,2.0],[3.0,4.0]]"));
+    }
+
+    @Test
+    public void verify_parse_flat_array_is_a_single_row() {
+        Matrix matrix = MatrixParser.parse("[1,2,3]");
+
+        assertThat(matrix.getRowCount(), equalTo(1));
+        assertThat(matrix.getColumnCount(), equalTo(3));
+    }
+
+    @Test
+    public void verify_parse_empty() {
+        assertThat(MatrixParser.parse("[]").getRowCount(), equalTo(0));
+        assertThat(MatrixParser.parse(" [ ] ").getColumnCount(), equalTo(0));
+    }
+
+    @Test
+    public void verify_parse_reads_across_buffer_boundaries() {
+        Random random = new Random(7);
+        double[] values = new double[300 * 40];
+        for(int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian() * 1e5;
+        }
+        Matrix expected = Matrix.buildMatrix(300, 40, values);
+
+        //a reader that hands back a few characters at a time
+        Reader reader = new StringReader(expected.toString()) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 7));
+            }
+        };
+
+        assertTrue(MatrixAlgebra.isEqual(expected, MatrixParser.parse(reader)));
+    }
+
+    @Test
+    public void verify_parser_reads_several_matrices_from_one_text() {
+        MatrixParser parser = new MatrixParser(new StringReader("[[1]] [[2,3]]"));
+
+        assertThat(parser.readMatrix().toString(), equalTo("[[1.0]]"));
+        assertThat(parser.readMatrix().toString(), equalTo("[[2.0,3.0]]"));
+        parser.readEnd();
+    }
+
+    @Test
+    public void verify_readOperands() {
+        MatrixParser parser = new MatrixParser(new StringReader("{\"m2\": [[3,4]], \"m1\" : [[1],[2]]}"));
+        Matrix[] operands = parser.readOperands("m1", "m2");
+
+        assertThat(operands[0].toString(), equalTo("[[1.0],[2.0]]"));
+        assertThat(operands[1].toString(), equalTo("[[3.0,4.0]]"));
+    }
+
+    @Test
+    public void verify_readOperands_of_one_name_allows_just_the_matrix() {
+        MatrixParser parser = new MatrixParser(new StringReader("[[1,2]]"));
+
+        assertThat(parser.readOperands("m")[0].toString(), equalTo("[[1.0,2.0]]"));
+    }
+
+    @Test
+    public void verify_readOperands_reports_missing_and_unexpected_operands() {
+        try {
+            new MatrixParser(new StringReader("{\"m1\": [[1]]}")).readOperands("m1", "m2");
+            fail("expected a MatrixFormatException");
+        } catch (MatrixFormatException e) {
+            assertThat(e.getMessage(), containsString("missing operand \"m2\""));
+        }
+
+        try {
+            new MatrixParser(new StringReader("{\"m3\": [[1]]}")).readOperands("m1", "m2");
+            fail("expected a MatrixFormatException");
+        } catch (MatrixFormatException e) {
+            assertThat(e.getMessage(), containsString("unexpected operand \"m3\""));
+        }
+    }
+
+    @Test
+    public void verify_readNamedOperands_reads_any_names_in_order() {
+        MatrixParser parser = new MatrixParser(new StringReader("{\"B\": [[1],[2]], \"A\": [[3,4]]}"));
+
+        Map<String, Matrix> operands = parser.readNamedOperands();
+
+        assertThat(new ArrayList<>(operands.keySet()), equalTo(Arrays.asList("B", "A")));
+        assertThat(operands.get("A").toString(), equalTo("[[3.0,4.0]]"));
+    }
+
+    @Test
+    public void verify_parse_reports_error_positions() {
+        verifyError("[[1,2],[3,x]]", "cannot parse: \"x\" at position 10");
+        verifyError("[[1,2],[3,]]", "expected a number but found ']' at position 10");
+        verifyError("[[1,2],[3]]", "jagged matrices are not supported - row 1 has 1 values but the first row has 2 at position 10");
+        verifyError("[[1,2] [3,4]]", "expected ',' or ']' but found '[' at position 7");
+        verifyError("[[1,2],[3,4]", "expected ',' or ']' but found the end of the text at position 12");
+        verifyError("1,2", "expected '[' but found '1' at position 0");
+        verifyError("[[1]]]", "expected the end of the text but found ']' at position 5");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void verify_parse_throws_IllegalArgumentException_when_not_a_matrix() {
+        MatrixParser.parse("");
+    }
+
+}
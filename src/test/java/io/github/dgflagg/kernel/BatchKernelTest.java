@@ -0,0 +1,60 @@
+package io.github.dgflagg.kernel;
+
+import io.github.dgflagg.Fixtures;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Checks the unrolled and general batch kernels against the blocked kernel one product at a time
+ */
+public class BatchKernelTest {
+
+    private static void verify(int m, int k, int n, boolean broadcast) {
+        int count = 25;
+        long seed = m * 31 + k * 17 + n;
+        double[] a = Fixtures.random((broadcast ? 1 : count) * m * k, seed);
+        double[] b = Fixtures.random(count * k * n, seed + 1);
+        double[] c = new double[count * m * n];
+
+        BatchKernel.multiply(a, broadcast ? 0 : m * k, b, k * n, c, 0, 10, m, k, n);
+        BatchKernel.multiply(a, broadcast ? 0 : m * k, b, k * n, c, 10, count, m, k, n);
+
+        double[] expected = new double[m * n];
+        double[] product = new double[m * n];
+        for(int t = 0; t < count; t++) {
+
+            double[] at = new double[m * k];
+            double[] bt = new double[k * n];
+            System.arraycopy(a, broadcast ? 0 : t * m * k, at, 0, m * k);
+            System.arraycopy(b, t * k * n, bt, 0, k * n);
+            GemmKernel.multiply(at, bt, expected, m, k, n);
+
+            System.arraycopy(c, t * m * n, product, 0, m * n);
+            assertArrayEquals(expected, product, 1e-12);
+
+        }
+    }
+
+    @Test
+    public void verify_unrolled_square_kernels() {
+        verify(2, 2, 2, false);
+        verify(3, 3, 3, false);
+        verify(4, 4, 4, false);
+    }
+
+    @Test
+    public void verify_general_kernel() {
+        verify(1, 1, 1, false);
+        verify(4, 4, 1, false);
+        verify(2, 5, 3, false);
+        verify(6, 6, 6, false);
+    }
+
+    @Test
+    public void verify_broadcast_of_single_matrix() {
+        verify(4, 4, 4, true);
+        verify(3, 2, 4, true);
+    }
+
+}
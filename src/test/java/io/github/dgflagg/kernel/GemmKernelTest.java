@@ -0,0 +1,82 @@
+package io.github.dgflagg.kernel;
+
+import io.github.dgflagg.Fixtures;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Checks the blocked kernel against a plain triple loop
+ */
+public class GemmKernelTest {
+
+    private static final double DELTA = 1e-9;
+
+    private static double[] naiveMultiply(double[] a, double[] b, int m, int k, int n) {
+        double[] c = new double[m * n];
+        for(int i = 0; i < m; i++) {
+            for(int j = 0; j < n; j++) {
+                double sum = 0;
+                for(int p = 0; p < k; p++) {
+                    sum += a[i * k + p] * b[p * n + j];
+                }
+                c[i * n + j] = sum;
+            }
+        }
+        return c;
+    }
+
+    private static void verify(int m, int k, int n) {
+        long seed = m * 31 + k * 17 + n;
+        double[] a = Fixtures.random(m * k, seed);
+        double[] b = Fixtures.random(k * n, seed + 1);
+        double[] c = new double[m * n];
+
+        GemmKernel.multiply(a, b, c, m, k, n);
+
+        assertArrayEquals(naiveMultiply(a, b, m, k, n), c, DELTA);
+    }
+
+    @Test
+    public void verify_multiply_small() {
+        verify(1, 1, 1);
+        verify(2, 3, 4);
+        verify(3, 3, 3);
+        verify(5, 1, 7);
+    }
+
+    @Test
+    public void verify_multiply_with_remainders_in_every_block() {
+        //odd sizes that do not line up with the 2 x 4 tile or any of the cache blocks
+        verify(67, 131, 69);
+        verify(129, 257, 3);
+        verify(1, 300, 65);
+    }
+
+    @Test
+    public void verify_multiply_overwrites_c() {
+        double[] a = {1d, 2d, 3d, 4d};
+        double[] b = {5d, 6d, 7d, 8d};
+        double[] c = {100d, 100d, 100d, 100d};
+
+        GemmKernel.multiply(a, b, c, 2, 2, 2);
+
+        assertArrayEquals(new double[]{19d, 22d, 43d, 50d}, c, 0d);
+    }
+
+    @Test
+    public void verify_transpose() {
+        double[] b = {1d, 2d, 3d, 4d, 5d, 6d};
+        assertArrayEquals(new double[]{1d, 4d, 2d, 5d, 3d, 6d}, GemmKernel.transpose(b, 2, 3), 0d);
+    }
+
+    @Test
+    public void verify_dot() {
+        double[] x = {0d, 1d, 2d, 3d, 4d, 5d};
+        double[] y = {1d, 1d, 1d, 1d, 1d, 2d};
+        assertThat(GemmKernel.dot(x, 1, y, 0, 5), equalTo(15d));
+    }
+
+}
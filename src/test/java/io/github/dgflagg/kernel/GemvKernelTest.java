@@ -0,0 +1,64 @@
+package io.github.dgflagg.kernel;
+
+import io.github.dgflagg.Fixtures;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Checks the matrix x vector kernels against plain loops
+ */
+public class GemvKernelTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void verify_multiply_matches_plain_loop() {
+        //rows not a multiple of four so the last rows are done one at a time
+        for(int[] shape : new int[][] {{1, 1}, {3, 5}, {7, 1}, {130, 67}}) {
+
+            int m = shape[0];
+            int n = shape[1];
+            long seed = m * 31 + n;
+            double[] a = Fixtures.random(m * n, seed);
+            double[] x = Fixtures.random(n, seed + 1);
+
+            double[] expected = new double[m];
+            for(int i = 0; i < m; i++) {
+                for(int p = 0; p < n; p++) {
+                    expected[i] += a[i * n + p] * x[p];
+                }
+            }
+
+            double[] y = new double[m];
+            GemvKernel.multiply(a, x, y, 0, m, n);
+
+            assertArrayEquals(expected, y, DELTA);
+
+        }
+    }
+
+    @Test
+    public void verify_multiplyTransposed_matches_plain_loop() {
+        //more columns than a block so the columns are split
+        int m = 40;
+        int n = GemvKernel.BLOCK_J * 2 + 7;
+        double[] a = Fixtures.random(m * n, 7);
+        double[] x = Fixtures.random(m, 8);
+
+        double[] expected = new double[n];
+        for(int j = 0; j < n; j++) {
+            for(int i = 0; i < m; i++) {
+                expected[j] += x[i] * a[i * n + j];
+            }
+        }
+
+        //the result starts dirty to check every value is overwritten
+        double[] y = Fixtures.random(n, 9);
+        GemvKernel.multiplyTransposed(a, x, y, 0, 300, m, n);
+        GemvKernel.multiplyTransposed(a, x, y, 300, n, m, n);
+
+        assertArrayEquals(expected, y, DELTA);
+    }
+
+}
@@ -0,0 +1,77 @@
+package io.github.dgflagg.kernel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the range splitting used by the parallel algebra operations
+ */
+public class ParallelTest {
+
+    private ForkJoinPool pool;
+    private ForkJoinPool originalPool;
+    private long originalThreshold;
+
+    @Before
+    public void setup() {
+        this.originalPool = Parallel.getPool();
+        this.originalThreshold = Parallel.getThreshold();
+        this.pool = new ForkJoinPool(4);
+        Parallel.setPool(this.pool);
+    }
+
+    @After
+    public void teardown() {
+        Parallel.setPool(this.originalPool);
+        Parallel.setThreshold(this.originalThreshold);
+        this.pool.shutdown();
+    }
+
+    @Test
+    public void verify_forRange_visits_every_item_once() {
+        Parallel.setThreshold(0);
+        int count = 10007;
+        AtomicIntegerArray visits = new AtomicIntegerArray(count);
+
+        Parallel.forRange(count, 1, (start, end) -> {
+            for(int i = start; i < end; i++) {
+                visits.incrementAndGet(i);
+            }
+        });
+
+        for(int i = 0; i < count; i++) {
+            assertThat(visits.get(i), equalTo(1));
+        }
+    }
+
+    @Test
+    public void verify_forRange_stays_on_calling_thread_below_threshold() {
+        Parallel.setThreshold(1000);
+        Thread caller = Thread.currentThread();
+        boolean[] sameThread = {false};
+
+        Parallel.forRange(999, 1, (start, end) -> sameThread[0] = Thread.currentThread() == caller);
+
+        assertTrue(sameThread[0]);
+    }
+
+    @Test
+    public void verify_isParallel() {
+        Parallel.setThreshold(1000);
+        assertFalse(Parallel.isParallel(999));
+        assertTrue(Parallel.isParallel(1000));
+
+        Parallel.setThreshold(Long.MAX_VALUE);
+        assertFalse(Parallel.isParallel(Long.MAX_VALUE - 1));
+    }
+
+}
@@ -0,0 +1,83 @@
+package io.github.dgflagg.kernel;
+
+import io.github.dgflagg.Fixtures;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Checks Strassen against the classical kernel with a small cutoff so several levels of the recursion are run
+ */
+public class StrassenKernelTest {
+
+    private static final double DELTA = 1e-9;
+
+    private static void verify(int n, int cutoff) {
+        int previous = StrassenKernel.getCutoff();
+        long seed = n * 31 + cutoff;
+        double[] a = Fixtures.random(n * n, seed);
+        double[] b = Fixtures.random(n * n, seed + 1);
+        double[] expected = new double[n * n];
+        double[] c = Fixtures.random(n * n, seed + 2);
+
+        GemmKernel.multiply(a, b, expected, n, n, n);
+
+        try {
+            StrassenKernel.setCutoff(cutoff);
+            StrassenKernel.multiply(a, b, c, n);
+        } finally {
+            StrassenKernel.setCutoff(previous);
+        }
+
+        assertArrayEquals(expected, c, DELTA);
+    }
+
+    @Test
+    public void verify_multiply_power_of_two() {
+        verify(2, 1);
+        verify(16, 4);
+        verify(64, 8);
+    }
+
+    @Test
+    public void verify_multiply_pads_sizes_that_do_not_halve_to_the_cutoff() {
+        verify(1, 1);
+        verify(3, 1);
+        verify(37, 8);
+        verify(100, 16);
+    }
+
+    @Test
+    public void verify_multiply_at_or_below_cutoff_uses_classical_kernel() {
+        verify(16, 16);
+        verify(5, 256);
+    }
+
+    @Test
+    public void verify_multiply_in_parallel() {
+        long threshold = Parallel.getThreshold();
+
+        try {
+            Parallel.setThreshold(0);
+            verify(128, 8);
+            verify(90, 8);
+        } finally {
+            Parallel.setThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void verify_cutoff_is_at_least_one() {
+        int previous = StrassenKernel.getCutoff();
+
+        try {
+            StrassenKernel.setCutoff(0);
+            assertThat(StrassenKernel.getCutoff(), equalTo(1));
+        } finally {
+            StrassenKernel.setCutoff(previous);
+        }
+    }
+
+}
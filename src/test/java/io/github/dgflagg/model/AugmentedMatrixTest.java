@@ -0,0 +1,46 @@
+package io.github.dgflagg.model;
+
+import io.github.dgflagg.exceptions.ColumnsMustEqualRowsException;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Checks the side by side view of two matrices
+ */
+public class AugmentedMatrixTest {
+
+    @Test
+    public void verify_values_come_from_left_then_right() {
+        Matrix left = Matrix.buildIdentityMatrix(2);
+        Matrix right = Matrix.buildMatrix(2, 2, new double[] {5, 6, 7, 8});
+
+        AugmentedMatrix augmented = new AugmentedMatrix(left, right);
+
+        assertThat(augmented.getColumnCount(), equalTo(4));
+        assertArrayEquals(new double[] {1, 0, 5, 6, 0, 1, 7, 8}, augmented.toDense().getData(), 0d);
+
+        double[] row = new double[4];
+        augmented.copyRow(1, row);
+        assertArrayEquals(new double[] {0, 1, 7, 8}, row, 0d);
+    }
+
+    @Test
+    public void verify_sparse_and_view_operands() {
+        Matrix left = Matrix.buildSparseMatrix(Matrix.buildIdentityMatrix(3));
+        DenseMatrix right = Matrix.buildMatrix(3, 3, new double[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+
+        AugmentedMatrix augmented = new AugmentedMatrix(left, right.columnView(2));
+
+        assertThat(augmented.getNumber(2, 3), equalTo(9d));
+        assertThat(augmented.getNumber(2, 2), equalTo(1d));
+    }
+
+    @Test(expected = ColumnsMustEqualRowsException.class)
+    public void verify_throws_ColumnsMustEqualRowsException_when_rows_differ() {
+        new AugmentedMatrix(Matrix.buildIdentityMatrix(2), Matrix.buildIdentityMatrix(3));
+    }
+
+}
@@ -0,0 +1,94 @@
+package io.github.dgflagg.model;
+
+import io.github.dgflagg.Fixtures;
+import io.github.dgflagg.MatrixAlgebra;
+import io.github.dgflagg.exceptions.DimensionsNotSimilarException;
+import io.github.dgflagg.exceptions.IndexExceedsSizeException;
+import io.github.dgflagg.kernel.Parallel;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks lazily evaluated element-wise graphs give the same values as evaluating every operation on its own
+ */
+public class LazyMatrixTest {
+
+    @Test
+    public void verify_fused_graph_matches_eager_operations() {
+        //not a whole number of chunks so the last chunk is short
+        int m = 37;
+        int n = 91;
+        Matrix a = Matrix.buildMatrix(m, n, Fixtures.random(m * n, 1));
+        Matrix b = Matrix.buildMatrix(m, n, Fixtures.random(m * n, 2));
+        Matrix c = Matrix.buildMatrix(m, n, Fixtures.random(m * n, 3));
+
+        Matrix expected = MatrixAlgebra.subtract(MatrixAlgebra.add(MatrixAlgebra.scalarMultiply(a, 2), b), c);
+        DenseMatrix actual = Matrix.lazy(a).times(2).plus(b).minus(c).materialize();
+
+        assertArrayEquals(expected.toDense().getData(), actual.getData(), 0d);
+    }
+
+    @Test
+    public void verify_fused_graph_in_parallel() {
+        long threshold = Parallel.getThreshold();
+        int n = 300;
+        Matrix a = Matrix.buildMatrix(n, n, Fixtures.random(n * n, 4));
+        Matrix b = Matrix.buildMatrix(n, n, Fixtures.random(n * n, 5));
+
+        try {
+            Parallel.setThreshold(0);
+
+            //(a - b) o (a + b) = a o a - b o b
+            double[] actual = Matrix.lazy(a).minus(b).hadamard(Matrix.lazy(a).plus(b)).materialize().getData();
+            double[] aValues = a.toDense().getData();
+            double[] bValues = b.toDense().getData();
+
+            for(int k = 0; k < actual.length; k++) {
+                double expected = aValues[k] * aValues[k] - bValues[k] * bValues[k];
+                assertThat(Math.abs(expected - actual[k]) < 1e-12, equalTo(true));
+            }
+        } finally {
+            Parallel.setThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void verify_structured_operands_and_map() {
+        Matrix identity = Matrix.buildIdentityMatrix(3);
+        Matrix values = Matrix.buildMatrix(3, 3, new double[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+
+        LazyMatrix lazy = Matrix.lazy(values).plus(identity).map(Math::sqrt).times(3).times(2);
+
+        assertArrayEquals(new double[] {6 * Math.sqrt(2), 6 * Math.sqrt(2), 6 * Math.sqrt(3), 12, 6 * Math.sqrt(6),
+                6 * Math.sqrt(6), 6 * Math.sqrt(7), 6 * Math.sqrt(8), 6 * Math.sqrt(10)},
+                lazy.materialize().getData(), 1e-12);
+    }
+
+    @Test
+    public void verify_values_are_read_without_materializing() {
+        Matrix a = Matrix.buildMatrix(2, 3, new double[] {1, 2, 3, 4, 5, 6});
+        LazyMatrix lazy = Matrix.lazy(a).hadamard(a).minus(Matrix.buildValueMatrix(2, 3, 1));
+
+        double[] row = new double[3];
+        lazy.copyRow(1, row);
+
+        assertThat(lazy.getNumber(0, 2), equalTo(8d));
+        assertArrayEquals(new double[] {15, 24, 35}, row, 0d);
+        assertTrue(MatrixAlgebra.isEqual(lazy.toDense(), MatrixAlgebra.multiply(lazy, Matrix.buildIdentityMatrix(3))));
+    }
+
+    @Test(expected = DimensionsNotSimilarException.class)
+    public void verify_plus_throws_DimensionsNotSimilarException_when_dimensions_differ() {
+        Matrix.lazy(Matrix.buildZeroMatrix(2, 3)).plus(Matrix.buildZeroMatrix(3, 2));
+    }
+
+    @Test(expected = IndexExceedsSizeException.class)
+    public void verify_materialize_throws_IndexExceedsSizeException_when_values_do_not_fit_in_an_array() {
+        Matrix.lazy(Matrix.buildValueMatrix(50000, 50000, 1)).times(2).materialize();
+    }
+
+}
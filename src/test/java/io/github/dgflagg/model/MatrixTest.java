@@ -222,4 +222,79 @@ public class MatrixTest {
         }
     }
 
+    @Test
+    public void verify_buildMatrix_from_row_major_array() {
+        double[] data = {1d, 2d, 3d, 4d, 5d, 6d};
+        Matrix matrix = Matrix.buildMatrix(2, 3, data);
+
+        assertThat(matrix.getRowCount(), equalTo(2));
+        assertThat(matrix.getColumnCount(), equalTo(3));
+        assertThat(matrix.getNumber(0, 2), equalTo(3d));
+        assertThat(matrix.getNumber(1, 0), equalTo(4d));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void verify_buildMatrix_throws_IllegalArgumentException_when_data_does_not_match_dimensions() {
+        Matrix.buildMatrix(2, 3, new double[5]);
+    }
+
+    @Test(expected = IndexExceedsSizeException.class)
+    public void verify_getNumber_throws_IndexExceedsSizeException_when_j_is_greater_than_index_size() {
+        ZERO_MATRIX.getNumber(0, COLUMN_COUNT);
+    }
+
+    @Test
+    public void verify_getNumbers_reflects_values() {
+        Matrix m2x4 = Matrix.csv("src/test/resources/2x4-matrix.csv");
+        List<List<Double>> numbers = m2x4.getNumbers();
+
+        assertThat(numbers.size(), equalTo(2));
+        assertThat(numbers.get(0).size(), equalTo(4));
+        assertThat(numbers.get(1).get(3), equalTo(8d));
+        assertThat(m2x4.toString(), equalTo(numbers.toString().replace(" ", "")));
+    }
+
+    @Test
+    public void verify_submatrix_copies_block() {
+        Matrix m2x4 = Matrix.csv("src/test/resources/2x4-matrix.csv");
+
+        Matrix block = m2x4.submatrix(0, 2, 1, 3);
+
+        assertThat(block.getRowCount(), equalTo(2));
+        assertThat(block.getColumnCount(), equalTo(2));
+        for(int i = 0; i < 2; i++) {
+            for(int j = 0; j < 2; j++) {
+                assertThat(block.getNumber(i, j), equalTo(m2x4.getNumber(i, j + 1)));
+            }
+        }
+    }
+
+    @Test(expected = NegativeIndexException.class)
+    public void verify_submatrix_throws_NegativeIndexException_when_range_starts_below_zero() {
+        ZERO_MATRIX.submatrix(-1, 1, 0, 1);
+    }
+
+    @Test(expected = IndexExceedsSizeException.class)
+    public void verify_submatrix_throws_IndexExceedsSizeException_when_range_is_past_the_end() {
+        ZERO_MATRIX.submatrix(0, 1, 0, COLUMN_COUNT + 1);
+    }
+
+    @Test
+    public void verify_equals_compares_shape_and_values_across_storage() {
+        Matrix dense = Matrix.buildMatrix(3, 3, new double[] {1, 0, 0, 0, 1, 0, 0, 0, 1});
+        Matrix identity = Matrix.buildIdentityMatrix(3);
+        Matrix sparse = Matrix.buildSparseMatrix(dense);
+        Matrix view = Matrix.buildMatrix(3, 3, new double[] {1, 0, 0, 0, 1, 0, 0, 0, 1}).transposeView();
+
+        assertTrue(dense.equals(identity));
+        assertTrue(identity.equals(sparse));
+        assertTrue(sparse.equals(view));
+        assertThat(dense.hashCode(), equalTo(identity.hashCode()));
+        assertThat(sparse.hashCode(), equalTo(view.hashCode()));
+
+        assertFalse(dense.equals(Matrix.buildIdentityMatrix(2)));
+        assertFalse(dense.equals(Matrix.buildValueMatrix(3, 3, 1d)));
+        assertFalse(Matrix.buildZeroMatrix(1, 4).equals(Matrix.buildZeroMatrix(4, 1)));
+    }
+
 }
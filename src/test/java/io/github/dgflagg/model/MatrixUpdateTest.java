@@ -0,0 +1,62 @@
+package io.github.dgflagg.model;
+
+import io.github.dgflagg.exceptions.DimensionsNotSimilarException;
+import io.github.dgflagg.exceptions.IndexExceedsSizeException;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Checks applying changes to rows, columns and cells of a matrix
+ */
+public class MatrixUpdateTest {
+
+    @Test
+    public void verify_apply_changes_rows_then_columns_then_cells() {
+        Matrix matrix = Matrix.buildZeroMatrix(3, 3);
+        MatrixUpdate update = new MatrixUpdate();
+        update.getRows().add(new MatrixUpdate.Line(0, new double[] {1, 1, 1}));
+        update.getColumns().add(new MatrixUpdate.Line(2, new double[] {2, 2, 2}));
+        update.getCells().add(new MatrixUpdate.Cell(0, 2, 3));
+
+        DenseMatrix updated = update.apply(matrix);
+
+        assertArrayEquals(new double[] {1, 1, 3, 0, 0, 2, 0, 0, 2}, updated.getData(), 0d);
+        assertThat(update.getValueCount(), equalTo(7L));
+        //the matrix itself is not changed
+        assertThat(matrix.getNumber(0, 0), equalTo(0d));
+    }
+
+    @Test
+    public void verify_applyTo_block_only_changes_values_inside_the_block() {
+        DenseMatrix block = Matrix.buildMatrix(2, 2, new double[4]);
+        MatrixUpdate update = new MatrixUpdate();
+        update.getRows().add(new MatrixUpdate.Line(1, new double[] {1, 2, 3, 4}));
+        update.getCells().add(new MatrixUpdate.Cell(3, 3, 9));
+        update.getCells().add(new MatrixUpdate.Cell(0, 0, 9));
+
+        //the block is rows 1 to 3 and columns 2 to 4 of a 4 x 4 matrix
+        update.applyTo(block, 1, 2);
+
+        assertArrayEquals(new double[] {3, 4, 0, 0}, block.getData(), 0d);
+    }
+
+    @Test(expected = IndexExceedsSizeException.class)
+    public void verify_check_throws_IndexExceedsSizeException_when_cell_is_outside_matrix() {
+        MatrixUpdate update = new MatrixUpdate();
+        update.getCells().add(new MatrixUpdate.Cell(0, 3, 1));
+
+        update.check(3, 3);
+    }
+
+    @Test(expected = DimensionsNotSimilarException.class)
+    public void verify_check_throws_DimensionsNotSimilarException_when_row_is_the_wrong_length() {
+        MatrixUpdate update = new MatrixUpdate();
+        update.getRows().add(new MatrixUpdate.Line(0, new double[] {1, 2}));
+
+        update.check(3, 3);
+    }
+
+}
@@ -0,0 +1,125 @@
+package io.github.dgflagg.model;
+
+import io.github.dgflagg.MatrixAlgebra;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the compressed sparse row storage and the dense / sparse choice made by MatrixBuilder
+ */
+public class SparseMatrixTest {
+
+    private static final int N = 40;
+
+    /**
+     * N x N matrix with only the diagonal and the last column set - 2 / N of the values are non-zero
+     */
+    private static Matrix mostlyZeroes() {
+        double[] data = new double[N * N];
+        for(int i = 0; i < N; i++) {
+            data[i * N + i] = i + 1;
+            data[i * N + N - 1] = -1;
+        }
+        return Matrix.buildMatrix(N, N, data);
+    }
+
+    @Test
+    public void verify_buildSparseMatrix_keeps_only_non_zero_values() {
+        Matrix dense = mostlyZeroes();
+        SparseMatrix sparse = Matrix.buildSparseMatrix(dense);
+
+        assertThat(sparse.getRowCount(), equalTo(N));
+        assertThat(sparse.getColumnCount(), equalTo(N));
+        assertThat(sparse.getNonZeroCount(), equalTo(2 * N - 1));
+        assertThat(sparse.getNumber(3, 3), equalTo(4d));
+        assertThat(sparse.getNumber(3, 4), equalTo(0d));
+        assertThat(sparse.getNumber(3, N - 1), equalTo(-1d));
+        assertTrue(MatrixAlgebra.isEqual(dense, sparse));
+    }
+
+    @Test
+    public void verify_toDense() {
+        Matrix dense = mostlyZeroes();
+        DenseMatrix roundTrip = Matrix.buildSparseMatrix(dense).toDense();
+
+        assertTrue(MatrixAlgebra.isEqual(dense, roundTrip));
+    }
+
+    @Test
+    public void verify_builder_picks_sparse_for_mostly_zero_matrices() {
+        MatrixBuilder builder = new MatrixBuilder();
+        Matrix dense = mostlyZeroes();
+        for(int i = 0; i < N; i++) {
+            for(int j = 0; j < N; j++) {
+                builder.add(dense.getNumber(i, j));
+            }
+            builder.endRow();
+        }
+
+        Matrix built = builder.build();
+
+        assertThat(built, instanceOf(SparseMatrix.class));
+        assertTrue(MatrixAlgebra.isEqual(dense, built));
+    }
+
+    @Test
+    public void verify_builder_picks_dense_for_dense_and_small_matrices() {
+        MatrixBuilder builder = new MatrixBuilder();
+        for(int i = 0; i < N; i++) {
+            for(int j = 0; j < N; j++) {
+                //sparse first rows - the rest of the matrix is dense
+                builder.add(i < 2 ? 0d : 1d);
+            }
+            builder.endRow();
+        }
+
+        assertThat(builder.build(), instanceOf(DenseMatrix.class));
+        assertThat(Matrix.fromString("[[0,0],[0,1]]"), instanceOf(DenseMatrix.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void verify_builder_throws_IllegalArgumentException_when_rows_are_jagged() {
+        MatrixBuilder builder = new MatrixBuilder();
+        builder.add(1d);
+        builder.add(2d);
+        builder.endRow();
+        builder.add(3d);
+        builder.endRow();
+    }
+
+    @Test
+    public void verify_toString_matches_dense() {
+        Matrix dense = mostlyZeroes();
+        assertThat(Matrix.buildSparseMatrix(dense).toString(), equalTo(dense.toString()));
+    }
+
+    @Test
+    public void verify_copyRow_matches_dense() {
+        Matrix dense = mostlyZeroes();
+        SparseMatrix sparse = Matrix.buildSparseMatrix(dense);
+        double[] denseRow = new double[N];
+        double[] sparseRow = new double[N];
+
+        for(int i = 0; i < N; i++) {
+            dense.copyRow(i, denseRow);
+            //filled with values from the previous row that must be cleared
+            sparse.copyRow(i, sparseRow);
+            assertArrayEquals(denseRow, sparseRow, 0d);
+        }
+    }
+
+    @Test
+    public void verify_submatrix_matches_dense() {
+        Matrix dense = mostlyZeroes();
+        Matrix block = Matrix.buildSparseMatrix(dense).submatrix(1, N - 1, 2, N);
+
+        assertThat(block, instanceOf(SparseMatrix.class));
+        assertTrue(MatrixAlgebra.isEqual(dense.submatrix(1, N - 1, 2, N), block));
+    }
+
+}
@@ -0,0 +1,86 @@
+package io.github.dgflagg.model;
+
+import io.github.dgflagg.MatrixAlgebra;
+import io.github.dgflagg.exceptions.IndexExceedsSizeException;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks window, row, column and transpose views over the array of a dense matrix
+ */
+public class StridedMatrixTest {
+
+    /**
+     * 3 x 4 matrix with the values 0 to 11 in row-major order
+     */
+    private static DenseMatrix counting() {
+        double[] data = new double[12];
+        for(int k = 0; k < data.length; k++) {
+            data[k] = k;
+        }
+        return Matrix.buildMatrix(3, 4, data);
+    }
+
+    @Test
+    public void verify_window_matches_submatrix() {
+        DenseMatrix matrix = counting();
+
+        StridedMatrix window = matrix.window(1, 3, 1, 3);
+
+        assertTrue(MatrixAlgebra.isEqual(matrix.submatrix(1, 3, 1, 3), window));
+        assertArrayEquals(new double[] {5, 6, 9, 10}, window.toDense().getData(), 0d);
+    }
+
+    @Test
+    public void verify_row_and_column_views() {
+        DenseMatrix matrix = counting();
+
+        assertArrayEquals(new double[] {4, 5, 6, 7}, matrix.rowView(1).toDense().getData(), 0d);
+        assertArrayEquals(new double[] {2, 6, 10}, matrix.columnView(2).toDense().getData(), 0d);
+        assertThat(matrix.columnView(2).getRowCount(), equalTo(3));
+        assertThat(matrix.columnView(2).getColumnCount(), equalTo(1));
+    }
+
+    @Test
+    public void verify_transpose_view() {
+        DenseMatrix matrix = counting();
+
+        StridedMatrix transpose = matrix.transposeView();
+
+        assertThat(transpose.getRowCount(), equalTo(4));
+        assertThat(transpose.getColumnCount(), equalTo(3));
+        for(int i = 0; i < 3; i++) {
+            for(int j = 0; j < 4; j++) {
+                assertThat(transpose.getNumber(j, i), equalTo(matrix.getNumber(i, j)));
+            }
+        }
+
+        //a row of the transpose is a column of the matrix
+        double[] row = new double[3];
+        transpose.copyRow(1, row);
+        assertArrayEquals(new double[] {1, 5, 9}, row, 0d);
+    }
+
+    @Test
+    public void verify_views_of_views_share_the_array() {
+        DenseMatrix matrix = counting();
+
+        StridedMatrix value = matrix.transposeView().window(1, 3, 1, 3).column(1);
+
+        //rows 1 and 2 of column 2 of the transpose are column 1 and 2 of row 2 of the matrix
+        assertArrayEquals(new double[] {9, 10}, value.toDense().getData(), 0d);
+
+        matrix.getData()[9] = -1;
+        assertThat(value.getNumber(0, 0), equalTo(-1d));
+    }
+
+    @Test(expected = IndexExceedsSizeException.class)
+    public void verify_window_throws_IndexExceedsSizeException_when_outside_view() {
+        counting().rowView(0).window(0, 2, 0, 1);
+    }
+
+}
@@ -0,0 +1,120 @@
+package io.github.dgflagg.model;
+
+import io.github.dgflagg.MatrixAlgebra;
+import io.github.dgflagg.exceptions.ColumnsMustEqualRowsException;
+import io.github.dgflagg.exceptions.IndexExceedsSizeException;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the matrices that only store what their structure needs
+ */
+public class StructuredMatrixTest {
+
+    private static final DenseMatrix MATRIX = Matrix.buildMatrix(4, 4, new double[] {
+            1, 2, 3, 4,
+            5, 6, 7, 8,
+            9, 10, 11, 12,
+            13, 14, 15, 16});
+
+    @Test
+    public void verify_identity_and_value_matrices_are_not_materialized() {
+        Matrix identity = Matrix.buildIdentityMatrix(50000);
+        Matrix value = Matrix.buildValueMatrix(50000, 40000, 2.5);
+
+        assertThat(identity, instanceOf(IdentityMatrix.class));
+        assertThat(identity.getNumber(49999, 49999), equalTo(1d));
+        assertThat(identity.getNumber(49999, 0), equalTo(0d));
+        assertThat(value, instanceOf(ConstantMatrix.class));
+        assertThat(value.getNumber(12345, 39999), equalTo(2.5));
+    }
+
+    @Test
+    public void verify_diagonal_matrix() {
+        DiagonalMatrix diagonal = Matrix.buildDiagonalMatrix(new double[] {1, 2, 3});
+
+        assertArrayEquals(new double[] {1, 0, 0, 0, 2, 0, 0, 0, 3}, diagonal.toDense().getData(), 0d);
+
+        double[] row = new double[] {9, 9, 9};
+        diagonal.copyRow(1, row);
+        assertArrayEquals(new double[] {0, 2, 0}, row, 0d);
+    }
+
+    @Test
+    public void verify_triangular_matrices_keep_one_half() {
+        TriangularMatrix lower = Matrix.buildLowerTriangularMatrix(MATRIX);
+        TriangularMatrix upper = Matrix.buildUpperTriangularMatrix(MATRIX);
+
+        assertThat(lower.getValues().length, equalTo(10));
+        assertArrayEquals(new double[] {1, 5, 6, 9, 10, 11, 13, 14, 15, 16}, lower.getValues(), 0d);
+        assertArrayEquals(new double[] {1, 2, 3, 4, 6, 7, 8, 11, 12, 16}, upper.getValues(), 0d);
+
+        assertArrayEquals(new double[] {
+                1, 0, 0, 0,
+                5, 6, 0, 0,
+                9, 10, 11, 0,
+                13, 14, 15, 16}, lower.toDense().getData(), 0d);
+        assertArrayEquals(new double[] {
+                1, 2, 3, 4,
+                0, 6, 7, 8,
+                0, 0, 11, 12,
+                0, 0, 0, 16}, upper.toDense().getData(), 0d);
+
+        assertTrue(MatrixAlgebra.isEqual(MATRIX, MatrixAlgebra.add(lower, MatrixAlgebra.subtract(upper,
+                Matrix.buildDiagonalMatrix(new double[] {1, 6, 11, 16})))));
+    }
+
+    @Test(expected = ColumnsMustEqualRowsException.class)
+    public void verify_triangular_matrix_throws_ColumnsMustEqualRowsException_when_not_square() {
+        Matrix.buildLowerTriangularMatrix(Matrix.buildMatrix(2, 3, new double[6]));
+    }
+
+    @Test
+    public void verify_banded_matrix_keeps_the_band() {
+        BandedMatrix tridiagonal = Matrix.buildBandedMatrix(MATRIX, 1, 1);
+
+        assertThat(tridiagonal.getValues().length, equalTo(12));
+        assertArrayEquals(new double[] {
+                1, 2, 0, 0,
+                5, 6, 7, 0,
+                0, 10, 11, 12,
+                0, 0, 15, 16}, tridiagonal.toDense().getData(), 0d);
+        assertThat(tridiagonal.getNumber(3, 1), equalTo(0d));
+        assertThat(tridiagonal.getNumber(3, 2), equalTo(15d));
+
+        //more rows than columns - the last rows store nothing
+        BandedMatrix tall = Matrix.buildBandedMatrix(Matrix.buildValueMatrix(6, 3, 1), 1, 0);
+        assertArrayEquals(new double[] {1, 0, 0, 1, 1, 0, 0, 1, 1, 0, 0, 1, 0, 0, 0, 0, 0, 0},
+                tall.toDense().getData(), 0d);
+    }
+
+    @Test
+    public void verify_submatrix_of_structured_matrices() {
+        Matrix block = Matrix.buildIdentityMatrix(5).submatrix(1, 3, 0, 3);
+
+        assertArrayEquals(new double[] {0, 1, 0, 0, 0, 1}, block.toDense().getData(), 0d);
+        assertTrue(MatrixAlgebra.isEqual(MATRIX.submatrix(1, 4, 1, 3),
+                Matrix.buildBandedMatrix(MATRIX, 3, 3).submatrix(1, 4, 1, 3)));
+    }
+
+    @Test(expected = IndexExceedsSizeException.class)
+    public void verify_identity_toDense_throws_IndexExceedsSizeException_when_values_do_not_fit_in_an_array() {
+        Matrix.buildIdentityMatrix(50000).toDense();
+    }
+
+    @Test(expected = IndexExceedsSizeException.class)
+    public void verify_value_toDense_throws_IndexExceedsSizeException_when_values_do_not_fit_in_an_array() {
+        Matrix.buildValueMatrix(50000, 50000, 2.5).toDense();
+    }
+
+    @Test(expected = IndexExceedsSizeException.class)
+    public void verify_range_toDense_throws_IndexExceedsSizeException_when_values_do_not_fit_in_an_array() {
+        Matrix.buildDiagonalMatrix(new double[50000]).toDense();
+    }
+
+}
@@ -0,0 +1,49 @@
+package io.github.dgflagg.model;
+
+import io.github.dgflagg.exceptions.DimensionsNotSimilarException;
+import io.github.dgflagg.exceptions.IndexExceedsSizeException;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Checks vectors are built from and viewed as matrices without copying
+ */
+public class VectorTest {
+
+    @Test
+    public void verify_fromString_and_toString() {
+        Vector v = Vector.fromString("[1, 2.5, -3]");
+
+        assertThat(v.getLength(), equalTo(3));
+        assertThat(v.get(1), equalTo(2.5));
+        assertThat(v.toString(), equalTo("[1.0,2.5,-3.0]"));
+        assertThat(v.toList(), equalTo(Arrays.asList(1d, 2.5, -3d)));
+    }
+
+    @Test
+    public void verify_single_row_or_column_shares_values() {
+        DenseMatrix column = Matrix.buildMatrix(3, 1, new double[] {1, 2, 3});
+
+        Vector v = Vector.buildVector(column);
+
+        assertThat(v.getValues(), sameInstance(column.getData()));
+        assertThat(v.toRow().getData(), sameInstance(column.getData()));
+        assertThat(v, equalTo(Vector.buildVector(Arrays.asList(1d, 2d, 3d))));
+    }
+
+    @Test(expected = DimensionsNotSimilarException.class)
+    public void verify_buildVector_throws_DimensionsNotSimilarException_for_matrix() {
+        Vector.buildVector(Matrix.buildIdentityMatrix(2));
+    }
+
+    @Test(expected = IndexExceedsSizeException.class)
+    public void verify_get_throws_IndexExceedsSizeException() {
+        Vector.buildVector(1, 2).get(2);
+    }
+
+}
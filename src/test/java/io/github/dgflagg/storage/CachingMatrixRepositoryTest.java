@@ -0,0 +1,205 @@
+package io.github.dgflagg.storage;
+
+import io.github.dgflagg.exceptions.MatrixNotFoundException;
+import io.github.dgflagg.io.MatrixFile;
+import io.github.dgflagg.model.DenseMatrix;
+import io.github.dgflagg.model.MappedMatrix;
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.MatrixUpdate;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.DoubleBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Checks the byte bounded least recently used cache in front of another repository
+ */
+public class CachingMatrixRepositoryTest {
+
+    /**
+     * Bytes taken by a 10 x 10 dense matrix
+     */
+    private static final long MATRIX_BYTES = MatrixFile.byteCount(Matrix.buildIdentityMatrix(10));
+
+    private Map<String, Matrix> stored;
+    private int findCount;
+    private Runnable duringFind;
+    private Runnable duringSave;
+    private CachingMatrixRepository repository;
+
+    @Before
+    public void setup() {
+        this.stored = new HashMap<>();
+        this.findCount = 0;
+
+        MatrixRepository backing = new MatrixRepository() {
+            @Override
+            public void save(String name, Matrix matrix) {
+                stored.put(name, matrix);
+                if(duringSave != null) {
+                    Runnable action = duringSave;
+                    duringSave = null;
+                    action.run();
+                }
+            }
+
+            @Override
+            public Matrix find(String name) {
+                findCount++;
+                Matrix matrix = stored.get(name);
+                if(matrix == null) {
+                    throw new MatrixNotFoundException(name);
+                }
+                if(duringFind != null) {
+                    Runnable action = duringFind;
+                    duringFind = null;
+                    action.run();
+                }
+                return matrix;
+            }
+        };
+
+        //room for three 10 x 10 matrices
+        this.repository = new CachingMatrixRepository(backing, MATRIX_BYTES * 3);
+    }
+
+    @Test
+    public void verify_save_writes_through_and_caches() {
+        Matrix matrix = Matrix.buildIdentityMatrix(10);
+
+        this.repository.save("a", matrix);
+
+        assertThat(this.stored.get("a"), sameInstance(matrix));
+        assertThat(this.repository.find("a"), sameInstance(matrix));
+        assertThat(this.findCount, equalTo(0));
+        assertThat(this.repository.getStatistics().getHitCount(), equalTo(1L));
+    }
+
+    @Test
+    public void verify_find_caches_misses() {
+        this.stored.put("a", Matrix.buildIdentityMatrix(10));
+
+        this.repository.find("a");
+        this.repository.find("a");
+        this.repository.find("a");
+
+        CacheStatistics statistics = this.repository.getStatistics();
+        assertThat(this.findCount, equalTo(1));
+        assertThat(statistics.getMissCount(), equalTo(1L));
+        assertThat(statistics.getHitCount(), equalTo(2L));
+        assertThat(statistics.getByteCount(), equalTo(MATRIX_BYTES));
+    }
+
+    @Test
+    public void verify_least_recently_used_is_evicted_by_bytes() {
+        this.repository.save("a", Matrix.buildIdentityMatrix(10));
+        this.repository.save("b", Matrix.buildIdentityMatrix(10));
+        this.repository.save("c", Matrix.buildIdentityMatrix(10));
+
+        //a is now the most recently used so b goes first
+        this.repository.find("a");
+        this.repository.save("d", Matrix.buildIdentityMatrix(10));
+
+        this.repository.find("a");
+        this.repository.find("c");
+        this.repository.find("d");
+        assertThat(this.findCount, equalTo(0));
+
+        this.repository.find("b");
+        assertThat(this.findCount, equalTo(1));
+
+        CacheStatistics statistics = this.repository.getStatistics();
+        assertThat(statistics.getEvictionCount(), equalTo(2L));
+        assertThat(statistics.getEntryCount(), equalTo(3));
+        assertThat(statistics.getByteCount(), equalTo(MATRIX_BYTES * 3));
+    }
+
+    @Test
+    public void verify_matrix_larger_than_cache_is_not_cached() {
+        this.repository.save("big", Matrix.buildIdentityMatrix(20));
+
+        this.repository.find("big");
+
+        assertThat(this.findCount, equalTo(1));
+        assertThat(this.repository.getStatistics().getEntryCount(), equalTo(0));
+    }
+
+    @Test
+    public void verify_find_copies_matrices_that_are_not_on_the_heap() {
+        Matrix matrix = Matrix.buildIdentityMatrix(10);
+        this.stored.put("a", new MappedMatrix(10, 10, 10,
+                new DoubleBuffer[]{DoubleBuffer.wrap(matrix.toDense().getData())}));
+
+        assertThat(this.repository.find("a"), instanceOf(DenseMatrix.class));
+    }
+
+    @Test(expected = MatrixNotFoundException.class)
+    public void verify_find_throws_MatrixNotFoundException_when_nothing_is_saved() {
+        this.repository.find("missing");
+    }
+
+    @Test
+    public void verify_update_drops_cached_matrix() {
+        this.repository.save("a", Matrix.buildIdentityMatrix(10));
+
+        MatrixUpdate update = new MatrixUpdate();
+        update.getCells().add(new MatrixUpdate.Cell(0, 9, 3));
+        this.repository.update("a", update);
+
+        assertThat(this.repository.find("a").getNumber(0, 9), equalTo(3d));
+        assertThat(this.repository.getStatistics().getEntryCount(), equalTo(1));
+    }
+    @Test
+    public void verify_save_while_loading_is_not_overwritten_by_old_matrix() {
+        Matrix newer = Matrix.buildMatrix(1, 1, new double[] {2});
+        this.stored.put("m", Matrix.buildMatrix(1, 1, new double[] {1}));
+
+        this.duringFind = () -> this.repository.save("m", newer);
+        this.repository.find("m");
+
+        assertThat(this.repository.find("m"), sameInstance(newer));
+    }
+
+    @Test
+    public void verify_update_while_loading_keeps_old_matrix_out_of_cache() {
+        this.stored.put("m", Matrix.buildMatrix(1, 1, new double[] {1}));
+
+        MatrixUpdate update = new MatrixUpdate();
+        update.getCells().add(new MatrixUpdate.Cell(0, 0, 3));
+
+        this.duringFind = () -> this.repository.update("m", update);
+        this.repository.find("m");
+
+        assertThat(this.repository.find("m").getNumber(0, 0), equalTo(3d));
+    }
+
+    @Test
+    public void verify_concurrent_saves_leave_cache_matching_storage() throws InterruptedException {
+        Matrix first = Matrix.buildMatrix(1, 1, new double[] {1});
+        Matrix second = Matrix.buildMatrix(1, 1, new double[] {2});
+
+        //the second save starts while the first is being written and gets as long as it needs to finish if it can
+        Thread other = new Thread(() -> this.repository.save("m", second));
+        this.duringSave = () -> {
+            other.start();
+            try {
+                other.join(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        this.repository.save("m", first);
+        other.join();
+
+        assertThat(this.repository.find("m"), sameInstance(this.stored.get("m")));
+    }
+
+}
@@ -0,0 +1,139 @@
+package io.github.dgflagg.storage;
+
+import io.github.dgflagg.decomposition.CholeskyDecomposition;
+import io.github.dgflagg.decomposition.Factorization;
+import io.github.dgflagg.decomposition.LUDecomposition;
+import io.github.dgflagg.exceptions.MatrixNotFoundException;
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.MatrixUpdate;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Checks factorizations of saved matrices are reused until the matrix is saved again
+ */
+public class FactorizationCacheTest {
+
+    /**
+     * Bytes taken by the LU decomposition of a 2 x 2 matrix
+     */
+    private static final long LU_BYTES = 2 * 2 * Double.BYTES + 2 * Integer.BYTES;
+
+    private Map<String, Matrix> stored;
+    private int findCount;
+    private FactorizationCache repository;
+
+    @Before
+    public void setup() {
+        this.stored = new HashMap<>();
+        this.findCount = 0;
+
+        MatrixRepository backing = new MatrixRepository() {
+            @Override
+            public void save(String name, Matrix matrix) {
+                stored.put(name, matrix);
+            }
+
+            @Override
+            public Matrix find(String name) {
+                findCount++;
+                Matrix matrix = stored.get(name);
+                if(matrix == null) {
+                    throw new MatrixNotFoundException(name);
+                }
+                return matrix;
+            }
+        };
+
+        //room for two LU decompositions of 2 x 2 matrices
+        this.repository = new FactorizationCache(backing, LU_BYTES * 2);
+    }
+
+    @Test
+    public void verify_factorization_is_reused() {
+        this.repository.save("a", Matrix.buildMatrix(2, 2, new double[] {1, 1, 1, -1}));
+
+        Factorization first = this.repository.factorize("a");
+        Matrix x = this.repository.solve("a", Matrix.buildMatrix(2, 1, new double[] {10, 2}));
+
+        assertThat(this.repository.factorize("a"), sameInstance(first));
+        assertThat(this.findCount, equalTo(1));
+        assertThat(this.repository.getStatistics().getHitCount(), equalTo(2L));
+        assertThat(this.repository.getStatistics().getMissCount(), equalTo(1L));
+        assertArrayEquals(new double[] {6, 4}, x.toDense().getData(), 1e-12);
+    }
+
+    @Test
+    public void verify_symmetric_positive_definite_matrix_uses_cholesky() {
+        this.repository.save("spd", Matrix.buildMatrix(2, 2, new double[] {4, 2, 2, 3}));
+        this.repository.save("symmetric", Matrix.buildMatrix(2, 2, new double[] {1, 2, 2, 1}));
+
+        assertThat(this.repository.factorize("spd"), instanceOf(CholeskyDecomposition.class));
+        assertThat(this.repository.factorize("symmetric"), instanceOf(LUDecomposition.class));
+    }
+
+    @Test
+    public void verify_save_invalidates_factorization() {
+        this.repository.save("a", Matrix.buildMatrix(2, 2, new double[] {1, 1, 1, -1}));
+        Factorization first = this.repository.factorize("a");
+
+        this.repository.save("a", Matrix.buildMatrix(2, 2, new double[] {2, 0, 0, 2}));
+        Factorization second = this.repository.factorize("a");
+
+        assertThat(second, not(sameInstance(first)));
+        assertThat(this.repository.getStatistics().getEntryCount(), equalTo(1));
+        assertArrayEquals(new double[] {5, 1},
+                second.solve(Matrix.buildMatrix(2, 1, new double[] {10, 2})).toDense().getData(), 1e-12);
+    }
+
+    @Test
+    public void verify_update_invalidates_factorization() {
+        this.repository.save("a", Matrix.buildMatrix(2, 2, new double[] {1, 1, 1, -1}));
+        this.repository.factorize("a");
+
+        MatrixUpdate update = new MatrixUpdate();
+        update.getCells().add(new MatrixUpdate.Cell(1, 1, 1));
+        update.getCells().add(new MatrixUpdate.Cell(1, 0, 0));
+        this.repository.update("a", update);
+
+        assertArrayEquals(new double[] {8, 2},
+                this.repository.solve("a", Matrix.buildMatrix(2, 1, new double[] {10, 2})).toDense().getData(), 1e-12);
+    }
+
+    @Test
+    public void verify_least_recently_used_factorization_is_evicted() {
+        this.repository.save("a", Matrix.buildMatrix(2, 2, new double[] {1, 1, 1, -1}));
+        this.repository.save("b", Matrix.buildMatrix(2, 2, new double[] {1, 2, 3, 4}));
+        this.repository.save("c", Matrix.buildMatrix(2, 2, new double[] {0, 1, 1, 1}));
+
+        this.repository.factorize("a");
+        this.repository.factorize("b");
+        this.repository.factorize("a");
+        this.repository.factorize("c");
+
+        CacheStatistics statistics = this.repository.getStatistics();
+        assertThat(statistics.getEvictionCount(), equalTo(1L));
+        assertThat(statistics.getByteCount(), equalTo(LU_BYTES * 2));
+
+        //b was least recently used
+        this.repository.factorize("a");
+        this.repository.factorize("b");
+        assertThat(this.findCount, equalTo(4));
+    }
+
+    @Test(expected = MatrixNotFoundException.class)
+    public void verify_factorize_throws_MatrixNotFoundException_when_missing() {
+        this.repository.factorize("missing");
+    }
+
+}
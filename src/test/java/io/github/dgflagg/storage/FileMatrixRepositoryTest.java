@@ -0,0 +1,139 @@
+package io.github.dgflagg.storage;
+
+import io.github.dgflagg.MatrixAlgebra;
+import io.github.dgflagg.exceptions.MatrixChangedException;
+import io.github.dgflagg.exceptions.MatrixNotFoundException;
+import io.github.dgflagg.io.MatrixFile;
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.MatrixUpdate;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks saving and finding matrices as files in a directory
+ */
+public class FileMatrixRepositoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileMatrixRepository repository;
+
+    @Before
+    public void setup() {
+        this.repository = new FileMatrixRepository(this.folder.getRoot().toPath());
+    }
+
+    @Test
+    public void verify_save_and_find() {
+        Matrix matrix = Matrix.csv("src/test/resources/3x3-matrix.csv");
+
+        this.repository.save("m", matrix);
+        Matrix found = this.repository.find("m");
+
+        assertThat(found.getName(), equalTo("m"));
+        assertTrue(MatrixAlgebra.isEqual(matrix, found));
+    }
+
+    @Test
+    public void verify_save_replaces_matrix() {
+        this.repository.save("m", Matrix.buildIdentityMatrix(3));
+        this.repository.save("m", Matrix.buildIdentityMatrix(2));
+
+        assertThat(this.repository.find("m").getRowCount(), equalTo(2));
+    }
+
+    @Test
+    public void verify_save_does_not_change_matrices_already_found() throws IOException {
+        Matrix first = Matrix.buildMatrix(2, 2, new double[] {1, 2, 3, 4});
+        this.repository.save("m", first);
+        Matrix found = this.repository.find("m");
+
+        //smaller then the same size - neither may reach the values that were already mapped
+        this.repository.save("m", Matrix.buildIdentityMatrix(1));
+        assertTrue(MatrixAlgebra.isEqual(first, found));
+
+        this.repository.save("m", Matrix.buildMatrix(2, 2, new double[] {5, 6, 7, 8}));
+        assertTrue(MatrixAlgebra.isEqual(first, found));
+
+        assertThat(this.repository.find("m").getNumber(1, 1), equalTo(8d));
+        assertThat(Files.list(this.folder.getRoot().toPath()).count(), equalTo(1L));
+    }
+
+    @Test
+    public void verify_find_reads_csv_file_when_there_is_no_binary_file() throws IOException {
+        Files.copy(Paths.get("src/test/resources/2x4-matrix.csv"), this.folder.getRoot().toPath().resolve("old.csv"));
+
+        Matrix found = this.repository.find("old");
+
+        assertThat(found.getName(), equalTo("old"));
+        assertTrue(MatrixAlgebra.isEqual(Matrix.csv("src/test/resources/2x4-matrix.csv"), found));
+    }
+
+    @Test(expected = MatrixNotFoundException.class)
+    public void verify_find_throws_MatrixNotFoundException_when_nothing_is_saved() {
+        this.repository.find("missing");
+    }
+
+    @Test
+    public void verify_update_changes_values_of_binary_file() {
+        Matrix matrix = Matrix.buildIdentityMatrix(3);
+        this.repository.save("m", matrix);
+
+        MatrixUpdate update = new MatrixUpdate();
+        update.getRows().add(new MatrixUpdate.Line(2, new double[] {4, 5, 6}));
+        this.repository.update("m", update);
+
+        assertTrue(MatrixAlgebra.isEqual(update.apply(matrix), this.repository.find("m")));
+    }
+
+    @Test(expected = MatrixChangedException.class)
+    public void verify_update_in_place_fails_reads_of_matrices_already_found() {
+        Matrix matrix = Matrix.buildMatrix(2, 2, new double[] {1, 2, 3, 4});
+        this.repository.save("m", matrix);
+        Matrix found = this.repository.find("m");
+
+        MatrixUpdate update = new MatrixUpdate();
+        update.getCells().add(new MatrixUpdate.Cell(0, 0, 42));
+        this.repository.update("m", update);
+
+        assertThat(this.repository.find("m").getNumber(0, 0), equalTo(42d));
+        found.getNumber(1, 1);
+    }
+
+    @Test
+    public void verify_update_in_place_does_not_fail_matrices_of_replaced_file() {
+        Matrix matrix = Matrix.buildMatrix(2, 2, new double[] {1, 2, 3, 4});
+        this.repository.save("m", matrix);
+        Matrix found = this.repository.find("m");
+        this.repository.save("m", Matrix.buildIdentityMatrix(2));
+
+        MatrixUpdate update = new MatrixUpdate();
+        update.getCells().add(new MatrixUpdate.Cell(0, 0, 42));
+        this.repository.update("m", update);
+
+        assertTrue(MatrixAlgebra.isEqual(matrix, found));
+    }
+
+    @Test
+    public void verify_update_saves_csv_matrix_as_binary_file() throws IOException {
+        Files.copy(Paths.get("src/test/resources/2x4-matrix.csv"), this.folder.getRoot().toPath().resolve("old.csv"));
+
+        MatrixUpdate update = new MatrixUpdate();
+        update.getCells().add(new MatrixUpdate.Cell(1, 3, 42));
+        this.repository.update("old", update);
+
+        assertTrue(Files.exists(this.folder.getRoot().toPath().resolve("old" + MatrixFile.FILE_EXTENSION)));
+        assertThat(this.repository.find("old").getNumber(1, 3), equalTo(42d));
+    }
+}
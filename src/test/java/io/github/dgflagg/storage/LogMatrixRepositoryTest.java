@@ -0,0 +1,265 @@
+package io.github.dgflagg.storage;
+
+import io.github.dgflagg.MatrixAlgebra;
+import io.github.dgflagg.exceptions.MatrixNotFoundException;
+import io.github.dgflagg.io.MatrixFile;
+import io.github.dgflagg.model.Matrix;
+import io.github.dgflagg.model.MatrixUpdate;
+import io.github.dgflagg.model.SparseMatrix;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks saving, finding, recovering and compacting matrices in an append-only log
+ */
+public class LogMatrixRepositoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+    private LogMatrixRepository repository;
+
+    @Before
+    public void setup() {
+        this.directory = this.folder.getRoot().toPath();
+        this.repository = new LogMatrixRepository(this.directory, 4096);
+    }
+
+    @After
+    public void teardown() {
+        this.repository.close();
+    }
+
+    @Test
+    public void verify_save_and_find() {
+        Matrix matrix = Matrix.csv("src/test/resources/3x3-matrix.csv");
+
+        this.repository.save("m", matrix);
+        Matrix found = this.repository.find("m");
+
+        assertThat(found.getName(), equalTo("m"));
+        assertTrue(MatrixAlgebra.isEqual(matrix, found));
+    }
+
+    @Test
+    public void verify_save_and_find_sparse_matrix() {
+        Matrix matrix = Matrix.buildSparseMatrix(Matrix.buildIdentityMatrix(20));
+
+        this.repository.save("sparse", matrix);
+        Matrix found = this.repository.find("sparse");
+
+        assertThat(found, instanceOf(SparseMatrix.class));
+        assertTrue(MatrixAlgebra.isEqual(matrix, found));
+    }
+
+    @Test
+    public void verify_save_replaces_matrix() {
+        this.repository.save("m", Matrix.buildIdentityMatrix(3));
+        this.repository.save("m", Matrix.buildIdentityMatrix(2));
+
+        assertThat(this.repository.find("m").getRowCount(), equalTo(2));
+        assertThat(this.repository.getMatrixCount(), equalTo(1));
+    }
+
+    @Test(expected = MatrixNotFoundException.class)
+    public void verify_find_throws_when_nothing_is_saved() {
+        this.repository.find("missing");
+    }
+
+    @Test
+    public void verify_reopening_replays_the_log() {
+        this.repository.save("a", Matrix.buildIdentityMatrix(3));
+        this.repository.save("b", Matrix.csv("src/test/resources/2x4-matrix.csv"));
+        this.repository.save("a", Matrix.buildIdentityMatrix(4));
+        this.repository.close();
+
+        this.repository = new LogMatrixRepository(this.directory, 4096);
+
+        assertThat(this.repository.getMatrixCount(), equalTo(2));
+        assertTrue(MatrixAlgebra.isEqual(Matrix.buildIdentityMatrix(4), this.repository.find("a")));
+        assertTrue(MatrixAlgebra.isEqual(Matrix.csv("src/test/resources/2x4-matrix.csv"), this.repository.find("b")));
+    }
+
+    @Test
+    public void verify_torn_record_is_discarded_on_reopening() throws IOException {
+        this.repository.save("a", Matrix.buildIdentityMatrix(3));
+        long committed = this.repository.getByteCount();
+        this.repository.save("b", Matrix.buildIdentityMatrix(3));
+        this.repository.close();
+
+        //cut the last record short as if the process died while writing it
+        Path segment = this.directory.resolve("segment-00000001.log");
+        try(FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(committed + 40);
+        }
+
+        this.repository = new LogMatrixRepository(this.directory, 4096);
+
+        assertThat(this.repository.getMatrixCount(), equalTo(1));
+        assertThat(this.repository.getByteCount(), equalTo(committed));
+        assertTrue(MatrixAlgebra.isEqual(Matrix.buildIdentityMatrix(3), this.repository.find("a")));
+
+        //the log keeps working after the torn record
+        this.repository.save("b", Matrix.buildIdentityMatrix(2));
+        assertThat(this.repository.find("b").getRowCount(), equalTo(2));
+    }
+
+    @Test
+    public void verify_corrupt_record_is_discarded_on_reopening() throws IOException {
+        this.repository.save("a", Matrix.buildIdentityMatrix(3));
+        long committed = this.repository.getByteCount();
+        this.repository.save("b", Matrix.buildIdentityMatrix(3));
+        this.repository.close();
+
+        //flip a value of the last record
+        Path segment = this.directory.resolve("segment-00000001.log");
+        try(FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3}), committed + 64);
+        }
+
+        this.repository = new LogMatrixRepository(this.directory, 4096);
+
+        assertThat(this.repository.getMatrixCount(), equalTo(1));
+        assertThat(this.repository.getByteCount(), equalTo(committed));
+    }
+
+    @Test
+    public void verify_compaction_drops_replaced_matrices() {
+        //each save is larger than a segment so every save after the first starts a new one
+        for(int i = 0; i < 10; i++) {
+            this.repository.save("a", Matrix.buildValueMatrix(30, 30, i));
+            this.repository.save("b", Matrix.buildIdentityMatrix(25));
+        }
+
+        long before = this.repository.getByteCount();
+        this.repository.compact();
+
+        assertThat(this.repository.getByteCount(), equalTo(this.repository.getLiveByteCount()));
+        assertTrue(this.repository.getByteCount() < before);
+        assertThat(this.repository.getMatrixCount(), equalTo(2));
+        assertTrue(MatrixAlgebra.isEqual(Matrix.buildValueMatrix(30, 30, 9), this.repository.find("a")));
+        assertTrue(MatrixAlgebra.isEqual(Matrix.buildIdentityMatrix(25), this.repository.find("b")));
+    }
+
+    @Test
+    public void verify_compacted_log_survives_reopening() {
+        for(int i = 0; i < 5; i++) {
+            this.repository.save("a", Matrix.buildValueMatrix(30, 30, i));
+        }
+        this.repository.compact();
+        this.repository.close();
+
+        this.repository = new LogMatrixRepository(this.directory, 4096);
+
+        assertThat(this.repository.getMatrixCount(), equalTo(1));
+        assertTrue(MatrixAlgebra.isEqual(Matrix.buildValueMatrix(30, 30, 4), this.repository.find("a")));
+    }
+
+    @Test
+    public void verify_segments_are_compacted_when_mostly_garbage() {
+        for(int i = 0; i < 20; i++) {
+            this.repository.save("a", Matrix.buildValueMatrix(30, 30, i));
+        }
+
+        //without compaction every save would still have its own segment
+        assertTrue(this.repository.getSegmentCount() < 20);
+        assertTrue(this.repository.getByteCount() <= 2 * this.repository.getLiveByteCount() + 4096);
+    }
+
+    @Test
+    public void verify_find_block_reads_only_the_block() {
+        Matrix matrix = Matrix.csv("src/test/resources/B.csv");
+        this.repository.save("b", matrix);
+
+        Matrix block = this.repository.find("b", 1, 3, 0, Integer.MAX_VALUE);
+
+        assertThat(block.getName(), equalTo("b"));
+        assertTrue(MatrixAlgebra.isEqual(matrix.submatrix(1, 3, 0, matrix.getColumnCount()), block));
+    }
+
+    @Test
+    public void verify_update_appends_only_the_changes() {
+        Matrix matrix = Matrix.buildValueMatrix(30, 30, 1);
+        this.repository.save("a", matrix);
+        long before = this.repository.getByteCount();
+
+        MatrixUpdate update = new MatrixUpdate();
+        update.getCells().add(new MatrixUpdate.Cell(29, 29, 7));
+        update.getColumns().add(new MatrixUpdate.Line(0, new double[30]));
+        this.repository.update("a", update);
+
+        assertTrue(this.repository.getByteCount() - before < MatrixFile.byteCount(matrix));
+        assertTrue(MatrixAlgebra.isEqual(update.apply(matrix), this.repository.find("a")));
+        assertTrue(MatrixAlgebra.isEqual(update.apply(matrix).submatrix(20, 30, 0, 30),
+                this.repository.find("a", 20, 30, 0, 30)));
+    }
+
+    @Test
+    public void verify_updates_survive_reopening() {
+        this.repository.save("a", Matrix.buildIdentityMatrix(3));
+
+        MatrixUpdate update = new MatrixUpdate();
+        update.getRows().add(new MatrixUpdate.Line(1, new double[] {1, 2, 3}));
+        this.repository.update("a", update);
+        this.repository.close();
+
+        this.repository = new LogMatrixRepository(this.directory, 4096);
+
+        assertTrue(MatrixAlgebra.isEqual(update.apply(Matrix.buildIdentityMatrix(3)), this.repository.find("a")));
+    }
+
+    @Test
+    public void verify_many_updates_are_folded_into_the_matrix() {
+        this.repository.close();
+        this.repository = new LogMatrixRepository(this.directory.resolve("large"), 1 << 20);
+        Matrix expected = Matrix.buildIdentityMatrix(5);
+        this.repository.save("a", expected);
+
+        for(int k = 0; k < LogMatrixRepository.MAXIMUM_DELTAS * 2; k++) {
+            MatrixUpdate update = new MatrixUpdate();
+            update.getCells().add(new MatrixUpdate.Cell(k % 5, (k * 3) % 5, k));
+            this.repository.update("a", update);
+            expected = update.apply(expected);
+        }
+
+        assertTrue(MatrixAlgebra.isEqual(expected, this.repository.find("a")));
+
+        //folding dropped the changes and their matrix so only the latest record and a few changes are live
+        assertTrue(this.repository.getLiveByteCount() < 2 * MatrixFile.byteCount(expected));
+    }
+
+    @Test
+    public void verify_compaction_folds_updates() {
+        Matrix matrix = Matrix.buildValueMatrix(30, 30, 1);
+        this.repository.save("a", matrix);
+
+        MatrixUpdate update = new MatrixUpdate();
+        update.getCells().add(new MatrixUpdate.Cell(3, 4, 5));
+        this.repository.update("a", update);
+
+        //start a new segment so the record and its changes are in full segments
+        this.repository.save("b", Matrix.buildValueMatrix(30, 30, 2));
+        this.repository.compact();
+        this.repository.close();
+
+        this.repository = new LogMatrixRepository(this.directory, 4096);
+
+        assertTrue(MatrixAlgebra.isEqual(update.apply(matrix), this.repository.find("a")));
+        assertThat(this.repository.getByteCount(), equalTo(this.repository.getLiveByteCount()));
+    }
+}